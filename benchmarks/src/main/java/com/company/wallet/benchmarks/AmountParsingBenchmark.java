@@ -0,0 +1,86 @@
+package com.company.wallet.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.service.TransactionServiceImpl;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Amount parsing and request validation, without any database access.
+ *
+ * @author Vinay Singh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Thread)
+public class AmountParsingBenchmark {
+	private static final int AMOUNTS = 1024;
+
+	private String[] amounts;
+	private int next;
+
+	private final Validator validator = new Validator();
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		// fixed seed, every run parses the same amounts
+		Random random = new Random(42);
+		amounts = new String[AMOUNTS];
+		for (int i = 0; i < AMOUNTS; i++) {
+			amounts[i] = random.nextInt(100000) + "." + String.format("%02d", random.nextInt(100));
+		}
+	}
+
+	private String nextAmount() {
+		next = (next + 1) & (AMOUNTS - 1);
+		return amounts[next];
+	}
+
+	@Benchmark
+	public BigDecimal parseBigDecimal() {
+		return new BigDecimal(nextAmount());
+	}
+
+	@Benchmark
+	public Money parseAmount() throws WalletException {
+		return validator.parse(nextAmount());
+	}
+
+	@Benchmark
+	public TransactionType validate() throws WalletException {
+		return validator.check("transaction-1", "player-1", "DEBIT", nextAmount());
+	}
+
+	/**
+	 * Exposes the validation of {@link TransactionServiceImpl}, no beans are injected.
+	 */
+	static class Validator extends TransactionServiceImpl {
+		TransactionType check(String transactionId, String playerId, String transactionType, String amount)
+				throws WalletException {
+			return validate(transactionId, playerId, transactionType, amount);
+		}
+
+		Money parse(String amount) throws WalletException {
+			return parseAmount(amount);
+		}
+	}
+}
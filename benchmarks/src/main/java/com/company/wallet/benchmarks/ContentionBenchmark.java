@@ -0,0 +1,83 @@
+package com.company.wallet.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.exception.handler.WalletException;
+
+/**
+ * Concurrent transactions on one wallet (every caller contends on the same row)
+ * compared to the same load spread over many wallets.
+ *
+ * @author Vinay Singh
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@Threads(8)
+@State(Scope.Benchmark)
+public class ContentionBenchmark {
+	private static final String PLAYER_PREFIX = "contention-player";
+
+	/** 1 = single contended wallet, otherwise callers are spread over this many wallets */
+	@Param({ "1", "64" })
+	private int wallets;
+
+	private final AtomicInteger callers = new AtomicInteger();
+
+	@Setup(Level.Trial)
+	public void setUp(WalletContext context) throws WalletException {
+		context.createWallets(PLAYER_PREFIX, wallets);
+	}
+
+	@State(Scope.Thread)
+	public static class Caller {
+		private String[] playerIds;
+		private int next;
+
+		@Setup(Level.Trial)
+		public void setUp(ContentionBenchmark benchmark) {
+			// every caller walks the wallets from a different start, so load is spread evenly
+			playerIds = new String[benchmark.wallets];
+			int start = benchmark.callers.getAndIncrement();
+			for (int i = 0; i < playerIds.length; i++) {
+				playerIds[i] = PLAYER_PREFIX + (start + i) % benchmark.wallets;
+			}
+		}
+
+		String nextPlayerId() {
+			String playerId = playerIds[next];
+			next = (next + 1) % playerIds.length;
+			return playerId;
+		}
+	}
+
+	@Benchmark
+	public Transaction credit(WalletContext context, Caller caller) throws WalletException {
+		return context.getTransactionService().createTransaction(context.nextTransactionId(), caller.nextPlayerId(),
+				"CREDIT", "1");
+	}
+
+	@Benchmark
+	public Transaction debit(WalletContext context, Caller caller) throws WalletException {
+		return context.getTransactionService().createTransaction(context.nextTransactionId(), caller.nextPlayerId(),
+				"DEBIT", "1");
+	}
+}
@@ -0,0 +1,105 @@
+package com.company.wallet.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.company.wallet.codec.TransactionCommandDecoder;
+import com.company.wallet.dto.TransactionCommand;
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.utils.TransactionType;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON binding of the controller payloads, with the ObjectMapper settings Spring MVC uses.
+ *
+ * @author Vinay Singh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Thread)
+public class SerializationBenchmark {
+	private static final TypeReference<Map<String, String>> REQUEST_TYPE = new TypeReference<Map<String, String>>() {
+	};
+
+	private ObjectMapper objectMapper;
+	private Wallet wallet;
+	private Transaction transaction;
+	private List<Transaction> history;
+	private byte[] transactionRequest;
+	private ByteArrayInputStream transactionRequestStream;
+	private TransactionCommandDecoder decoder;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		wallet = new Wallet("player-1", new BigDecimal("1234.56"));
+		wallet.setId(1);
+		transaction = new Transaction("transaction-1", TransactionType.CREDIT, new BigDecimal("100.00"), wallet);
+		transaction.setId(1);
+		history = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			Transaction next = new Transaction("transaction-" + i, TransactionType.DEBIT, new BigDecimal("10.00"),
+					wallet);
+			next.setId(i);
+			history.add(next);
+		}
+		transactionRequest = ("{\"transactionId\":\"transaction-1\",\"playerId\":\"player-1\","
+				+ "\"transactionType\":\"CREDIT\",\"amount\":\"100\"}").getBytes();
+		transactionRequestStream = new ByteArrayInputStream(transactionRequest);
+		decoder = new TransactionCommandDecoder();
+	}
+
+	@Benchmark
+	public byte[] writeWallet() throws IOException {
+		return objectMapper.writeValueAsBytes(wallet);
+	}
+
+	@Benchmark
+	public byte[] writeTransaction() throws IOException {
+		return objectMapper.writeValueAsBytes(transaction);
+	}
+
+	@Benchmark
+	public byte[] writeHistoryPage() throws IOException {
+		return objectMapper.writeValueAsBytes(history);
+	}
+
+	@Benchmark
+	public Map<String, String> readTransactionRequest() throws IOException {
+		return objectMapper.readValue(transactionRequest, REQUEST_TYPE);
+	}
+
+	/**
+	 * Decoding of POST /api/transactions, compare with readTransactionRequest (the former map binding)
+	 * using {@code -prof gc} for the bytes allocated per request.
+	 */
+	@Benchmark
+	public TransactionCommand decodeTransactionRequest() throws IOException, WalletException {
+		transactionRequestStream.reset();
+		return decoder.decode(transactionRequestStream);
+	}
+}
@@ -0,0 +1,58 @@
+package com.company.wallet.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.exception.handler.WalletException;
+
+/**
+ * Service layer against the embedded database, one caller.
+ *
+ * @author Vinay Singh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class ServiceBenchmark {
+	private static final String PLAYER_ID = "service-player";
+
+	private Wallet wallet;
+
+	@Setup(Level.Trial)
+	public void setUp(WalletContext context) throws WalletException {
+		context.getWalletService().createWallet(PLAYER_ID, WalletContext.START_BALANCE);
+		wallet = context.getWalletService().findWalletByPlayerId(PLAYER_ID);
+	}
+
+	@Benchmark
+	public Wallet findWalletByPlayerId(WalletContext context) throws WalletException {
+		return context.getWalletService().findWalletByPlayerId(PLAYER_ID);
+	}
+
+	@Benchmark
+	public Wallet updateWalletAmount(WalletContext context) throws WalletException {
+		return context.getWalletService().updateWalletAmount(wallet, "1", "CREDIT");
+	}
+
+	@Benchmark
+	public Transaction createTransaction(WalletContext context) throws WalletException {
+		return context.getTransactionService().createTransaction(context.nextTransactionId(), PLAYER_ID, "CREDIT",
+				"1");
+	}
+}
@@ -0,0 +1,83 @@
+package com.company.wallet.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.utils.VirtualThreads;
+
+/**
+ * Bursts of concurrent transactions handled by a pool of platform threads, sized like the default
+ * Tomcat pool, compared to one virtual thread per transaction (wallet.threads.mode=virtual).
+ * <p>
+ * The virtual mode needs Java 21, on older runtimes run with {@code -p mode=platform}.
+ * </p>
+ * @author Vinay Singh
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+// a burst queues for the connection pool longer than the default player lock timeout
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g", "-Djdk.tracePinnedThreads=short",
+		"-Dwallet.locks.timeout-ms=60000" })
+@State(Scope.Benchmark)
+public class ThreadModeBenchmark {
+	private static final String PLAYER_PREFIX = "thread-mode-player";
+	/** one wallet per transaction of a burst, so the burst doesn't wait for player locks */
+	private static final int WALLETS = 1024;
+	private static final int BURST = 1024;
+	/** default maxThreads of Tomcat */
+	private static final int PLATFORM_THREADS = 200;
+
+	@Param({ "platform", "virtual" })
+	private String mode;
+
+	private ExecutorService executor;
+
+	@Setup(Level.Trial)
+	public void setUp(WalletContext context) throws WalletException {
+		context.createWallets(PLAYER_PREFIX, WALLETS);
+		executor = "virtual".equals(mode) ? VirtualThreads.newThreadPerTaskExecutor("bench-virtual-")
+				: Executors.newFixedThreadPool(PLATFORM_THREADS);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BURST)
+	public void credit(WalletContext context) throws InterruptedException, ExecutionException {
+		List<Future<?>> futures = new ArrayList<>(BURST);
+		for (int i = 0; i < BURST; i++) {
+			String playerId = PLAYER_PREFIX + i % WALLETS;
+			futures.add(executor.submit(() -> context.getTransactionService()
+					.createTransaction(context.nextTransactionId(), playerId, "CREDIT", "1")));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+	}
+}
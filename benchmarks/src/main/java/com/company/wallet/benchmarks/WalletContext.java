@@ -0,0 +1,76 @@
+package com.company.wallet.benchmarks;
+
+import java.math.BigDecimal;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.company.wallet.Application;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.service.TransactionService;
+import com.company.wallet.service.WalletService;
+
+/**
+ * Application context shared by the benchmarks of one fork.
+ * Runs the application without the web server against an embedded H2 database.
+ *
+ * @author Vinay Singh
+ */
+@State(Scope.Benchmark)
+public class WalletContext {
+	/** large enough that benchmark debits never run out of funds */
+	public static final String START_BALANCE = "1000000000";
+
+	private ConfigurableApplicationContext context;
+
+	private WalletService walletService;
+	private TransactionService transactionService;
+
+	private long transactionIdCounter;
+
+	@Setup(Level.Trial)
+	public void start() {
+		context = new SpringApplicationBuilder(Application.class)
+				.web(WebApplicationType.NONE)
+				.bannerMode(Banner.Mode.OFF)
+				.properties("logging.level.root=WARN",
+						"spring.datasource.url=jdbc:h2:mem:benchmarks;DB_CLOSE_DELAY=-1",
+						"wallet.idempotency.warm-up=false")
+				.run();
+		walletService = context.getBean(WalletService.class);
+		transactionService = context.getBean(TransactionService.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		context.close();
+	}
+
+	/**
+	 * Creates wallets prefix0 .. prefix(count-1).
+	 */
+	public void createWallets(String prefix, int count) throws WalletException {
+		for (int i = 0; i < count; i++) {
+			walletService.createWallet(prefix + i, START_BALANCE);
+		}
+	}
+
+	public synchronized String nextTransactionId() {
+		return "bench-" + transactionIdCounter++;
+	}
+
+	public WalletService getWalletService() {
+		return walletService;
+	}
+
+	public TransactionService getTransactionService() {
+		return transactionService;
+	}
+}
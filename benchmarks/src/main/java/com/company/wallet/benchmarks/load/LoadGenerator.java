@@ -0,0 +1,296 @@
+package com.company.wallet.benchmarks.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.company.wallet.Application;
+import com.company.wallet.ingest.IngestServer;
+import com.company.wallet.ingest.client.IngestAck;
+import com.company.wallet.ingest.client.IngestClient;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Load test of {@code POST /api/transactions} over HTTP, or of the binary ingest port with --protocol=tcp.
+ * <p>
+ * Starts the application on a random port, unless --target points to a running one, creates the wallets
+ * and then sends CREDIT and DEBIT transactions from --concurrency callers. Players are picked with a
+ * Zipfian distribution, so with a high --skew most transactions contend on a few hot wallets.
+ * A share of the requests (--duplicate-rate) resends an earlier request of the same caller,
+ * like a client retrying after a timeout.
+ * </p>
+ * Requests sent during the warmup aren't reported. Options not known to the load generator,
+ * e.g. --wallet.transaction.mode=ledger, are passed to the started application.
+ *
+ * @author Vinay Singh
+ */
+public class LoadGenerator {
+	/** requests a caller remembers for resending as duplicates */
+	private static final int HISTORY = 64;
+	private static final long HIGHEST_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	private final Workload workload;
+	private final String baseUrl;
+	private final int ingestPort;
+	private final long amountMinorUnits;
+	/** wallets and transactionIds of a run don't clash with the ones of earlier runs against the same target */
+	private final String runId = Long.toString(System.currentTimeMillis(), 36);
+	private final ZipfianPlayers players;
+
+	public LoadGenerator(Workload workload, String baseUrl, int ingestPort) {
+		this.workload = workload;
+		this.baseUrl = baseUrl;
+		this.ingestPort = ingestPort;
+		this.amountMinorUnits = Money.parse(workload.amount).getMinorUnits();
+		this.players = new ZipfianPlayers("load-" + runId + "-", workload.players, workload.skew);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Workload workload = Workload.parse(args);
+		// keep-alive connections per host, the default of 5 would reconnect most requests
+		System.setProperty("http.maxConnections", Integer.toString(workload.concurrency));
+
+		ConfigurableApplicationContext context = null;
+		String baseUrl = workload.target;
+		int ingestPort = workload.ingestPort;
+		if (baseUrl == null) {
+			List<String> applicationArgs = new ArrayList<>(workload.applicationArgs);
+			if (workload.isTcp()) {
+				// arguments, as application.properties overrides default properties
+				applicationArgs.add("--wallet.ingest.enabled=true");
+				applicationArgs.add("--wallet.ingest.port=0");
+			}
+			context = new SpringApplicationBuilder(Application.class)
+					.bannerMode(Banner.Mode.OFF)
+					.properties("server.port=0", "logging.level.root=WARN")
+					.run(applicationArgs.toArray(new String[0]));
+			baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+		}
+		try {
+			if (context != null && workload.isTcp()) {
+				ingestPort = context.getBean(IngestServer.class).getPort();
+			}
+			LoadReport report = new LoadGenerator(workload, baseUrl, ingestPort).run();
+			System.out.print(report.toText());
+			if (workload.json != null) {
+				Files.write(Paths.get(workload.json), report.toJson().getBytes(StandardCharsets.UTF_8));
+				System.out.println("JSON report written to " + workload.json);
+			}
+		} finally {
+			if (context != null) {
+				context.close();
+			}
+		}
+	}
+
+	public LoadReport run() throws InterruptedException, ExecutionException {
+		ExecutorService executor = Executors.newFixedThreadPool(workload.concurrency);
+		try {
+			createWallets(executor);
+
+			long start = System.nanoTime();
+			long measureFrom = start + TimeUnit.SECONDS.toNanos(workload.warmupSeconds);
+			long end = measureFrom + TimeUnit.SECONDS.toNanos(workload.durationSeconds);
+			List<Future<Caller>> futures = new ArrayList<>(workload.concurrency);
+			for (int i = 0; i < workload.concurrency; i++) {
+				Caller caller = new Caller(i, measureFrom, end);
+				futures.add(executor.submit(caller));
+			}
+
+			Histogram latencies = new Histogram(HIGHEST_LATENCY_NANOS, 3);
+			Map<String, Long> outcomes = new HashMap<>();
+			Map<String, Long> duplicateOutcomes = new HashMap<>();
+			for (Future<Caller> future : futures) {
+				Caller caller = future.get();
+				latencies.add(caller.latencies);
+				caller.outcomes.forEach((outcome, count) -> outcomes.merge(outcome, count, Long::sum));
+				caller.duplicateOutcomes.forEach((outcome, count) -> duplicateOutcomes.merge(outcome, count, Long::sum));
+			}
+			return new LoadReport(workload, latencies, System.nanoTime() - measureFrom, outcomes, duplicateOutcomes);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void createWallets(ExecutorService executor) throws InterruptedException, ExecutionException {
+		List<Future<Void>> futures = new ArrayList<>(players.size());
+		for (int i = 0; i < players.size(); i++) {
+			String body = "{\"playerId\":\"" + players.playerId(i) + "\",\"amount\":\"" + workload.startBalance + "\"}";
+			futures.add(executor.submit(() -> {
+				String outcome = post("/api/wallets", body);
+				if (!"201".equals(outcome)) {
+					throw new IllegalStateException("Could not create wallet: " + outcome);
+				}
+				return null;
+			}));
+		}
+		for (Future<Void> future : futures) {
+			future.get();
+		}
+	}
+
+	/**
+	 * @return HTTP status of the response, or the exception when there was none
+	 */
+	private String post(String path, String body) {
+		try {
+			HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+			connection.setRequestMethod("POST");
+			connection.setDoOutput(true);
+			connection.setConnectTimeout(10_000);
+			connection.setReadTimeout((int) TimeUnit.NANOSECONDS.toMillis(HIGHEST_LATENCY_NANOS));
+			connection.setRequestProperty("Content-Type", "application/json");
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(body.getBytes(StandardCharsets.UTF_8));
+			}
+			int status = connection.getResponseCode();
+			// the connection is only reused once the response was read completely
+			InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+			if (in != null) {
+				try (InputStream response = in) {
+					byte[] buffer = new byte[1024];
+					while (response.read(buffer) >= 0) {
+						// drain
+					}
+				}
+			}
+			return Integer.toString(status);
+		} catch (IOException ex) {
+			return ex.getClass().getSimpleName();
+		}
+	}
+
+	/**
+	 * A transaction as sent, kept for resending it as a duplicate.
+	 */
+	private static final class Request {
+		private final String transactionId;
+		private final String playerId;
+		private final TransactionType transactionType;
+
+		Request(String transactionId, String playerId, TransactionType transactionType) {
+			this.transactionId = transactionId;
+			this.playerId = playerId;
+			this.transactionType = transactionType;
+		}
+	}
+
+	/**
+	 * Sends one transaction after the other until the end of the run.
+	 */
+	private class Caller implements Callable<Caller> {
+		private final int index;
+		private final long measureFrom;
+		private final long end;
+		private final Random random;
+		private final Request[] history = new Request[HISTORY];
+		/** connection to the ingest port, with protocol tcp */
+		private IngestClient client;
+
+		private final Histogram latencies = new Histogram(HIGHEST_LATENCY_NANOS, 3);
+		private final Map<String, Long> outcomes = new HashMap<>();
+		private final Map<String, Long> duplicateOutcomes = new HashMap<>();
+
+		Caller(int index, long measureFrom, long end) {
+			this.index = index;
+			this.measureFrom = measureFrom;
+			this.end = end;
+			this.random = new Random(workload.seed + index);
+		}
+
+		@Override
+		public Caller call() throws IOException {
+			if (workload.isTcp()) {
+				client = new IngestClient(new URL(baseUrl).getHost(), ingestPort);
+			}
+			try {
+				send();
+			} finally {
+				if (client != null) {
+					client.close();
+				}
+			}
+			return this;
+		}
+
+		private void send() {
+			long sent = 0;
+			while (true) {
+				boolean duplicate = sent > 0 && random.nextDouble() < workload.duplicateRate;
+				Request request = duplicate ? history[random.nextInt((int) Math.min(sent, HISTORY))] : nextRequest(sent);
+				if (!duplicate) {
+					history[(int) (sent++ % HISTORY)] = request;
+				}
+
+				long started = System.nanoTime();
+				if (started >= end) {
+					return;
+				}
+				String outcome = client == null ? post("/api/transactions", toJson(request)) : submit(request);
+				long latency = System.nanoTime() - started;
+				if (started >= measureFrom) {
+					latencies.recordValue(Math.min(latency, HIGHEST_LATENCY_NANOS));
+					outcomes.merge(outcome, 1L, Long::sum);
+					if (duplicate) {
+						duplicateOutcomes.merge(outcome, 1L, Long::sum);
+					}
+				}
+			}
+		}
+
+		private Request nextRequest(long sequence) {
+			TransactionType type = random.nextDouble() < workload.creditRatio ? TransactionType.CREDIT
+					: TransactionType.DEBIT;
+			return new Request(runId + "-" + index + "-" + sequence, players.next(random), type);
+		}
+
+		private String toJson(Request request) {
+			return "{\"transactionId\":\"" + request.transactionId + "\",\"playerId\":\"" + request.playerId
+					+ "\",\"transactionType\":\"" + request.transactionType + "\",\"amount\":\"" + workload.amount
+					+ "\"}";
+		}
+
+		/**
+		 * @return status of the ack, or the exception when there was none
+		 */
+		private String submit(Request request) {
+			try {
+				CompletableFuture<IngestAck> ack = client.submit(request.transactionId, request.playerId,
+						request.transactionType, amountMinorUnits);
+				return Integer.toString(ack.get(HIGHEST_LATENCY_NANOS, TimeUnit.NANOSECONDS).getStatus());
+			} catch (ExecutionException ex) {
+				return ex.getCause().getClass().getSimpleName();
+			} catch (IOException | TimeoutException ex) {
+				return ex.getClass().getSimpleName();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return ex.getClass().getSimpleName();
+			}
+		}
+	}
+}
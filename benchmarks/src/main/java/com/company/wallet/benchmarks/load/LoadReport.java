@@ -0,0 +1,113 @@
+package com.company.wallet.benchmarks.load;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+import com.google.gson.GsonBuilder;
+
+/**
+ * Result of a {@link LoadGenerator} run: throughput, latency percentiles and the outcomes of the requests.
+ * An outcome is the HTTP status of the response, or the exception of a request without response.
+ *
+ * @author Vinay Singh
+ */
+public class LoadReport {
+	private final Workload workload;
+	private final Histogram latencies;
+	private final long elapsedNanos;
+	private final SortedMap<String, Long> outcomes;
+	private final SortedMap<String, Long> duplicateOutcomes;
+
+	public LoadReport(Workload workload, Histogram latencies, long elapsedNanos, Map<String, Long> outcomes,
+			Map<String, Long> duplicateOutcomes) {
+		this.workload = workload;
+		this.latencies = latencies;
+		this.elapsedNanos = elapsedNanos;
+		this.outcomes = new TreeMap<>(outcomes);
+		this.duplicateOutcomes = new TreeMap<>(duplicateOutcomes);
+	}
+
+	public long getRequests() {
+		return latencies.getTotalCount();
+	}
+
+	public double getThroughput() {
+		return getRequests() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+	}
+
+	/**
+	 * @return requests answered with another status than 201, or not answered at all
+	 */
+	public long getErrors() {
+		long errors = 0;
+		for (Map.Entry<String, Long> outcome : outcomes.entrySet()) {
+			if (!"201".equals(outcome.getKey())) {
+				errors += outcome.getValue();
+			}
+		}
+		return errors;
+	}
+
+	/**
+	 * @return latency at the percentile in milliseconds
+	 */
+	public double latencyMs(double percentile) {
+		return latencies.getValueAtPercentile(percentile) / 1_000_000.0;
+	}
+
+	public String toText() {
+		StringBuilder text = new StringBuilder();
+		text.append(String.format("Workload:   %s%n", workload));
+		text.append(String.format("Requests:   %d in %.1f s%n", getRequests(), elapsedNanos / 1e9));
+		text.append(String.format("Throughput: %.1f requests/s%n", getThroughput()));
+		text.append(String.format("Latency:    p50 %.2f ms, p99 %.2f ms, p999 %.2f ms, max %.2f ms%n",
+				latencyMs(50), latencyMs(99), latencyMs(99.9), latencies.getMaxValue() / 1_000_000.0));
+		text.append(String.format("Errors:     %d (%.2f%%)%n", getErrors(),
+				getRequests() == 0 ? 0 : 100.0 * getErrors() / getRequests()));
+		appendOutcomes(text, "Outcomes:", outcomes);
+		appendOutcomes(text, "Duplicates:", duplicateOutcomes);
+		return text.toString();
+	}
+
+	private static void appendOutcomes(StringBuilder text, String title, Map<String, Long> outcomes) {
+		text.append(String.format("%s%n", title));
+		for (Map.Entry<String, Long> outcome : outcomes.entrySet()) {
+			text.append(String.format("  %-40s %d%n", outcome.getKey(), outcome.getValue()));
+		}
+	}
+
+	public String toJson() {
+		Map<String, Object> latency = new LinkedHashMap<>();
+		latency.put("p50", latencyMs(50));
+		latency.put("p99", latencyMs(99));
+		latency.put("p999", latencyMs(99.9));
+		latency.put("max", latencies.getMaxValue() / 1_000_000.0);
+
+		Map<String, Object> settings = new LinkedHashMap<>();
+		settings.put("protocol", workload.protocol);
+		settings.put("players", workload.players);
+		settings.put("skew", workload.skew);
+		settings.put("concurrency", workload.concurrency);
+		settings.put("creditRatio", workload.creditRatio);
+		settings.put("duplicateRate", workload.duplicateRate);
+		settings.put("warmupSeconds", workload.warmupSeconds);
+		settings.put("durationSeconds", workload.durationSeconds);
+		settings.put("applicationArgs", workload.applicationArgs);
+
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("workload", settings);
+		json.put("requests", getRequests());
+		json.put("elapsedSeconds", elapsedNanos / 1e9);
+		json.put("throughput", getThroughput());
+		json.put("latencyMs", latency);
+		json.put("errors", getErrors());
+		json.put("outcomes", outcomes);
+		json.put("duplicateOutcomes", duplicateOutcomes);
+		return new GsonBuilder().setPrettyPrinting().create().toJson(json);
+	}
+}
@@ -0,0 +1,124 @@
+package com.company.wallet.benchmarks.load;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Options of a {@link LoadGenerator} run, parsed from {@code --name=value} arguments.
+ * Arguments which aren't options of the workload are passed on to the application.
+ *
+ * @author Vinay Singh
+ */
+public class Workload {
+	/** number of wallets, created before the run */
+	int players = 1000;
+	/** Zipfian exponent of the player selection, 0 = uniform */
+	double skew = 0.99;
+	/** parallel callers, every one waits for its response before sending the next request */
+	int concurrency = 32;
+	/** share of CREDIT transactions, the rest are DEBIT */
+	double creditRatio = 0.5;
+	/** share of requests resending the transactionId of an earlier request */
+	double duplicateRate = 0.01;
+	int warmupSeconds = 5;
+	int durationSeconds = 30;
+	/** amount of every transaction */
+	String amount = "1";
+	/** start balance of the wallets, large enough that debits don't run out of funds */
+	String startBalance = "1000000000";
+	/** http for the REST endpoint, tcp for the binary ingest port */
+	String protocol = "http";
+	/** base URL of a running application, by default one is started on a random port */
+	String target;
+	/** ingest port of the application at target, with protocol tcp */
+	int ingestPort = 9090;
+	/** file for the JSON report */
+	String json;
+	long seed = 42;
+
+	final List<String> applicationArgs = new ArrayList<>();
+
+	public static Workload parse(String[] args) {
+		Workload workload = new Workload();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (!arg.startsWith("--") || separator < 0) {
+				throw new IllegalArgumentException("Expected --name=value, got " + arg);
+			}
+			String name = arg.substring(2, separator);
+			String value = arg.substring(separator + 1);
+			switch (name) {
+			case "players":
+				workload.players = Integer.parseInt(value);
+				break;
+			case "skew":
+				workload.skew = Double.parseDouble(value);
+				break;
+			case "concurrency":
+				workload.concurrency = Integer.parseInt(value);
+				break;
+			case "credit-ratio":
+				workload.creditRatio = ratio(name, value);
+				break;
+			case "duplicate-rate":
+				workload.duplicateRate = ratio(name, value);
+				break;
+			case "warmup":
+				workload.warmupSeconds = Integer.parseInt(value);
+				break;
+			case "duration":
+				workload.durationSeconds = Integer.parseInt(value);
+				break;
+			case "amount":
+				workload.amount = value;
+				break;
+			case "start-balance":
+				workload.startBalance = value;
+				break;
+			case "protocol":
+				if (!"http".equals(value) && !"tcp".equals(value)) {
+					throw new IllegalArgumentException("protocol must be http or tcp");
+				}
+				workload.protocol = value;
+				break;
+			case "target":
+				workload.target = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+				break;
+			case "ingest-port":
+				workload.ingestPort = Integer.parseInt(value);
+				break;
+			case "json":
+				workload.json = value;
+				break;
+			case "seed":
+				workload.seed = Long.parseLong(value);
+				break;
+			default:
+				workload.applicationArgs.add(arg);
+			}
+		}
+		if (workload.concurrency < 1 || workload.durationSeconds < 1 || workload.warmupSeconds < 0) {
+			throw new IllegalArgumentException("concurrency and duration must be positive, warmup not negative");
+		}
+		return workload;
+	}
+
+	boolean isTcp() {
+		return "tcp".equals(protocol);
+	}
+
+	private static double ratio(String name, String value) {
+		double ratio = Double.parseDouble(value);
+		if (ratio < 0 || ratio > 1) {
+			throw new IllegalArgumentException(name + " must be between 0 and 1");
+		}
+		return ratio;
+	}
+
+	@Override
+	public String toString() {
+		return "protocol=" + protocol + " players=" + players + " skew=" + skew + " concurrency=" + concurrency + " credit-ratio="
+				+ creditRatio + " duplicate-rate=" + duplicateRate + " warmup=" + warmupSeconds + "s duration="
+				+ durationSeconds + "s" + (applicationArgs.isEmpty() ? "" : " " + String.join(" ", applicationArgs));
+	}
+}
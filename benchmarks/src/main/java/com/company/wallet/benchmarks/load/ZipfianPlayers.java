@@ -0,0 +1,61 @@
+package com.company.wallet.benchmarks.load;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Picks players with a Zipfian distribution: player k (1 based) is picked with a probability
+ * proportional to 1 / k^skew. Skew 0 picks uniformly, around 1 a few hot players get most of the load.
+ *
+ * @author Vinay Singh
+ */
+public class ZipfianPlayers {
+	private final String prefix;
+	/** cumulative probability of players 0 .. i */
+	private final double[] cumulative;
+
+	public ZipfianPlayers(String prefix, int players, double skew) {
+		if (players < 1) {
+			throw new IllegalArgumentException("Number of players must be positive");
+		}
+		if (skew < 0) {
+			throw new IllegalArgumentException("Skew must not be negative");
+		}
+		this.prefix = prefix;
+		cumulative = new double[players];
+		double sum = 0;
+		for (int i = 0; i < players; i++) {
+			sum += 1 / Math.pow(i + 1, skew);
+			cumulative[i] = sum;
+		}
+		for (int i = 0; i < players; i++) {
+			cumulative[i] /= sum;
+		}
+	}
+
+	public int size() {
+		return cumulative.length;
+	}
+
+	public String playerId(int index) {
+		return prefix + index;
+	}
+
+	public int nextIndex(Random random) {
+		int index = Arrays.binarySearch(cumulative, random.nextDouble());
+		// not found gives -(insertion point) - 1, the first player with a larger cumulative probability
+		index = index < 0 ? -index - 1 : index;
+		return Math.min(index, cumulative.length - 1);
+	}
+
+	public String next(Random random) {
+		return playerId(nextIndex(random));
+	}
+
+	/**
+	 * @return probability of picking one of the first n players
+	 */
+	public double share(int n) {
+		return cumulative[Math.min(n, cumulative.length) - 1];
+	}
+}
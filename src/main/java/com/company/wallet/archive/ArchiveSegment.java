@@ -0,0 +1,249 @@
+package com.company.wallet.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Immutable file of archived transactions, compressed per player.
+ * <p>
+ * The file starts with a header naming the shard the transactions were archived from. One deflated block per player
+ * follows, holding the transactions of the player newest first. The file ends with the index of the blocks by
+ * playerId, and the position of the index. The index is read when the segment is opened, a block only when the
+ * history of its player is read. Every block is checked against the CRC32 kept in the index.
+ * </p>
+ * Thread-safe once opened, blocks are read with positional reads.
+ *
+ * @author Vinay Singh
+ */
+public final class ArchiveSegment implements Closeable {
+	private static final int MAGIC = 0x5741524b;
+	private static final short VERSION = 1;
+	private static final int HEADER_SIZE = 10;
+	private static final int TRAILER_SIZE = 12;
+
+	private final Path file;
+	private final FileChannel channel;
+	private final int shard;
+	private final Map<String, Block> index;
+
+	/**
+	 * Position and range of the transactions of one player.
+	 */
+	private static final class Block {
+		private final long offset;
+		private final int length;
+		private final int crc;
+		private final int count;
+		private final long minTime;
+		private final long maxTime;
+
+		private Block(long offset, int length, int crc, int count, long minTime, long maxTime) {
+			this.offset = offset;
+			this.length = length;
+			this.crc = crc;
+			this.count = count;
+			this.minTime = minTime;
+			this.maxTime = maxTime;
+		}
+	}
+
+	private ArchiveSegment(Path file, FileChannel channel, int shard, Map<String, Block> index) {
+		this.file = file;
+		this.channel = channel;
+		this.shard = shard;
+		this.index = index;
+	}
+
+	/**
+	 * Writes a segment file and forces it to the disk.
+	 *
+	 * @param file file to create
+	 * @param shard shard the transactions are archived from
+	 * @param transactions transactions by playerId, each list newest first
+	 * @throws IOException if the file can't be written
+	 */
+	public static void write(Path file, int shard, SortedMap<String, List<ArchivedTransaction>> transactions)
+			throws IOException {
+		try (FileOutputStream fileOut = new FileOutputStream(file.toFile());
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeInt(shard);
+
+			ByteArrayOutputStream index = new ByteArrayOutputStream();
+			DataOutputStream indexOut = new DataOutputStream(index);
+			indexOut.writeInt(transactions.size());
+			ByteArrayOutputStream block = new ByteArrayOutputStream();
+			CRC32 crc = new CRC32();
+			for (Map.Entry<String, List<ArchivedTransaction>> entry : transactions.entrySet()) {
+				List<ArchivedTransaction> history = entry.getValue();
+				block.reset();
+				try (DataOutputStream blockOut = new DataOutputStream(new DeflaterOutputStream(block))) {
+					for (ArchivedTransaction transaction : history) {
+						blockOut.writeInt(transaction.getId());
+						blockOut.writeUTF(transaction.getTransactionId());
+						blockOut.writeByte(transaction.getTransactionType().ordinal());
+						blockOut.writeLong(transaction.getAmount());
+						blockOut.writeLong(transaction.getUpdatedTime());
+					}
+				}
+				crc.reset();
+				crc.update(block.toByteArray(), 0, block.size());
+
+				indexOut.writeUTF(entry.getKey());
+				indexOut.writeLong(out.size());
+				indexOut.writeInt(block.size());
+				indexOut.writeInt((int) crc.getValue());
+				indexOut.writeInt(history.size());
+				indexOut.writeLong(history.get(history.size() - 1).getUpdatedTime());
+				indexOut.writeLong(history.get(0).getUpdatedTime());
+				block.writeTo(out);
+			}
+
+			// DataOutputStream counts up to Integer.MAX_VALUE, segments are kept well below
+			long indexOffset = out.size();
+			index.writeTo(out);
+			out.writeLong(indexOffset);
+			out.writeInt(MAGIC);
+			out.flush();
+			fileOut.getFD().sync();
+		}
+	}
+
+	/**
+	 * Opens a segment file and reads its index.
+	 *
+	 * @throws IOException if the file can't be read or is not a complete segment
+	 */
+	public static ArchiveSegment open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size < HEADER_SIZE + TRAILER_SIZE) {
+				throw new IOException("Archive segment " + file + " is truncated");
+			}
+			ByteBuffer header = read(channel, 0, HEADER_SIZE);
+			ByteBuffer trailer = read(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+			long indexOffset = trailer.getLong();
+			if (header.getInt() != MAGIC || header.getShort() != VERSION || trailer.getInt() != MAGIC
+					|| indexOffset < HEADER_SIZE || indexOffset > size - TRAILER_SIZE) {
+				throw new IOException("Archive segment " + file + " is not valid");
+			}
+			int shard = header.getInt();
+
+			ByteBuffer indexBytes = read(channel, indexOffset, (int) (size - TRAILER_SIZE - indexOffset));
+			DataInputStream in = new DataInputStream(
+					new ByteArrayInputStream(indexBytes.array(), 0, indexBytes.limit()));
+			int players = in.readInt();
+			Map<String, Block> index = new HashMap<>(players * 2);
+			for (int i = 0; i < players; i++) {
+				index.put(in.readUTF(),
+						new Block(in.readLong(), in.readInt(), in.readInt(), in.readInt(), in.readLong(), in.readLong()));
+			}
+			return new ArchiveSegment(file, channel, shard, index);
+		} catch (IOException | RuntimeException ex) {
+			channel.close();
+			throw ex;
+		}
+	}
+
+	private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException();
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * @return shard the transactions were archived from
+	 */
+	public int getShard() {
+		return shard;
+	}
+
+	public Set<String> getPlayerIds() {
+		return Collections.unmodifiableSet(index.keySet());
+	}
+
+	/**
+	 * @return whether the segment holds transactions of the player updated in [from, to]
+	 */
+	public boolean overlaps(String playerId, long from, long to) {
+		Block block = index.get(playerId);
+		return block != null && block.maxTime >= from && block.minTime <= to;
+	}
+
+	/**
+	 * @return updated time of the newest transaction of the player, Long.MIN_VALUE if there is none
+	 */
+	public long getMaxTime(String playerId) {
+		Block block = index.get(playerId);
+		return block != null ? block.maxTime : Long.MIN_VALUE;
+	}
+
+	/**
+	 * Reads and decompresses the transactions of a player.
+	 *
+	 * @return transactions of the player newest first, empty if the segment holds none
+	 * @throws IOException if the block can't be read or is corrupt
+	 */
+	public List<ArchivedTransaction> read(String playerId) throws IOException {
+		Block block = index.get(playerId);
+		if (block == null) {
+			return Collections.emptyList();
+		}
+		ByteBuffer bytes = read(channel, block.offset, block.length);
+		CRC32 crc = new CRC32();
+		crc.update(bytes.array(), 0, block.length);
+		if ((int) crc.getValue() != block.crc) {
+			throw new IOException("Block of player " + playerId + " in archive segment " + file + " is corrupt");
+		}
+
+		TransactionType[] types = TransactionType.values();
+		List<ArchivedTransaction> transactions = new ArrayList<>(block.count);
+		try (DataInputStream in = new DataInputStream(
+				new InflaterInputStream(new ByteArrayInputStream(bytes.array(), 0, block.length)))) {
+			for (int i = 0; i < block.count; i++) {
+				transactions.add(new ArchivedTransaction(in.readInt(), in.readUTF(), types[in.readByte()],
+						in.readLong(), in.readLong()));
+			}
+		}
+		return transactions;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
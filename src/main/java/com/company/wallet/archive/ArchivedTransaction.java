@@ -0,0 +1,82 @@
+package com.company.wallet.archive;
+
+import java.util.Comparator;
+import java.util.Date;
+
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Transaction as stored in an {@link ArchiveSegment}, without its wallet.
+ *
+ * @author Vinay Singh
+ */
+public final class ArchivedTransaction {
+	/** order of the wallet history: newest first, by updatedTime and then id */
+	public static final Comparator<ArchivedTransaction> NEWEST_FIRST = Comparator
+			.comparingLong(ArchivedTransaction::getUpdatedTime).thenComparingInt(ArchivedTransaction::getId).reversed();
+
+	private final int id;
+	private final String transactionId;
+	private final TransactionType transactionType;
+	private final long amount;
+	private final long updatedTime;
+
+	/**
+	 * @param amount minor units of {@link Money#SCALE}
+	 * @param updatedTime epoch millis
+	 */
+	public ArchivedTransaction(int id, String transactionId, TransactionType transactionType, long amount,
+			long updatedTime) {
+		this.id = id;
+		this.transactionId = transactionId;
+		this.transactionType = transactionType;
+		this.amount = amount;
+		this.updatedTime = updatedTime;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public String getTransactionId() {
+		return transactionId;
+	}
+
+	public TransactionType getTransactionType() {
+		return transactionType;
+	}
+
+	/**
+	 * @return minor units of {@link Money#SCALE}
+	 */
+	public long getAmount() {
+		return amount;
+	}
+
+	/**
+	 * @return signed amount in minor units, negative for debits
+	 */
+	public long getDelta() {
+		return transactionType == TransactionType.CREDIT ? amount : -amount;
+	}
+
+	/**
+	 * @return epoch millis
+	 */
+	public long getUpdatedTime() {
+		return updatedTime;
+	}
+
+	/**
+	 * @return detached transaction of wallet, as it was read from the database before it was archived
+	 */
+	public Transaction toTransaction(Wallet wallet) {
+		Transaction transaction = new Transaction(transactionId, transactionType, Money.ofMinor(amount), wallet);
+		transaction.setId(id);
+		transaction.setUpdatedTime(new Date(updatedTime));
+		return transaction;
+	}
+}
@@ -0,0 +1,267 @@
+package com.company.wallet.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+
+/**
+ * Transactions moved out of the database by the {@link TransactionArchiver}, in {@link ArchiveSegment} files in dir.
+ * <p>
+ * Segments are keyed by playerId, so the archived history of a player stays readable when its wallet moves
+ * to another shard. Every archived transaction is older than the transactions of its wallet still in the database,
+ * so a history read continues in the archive where the database rows end.
+ * A reader holds {@link #readLock()} while it reads both the database and the archive, the archiver deletes
+ * archived rows and publishes their segment under the write lock, so a read sees every transaction exactly once.
+ * Both take the lock inside their database transaction, after their connection.
+ * </p>
+ * @author Vinay Singh
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.archive.enabled", havingValue = "true")
+public class TransactionArchive {
+	private static final Logger LOGGER = LoggerFactory.getLogger(TransactionArchive.class);
+
+	static final String SUFFIX = ".segment";
+	static final String PENDING_SUFFIX = ".pending";
+	static final String TEMPORARY_SUFFIX = ".tmp";
+
+	@Value("${wallet.archive.dir:archive}")
+	private String dir;
+
+	private Path directory;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	/** published segments, newest first */
+	private volatile List<ArchiveSegment> segments = Collections.emptyList();
+	private long lastSequence;
+
+	@PostConstruct
+	public void open() throws IOException {
+		directory = Paths.get(dir);
+		Files.createDirectories(directory);
+		TreeMap<Long, Path> files = new TreeMap<>(Collections.reverseOrder());
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			for (Path file : stream) {
+				String name = file.getFileName().toString();
+				if (name.endsWith(TEMPORARY_SUFFIX)) {
+					// never made pending, its transactions are still in the database
+					Files.delete(file);
+				} else if (name.endsWith(SUFFIX) || name.endsWith(PENDING_SUFFIX)) {
+					long sequence = sequenceOf(file);
+					lastSequence = Math.max(lastSequence, sequence);
+					if (name.endsWith(SUFFIX)) {
+						files.put(sequence, file);
+					}
+				}
+			}
+		}
+
+		List<ArchiveSegment> opened = new ArrayList<>(files.size());
+		for (Path file : files.values()) {
+			opened.add(ArchiveSegment.open(file));
+		}
+		segments = opened;
+		LOGGER.info("Opened {} transaction archive segments in {}", opened.size(), directory.toAbsolutePath());
+	}
+
+	@PreDestroy
+	public void close() throws IOException {
+		for (ArchiveSegment segment : segments) {
+			segment.close();
+		}
+	}
+
+	static long sequenceOf(Path file) {
+		String name = file.getFileName().toString();
+		return Long.parseLong(name.substring(0, name.lastIndexOf('.')));
+	}
+
+	/**
+	 * @return lock to hold while reading the history of a wallet from the database and the archive
+	 */
+	public Lock readLock() {
+		return lock.readLock();
+	}
+
+	Lock writeLock() {
+		return lock.writeLock();
+	}
+
+	/**
+	 * @return file for the next segment, named after its sequence and with the suffix of pending segments
+	 */
+	synchronized Path nextPendingFile() {
+		return directory.resolve(++lastSequence + PENDING_SUFFIX);
+	}
+
+	/**
+	 * @return pending segments, oldest first
+	 */
+	List<Path> pendingFiles() throws IOException {
+		TreeMap<Long, Path> files = new TreeMap<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + PENDING_SUFFIX)) {
+			for (Path file : stream) {
+				files.put(sequenceOf(file), file);
+			}
+		}
+		return new ArrayList<>(files.values());
+	}
+
+	/**
+	 * Makes a pending segment visible to readers, once its transactions are deleted from the database.
+	 * Called with the write lock held.
+	 */
+	void publish(Path pending) throws IOException {
+		Path file = pending.resolveSibling(sequenceOf(pending) + SUFFIX);
+		Files.move(pending, file, StandardCopyOption.ATOMIC_MOVE);
+		List<ArchiveSegment> published = new ArrayList<>(segments.size() + 1);
+		published.add(ArchiveSegment.open(file));
+		published.addAll(segments);
+		segments = published;
+	}
+
+	/**
+	 * Page of the archived history of a wallet, newest first.
+	 *
+	 * @param wallet wallet, set on the returned transactions
+	 * @param afterTime updated time of the last transaction of the previous page, null for the newest transactions
+	 * @param afterId id of the last transaction of the previous page
+	 * @param limit maximum number of transactions
+	 * @return transactions following the given one
+	 */
+	public List<Transaction> findPage(Wallet wallet, Date afterTime, Integer afterId, int limit) {
+		ArchivedTransaction after = afterTime != null
+				? new ArchivedTransaction(afterId, null, null, 0, afterTime.getTime()) : null;
+		long to = after != null ? after.getUpdatedTime() : Long.MAX_VALUE;
+		List<ArchivedTransaction> found = new ArrayList<>();
+		for (ArchiveSegment segment : segments) {
+			// only blocks reaching into the page found so far are read, with segments newest first that is the
+			// next one or two
+			long from = found.size() >= limit ? found.get(limit - 1).getUpdatedTime() : Long.MIN_VALUE;
+			if (!segment.overlaps(wallet.getPlayerId(), from, to)) {
+				continue;
+			}
+			for (ArchivedTransaction transaction : read(segment, wallet.getPlayerId())) {
+				if (after == null || ArchivedTransaction.NEWEST_FIRST.compare(transaction, after) > 0) {
+					found.add(transaction);
+				}
+			}
+			found.sort(ArchivedTransaction.NEWEST_FIRST);
+			if (found.size() > limit) {
+				found.subList(limit, found.size()).clear();
+			}
+		}
+
+		List<Transaction> page = new ArrayList<>(found.size());
+		for (ArchivedTransaction transaction : found) {
+			page.add(transaction.toTransaction(wallet));
+		}
+		return page;
+	}
+
+	/**
+	 * @return archived history of a wallet, newest first
+	 */
+	public List<Transaction> findAll(Wallet wallet) {
+		return findPage(wallet, null, null, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param wallet wallet, set on the returned transaction
+	 * @param id id of an archived transaction of the wallet
+	 * @return the archived transaction, or null
+	 */
+	public Transaction find(Wallet wallet, int id) {
+		for (ArchiveSegment segment : segments) {
+			if (!segment.getPlayerIds().contains(wallet.getPlayerId())) {
+				continue;
+			}
+			for (ArchivedTransaction transaction : read(segment, wallet.getPlayerId())) {
+				if (transaction.getId() == id) {
+					return transaction.toTransaction(wallet);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param to end of the range, null for no end
+	 * @return sum of the signed amounts of the player's archived transactions updated in (from, to], in minor units
+	 */
+	public long sumAmountBetween(String playerId, Date from, Date to) {
+		long start = from.getTime() + 1;
+		long end = to != null ? to.getTime() : Long.MAX_VALUE;
+		long sum = 0;
+		for (ArchiveSegment segment : segments) {
+			if (!segment.overlaps(playerId, start, end)) {
+				continue;
+			}
+			for (ArchivedTransaction transaction : read(segment, playerId)) {
+				if (transaction.getUpdatedTime() >= start && transaction.getUpdatedTime() <= end) {
+					sum += transaction.getDelta();
+				}
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * @return published segments with transactions archived from shard, newest first
+	 */
+	public List<ArchiveSegment> getSegments(int shard) {
+		List<ArchiveSegment> shardSegments = new ArrayList<>();
+		for (ArchiveSegment segment : segments) {
+			if (segment.getShard() == shard) {
+				shardSegments.add(segment);
+			}
+		}
+		return shardSegments;
+	}
+
+	/**
+	 * Passes every transaction of the segments with the playerId of its wallet to consumer, player by player.
+	 */
+	public static void forEach(List<ArchiveSegment> segments, BiConsumer<String, ArchivedTransaction> consumer) {
+		for (ArchiveSegment segment : segments) {
+			for (String playerId : new TreeSet<>(segment.getPlayerIds())) {
+				for (ArchivedTransaction transaction : read(segment, playerId)) {
+					consumer.accept(playerId, transaction);
+				}
+			}
+		}
+	}
+
+	private static List<ArchivedTransaction> read(ArchiveSegment segment, String playerId) {
+		try {
+			return segment.read(playerId);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+}
@@ -0,0 +1,253 @@
+package com.company.wallet.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.company.wallet.entities.ArchivedTransactionId;
+import com.company.wallet.sharding.ShardRouter;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Periodically moves the transactions older than min-age-days from the database to the {@link TransactionArchive},
+ * so the transaction table and its indexes only hold recent transactions.
+ * <p>
+ * Transactions are archived in batches of batch-size, one segment per batch. A segment is written and forced to the
+ * disk as pending first, then its transactions are deleted from the database and the segment is published.
+ * A pending segment left by a crash is published at the next run, after deleting its transactions again.
+ * </p>
+ * Archived transactions are still part of the wallet history and point-in-time balances. The deletion writes an
+ * {@link ArchivedTransactionId} tombstone per transaction in the same database transaction, so archived transactions
+ * are still found by id and their transactionId is still recognized when a transaction is resubmitted.
+ *
+ * @author Vinay Singh
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.archive.enabled", havingValue = "true")
+public class TransactionArchiver {
+	private static final Logger LOGGER = LoggerFactory.getLogger(TransactionArchiver.class);
+
+	private static final String SELECT_ARCHIVABLE = "select t.id, t.transaction_id, t.transaction_type, t.amount, "
+			+ "t.updated_time, w.player_id from transaction t join wallet w on w.id = t.wallet_id "
+			+ "where t.updated_time < ? order by t.id";
+
+	@Autowired
+	private TransactionArchive transactionArchive;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired(required = false)
+	private ShardRouter shardRouter;
+
+	@Value("${wallet.archive.min-age-days:90}")
+	private int minAgeDays;
+
+	@Value("${wallet.archive.interval-ms:3600000}")
+	private long intervalMs;
+
+	@Value("${wallet.archive.batch-size:100000}")
+	private int batchSize;
+
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate transactionTemplate;
+	private ScheduledExecutorService executor;
+
+	@PostConstruct
+	public void start() {
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		// some drivers reject a fetch size above the max rows of the statement
+		jdbcTemplate.setFetchSize(Math.min(1000, batchSize));
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		recover();
+
+		executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "transaction-archiver");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::run, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	private void run() {
+		try {
+			archive(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(minAgeDays)));
+		} catch (RuntimeException ex) {
+			LOGGER.warn("Could not archive transactions", ex);
+		}
+	}
+
+	/**
+	 * Moves the transactions updated before cutoff to the archive.
+	 *
+	 * @param cutoff transactions updated before are archived
+	 * @return number of archived transactions
+	 */
+	public synchronized int archive(Date cutoff) {
+		recover();
+		if (shardRouter == null) {
+			return archive(0, cutoff);
+		}
+		int archived = 0;
+		for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+			int target = shard;
+			archived += shardRouter.onShard(target, () -> archive(target, cutoff));
+		}
+		return archived;
+	}
+
+	private int archive(int shard, Date cutoff) {
+		long start = System.currentTimeMillis();
+		int archived = 0;
+		while (true) {
+			SortedMap<String, List<ArchivedTransaction>> transactions = new TreeMap<>();
+			List<Object[]> tombstones = new ArrayList<>();
+			TransactionType[] types = TransactionType.values();
+			jdbcTemplate.query(con -> {
+				PreparedStatement statement = con.prepareStatement(SELECT_ARCHIVABLE);
+				statement.setMaxRows(batchSize);
+				statement.setTimestamp(1, new Timestamp(cutoff.getTime()));
+				return statement;
+			}, rs -> {
+				ArchivedTransaction transaction = new ArchivedTransaction(rs.getInt(1), rs.getString(2),
+						types[rs.getInt(3)], rs.getLong(4), rs.getTimestamp(5).getTime());
+				transactions.computeIfAbsent(rs.getString(6), playerId -> new ArrayList<>()).add(transaction);
+				tombstones.add(new Object[] { transaction.getId(), transaction.getTransactionId(), rs.getString(6) });
+			});
+			if (tombstones.isEmpty()) {
+				break;
+			}
+
+			for (List<ArchivedTransaction> history : transactions.values()) {
+				history.sort(ArchivedTransaction.NEWEST_FIRST);
+			}
+			Path pending = transactionArchive.nextPendingFile();
+			try {
+				Path temporary = pending.resolveSibling(pending.getFileName() + TransactionArchive.TEMPORARY_SUFFIX);
+				ArchiveSegment.write(temporary, shard, transactions);
+				Files.move(temporary, pending, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			deleteAndPublish(pending, tombstones, false);
+
+			archived += tombstones.size();
+			if (tombstones.size() < batchSize) {
+				break;
+			}
+		}
+		if (archived > 0) {
+			LOGGER.info("Archived {} transactions updated before {} on shard {} in {} ms", archived, cutoff, shard,
+					System.currentTimeMillis() - start);
+		}
+		return archived;
+	}
+
+	/**
+	 * Replaces the transactions of a pending segment with their tombstones on the current shard and publishes
+	 * the segment once that is committed. The write lock is taken after the database connection, like readers do,
+	 * and held until the segment is published, so readers never miss the transactions.
+	 */
+	private void deleteAndPublish(Path pending, List<Object[]> tombstones, boolean retry) {
+		List<Object[]> ids = new ArrayList<>(tombstones.size());
+		for (Object[] tombstone : tombstones) {
+			ids.add(new Object[] { tombstone[0] });
+		}
+		Lock writeLock = transactionArchive.writeLock();
+		transactionTemplate.execute(status -> {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int completion) {
+					try {
+						if (completion == STATUS_COMMITTED) {
+							transactionArchive.publish(pending);
+						}
+					} catch (IOException ex) {
+						LOGGER.warn("Could not publish archive segment {}, retrying at the next run", pending, ex);
+					} finally {
+						writeLock.unlock();
+					}
+				}
+			});
+			writeLock.lock();
+			if (retry) {
+				// written already if only the publishing failed
+				jdbcTemplate.batchUpdate("delete from archived_transaction_id where id = ?", ids);
+			}
+			jdbcTemplate.batchUpdate("insert into archived_transaction_id (id, transaction_id, player_id) "
+					+ "values (?, ?, ?)", tombstones);
+			return jdbcTemplate.batchUpdate("delete from transaction where id = ?", ids);
+		});
+	}
+
+	/**
+	 * Publishes the segments left pending by an interrupted run. Their transactions may still be in the database,
+	 * so they are replaced by their tombstones again first.
+	 */
+	private void recover() {
+		try {
+			for (Path pending : transactionArchive.pendingFiles()) {
+				int shard;
+				List<Object[]> tombstones = new ArrayList<>();
+				try (ArchiveSegment segment = ArchiveSegment.open(pending)) {
+					shard = segment.getShard();
+					for (String playerId : segment.getPlayerIds()) {
+						for (ArchivedTransaction transaction : segment.read(playerId)) {
+							tombstones.add(
+									new Object[] { transaction.getId(), transaction.getTransactionId(), playerId });
+						}
+					}
+				}
+				if (shardRouter == null) {
+					deleteAndPublish(pending, tombstones, true);
+				} else {
+					shardRouter.onShard(shard, () -> {
+						deleteAndPublish(pending, tombstones, true);
+						return null;
+					});
+				}
+				LOGGER.info("Published pending archive segment {} with {} transactions", pending, tombstones.size());
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+}
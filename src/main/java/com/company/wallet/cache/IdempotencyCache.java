@@ -0,0 +1,145 @@
+package com.company.wallet.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.utils.BloomFilter;
+import com.company.wallet.utils.LruMap;
+
+/**
+ * Remembers transactionIds so that resubmitted transactions can be answered without the database.
+ * <p>
+ * A Bloom filter holds every transactionId seen by this node, an LRU map holds the most recent
+ * transactions. A transactionId unknown to the Bloom filter is new as far as this node knows,
+ * the database unique constraint stays the final check.
+ * </p>
+ * @author Vinay Singh
+ */
+@Component
+public class IdempotencyCache {
+
+	@Value("${wallet.idempotency.expected-transactions:1000000}")
+	private long expectedTransactions;
+
+	@Value("${wallet.idempotency.false-positive-rate:0.01}")
+	private double falsePositiveRate;
+
+	@Value("${wallet.idempotency.recent-size:10000}")
+	private int recentSize;
+
+	private BloomFilter seen;
+	private LruMap<String, Transaction> recent;
+	/** guards recent */
+	private final Lock lock = new ReentrantLock();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder databaseLookups = new LongAdder();
+	private final LongAdder falsePositives = new LongAdder();
+
+	@PostConstruct
+	public void init() {
+		seen = new BloomFilter(expectedTransactions, falsePositiveRate);
+		recent = new LruMap<>(recentSize);
+	}
+
+	/**
+	 * @param transactionId transactionId to look up
+	 * @return recently created transaction with this transactionId, or null
+	 */
+	public Transaction get(String transactionId) {
+		Transaction transaction;
+		lock.lock();
+		try {
+			transaction = recent.get(transactionId);
+		} finally {
+			lock.unlock();
+		}
+		if (transaction != null) {
+			hits.increment();
+		} else {
+			misses.increment();
+		}
+		return transaction;
+	}
+
+	/**
+	 * @return false if the transactionId was never seen by this node
+	 */
+	public boolean mightContain(String transactionId) {
+		return seen.mightContain(transactionId);
+	}
+
+	/**
+	 * Records a committed transaction.
+	 */
+	public void put(Transaction transaction) {
+		seen.put(transaction.getTransactionId());
+		lock.lock();
+		try {
+			recent.put(transaction.getTransactionId(), transaction);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Records a transactionId known to exist, without its transaction.
+	 */
+	public void mark(String transactionId) {
+		seen.put(transactionId);
+	}
+
+	/**
+	 * Counts a database lookup made because {@link #mightContain(String)} returned true.
+	 *
+	 * @param found whether the transactionId was found in the database
+	 */
+	public void recordDatabaseLookup(boolean found) {
+		databaseLookups.increment();
+		if (!found) {
+			falsePositives.increment();
+		}
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getDatabaseLookups() {
+		return databaseLookups.sum();
+	}
+
+	public long getFalsePositives() {
+		return falsePositives.sum();
+	}
+
+	public Map<String, Number> getStats() {
+		Map<String, Number> stats = new LinkedHashMap<>();
+		stats.put("hits", getHits());
+		stats.put("misses", getMisses());
+		stats.put("databaseLookups", getDatabaseLookups());
+		stats.put("falsePositives", getFalsePositives());
+		lock.lock();
+		try {
+			stats.put("size", recent.size());
+			stats.put("evictions", recent.getEvictions());
+		} finally {
+			lock.unlock();
+		}
+		return stats;
+	}
+}
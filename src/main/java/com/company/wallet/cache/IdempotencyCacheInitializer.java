@@ -0,0 +1,64 @@
+package com.company.wallet.cache;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import com.company.wallet.sharding.ShardRouter;
+
+/**
+ * Loads the transactionIds already in the database, archived ones included, into the {@link IdempotencyCache}
+ * Bloom filter, so that resubmissions of transactions created before a restart are detected early as well.
+ *
+ * @author Vinay Singh
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.idempotency.warm-up", havingValue = "true", matchIfMissing = true)
+public class IdempotencyCacheInitializer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyCacheInitializer.class);
+
+	/** transactionIds of the transactions in the database and of the archived ones */
+	private static final String SELECT_TRANSACTION_IDS = "select transaction_id from transaction "
+			+ "union all select transaction_id from archived_transaction_id";
+
+	@Autowired
+	private IdempotencyCache idempotencyCache;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired(required = false)
+	private ShardRouter shardRouter;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUp() {
+		long start = System.currentTimeMillis();
+		long[] count = new long[1];
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.setFetchSize(1000);
+		RowCallbackHandler mark = rs -> {
+			idempotencyCache.mark(rs.getString(1));
+			count[0]++;
+		};
+		if (shardRouter == null) {
+			jdbcTemplate.query(SELECT_TRANSACTION_IDS, mark);
+		} else {
+			for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+				shardRouter.onShard(shard, () -> {
+					jdbcTemplate.query(SELECT_TRANSACTION_IDS, mark);
+					return null;
+				});
+			}
+		}
+		LOGGER.info("Loaded {} transactionIds into idempotency cache in {} ms", count[0],
+				System.currentTimeMillis() - start);
+	}
+}
@@ -0,0 +1,333 @@
+package com.company.wallet.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.utils.LruMap;
+import com.company.wallet.utils.Money;
+
+/**
+ * Cache of wallet snapshots by playerId.
+ * <p>
+ * Entries expire after ttl-ms and the least recently used entries are evicted above max-size.
+ * Every balance change on this node invalidates the entry after its database transaction commits,
+ * and a snapshot loaded before that invalidation is not cached, so a cached balance is never
+ * older than the last committed write of this node. Writes made by other nodes are seen after at most ttl-ms.
+ * </p>
+ * Callers get their own copy of the cached wallet.
+ * <p>
+ * The cache also remembers what requests failed on: players without a wallet, and the smallest debit
+ * rejected for insufficient funds since the last balance change of the player. Both are dropped by the
+ * next invalidation or after ttl-ms, see {@link com.company.wallet.service.TransactionAdmission}.
+ * </p>
+ *
+ * @author Vinay Singh
+ */
+@Component
+public class WalletCache {
+
+	@Value("${wallet.cache.max-size:100000}")
+	private int maxSize;
+
+	@Value("${wallet.cache.ttl-ms:30000}")
+	private long ttlMs;
+
+	private LruMap<String, Entry> entries;
+	/** guards entries, a ReentrantLock doesn't pin virtual threads to their carrier like a monitor does */
+	private final Lock lock = new ReentrantLock();
+
+	/** incremented by every invalidation, guarded by lock */
+	private long sequence;
+	/** highest stamp of an evicted or expired entry, guarded by lock */
+	private long evictedStamp;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder expirations = new LongAdder();
+	private final LongAdder invalidations = new LongAdder();
+
+	@PostConstruct
+	public void init() {
+		entries = new LruMap<String, Entry>(maxSize) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void evicted(Map.Entry<String, Entry> eldest) {
+				dropped(eldest.getValue());
+			}
+		};
+	}
+
+	/**
+	 * @return stamp to pass to {@link #put(Wallet, long)} for a wallet loaded from the database after this call
+	 */
+	public long stamp() {
+		lock.lock();
+		try {
+			return sequence;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param playerId playerId to look up
+	 * @return copy of the cached wallet, or null
+	 */
+	public Wallet get(String playerId) {
+		Wallet wallet = null;
+		lock.lock();
+		try {
+			Entry entry = entries.get(playerId);
+			if (entry != null && entry.wallet != null) {
+				if (entry.expiresAt - System.currentTimeMillis() > 0) {
+					wallet = copy(entry.wallet);
+				} else {
+					dropped(entries.remove(playerId));
+					expirations.increment();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+		if (wallet != null) {
+			hits.increment();
+		} else {
+			misses.increment();
+		}
+		return wallet;
+	}
+
+	/**
+	 * Caches a wallet loaded from the database, unless it was invalidated since the stamp was taken
+	 * or a newer snapshot is cached already.
+	 *
+	 * @param wallet wallet loaded from the database
+	 * @param stamp {@link #stamp()} taken before loading the wallet
+	 */
+	public void put(Wallet wallet, long stamp) {
+		lock.lock();
+		try {
+			Entry entry = entries.get(wallet.getPlayerId());
+			if (evictedStamp > stamp || (entry != null && entry.stamp > stamp)) {
+				return;
+			}
+			entries.put(wallet.getPlayerId(), new Entry(copy(wallet), stamp, System.currentTimeMillis() + ttlMs));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Remembers that the player has no wallet, unless something newer is known about the player.
+	 * A wallet created on this node replaces the entry, one created by another node is seen after at most ttl-ms.
+	 *
+	 * @param playerId playerId not found in the database
+	 * @param stamp {@link #stamp()} taken before looking up the wallet
+	 */
+	public void putMissing(String playerId, long stamp) {
+		lock.lock();
+		try {
+			if (evictedStamp <= stamp && !entries.containsKey(playerId)) {
+				entries.put(playerId, new Entry(null, stamp, System.currentTimeMillis() + ttlMs, true, null));
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Remembers that a debit was rejected for insufficient funds, so every debit at least as large fails as well
+	 * until the balance of the player changes.
+	 *
+	 * @param playerId owner of the wallet
+	 * @param debit rejected debit, positive
+	 * @param stamp {@link #stamp()} taken before the balance was checked
+	 */
+	public void recordInsufficientFunds(String playerId, Money debit, long stamp) {
+		lock.lock();
+		try {
+			Entry entry = entries.get(playerId);
+			if (evictedStamp > stamp || (entry != null && (entry.missing || entry.stamp > stamp))) {
+				return;
+			}
+			long now = System.currentTimeMillis();
+			if (entry != null && entry.failedDebit != null && entry.expiresAt - now > 0
+					&& entry.failedDebit.compareTo(debit) <= 0) {
+				return;
+			}
+			if (entry != null && entry.wallet != null && entry.expiresAt - now > 0) {
+				entries.put(playerId, new Entry(entry.wallet, entry.stamp, entry.expiresAt, false, debit));
+			} else {
+				entries.put(playerId, new Entry(null, stamp, now + ttlMs, false, debit));
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return true if the player is known to have no wallet
+	 */
+	public boolean isKnownMissing(String playerId) {
+		lock.lock();
+		try {
+			Entry entry = entries.get(playerId);
+			return entry != null && entry.missing && entry.expiresAt - System.currentTimeMillis() > 0;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param debit debit to check, positive
+	 * @return true if the debit is known to exceed the last committed balance of the player's wallet
+	 */
+	public boolean isKnownInsufficient(String playerId, Money debit) {
+		lock.lock();
+		try {
+			Entry entry = entries.get(playerId);
+			if (entry == null || entry.expiresAt - System.currentTimeMillis() <= 0) {
+				return false;
+			}
+			return (entry.failedDebit != null && entry.failedDebit.compareTo(debit) <= 0)
+					|| (entry.wallet != null && entry.wallet.getBalanceMoney().compareTo(debit) < 0);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Drops the cached wallet and prevents wallets loaded before this call from being cached.
+	 */
+	public void invalidate(String playerId) {
+		invalidations.increment();
+		lock.lock();
+		try {
+			entries.put(playerId, new Entry(null, ++sequence, 0));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Caches a wallet read or written by the current database transaction once it commits,
+	 * or immediately if there is no transaction.
+	 *
+	 * @param wallet wallet loaded from or saved to the database
+	 * @param stamp {@link #stamp()} taken before loading or saving the wallet
+	 */
+	public void putAfterCommit(Wallet wallet, long stamp) {
+		Wallet snapshot = copy(wallet);
+		afterCommit(() -> put(snapshot, stamp), Ordered.LOWEST_PRECEDENCE);
+	}
+
+	/**
+	 * Invalidates a wallet changed by the current database transaction once it commits,
+	 * or immediately if there is no transaction.
+	 */
+	public void invalidateAfterCommit(String playerId) {
+		// before the snapshots read by the same transaction are put, so its old balance is never visible
+		afterCommit(() -> invalidate(playerId), Ordered.HIGHEST_PRECEDENCE);
+	}
+
+	private void afterCommit(Runnable action, int order) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCompletion(int status) {
+				if (status == TransactionSynchronization.STATUS_COMMITTED) {
+					action.run();
+				}
+			}
+
+			@Override
+			public int getOrder() {
+				return order;
+			}
+		});
+	}
+
+	/**
+	 * Every entry stands for the invalidations up to its stamp, so once it is gone no snapshot loaded
+	 * before that stamp may be cached. Guarded by lock.
+	 */
+	private void dropped(Entry entry) {
+		evictedStamp = Math.max(evictedStamp, entry.stamp);
+	}
+
+	private static Wallet copy(Wallet wallet) {
+		Wallet copy = new Wallet(wallet.getPlayerId(), wallet.getBalanceMoney());
+		copy.setId(wallet.getId());
+		copy.setCreatedTime(wallet.getCreatedTime());
+		copy.setUpdatedTime(wallet.getUpdatedTime());
+		copy.setVersion(wallet.getVersion());
+		return copy;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public Map<String, Number> getStats() {
+		long hitCount = getHits();
+		long missCount = getMisses();
+		Map<String, Number> stats = new LinkedHashMap<>();
+		stats.put("hits", hitCount);
+		stats.put("misses", missCount);
+		stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+		stats.put("expirations", expirations.sum());
+		stats.put("invalidations", invalidations.sum());
+		lock.lock();
+		try {
+			stats.put("size", entries.size());
+			stats.put("evictions", entries.getEvictions());
+		} finally {
+			lock.unlock();
+		}
+		return stats;
+	}
+
+	private static final class Entry {
+		/** null marks an invalidated wallet, unless the player has no wallet */
+		final Wallet wallet;
+		final long stamp;
+		final long expiresAt;
+		/** the player has no wallet */
+		final boolean missing;
+		/** smallest debit rejected for insufficient funds since the stamp, or null */
+		final Money failedDebit;
+
+		Entry(Wallet wallet, long stamp, long expiresAt) {
+			this(wallet, stamp, expiresAt, false, null);
+		}
+
+		Entry(Wallet wallet, long stamp, long expiresAt, boolean missing, Money failedDebit) {
+			this.wallet = wallet;
+			this.stamp = stamp;
+			this.expiresAt = expiresAt;
+			this.missing = missing;
+			this.failedDebit = failedDebit;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.company.wallet.codec;
+
+import java.util.Collections;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import com.company.wallet.dto.TransactionCommand;
+
+/**
+ * Resolves a {@link TransactionCommand} controller parameter by decoding the request body
+ * with the {@link TransactionCommandDecoder} of the request thread.
+ * Like a JSON @RequestBody, a body which is not JSON is refused with 415 Unsupported Media Type,
+ * and an invalid request fails with the WalletException of the decoder.
+ * Virtual threads don't live longer than their request, so in that mode every request gets a new decoder.
+ *
+ * @author Vinay Singh
+ */
+public class TransactionCommandArgumentResolver implements HandlerMethodArgumentResolver {
+	private final ThreadLocal<TransactionCommandDecoder> decoders = ThreadLocal
+			.withInitial(TransactionCommandDecoder::new);
+
+	@Override
+	public boolean supportsParameter(MethodParameter parameter) {
+		return parameter.getParameterType() == TransactionCommand.class;
+	}
+
+	@Override
+	public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+			NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
+		HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+		MediaType contentType;
+		try {
+			contentType = request.getContentType() != null ? MediaType.parseMediaType(request.getContentType())
+					: MediaType.APPLICATION_OCTET_STREAM;
+		} catch (InvalidMediaTypeException ex) {
+			throw new HttpMediaTypeNotSupportedException(ex.getMessage());
+		}
+		if (!isJson(contentType)) {
+			throw new HttpMediaTypeNotSupportedException(contentType,
+					Collections.singletonList(MediaType.APPLICATION_JSON));
+		}
+		return decoders.get().decode(request.getInputStream());
+	}
+
+	/**
+	 * @return whether contentType is application/json or application/*+json, the types read by Jackson
+	 */
+	private static boolean isJson(MediaType contentType) {
+		return MediaType.APPLICATION_JSON.includes(contentType)
+				|| MediaType.APPLICATION_JSON.getType().equals(contentType.getType())
+						&& contentType.getSubtype().endsWith("+json");
+	}
+}
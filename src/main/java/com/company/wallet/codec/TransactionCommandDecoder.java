@@ -0,0 +1,212 @@
+package com.company.wallet.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.http.HttpStatus;
+
+import com.company.wallet.dto.TransactionCommand;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Decodes a single transaction request, {"transactionId":"1","playerId":"1","transactionType":"CREDIT","amount":"100"},
+ * with the streaming JSON parser instead of binding it to a map.
+ * <p>
+ * The transaction type and amount are parsed from the characters of the parser, without creating strings,
+ * and every field is validated as soon as it is read, with the messages of
+ * {@link com.company.wallet.service.TransactionServiceImpl}. Unknown fields are ignored.
+ * </p>
+ * A decoder reuses its command and is not thread-safe, use one per thread.
+ *
+ * @author Vinay Singh
+ */
+public class TransactionCommandDecoder {
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+	/** values() copies the array on every call */
+	private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+
+	private final TransactionCommand command = new TransactionCommand();
+	private final CharArraySequence amountText = new CharArraySequence();
+
+	/**
+	 * @return the decoded command, valid until the next call
+	 * @throws WalletException with status 400 if the request is not valid JSON, or a field is missing or invalid
+	 */
+	public TransactionCommand decode(InputStream in) throws IOException, WalletException {
+		command.clear();
+		try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw invalidRequest();
+			}
+			JsonToken token;
+			while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+				// field names are canonicalized by the parser, no string is created for the known ones
+				String field = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+				switch (field) {
+				case "transactionId":
+					command.setTransactionId(readText(parser, value, "transactionId"));
+					break;
+				case "playerId":
+					command.setPlayerId(readText(parser, value, "playerId"));
+					break;
+				case "transactionType":
+					command.setTransactionType(readTransactionType(parser, value));
+					break;
+				case "amount":
+					command.setAmount(readAmount(parser, value));
+					break;
+				default:
+					parser.skipChildren();
+				}
+			}
+			if (token != JsonToken.END_OBJECT || parser.nextToken() != null) {
+				throw invalidRequest();
+			}
+		} catch (JsonProcessingException ex) {
+			throw invalidRequest();
+		}
+
+		if (command.getTransactionId() == null) {
+			throw missing("transactionId");
+		}
+		if (command.getPlayerId() == null) {
+			throw missing("playerId");
+		}
+		if (command.getAmount() == null) {
+			throw missing("amount");
+		}
+		if (command.getTransactionType() == null) {
+			throw missing("transactionType");
+		}
+		return command;
+	}
+
+	private static String readText(JsonParser parser, JsonToken value, String field)
+			throws IOException, WalletException {
+		if (value == JsonToken.VALUE_NULL) {
+			return null;
+		}
+		if (!value.isScalarValue() || isBlank(parser)) {
+			throw missing(field);
+		}
+		return parser.getText();
+	}
+
+	private static TransactionType readTransactionType(JsonParser parser, JsonToken value)
+			throws IOException, WalletException {
+		if (value == JsonToken.VALUE_NULL) {
+			return null;
+		}
+		if (value == JsonToken.VALUE_STRING) {
+			if (isBlank(parser)) {
+				throw missing("transactionType");
+			}
+			char[] chars = parser.getTextCharacters();
+			int offset = parser.getTextOffset();
+			int length = parser.getTextLength();
+			for (TransactionType type : TRANSACTION_TYPES) {
+				if (matches(type.name(), chars, offset, length)) {
+					return type;
+				}
+			}
+		}
+		throw new WalletException("Please specify valid transactionType: " + TransactionType.CREDIT.name() + " OR "
+				+ TransactionType.DEBIT.name(), HttpStatus.BAD_REQUEST.value());
+	}
+
+	private Money readAmount(JsonParser parser, JsonToken value) throws IOException, WalletException {
+		if (value == JsonToken.VALUE_NULL) {
+			return null;
+		}
+		if (value != JsonToken.VALUE_STRING && !value.isNumeric()) {
+			throw new WalletException("Please specify valid amount", HttpStatus.BAD_REQUEST.value());
+		}
+		if (isBlank(parser)) {
+			throw missing("amount");
+		}
+		amountText.wrap(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+		try {
+			return Money.parse(amountText);
+		} catch (NumberFormatException ex) {
+			throw new WalletException("Please specify valid amount", HttpStatus.BAD_REQUEST.value());
+		} finally {
+			amountText.wrap(null, 0, 0);
+		}
+	}
+
+	private static boolean isBlank(JsonParser parser) throws IOException {
+		char[] chars = parser.getTextCharacters();
+		int end = parser.getTextOffset() + parser.getTextLength();
+		for (int i = parser.getTextOffset(); i < end; i++) {
+			if (!Character.isWhitespace(chars[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean matches(String name, char[] chars, int offset, int length) {
+		if (name.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (name.charAt(i) != chars[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static WalletException missing(String field) {
+		return new WalletException(field + " can not be null and empty", HttpStatus.BAD_REQUEST.value());
+	}
+
+	private static WalletException invalidRequest() {
+		return new WalletException("Please specify the transaction as a JSON object", HttpStatus.BAD_REQUEST.value());
+	}
+
+	/**
+	 * Characters of the parser buffer, so the amount can be parsed without copying them to a string.
+	 */
+	private static final class CharArraySequence implements CharSequence {
+		private char[] chars;
+		private int offset;
+		private int length;
+
+		void wrap(char[] chars, int offset, int length) {
+			this.chars = chars;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= length) {
+				throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+			}
+			return chars[offset + index];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return toString().subSequence(start, end);
+		}
+
+		@Override
+		public String toString() {
+			return new String(chars, offset, length);
+		}
+	}
+}
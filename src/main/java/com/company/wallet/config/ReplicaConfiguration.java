@@ -0,0 +1,97 @@
+package com.company.wallet.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import com.company.wallet.replica.RecentWrites;
+import com.company.wallet.replica.ReplicaRoutingAspect;
+import com.company.wallet.replica.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Serves read-only service methods from read replicas, enabled with {@code wallet.replicas.enabled=true}.
+ * <p>
+ * The primary database is configured by spring.datasource.* as usual, the replicas by wallet.replicas.urls.
+ * Every replica has a connection pool of its own, so bursts of reads don't take the connections of the writes.
+ * A player written by this node reads from the primary for wallet.replicas.pin-ms afterwards,
+ * which should be longer than the usual replication lag.
+ * </p>
+ * Needs spring.jpa.open-in-view=false, so that a request doesn't keep using the connection of its first read,
+ * and can't be combined with sharding.
+ *
+ * @author Vinay Singh
+ */
+@Configuration
+@ConditionalOnProperty(name = "wallet.replicas.enabled", havingValue = "true")
+public class ReplicaConfiguration {
+
+	@Value("${wallet.replicas.urls}")
+	private String[] urls;
+
+	@Value("${wallet.replicas.maximum-pool-size:${spring.datasource.hikari.maximum-pool-size:10}}")
+	private int maximumPoolSize;
+
+	@Value("${wallet.replicas.pin-ms:2000}")
+	private long pinMs;
+
+	@Value("${wallet.sharding.enabled:false}")
+	private boolean sharding;
+
+	@Value("${spring.jpa.open-in-view:true}")
+	private boolean openInView;
+
+	@Bean(destroyMethod = "close")
+	@ConfigurationProperties(prefix = "spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		if (sharding) {
+			throw new IllegalStateException("Read replicas can't be combined with wallet.sharding.enabled=true");
+		}
+		if (openInView) {
+			throw new IllegalStateException("Read replicas need spring.jpa.open-in-view=false");
+		}
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primary");
+		return dataSource;
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+			DataSourceProperties properties, MeterRegistry meterRegistry) {
+		List<DataSource> replicas = new ArrayList<>(urls.length);
+		for (int replica = 0; replica < urls.length; replica++) {
+			HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+					.url(urls[replica].trim()).build();
+			dataSource.setPoolName("replica-" + replica);
+			dataSource.setMaximumPoolSize(maximumPoolSize);
+			dataSource.setReadOnly(true);
+			dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+			replicas.add(dataSource);
+		}
+		return new ReplicaRoutingDataSource(primaryDataSource, replicas);
+	}
+
+	@Bean
+	public RecentWrites recentWrites() {
+		return new RecentWrites(pinMs);
+	}
+
+	@Bean
+	public ReplicaRoutingAspect replicaRoutingAspect(RecentWrites recentWrites) {
+		return new ReplicaRoutingAspect(recentWrites);
+	}
+}
@@ -0,0 +1,122 @@
+package com.company.wallet.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.company.wallet.sharding.ShardRebalancer;
+import com.company.wallet.sharding.ShardRing;
+import com.company.wallet.sharding.ShardRouter;
+import com.company.wallet.sharding.ShardRoutingAspect;
+import com.company.wallet.sharding.ShardRoutingDataSource;
+import com.company.wallet.sharding.ShardSchemaInitializer;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Spreads the wallets over several databases, enabled with {@code wallet.sharding.enabled=true}.
+ * <p>
+ * Every playerId is assigned to one of the wallet.sharding.urls by a {@link ShardRing}, and the wallet,
+ * its transactions and its balance checkpoints are stored in that database. Methods taking a
+ * {@link com.company.wallet.sharding.ShardKey} run on the shard of the player, queries over all wallets
+ * run on every shard in parallel.
+ * </p>
+ * Only the jpa transaction mode is supported, and spring.jpa.open-in-view has to be false,
+ * so that a request doesn't hold on to the connection of the first shard it used.
+ *
+ * @author Vinay Singh
+ */
+@Configuration
+@ConditionalOnProperty(name = "wallet.sharding.enabled", havingValue = "true")
+public class ShardingConfiguration {
+
+	@Value("${wallet.sharding.urls}")
+	private String[] urls;
+
+	@Value("${wallet.sharding.virtual-nodes:128}")
+	private int virtualNodes;
+
+	@Value("${wallet.sharding.ids-per-shard:100000000}")
+	private long idsPerShard;
+
+	@Value("${spring.datasource.hikari.maximum-pool-size:10}")
+	private int maximumPoolSize;
+
+	@Value("${wallet.transaction.mode:jpa}")
+	private String transactionMode;
+
+	@Value("${spring.jpa.open-in-view:true}")
+	private boolean openInView;
+
+	@Bean
+	@Primary
+	public DataSource dataSource(DataSourceProperties properties) {
+		if (!"jpa".equals(transactionMode)) {
+			throw new IllegalStateException("Sharding only supports wallet.transaction.mode=jpa");
+		}
+		if (openInView) {
+			throw new IllegalStateException("Sharding needs spring.jpa.open-in-view=false");
+		}
+		if ((long) urls.length * idsPerShard > Integer.MAX_VALUE) {
+			throw new IllegalStateException("wallet.sharding.ids-per-shard is too large for " + urls.length + " shards");
+		}
+
+		List<DataSource> shards = new ArrayList<>(urls.length);
+		for (int shard = 0; shard < urls.length; shard++) {
+			HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+					.url(urls[shard].trim()).build();
+			dataSource.setPoolName("shard-" + shard);
+			dataSource.setMaximumPoolSize(maximumPoolSize);
+			shards.add(dataSource);
+		}
+		return new ShardRoutingDataSource(shards);
+	}
+
+	@Bean
+	public ShardRing shardRing() {
+		List<String> names = new ArrayList<>(urls.length);
+		for (int shard = 0; shard < urls.length; shard++) {
+			names.add("shard-" + shard);
+		}
+		return new ShardRing(names, virtualNodes);
+	}
+
+	@Bean(destroyMethod = "shutdown")
+	public ShardRouter shardRouter(ShardRing shardRing) {
+		return new ShardRouter(shardRing);
+	}
+
+	@Bean
+	public ShardRoutingAspect shardRoutingAspect(ShardRouter shardRouter) {
+		return new ShardRoutingAspect(shardRouter);
+	}
+
+	@Bean
+	public ShardSchemaInitializer shardSchemaInitializer(DataSource dataSource) {
+		return new ShardSchemaInitializer(dataSource, urls.length, idsPerShard);
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer shardSchemaCustomizer(ShardSchemaInitializer shardSchemaInitializer) {
+		IntegratorProvider integrators = () -> Collections.singletonList(shardSchemaInitializer);
+		return properties -> properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER, integrators);
+	}
+
+	@Bean
+	public ShardRebalancer shardRebalancer(ShardRouter shardRouter, DataSource dataSource,
+			PlatformTransactionManager transactionManager) {
+		return new ShardRebalancer(shardRouter, dataSource, transactionManager);
+	}
+}
@@ -0,0 +1,42 @@
+package com.company.wallet.config;
+
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.company.wallet.utils.VirtualThreads;
+
+/**
+ * Runs Tomcat request handling on virtual threads, enabled with {@code wallet.threads.mode=virtual}.
+ * <p>
+ * Every request gets its own virtual thread instead of a thread of the Tomcat pool, so requests blocked
+ * on JDBC don't limit concurrency, the connection pool and the player locks do.
+ * The service calls of a request run on its thread.
+ * </p>
+ * @author Vinay Singh
+ */
+@Configuration
+@ConditionalOnProperty(name = "wallet.threads.mode", havingValue = "virtual")
+public class VirtualThreadConfiguration {
+	private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadConfiguration.class);
+
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService virtualRequestExecutor() {
+		return VirtualThreads.newThreadPerTaskExecutor("http-virtual-");
+	}
+
+	@Bean
+	public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadTomcatCustomizer() {
+		ExecutorService executor = virtualRequestExecutor();
+		return factory -> factory.addConnectorCustomizers(connector -> {
+			connector.getProtocolHandler().setExecutor(executor);
+			LOGGER.info("Tomcat connector on port {} runs requests on virtual threads", connector.getPort());
+		});
+	}
+}
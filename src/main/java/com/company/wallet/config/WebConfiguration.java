@@ -0,0 +1,23 @@
+package com.company.wallet.config;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.company.wallet.codec.TransactionCommandArgumentResolver;
+
+/**
+ * Spring MVC settings of the wallet controllers.
+ *
+ * @author Vinay Singh
+ */
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+	@Override
+	public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+		resolvers.add(new TransactionCommandArgumentResolver());
+	}
+}
@@ -0,0 +1,116 @@
+package com.company.wallet.controller;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.company.wallet.dto.TransactionCommand;
+import com.company.wallet.dto.TransactionPage;
+import com.company.wallet.dto.TransactionResult;
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.service.RequestExecutor;
+import com.company.wallet.service.TransactionService;
+import com.company.wallet.service.WalletService;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Async variant of {@link TransactionController}, the work runs on the {@link RequestExecutor}
+ * and the request thread is released meanwhile. Rejected with 503 and Retry-After when the executor is saturated.
+ *
+ * @author Vinay Singh
+ */
+@RestController
+@RequestMapping("/api/async")
+public class AsyncTransactionController {
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private WalletService walletService;
+
+	@Autowired
+	private RequestExecutor requestExecutor;
+
+	@Value("${wallet.history.default-limit:100}")
+	private int historyDefaultLimit;
+
+	/**
+	 * Gets transactions of a given playerId, see {@link TransactionController#getWalletTransactionsByPlayerId}.
+	 * @throws WalletException
+	 */
+	@GetMapping(value = "/wallets/player/{playerId}/transactions", produces = MediaType.APPLICATION_JSON_VALUE)
+	public CompletableFuture<ResponseEntity<List<Transaction>>> getWalletTransactionsByPlayerId(
+			@PathVariable("playerId") String playerId, @RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "after", required = false) String after) throws WalletException {
+		return requestExecutor.submit(() -> {
+			TransactionPage page = transactionService.getTransactionPage(walletService.findWalletByPlayerId(playerId),
+					after, limit != null ? limit : historyDefaultLimit);
+			HttpHeaders headers = new HttpHeaders();
+			if (page.getNextCursor() != null) {
+				headers.set("X-Next-Cursor", page.getNextCursor());
+			}
+			return new ResponseEntity<List<Transaction>>(page.getTransactions(), headers, HttpStatus.OK);
+		});
+	}
+
+	/**
+	 * Creates wallet transaction, see {@link TransactionController#createWalletTransaction}.
+	 * @param command transactionId, playerId, transactionType and amount of the request
+	 * @return created transaction URI in response header.
+	 * @throws WalletException when the request is invalid or the executor is saturated
+	 */
+	@PostMapping(value = "/transactions", produces = MediaType.APPLICATION_JSON_VALUE)
+	public CompletableFuture<ResponseEntity<Void>> createWalletTransaction(TransactionCommand command,
+			UriComponentsBuilder ucBuilder) throws WalletException {
+		// the command is reused by the request thread
+		String transactionId = command.getTransactionId();
+		String playerId = command.getPlayerId();
+		TransactionType transactionType = command.getTransactionType();
+		Money amount = command.getAmount();
+		return requestExecutor.submit(() -> {
+			Transaction transaction = transactionService.createTransaction(transactionId, playerId, transactionType,
+					amount);
+			HttpHeaders headers = new HttpHeaders();
+			headers.setLocation(ucBuilder.path("/api/transactions/{id}").buildAndExpand(transaction.getId()).toUri());
+			return new ResponseEntity<Void>(headers, HttpStatus.CREATED);
+		});
+	}
+
+	/**
+	 * Creates a batch of wallet transactions, see {@link TransactionController#createWalletTransactions}.
+	 * @throws WalletException when the executor is saturated
+	 */
+	@PostMapping(value = "/transactions/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+	public CompletableFuture<List<TransactionResult>> createWalletTransactions(
+			@RequestBody List<Map<String, String>> dataMaps) throws WalletException {
+		return requestExecutor.submit(() -> transactionService.createTransactions(dataMaps));
+	}
+
+	/**
+	 * Gets transaction details for given id.
+	 * @throws WalletException when the executor is saturated
+	 */
+	@GetMapping(value = "/transactions/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+	public CompletableFuture<Transaction> getTransactionById(@PathVariable("id") String id) throws WalletException {
+		Integer transactionId = Integer.valueOf(id);
+		return requestExecutor.submit(() -> transactionService.findTransactionById(transactionId));
+	}
+}
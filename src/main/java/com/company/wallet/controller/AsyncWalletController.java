@@ -0,0 +1,76 @@
+package com.company.wallet.controller;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.company.wallet.dto.PlayerStats;
+import com.company.wallet.dto.PointInTimeBalance;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.service.RequestExecutor;
+import com.company.wallet.service.WalletService;
+
+/**
+ * Async variant of {@link WalletController}, the work runs on the {@link RequestExecutor}
+ * and the request thread is released meanwhile. Rejected with 503 and Retry-After when the executor is saturated.
+ *  @author Vinay Singh
+ */
+@RestController
+@RequestMapping("/api/async")
+public class AsyncWalletController {
+
+	@Autowired
+	private WalletService walletService;
+
+	@Autowired
+	private RequestExecutor requestExecutor;
+
+	@GetMapping(value = "/wallets", produces = MediaType.APPLICATION_JSON_VALUE)
+	public CompletableFuture<List<Wallet>> getAll() throws WalletException {
+		return requestExecutor.submit(walletService::findAll);
+	}
+
+	/**
+	 * Creates new wallet, see {@link WalletController#createWallet}.
+	 * @return created wallet URI in response header
+	 * @throws WalletException when the executor is saturated
+	 */
+	@PostMapping(value = "/wallets", produces = MediaType.APPLICATION_JSON_VALUE)
+	public CompletableFuture<ResponseEntity<Void>> createWallet(@RequestBody HashMap<String, String> dataHashMap,
+			UriComponentsBuilder ucBuilder) throws WalletException {
+		return requestExecutor.submit(() -> {
+			Wallet wallet = walletService.createWallet(dataHashMap.get("playerId"), dataHashMap.get("amount"));
+			HttpHeaders headers = new HttpHeaders();
+			headers.setLocation(
+					ucBuilder.path("/api/wallets/player/{playerId}").buildAndExpand(wallet.getPlayerId()).toUri());
+			return new ResponseEntity<Void>(headers, HttpStatus.CREATED);
+		});
+	}
+
+	@GetMapping(value = "/wallets/player/{playerId}", produces = MediaType.APPLICATION_JSON_VALUE)
+	public CompletableFuture<Wallet> getWalletByPlayerId(@PathVariable("playerId") String playerId)
+			throws WalletException {
+		return requestExecutor.submit(() -> walletService.findWalletByPlayerId(playerId));
+	}
+
+	@GetMapping(value = "/wallets/player/{playerId}/balance", produces = MediaType.APPLICATION_JSON_VALUE)
+	public CompletableFuture<PointInTimeBalance> getBalanceAt(@PathVariable("playerId") String playerId,
+			@RequestParam(value = "at", required = false) String at) throws WalletException {
+		return requestExecutor.submit(() -> walletService.getBalanceAt(playerId, at));
+	}
+
+	@GetMapping(value = "/wallets/player/{playerId}/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+	public CompletableFuture<PlayerStats> getStats(@PathVariable("playerId") String playerId) throws WalletException {
+		return requestExecutor.submit(() -> walletService.getStats(playerId));
+	}
+
+}
@@ -0,0 +1,102 @@
+package com.company.wallet.controller;
+
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.service.ExportService;
+import com.company.wallet.utils.ExportFormat;
+
+/**
+ * Restful controller for bulk export of wallets and transactions.
+ * <p>
+ * The response is streamed while rows are read from the database, e.g.
+ * GET /api/export/transactions?format=csv&amp;gzip=true
+ * </p>
+ * An export may take up to wallet.export.timeout-ms, other async requests keep the default timeout.
+ * @author Vinay Singh
+ */
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+	@Autowired
+	private ExportService exportService;
+
+	@Value("${wallet.export.timeout-ms:3600000}")
+	private long timeoutMs;
+
+	/**
+	 * Exports all wallets.
+	 * @param format ndjson (default) or csv
+	 * @param gzip whether to gzip the response body (sent with Content-Encoding: gzip)
+	 * @throws WalletException if the format is unknown
+	 */
+	@GetMapping("/wallets")
+	public WebAsyncTask<Void> exportWallets(
+			@RequestParam(value = "format", defaultValue = "ndjson") String format,
+			@RequestParam(value = "gzip", defaultValue = "false") boolean gzip, HttpServletResponse response)
+			throws WalletException {
+		ExportFormat exportFormat = parseFormat(format);
+		return stream(exportFormat, gzip, response, out -> exportService.exportWallets(exportFormat, out));
+	}
+
+	/**
+	 * Exports all transactions.
+	 * @param format ndjson (default) or csv
+	 * @param gzip whether to gzip the response body (sent with Content-Encoding: gzip)
+	 * @throws WalletException if the format is unknown
+	 */
+	@GetMapping("/transactions")
+	public WebAsyncTask<Void> exportTransactions(
+			@RequestParam(value = "format", defaultValue = "ndjson") String format,
+			@RequestParam(value = "gzip", defaultValue = "false") boolean gzip, HttpServletResponse response)
+			throws WalletException {
+		ExportFormat exportFormat = parseFormat(format);
+		return stream(exportFormat, gzip, response, out -> exportService.exportTransactions(exportFormat, out));
+	}
+
+	private ExportFormat parseFormat(String format) throws WalletException {
+		try {
+			return ExportFormat.valueOf(format.toUpperCase());
+		} catch (IllegalArgumentException ex) {
+			throw new WalletException("format must be ndjson or csv", HttpStatus.BAD_REQUEST.value());
+		}
+	}
+
+	/**
+	 * Writes the body on the async executor, with a timeout of its own instead of spring.mvc.async.request-timeout.
+	 */
+	private WebAsyncTask<Void> stream(ExportFormat format, boolean gzip, HttpServletResponse response,
+			StreamingResponseBody body) {
+		response.setContentType(format.getContentType() + ";charset=UTF-8");
+		if (gzip) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		return new WebAsyncTask<Void>(timeoutMs, () -> {
+			OutputStream out = response.getOutputStream();
+			if (gzip) {
+				GZIPOutputStream gzipOut = new GZIPOutputStream(out, 65536);
+				body.writeTo(gzipOut);
+				gzipOut.finish();
+			} else {
+				body.writeTo(out);
+			}
+			out.flush();
+			return null;
+		});
+	}
+}
@@ -0,0 +1,55 @@
+package com.company.wallet.controller;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.sharding.ShardRebalancer;
+
+/**
+ * Restful controller for operating the wallet shards, available with {@code wallet.sharding.enabled=true}.
+ *  @author Vinay Singh
+ */
+@RestController
+@RequestMapping("/api/admin/shards")
+@ConditionalOnProperty(name = "wallet.sharding.enabled", havingValue = "true")
+public class ShardController {
+
+	@Autowired
+	private ShardRebalancer shardRebalancer;
+
+	/**
+	 * Get the number of wallets stored on every shard.
+	 * @return wallet count by shard name
+	 */
+	@GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+	public Map<String, Number> getShards() {
+		List<Long> counts = shardRebalancer.countWallets();
+		Map<String, Number> shards = new LinkedHashMap<>();
+		for (int shard = 0; shard < counts.size(); shard++) {
+			shards.put("shard-" + shard, counts.get(shard));
+		}
+		return shards;
+	}
+
+	/**
+	 * Moves the wallets stored on another shard than the one owning them, e.g. after adding a shard.
+	 * Players with a wallet to move can't transact or create a wallet until the rebalancing finishes.
+	 * @return number of moved wallets
+	 * @throws WalletException if a player has a different wallet on the shard owning it
+	 */
+	@PostMapping(value = "/rebalance", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Map<String, Number> rebalance() throws WalletException {
+		return Collections.singletonMap("moved", shardRebalancer.rebalance());
+	}
+}
@@ -0,0 +1,45 @@
+package com.company.wallet.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.company.wallet.cache.IdempotencyCache;
+import com.company.wallet.cache.WalletCache;
+
+/**
+ * Restful controller exposing runtime statistics.
+ *  @author Vinay Singh
+ */
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+	@Autowired
+	private IdempotencyCache idempotencyCache;
+
+	@Autowired
+	private WalletCache walletCache;
+
+	/**
+	 * Get idempotency cache statistics (hits, misses, database lookups, false positives, size, evictions).
+	 * @return statistics by name
+	 */
+	@GetMapping(value = "/idempotency", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Map<String, Number> getIdempotencyStats() {
+		return idempotencyCache.getStats();
+	}
+
+	/**
+	 * Get wallet cache statistics (hits, misses, hit ratio, expirations, invalidations, size, evictions).
+	 * @return statistics by name
+	 */
+	@GetMapping(value = "/wallet-cache", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Map<String, Number> getWalletCacheStats() {
+		return walletCache.getStats();
+	}
+}
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -13,9 +14,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.company.wallet.dto.TransactionCommand;
+import com.company.wallet.dto.TransactionPage;
+import com.company.wallet.dto.TransactionResult;
 import com.company.wallet.entities.Transaction;
 import com.company.wallet.entities.Wallet;
 import com.company.wallet.exception.handler.WalletException;
@@ -37,15 +42,30 @@ public class TransactionController {
 	@Autowired
 	private WalletService walletService;
 
+	@Value("${wallet.history.default-limit:100}")
+	private int historyDefaultLimit;
+
 	/**
-	 * Gets all transactions of a given playerId.
+	 * Gets transactions of a given playerId, newest first, one page at a time.
+	 * If there are more transactions, the cursor for the next page is returned in the X-Next-Cursor header.
 	 * @param playerId
+	 * @param limit maximum number of transactions to return
+	 * @param after X-Next-Cursor header of the previous page, omitted for the first page
 	 * @throws WalletException
 	 */
 	@GetMapping(value = "/wallets/player/{playerId}/transactions", produces = MediaType.APPLICATION_JSON_VALUE)
-	public List<Transaction> getWalletTransactionsByPlayerId(@PathVariable("playerId") String playerId) throws WalletException {
+	public ResponseEntity<List<Transaction>> getWalletTransactionsByPlayerId(@PathVariable("playerId") String playerId,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "after", required = false) String after) throws WalletException {
 		Wallet wallet = walletService.findWalletByPlayerId(playerId);
-		return transactionService.getTransactionsByWallet(wallet);
+		TransactionPage page = transactionService.getTransactionPage(wallet, after,
+				limit != null ? limit : historyDefaultLimit);
+
+		HttpHeaders headers = new HttpHeaders();
+		if (page.getNextCursor() != null) {
+			headers.set("X-Next-Cursor", page.getNextCursor());
+		}
+		return new ResponseEntity<List<Transaction>>(page.getTransactions(), headers, HttpStatus.OK);
 	}
 
 	/**
@@ -56,21 +76,18 @@ public class TransactionController {
      *
      * Example of debit transaction JSON body
      * {"transactionId":"1","playerId": "1","transactionType":"DEBIT","amount":"100"}
+     *
+     * The body is decoded by {@link com.company.wallet.codec.TransactionCommandDecoder}.
      * </p>
-     * @param dataMap contains input parameters in the following format:
-     *                {"transactionId":"1","playerId": "1","transactionType":"CREDIT","amount":"100"}
+     * @param command transactionId, playerId, transactionType and amount of the request
      * @return created transaction URI in response header.
      * @throws WalletException when couldn't create transaction (e.g. transactionId not unique, not enough funds on wallet balance, etc.)
      */
 	@PostMapping(value = "/transactions", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<Void> createWalletTransaction(@RequestBody Map<String, String> dataMap,
+	public ResponseEntity<Void> createWalletTransaction(TransactionCommand command,
 			UriComponentsBuilder ucBuilder) throws WalletException {
-		String transactionId = dataMap.get("transactionId");
-		String playerId = dataMap.get("playerId");
-		String transactionType = dataMap.get("transactionType");
-		String amount = dataMap.get("amount");
-		Transaction transaction = transactionService.createTransaction(transactionId, playerId, transactionType,
-				amount);
+		Transaction transaction = transactionService.createTransaction(command.getTransactionId(),
+				command.getPlayerId(), command.getTransactionType(), command.getAmount());
 
 		HttpHeaders headers = new HttpHeaders();
 		headers.setLocation(ucBuilder.path("/api/transactions/{id}").buildAndExpand(transaction.getId()).toUri());
@@ -78,6 +95,23 @@ public class TransactionController {
 		return new ResponseEntity<Void>(headers, HttpStatus.CREATED);
 	}
 
+	/**
+     * Creates a batch of wallet transactions.
+     * <p>
+     * Example of JSON body
+     * [{"transactionId":"1","playerId": "1","transactionType":"CREDIT","amount":"100"},
+     *  {"transactionId":"2","playerId": "1","transactionType":"DEBIT","amount":"50"}]
+     * </p>
+     * @param dataMaps transactions in the same format as for a single transaction
+     * @return result of every transaction, in the same order: status, and id of created transaction or error message
+     * @throws WalletException when the batch is empty or too large
+     */
+	@PostMapping(value = "/transactions/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+	public List<TransactionResult> createWalletTransactions(@RequestBody List<Map<String, String>> dataMaps)
+			throws WalletException {
+		return transactionService.createTransactions(dataMaps);
+	}
+
 	/**
     * Gets transaction details for given id.
     * @param id
@@ -11,6 +11,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.company.wallet.dto.PlayerStats;
+import com.company.wallet.dto.PointInTimeBalance;
 import com.company.wallet.entities.Wallet;
 import com.company.wallet.exception.handler.WalletException;
 import com.company.wallet.service.WalletService;
@@ -67,4 +69,28 @@ public class WalletController {
 		return wallet;
 	}
 
+	/**
+	 * Get the balance a player's wallet had at a point in time.
+	 * @param playerId
+	 * @param at ISO-8601 instant, e.g. 2019-10-01T12:00:00Z
+	 * @return playerId, time and balance
+	 * @throws WalletException
+	 */
+	@GetMapping(value = "/wallets/player/{playerId}/balance", produces = MediaType.APPLICATION_JSON_VALUE)
+	public PointInTimeBalance getBalanceAt(@PathVariable("playerId") String playerId,
+			@RequestParam(value = "at", required = false) String at) throws WalletException {
+		return walletService.getBalanceAt(playerId, at);
+	}
+
+	/**
+	 * Get the number and total amount of deposits and withdrawals of a player, and the time of the latest one.
+	 * @param playerId
+	 * @return playerId, deposit and withdrawal totals and last activity
+	 * @throws WalletException
+	 */
+	@GetMapping(value = "/wallets/player/{playerId}/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+	public PlayerStats getStats(@PathVariable("playerId") String playerId) throws WalletException {
+		return walletService.getStats(playerId);
+	}
+
 }
@@ -0,0 +1,79 @@
+package com.company.wallet.dto;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Lifetime deposits, withdrawals and last activity of a player's wallet.
+ *
+ * @author Vinay Singh
+ */
+public class PlayerStats {
+	private String playerId;
+	private long depositCount;
+	private BigDecimal depositAmount;
+	private long withdrawalCount;
+	private BigDecimal withdrawalAmount;
+	private Date lastActivity;
+
+	public PlayerStats() {
+	}
+
+	public PlayerStats(String playerId, long depositCount, BigDecimal depositAmount, long withdrawalCount,
+			BigDecimal withdrawalAmount, Date lastActivity) {
+		this.playerId = playerId;
+		this.depositCount = depositCount;
+		this.depositAmount = depositAmount;
+		this.withdrawalCount = withdrawalCount;
+		this.withdrawalAmount = withdrawalAmount;
+		this.lastActivity = lastActivity;
+	}
+
+	public String getPlayerId() {
+		return playerId;
+	}
+
+	public void setPlayerId(String playerId) {
+		this.playerId = playerId;
+	}
+
+	public long getDepositCount() {
+		return depositCount;
+	}
+
+	public void setDepositCount(long depositCount) {
+		this.depositCount = depositCount;
+	}
+
+	public BigDecimal getDepositAmount() {
+		return depositAmount;
+	}
+
+	public void setDepositAmount(BigDecimal depositAmount) {
+		this.depositAmount = depositAmount;
+	}
+
+	public long getWithdrawalCount() {
+		return withdrawalCount;
+	}
+
+	public void setWithdrawalCount(long withdrawalCount) {
+		this.withdrawalCount = withdrawalCount;
+	}
+
+	public BigDecimal getWithdrawalAmount() {
+		return withdrawalAmount;
+	}
+
+	public void setWithdrawalAmount(BigDecimal withdrawalAmount) {
+		this.withdrawalAmount = withdrawalAmount;
+	}
+
+	public Date getLastActivity() {
+		return lastActivity;
+	}
+
+	public void setLastActivity(Date lastActivity) {
+		this.lastActivity = lastActivity;
+	}
+}
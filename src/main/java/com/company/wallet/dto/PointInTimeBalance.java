@@ -0,0 +1,48 @@
+package com.company.wallet.dto;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Balance of a player's wallet at a point in time.
+ *
+ * @author Vinay Singh
+ */
+public class PointInTimeBalance {
+	private String playerId;
+	private Date at;
+	private BigDecimal balance;
+
+	public PointInTimeBalance() {
+	}
+
+	public PointInTimeBalance(String playerId, Date at, BigDecimal balance) {
+		this.playerId = playerId;
+		this.at = at;
+		this.balance = balance;
+	}
+
+	public String getPlayerId() {
+		return playerId;
+	}
+
+	public void setPlayerId(String playerId) {
+		this.playerId = playerId;
+	}
+
+	public Date getAt() {
+		return at;
+	}
+
+	public void setAt(Date at) {
+		this.at = at;
+	}
+
+	public BigDecimal getBalance() {
+		return balance;
+	}
+
+	public void setBalance(BigDecimal balance) {
+		this.balance = balance;
+	}
+}
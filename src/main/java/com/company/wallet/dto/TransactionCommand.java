@@ -0,0 +1,58 @@
+package com.company.wallet.dto;
+
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Decoded single transaction request.
+ * <p>
+ * A command is reused for the next request decoded on the same thread, so it must not be kept
+ * or handed to another thread; copy the fields instead.
+ * </p>
+ * @author Vinay Singh
+ */
+public class TransactionCommand {
+	private String transactionId;
+	private String playerId;
+	private TransactionType transactionType;
+	private Money amount;
+
+	public String getTransactionId() {
+		return transactionId;
+	}
+
+	public void setTransactionId(String transactionId) {
+		this.transactionId = transactionId;
+	}
+
+	public String getPlayerId() {
+		return playerId;
+	}
+
+	public void setPlayerId(String playerId) {
+		this.playerId = playerId;
+	}
+
+	public TransactionType getTransactionType() {
+		return transactionType;
+	}
+
+	public void setTransactionType(TransactionType transactionType) {
+		this.transactionType = transactionType;
+	}
+
+	public Money getAmount() {
+		return amount;
+	}
+
+	public void setAmount(Money amount) {
+		this.amount = amount;
+	}
+
+	public void clear() {
+		transactionId = null;
+		playerId = null;
+		transactionType = null;
+		amount = null;
+	}
+}
@@ -0,0 +1,42 @@
+package com.company.wallet.dto;
+
+import java.util.List;
+
+import com.company.wallet.entities.Transaction;
+
+/**
+ * One page of a wallet transaction history, newest first.
+ *
+ * @author Vinay Singh
+ */
+public class TransactionPage {
+	private List<Transaction> transactions;
+	private String nextCursor;
+
+	public TransactionPage() {
+	}
+
+	public TransactionPage(List<Transaction> transactions, String nextCursor) {
+		this.transactions = transactions;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<Transaction> getTransactions() {
+		return transactions;
+	}
+
+	public void setTransactions(List<Transaction> transactions) {
+		this.transactions = transactions;
+	}
+
+	/**
+	 * Cursor to pass as {@code after} to get the next page, null on the last page.
+	 */
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+}
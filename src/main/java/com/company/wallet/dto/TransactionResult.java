@@ -0,0 +1,95 @@
+package com.company.wallet.dto;
+
+import com.company.wallet.entities.Transaction;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one transaction of a batch submission.
+ *
+ * @author Vinay Singh
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransactionResult {
+	private int index;
+	private String transactionId;
+	private int status;
+	private Integer id;
+	private String message;
+	@JsonIgnore
+	private Transaction transaction;
+
+	public TransactionResult() {
+	}
+
+	public TransactionResult(int index, String transactionId, int status, Integer id, String message) {
+		this.index = index;
+		this.transactionId = transactionId;
+		this.status = status;
+		this.id = id;
+		this.message = message;
+	}
+
+	/**
+	 * Position of the transaction in the submitted batch.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	public void setIndex(int index) {
+		this.index = index;
+	}
+
+	public String getTransactionId() {
+		return transactionId;
+	}
+
+	public void setTransactionId(String transactionId) {
+		this.transactionId = transactionId;
+	}
+
+	/**
+	 * HTTP status the transaction would have got as a single request.
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	public void setStatus(int status) {
+		this.status = status;
+	}
+
+	/**
+	 * Id of the created transaction, only set on success.
+	 */
+	public Integer getId() {
+		return id;
+	}
+
+	public void setId(Integer id) {
+		this.id = id;
+	}
+
+	/**
+	 * Error message, only set on failure.
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	/**
+	 * Created transaction, only set on success and not serialized.
+	 */
+	public Transaction getTransaction() {
+		return transaction;
+	}
+
+	public void setTransaction(Transaction transaction) {
+		this.transaction = transaction;
+	}
+}
@@ -0,0 +1,46 @@
+package com.company.wallet.entities;
+
+import javax.persistence.*;
+
+/**
+ *  Tombstone of a transaction moved to the {@link com.company.wallet.archive.TransactionArchive}, written by
+ *  {@link com.company.wallet.archive.TransactionArchiver} when it deletes the transaction.
+ *  Keeps the transactionId taken and tells in which player's archive the transaction is found.
+ *
+ *  @author Vinay Singh
+ */
+@Entity
+@Table(name = "archived_transaction_id", indexes = @Index(name = "idx_archived_transaction_id_player", columnList = "player_id"))
+public class ArchivedTransactionId {
+	/** id the transaction had in the transaction table */
+	@Id
+	@Column(name = "id", nullable = false)
+	private Integer id;
+
+	@Column(name = "transaction_id", unique = true, nullable = false)
+	private String transactionId;
+
+	@Column(name = "player_id", nullable = false)
+	private String playerId;
+
+	public ArchivedTransactionId() {
+	}
+
+	public ArchivedTransactionId(Integer id, String transactionId, String playerId) {
+		this.id = id;
+		this.transactionId = transactionId;
+		this.playerId = playerId;
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	public String getTransactionId() {
+		return transactionId;
+	}
+
+	public String getPlayerId() {
+		return playerId;
+	}
+}
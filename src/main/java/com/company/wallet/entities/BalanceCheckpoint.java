@@ -0,0 +1,58 @@
+package com.company.wallet.entities;
+
+import java.util.Date;
+
+import javax.persistence.*;
+
+import com.company.wallet.utils.Money;
+
+/**
+ *  Balance of a wallet at a point in time, written periodically by
+ *  {@link com.company.wallet.service.BalanceCheckpointer}.
+ *
+ *  @author Vinay Singh
+ */
+@Entity
+@Table(name = "balance_checkpoint", indexes = @Index(name = "idx_balance_checkpoint_wallet_time", columnList = "wallet_id, checkpoint_time"))
+public class BalanceCheckpoint {
+	@Id
+	@Column(name = "id", nullable = false)
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "wallet_id", nullable = false)
+	private Integer walletId;
+
+	@Column(name = "checkpoint_time", nullable = false)
+	@Temporal(TemporalType.TIMESTAMP)
+	private Date checkpointTime;
+
+	/** minor units of {@link Money#SCALE}, including all transactions updated up to checkpointTime */
+	@Column(name = "balance", nullable = false)
+	private Long balance;
+
+	public BalanceCheckpoint() {
+	}
+
+	public BalanceCheckpoint(Integer walletId, Date checkpointTime, Money balance) {
+		this.walletId = walletId;
+		this.checkpointTime = checkpointTime;
+		this.balance = balance.getMinorUnits();
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Integer getWalletId() {
+		return walletId;
+	}
+
+	public Date getCheckpointTime() {
+		return checkpointTime;
+	}
+
+	public Money getBalanceMoney() {
+		return Money.ofMinor(balance);
+	}
+}
@@ -7,6 +7,7 @@ import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
+import com.company.wallet.utils.Money;
 import com.company.wallet.utils.TransactionType;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
@@ -16,11 +17,12 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  *  @author Vinay Singh
  */
 @Entity
-@Table(name = "transaction")
+@Table(name = "transaction", indexes = @Index(name = "idx_transaction_wallet_history", columnList = "wallet_id, updated_time, id"))
 public class Transaction {
 	@Id
 	@Column(name = "id", nullable = false)
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+	@SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_seq", allocationSize = 50)
 	private Integer id;
 
 	@NotBlank(message = "Transaction Id must not be empty")
@@ -32,9 +34,10 @@ public class Transaction {
 	@Column(name = "transaction_type", nullable = false)
 	private TransactionType transactionType;
 
+	/** minor units of {@link Money#SCALE} */
 	@NotNull(message = "Transaction amount must be provided")
 	@Column(name = "amount", nullable = false)
-	private BigDecimal amount;
+	private Long amount;
 
 	@JsonIgnore
 	@NotNull(message = "Transaction wallet must be provided")
@@ -50,9 +53,13 @@ public class Transaction {
 	}
 
 	public Transaction(String transactionId, TransactionType transactionType, BigDecimal amount, Wallet wallet) {
+		this(transactionId, transactionType, amount != null ? Money.of(amount) : null, wallet);
+	}
+
+	public Transaction(String transactionId, TransactionType transactionType, Money amount, Wallet wallet) {
 		this.transactionId = transactionId;
 		this.transactionType = transactionType;
-		this.amount = amount;
+		setAmountMoney(amount);
 		this.wallet = wallet;
 		this.updatedTime = new Date();
 	}
@@ -82,11 +89,20 @@ public class Transaction {
 	}
 
 	public BigDecimal getAmount() {
-		return amount;
+		return amount != null ? Money.ofMinor(amount).toBigDecimal() : null;
 	}
 
 	public void setAmount(BigDecimal amount) {
-		this.amount = amount;
+		setAmountMoney(amount != null ? Money.of(amount) : null);
+	}
+
+	@JsonIgnore
+	public Money getAmountMoney() {
+		return amount != null ? Money.ofMinor(amount) : null;
+	}
+
+	public void setAmountMoney(Money amount) {
+		this.amount = amount != null ? amount.getMinorUnits() : null;
 	}
 
 	public Wallet getWallet() {
@@ -5,6 +5,7 @@ import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
+import com.company.wallet.utils.Money;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.math.BigDecimal;
@@ -30,10 +31,11 @@ public class Wallet {
 	@Column(name = "player_id", unique = true, nullable = false)
 	private String playerId;
 
+	/** minor units of {@link Money#SCALE} */
 	@Min(0)
 	@Column(name = "balance", nullable = false)
 	@NotNull(message = "Wallet balance must be provided")	
-	private BigDecimal balance;
+	private Long balance;
 
 	@Column(name = "created_time")
 	@Temporal(TemporalType.TIMESTAMP)
@@ -43,6 +45,12 @@ public class Wallet {
 	@Temporal(TemporalType.TIMESTAMP)
 	private Date updatedTime;
 
+	/** incremented by every balance change, checked by optimistic updates */
+	@JsonIgnore
+	@Version
+	@Column(name = "version")
+	private Long version;
+
 	@JsonIgnore
 	@OneToMany(mappedBy = "wallet", fetch = FetchType.LAZY)
 	private List<Transaction> transactions;
@@ -51,8 +59,12 @@ public class Wallet {
 	}
 
 	public Wallet(String playerId, BigDecimal balance) {
+		this(playerId, balance != null ? Money.of(balance) : null);
+	}
+
+	public Wallet(String playerId, Money balance) {
 		this.playerId = playerId;
-		this.balance = balance;
+		setBalanceMoney(balance);
 		this.createdTime = new Date();
 		this.updatedTime = new Date();
 	}
@@ -89,6 +101,14 @@ public class Wallet {
 		this.updatedTime = updatedTime;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
 	public List<Transaction> getTransactions() {
 		return transactions;
 	}
@@ -98,11 +118,20 @@ public class Wallet {
 	}
 
 	public BigDecimal getBalance() {
-		return balance;
+		return balance != null ? Money.ofMinor(balance).toBigDecimal() : null;
 	}
 
 	public void setBalance(BigDecimal balance) {
-		this.balance = balance;
+		setBalanceMoney(balance != null ? Money.of(balance) : null);
+	}
+
+	@JsonIgnore
+	public Money getBalanceMoney() {
+		return balance != null ? Money.ofMinor(balance) : null;
+	}
+
+	public void setBalanceMoney(Money balance) {
+		this.balance = balance != null ? balance.getMinorUnits() : null;
 	}
 
 }
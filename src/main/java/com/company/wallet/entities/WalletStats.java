@@ -0,0 +1,70 @@
+package com.company.wallet.entities;
+
+import java.util.Date;
+
+import javax.persistence.*;
+
+import com.company.wallet.utils.Money;
+
+/**
+ *  Lifetime totals of a wallet, changed in the database transaction inserting each of its transactions.
+ *
+ *  @author Vinay Singh
+ */
+@Entity
+@Table(name = "wallet_stats")
+public class WalletStats {
+	@Id
+	@Column(name = "wallet_id", nullable = false)
+	private Integer walletId;
+
+	@Column(name = "deposit_count", nullable = false)
+	private long depositCount;
+
+	/** minor units of {@link Money#SCALE} */
+	@Column(name = "deposit_amount", nullable = false)
+	private long depositAmount;
+
+	@Column(name = "withdrawal_count", nullable = false)
+	private long withdrawalCount;
+
+	/** minor units of {@link Money#SCALE} */
+	@Column(name = "withdrawal_amount", nullable = false)
+	private long withdrawalAmount;
+
+	/** updated time of the latest transaction, null without transactions */
+	@Column(name = "last_activity")
+	@Temporal(TemporalType.TIMESTAMP)
+	private Date lastActivity;
+
+	public WalletStats() {
+	}
+
+	public WalletStats(Integer walletId) {
+		this.walletId = walletId;
+	}
+
+	public Integer getWalletId() {
+		return walletId;
+	}
+
+	public long getDepositCount() {
+		return depositCount;
+	}
+
+	public Money getDepositAmount() {
+		return Money.ofMinor(depositAmount);
+	}
+
+	public long getWithdrawalCount() {
+		return withdrawalCount;
+	}
+
+	public Money getWithdrawalAmount() {
+		return Money.ofMinor(withdrawalAmount);
+	}
+
+	public Date getLastActivity() {
+		return lastActivity;
+	}
+}
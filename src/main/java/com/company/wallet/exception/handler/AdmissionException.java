@@ -0,0 +1,42 @@
+package com.company.wallet.exception.handler;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Transaction rejected before any database work because it would certainly fail.
+ * <p>
+ * Such rejections come in floods, so the exception has no stack trace, the one for insufficient funds is
+ * shared, and the error details answered with are built once per request description.
+ * </p>
+ * @author Vinay Singh
+ */
+public class AdmissionException extends WalletException {
+	private static final long serialVersionUID = 1L;
+
+	public static final AdmissionException INSUFFICIENT_FUNDS = new AdmissionException(
+			"No sufficient funds in account for withdrawl", HttpStatus.BAD_REQUEST.value());
+
+	/** details of the last response, reused while the request description is the same */
+	private transient volatile ErrorDetails errorDetails;
+
+	public AdmissionException(String message, int errorCode) {
+		super(message, errorCode, false);
+	}
+
+	public static AdmissionException unknownPlayer(String playerId) {
+		return new AdmissionException("No wallet found with playerId " + playerId, HttpStatus.NOT_FOUND.value());
+	}
+
+	/**
+	 * @param description description of the rejected request
+	 * @return error details to answer with
+	 */
+	public ErrorDetails getErrorDetails(String description) {
+		ErrorDetails details = errorDetails;
+		if (details == null || !details.getDetails().equals(description)) {
+			details = new ErrorDetails(getMessage(), description);
+			errorDetails = details;
+		}
+		return details;
+	}
+}
@@ -1,5 +1,6 @@
 package com.company.wallet.exception.handler;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -19,7 +20,17 @@ public class ExceptionsHandler extends ResponseEntityExceptionHandler {
 	protected ResponseEntity<ErrorDetails> handleWalletException(WalletException ex, WebRequest request) {
 		HttpStatus status = HttpStatus.valueOf(ex.getErrorCode());
 		ErrorDetails errorDetails = new ErrorDetails(ex.getMessage(), request.getDescription(false));
-		return new ResponseEntity<>(errorDetails, status);
+		HttpHeaders headers = new HttpHeaders();
+		if (ex.getRetryAfterSeconds() != null) {
+			headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+		}
+		return new ResponseEntity<>(errorDetails, headers, status);
+	}
+
+	@ExceptionHandler(value = { AdmissionException.class })
+	protected ResponseEntity<ErrorDetails> handleAdmissionException(AdmissionException ex, WebRequest request) {
+		return new ResponseEntity<>(ex.getErrorDetails(request.getDescription(false)),
+				HttpStatus.valueOf(ex.getErrorCode()));
 	}
 
 }
@@ -16,6 +16,9 @@ public class WalletException extends Exception {
 	
 	private int errorCode;
 
+	/** seconds the client should wait before retrying, sent as Retry-After header, or null */
+	private Integer retryAfterSeconds;
+
 	public int getErrorCode() {
 		return errorCode;
 	}
@@ -24,11 +27,28 @@ public class WalletException extends Exception {
 		this.errorCode = errorCode;
 	}
 
+	public Integer getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+
 	public WalletException(String message, int errorCode) {
 		super(message);
 		this.errorCode = errorCode;
 	}
 
+	public WalletException(String message, int errorCode, int retryAfterSeconds) {
+		this(message, errorCode);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	/**
+	 * @param writableStackTrace false for exceptions thrown so often that filling in the stack trace matters
+	 */
+	protected WalletException(String message, int errorCode, boolean writableStackTrace) {
+		super(message, null, false, writableStackTrace);
+		this.errorCode = errorCode;
+	}
+
 	public WalletException() {
 		super();
 
@@ -0,0 +1,55 @@
+package com.company.wallet.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.company.wallet.utils.Money;
+
+/**
+ * Writes rows as RFC 4180 CSV with a header line.
+ *
+ * @author Vinay Singh
+ */
+public class CsvRowWriter implements RowWriter {
+	private final Writer writer;
+
+	public CsvRowWriter(String[] columns, OutputStream out) throws IOException {
+		this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		write(columns);
+	}
+
+	@Override
+	public void write(Object[] values) throws IOException {
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				writer.write(',');
+			}
+			Object value = values[i];
+			if (value instanceof Money) {
+				writer.write(value.toString());
+			} else if (value != null) {
+				writeEscaped(value.toString());
+			}
+		}
+		writer.write("\r\n");
+	}
+
+	private void writeEscaped(String value) throws IOException {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			writer.write(value);
+			return;
+		}
+		writer.write('"');
+		writer.write(value.replace("\"", "\"\""));
+		writer.write('"');
+	}
+
+	@Override
+	public void finish() throws IOException {
+		writer.flush();
+	}
+}
@@ -0,0 +1,55 @@
+package com.company.wallet.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.company.wallet.utils.Money;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+/**
+ * Writes rows as newline delimited JSON objects.
+ *
+ * @author Vinay Singh
+ */
+public class NdjsonRowWriter implements RowWriter {
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private final String[] columns;
+	private final JsonGenerator generator;
+
+	public NdjsonRowWriter(String[] columns, OutputStream out) throws IOException {
+		this.columns = columns;
+		this.generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)
+				.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+				.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+	}
+
+	@Override
+	public void write(Object[] values) throws IOException {
+		generator.writeStartObject();
+		for (int i = 0; i < columns.length; i++) {
+			generator.writeFieldName(columns[i]);
+			Object value = values[i];
+			if (value == null) {
+				generator.writeNull();
+			} else if (value instanceof Money) {
+				// plain number with the currency scale, e.g. 5.00
+				generator.writeNumber(value.toString());
+			} else if (value instanceof Integer || value instanceof Long) {
+				generator.writeNumber(((Number) value).longValue());
+			} else {
+				generator.writeString(value.toString());
+			}
+		}
+		generator.writeEndObject();
+	}
+
+	@Override
+	public void finish() throws IOException {
+		generator.writeRaw('\n');
+		generator.close();
+	}
+}
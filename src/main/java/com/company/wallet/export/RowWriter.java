@@ -0,0 +1,33 @@
+package com.company.wallet.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.company.wallet.utils.ExportFormat;
+
+/**
+ * Writes exported rows to a stream one at a time, without holding more than the current row.
+ *
+ * @author Vinay Singh
+ */
+public interface RowWriter {
+
+	/**
+	 * Writes one row. Values are in the order of the columns the writer was created with.
+	 */
+	void write(Object[] values) throws IOException;
+
+	/**
+	 * Flushes buffered output. Does not close the underlying stream.
+	 */
+	void finish() throws IOException;
+
+	static RowWriter of(ExportFormat format, String[] columns, OutputStream out) throws IOException {
+		switch (format) {
+		case CSV:
+			return new CsvRowWriter(columns, out);
+		default:
+			return new NdjsonRowWriter(columns, out);
+		}
+	}
+}
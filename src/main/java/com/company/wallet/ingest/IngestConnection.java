@@ -0,0 +1,181 @@
+package com.company.wallet.ingest;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.company.wallet.ingest.client.IngestProtocol;
+
+/**
+ * One client connection of the {@link IngestServer}.
+ * <p>
+ * Reading, parsing and writing happen on the selector thread. Acks are added to the output buffer by the threads
+ * applying the transactions, which then ask the selector thread to flush it. At most maxInFlight transactions
+ * of a connection are applied or waiting for their ack to be written, beyond that the connection isn't read,
+ * so a client sending faster than the wallet can apply is slowed down by TCP flow control.
+ * </p>
+ * @author Vinay Singh
+ */
+final class IngestConnection {
+	private static final Logger LOGGER = LoggerFactory.getLogger(IngestConnection.class);
+	private static final int ACK_FRAME_LENGTH = IngestProtocol.LENGTH_SIZE + IngestProtocol.ACK_SIZE;
+
+	private final IngestServer server;
+	private final SocketChannel channel;
+	private final SelectionKey key;
+	private final int maxFrameSize;
+	private final int maxInFlight;
+
+	private final ByteBuffer in;
+	/** big enough for the acks of maxInFlight transactions, guarded by itself */
+	private final ByteBuffer out;
+	private long writtenBytes;
+	private boolean writePending;
+
+	private final AtomicInteger unacked = new AtomicInteger();
+	private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+	IngestConnection(IngestServer server, SocketChannel channel, SelectionKey key, int maxFrameSize, int maxInFlight) {
+		this.server = server;
+		this.channel = channel;
+		this.key = key;
+		this.maxFrameSize = maxFrameSize;
+		this.maxInFlight = maxInFlight;
+		this.in = ByteBuffer.allocate(IngestProtocol.LENGTH_SIZE + maxFrameSize);
+		this.out = ByteBuffer.allocate(maxInFlight * ACK_FRAME_LENGTH);
+	}
+
+	void read() {
+		try {
+			if (channel.read(in) < 0) {
+				close();
+				return;
+			}
+			processFrames();
+			updateInterest();
+		} catch (IOException ex) {
+			LOGGER.debug("Closing ingest connection {}", remoteAddress(), ex);
+			close();
+		}
+	}
+
+	private void processFrames() throws ProtocolException {
+		in.flip();
+		try {
+			while (unacked.get() < maxInFlight && in.remaining() >= IngestProtocol.LENGTH_SIZE) {
+				int length = in.getInt(in.position());
+				if (length < IngestProtocol.TRANSACTION_HEADER_SIZE || length > maxFrameSize) {
+					throw new ProtocolException("Invalid frame length " + length);
+				}
+				if (in.remaining() < IngestProtocol.LENGTH_SIZE + length) {
+					break;
+				}
+				int frameEnd = in.position() + IngestProtocol.LENGTH_SIZE + length;
+				in.position(in.position() + IngestProtocol.LENGTH_SIZE);
+				decodeFrame(frameEnd);
+			}
+		} finally {
+			in.compact();
+		}
+	}
+
+	private void decodeFrame(int frameEnd) throws ProtocolException {
+		if (in.get() != IngestProtocol.TRANSACTION_FRAME) {
+			throw new ProtocolException("Unknown frame type");
+		}
+		long correlationId = in.getLong();
+		byte transactionType = in.get();
+		long amount = in.getLong();
+		String transactionId = readString(frameEnd);
+		String playerId = readString(frameEnd);
+		if (in.position() != frameEnd) {
+			throw new ProtocolException("Frame length doesn't match its content");
+		}
+		unacked.incrementAndGet();
+		server.dispatch(this, correlationId, transactionType, amount, transactionId, playerId);
+	}
+
+	private String readString(int frameEnd) throws ProtocolException {
+		int length = in.getShort() & 0xFFFF;
+		if (in.position() + length > frameEnd) {
+			throw new ProtocolException("String longer than its frame");
+		}
+		String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+		in.position(in.position() + length);
+		return value;
+	}
+
+	/**
+	 * Adds the ack of a transaction, called by any thread.
+	 */
+	void ack(long correlationId, int status, int transactionId) {
+		synchronized (out) {
+			out.putInt(IngestProtocol.ACK_SIZE).put(IngestProtocol.ACK_FRAME).putLong(correlationId)
+					.putShort((short) status).putInt(transactionId);
+		}
+		if (flushRequested.compareAndSet(false, true)) {
+			server.requestFlush(this);
+		}
+	}
+
+	/**
+	 * Writes the acks added so far, called on the selector thread.
+	 */
+	void flush() {
+		flushRequested.set(false);
+		if (!key.isValid()) {
+			return;
+		}
+		try {
+			int acks;
+			synchronized (out) {
+				out.flip();
+				long before = writtenBytes / ACK_FRAME_LENGTH;
+				writtenBytes += channel.write(out);
+				acks = (int) (writtenBytes / ACK_FRAME_LENGTH - before);
+				writePending = out.hasRemaining();
+				out.compact();
+			}
+			if (unacked.addAndGet(-acks) < maxInFlight) {
+				// frames already received while reading was paused
+				processFrames();
+			}
+			updateInterest();
+		} catch (IOException ex) {
+			LOGGER.debug("Closing ingest connection {}", remoteAddress(), ex);
+			close();
+		}
+	}
+
+	private void updateInterest() {
+		if (key.isValid()) {
+			key.interestOps((unacked.get() < maxInFlight ? SelectionKey.OP_READ : 0)
+					| (writePending ? SelectionKey.OP_WRITE : 0));
+		}
+	}
+
+	void close() {
+		key.cancel();
+		try {
+			channel.close();
+		} catch (IOException ex) {
+			LOGGER.debug("Failed to close ingest connection", ex);
+		}
+	}
+
+	private Object remoteAddress() {
+		try {
+			return channel.getRemoteAddress();
+		} catch (IOException ex) {
+			return "(closed)";
+		}
+	}
+}
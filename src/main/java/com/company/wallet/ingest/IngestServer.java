@@ -0,0 +1,198 @@
+package com.company.wallet.ingest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.ingest.client.IngestProtocol;
+import com.company.wallet.service.RequestExecutor;
+import com.company.wallet.service.TransactionService;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Accepts transactions as binary frames over persistent TCP connections, next to the REST endpoints.
+ * Enabled with {@code wallet.ingest.enabled=true}, see {@link IngestProtocol} for the frames and
+ * {@link com.company.wallet.ingest.client.IngestClient} for the client.
+ * <p>
+ * One selector thread reads and writes all connections. Transactions are applied by
+ * {@link TransactionService#createTransaction} on the {@link RequestExecutor} of the async endpoints,
+ * so when it is saturated a transaction is acked with 503 right away.
+ * </p>
+ * @author Vinay Singh
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.ingest.enabled", havingValue = "true")
+public class IngestServer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(IngestServer.class);
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private RequestExecutor requestExecutor;
+
+	@Value("${wallet.ingest.port:9090}")
+	private int port;
+
+	@Value("${wallet.ingest.max-frame-size:1024}")
+	private int maxFrameSize;
+
+	@Value("${wallet.ingest.max-in-flight:256}")
+	private int maxInFlight;
+
+	private Selector selector;
+	private ServerSocketChannel serverChannel;
+	private Thread selectorThread;
+	private volatile boolean running;
+
+	private final Queue<IngestConnection> flushes = new ConcurrentLinkedQueue<>();
+
+	@PostConstruct
+	public void start() throws IOException {
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(new InetSocketAddress(port));
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+		running = true;
+		selectorThread = new Thread(this::run, "wallet-ingest");
+		selectorThread.setDaemon(true);
+		selectorThread.start();
+		LOGGER.info("Transaction ingest listening on port {}", getPort());
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		running = false;
+		selector.wakeup();
+		selectorThread.join(TimeUnit.SECONDS.toMillis(10));
+	}
+
+	/**
+	 * @return port the server listens on, useful with wallet.ingest.port=0
+	 */
+	public int getPort() throws IOException {
+		return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+	}
+
+	private void run() {
+		while (running) {
+			try {
+				selector.select();
+				IngestConnection connection;
+				while ((connection = flushes.poll()) != null) {
+					connection.flush();
+				}
+
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+						continue;
+					}
+					connection = (IngestConnection) key.attachment();
+					if (key.isReadable()) {
+						connection.read();
+					}
+					if (key.isValid() && key.isWritable()) {
+						connection.flush();
+					}
+				}
+			} catch (IOException | RuntimeException ex) {
+				LOGGER.error("Transaction ingest selector failed", ex);
+			}
+		}
+
+		for (SelectionKey key : selector.keys()) {
+			if (key.attachment() instanceof IngestConnection) {
+				((IngestConnection) key.attachment()).close();
+			}
+		}
+		try {
+			serverChannel.close();
+			selector.close();
+		} catch (IOException ex) {
+			LOGGER.warn("Failed to close transaction ingest", ex);
+		}
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel = serverChannel.accept();
+		if (channel == null) {
+			return;
+		}
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+		key.attach(new IngestConnection(this, channel, key, maxFrameSize, maxInFlight));
+	}
+
+	/**
+	 * Asks the selector thread to write the acks of connection.
+	 */
+	void requestFlush(IngestConnection connection) {
+		flushes.add(connection);
+		selector.wakeup();
+	}
+
+	/**
+	 * Applies a decoded transaction and acks it on connection when done.
+	 */
+	void dispatch(IngestConnection connection, long correlationId, byte type, long amount, String transactionId,
+			String playerId) {
+		TransactionType transactionType = type == IngestProtocol.CREDIT ? TransactionType.CREDIT
+				: type == IngestProtocol.DEBIT ? TransactionType.DEBIT : null;
+		if (transactionType == null || StringUtils.isBlank(transactionId) || StringUtils.isBlank(playerId)) {
+			connection.ack(correlationId, HttpStatus.BAD_REQUEST.value(), 0);
+			return;
+		}
+
+		try {
+			requestExecutor.submit(() -> transactionService.createTransaction(transactionId, playerId,
+					transactionType, Money.ofMinor(amount))).whenComplete((transaction, ex) -> {
+						if (ex == null) {
+							connection.ack(correlationId, IngestProtocol.STATUS_CREATED, transaction.getId());
+						} else {
+							connection.ack(correlationId, statusOf(ex), 0);
+						}
+					});
+		} catch (WalletException ex) {
+			connection.ack(correlationId, ex.getErrorCode(), 0);
+		}
+	}
+
+	private static int statusOf(Throwable ex) {
+		if (ex instanceof WalletException) {
+			return ((WalletException) ex).getErrorCode();
+		}
+		LOGGER.error("Failed to apply ingested transaction", ex);
+		return HttpStatus.INTERNAL_SERVER_ERROR.value();
+	}
+}
@@ -0,0 +1,47 @@
+package com.company.wallet.ingest.client;
+
+/**
+ * Ack of a transaction sent to the ingest port.
+ *
+ * @author Vinay Singh
+ */
+public class IngestAck {
+	private final long correlationId;
+	private final int status;
+	private final int transactionId;
+
+	public IngestAck(long correlationId, int status, int transactionId) {
+		this.correlationId = correlationId;
+		this.status = status;
+		this.transactionId = transactionId;
+	}
+
+	public long getCorrelationId() {
+		return correlationId;
+	}
+
+	/**
+	 * @return 201 if the transaction was created (or is a resubmission of a created one),
+	 *         otherwise the status the REST endpoint would answer with
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return id of the created transaction, 0 if it wasn't created
+	 */
+	public int getTransactionId() {
+		return transactionId;
+	}
+
+	public boolean isCreated() {
+		return status == IngestProtocol.STATUS_CREATED;
+	}
+
+	@Override
+	public String toString() {
+		return "IngestAck [correlationId=" + correlationId + ", status=" + status + ", transactionId=" + transactionId
+				+ "]";
+	}
+}
@@ -0,0 +1,195 @@
+package com.company.wallet.ingest.client;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Client of the transaction ingest port, see {@link IngestProtocol}.
+ * <p>
+ * A client keeps one connection open and is thread-safe. Transactions are pipelined: {@link #submit} sends
+ * the frame and returns right away, a reader thread completes the futures as the acks arrive.
+ * Only depends on the JDK, game servers can use it without the rest of the wallet.
+ * </p>
+ * <pre>
+ * try (IngestClient client = new IngestClient("wallet-host", 9090)) {
+ *     int id = client.createTransaction("tx-1", "player-1", TransactionType.CREDIT, 1000); // 10.00
+ * }
+ * </pre>
+ * @author Vinay Singh
+ */
+public class IngestClient implements Closeable {
+	private final Socket socket;
+	private final DataOutputStream out;
+	private final DataInputStream in;
+	private final Thread reader;
+
+	private final AtomicLong correlationIds = new AtomicLong();
+	private final Map<Long, CompletableFuture<IngestAck>> pending = new ConcurrentHashMap<>();
+	private volatile IOException failure;
+
+	public IngestClient(String host, int port) throws IOException {
+		socket = new Socket();
+		socket.setTcpNoDelay(true);
+		socket.connect(new InetSocketAddress(host, port), 10_000);
+		out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		reader = new Thread(this::readAcks, "wallet-ingest-client-" + host + ":" + port);
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * Sends a transaction without waiting for its ack.
+	 *
+	 * @param amountMinorUnits amount in minor units of the wallet currency, e.g. cents
+	 * @return future completed with the ack, or exceptionally with IOException if the connection fails first
+	 * @throws IOException if the connection is closed or the transaction can't be sent
+	 */
+	public CompletableFuture<IngestAck> submit(String transactionId, String playerId, TransactionType transactionType,
+			long amountMinorUnits) throws IOException {
+		byte[] transactionIdBytes = encode("transactionId", transactionId);
+		byte[] playerIdBytes = encode("playerId", playerId);
+
+		long correlationId = correlationIds.incrementAndGet();
+		CompletableFuture<IngestAck> ack = new CompletableFuture<>();
+		pending.put(correlationId, ack);
+		try {
+			synchronized (out) {
+				if (failure != null) {
+					throw failure;
+				}
+				out.writeInt(IngestProtocol.TRANSACTION_HEADER_SIZE + transactionIdBytes.length + playerIdBytes.length);
+				out.writeByte(IngestProtocol.TRANSACTION_FRAME);
+				out.writeLong(correlationId);
+				out.writeByte(transactionType == TransactionType.CREDIT ? IngestProtocol.CREDIT : IngestProtocol.DEBIT);
+				out.writeLong(amountMinorUnits);
+				out.writeShort(transactionIdBytes.length);
+				out.write(transactionIdBytes);
+				out.writeShort(playerIdBytes.length);
+				out.write(playerIdBytes);
+				out.flush();
+			}
+		} catch (IOException ex) {
+			pending.remove(correlationId);
+			throw ex;
+		}
+		// the reader may have failed the pending acks just before this one was added
+		IOException failed = failure;
+		if (failed != null && pending.remove(correlationId) != null) {
+			ack.completeExceptionally(failed);
+		}
+		return ack;
+	}
+
+	/**
+	 * Sends a transaction and waits for its ack.
+	 *
+	 * @return id of the created transaction
+	 * @throws IngestException if the transaction was not created, with the status of the ack
+	 * @throws IOException if the connection fails or there is no ack within timeoutMs
+	 */
+	public int createTransaction(String transactionId, String playerId, TransactionType transactionType,
+			long amountMinorUnits, long timeoutMs) throws IOException, IngestException, InterruptedException {
+		IngestAck ack;
+		try {
+			ack = submit(transactionId, playerId, transactionType, amountMinorUnits).get(timeoutMs,
+					TimeUnit.MILLISECONDS);
+		} catch (ExecutionException ex) {
+			throw ex.getCause() instanceof IOException ? (IOException) ex.getCause() : new IOException(ex.getCause());
+		} catch (TimeoutException ex) {
+			throw new IOException("No ack for transaction " + transactionId + " within " + timeoutMs + " ms");
+		}
+		if (!ack.isCreated()) {
+			throw new IngestException("Transaction " + transactionId + " was not created", ack.getStatus());
+		}
+		return ack.getTransactionId();
+	}
+
+	public int createTransaction(String transactionId, String playerId, TransactionType transactionType,
+			long amountMinorUnits) throws IOException, IngestException, InterruptedException {
+		return createTransaction(transactionId, playerId, transactionType, amountMinorUnits, 30_000);
+	}
+
+	/**
+	 * @return transactions sent and not acked yet
+	 */
+	public int getPending() {
+		return pending.size();
+	}
+
+	private static byte[] encode(String name, String value) {
+		if (value == null) {
+			throw new IllegalArgumentException(name + " can not be null");
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > IngestProtocol.MAX_STRING_BYTES) {
+			throw new IllegalArgumentException(name + " is longer than " + IngestProtocol.MAX_STRING_BYTES + " bytes");
+		}
+		return bytes;
+	}
+
+	private void readAcks() {
+		try {
+			while (true) {
+				int length = in.readInt();
+				if (length != IngestProtocol.ACK_SIZE || in.readByte() != IngestProtocol.ACK_FRAME) {
+					throw new IOException("Unexpected frame from the ingest port");
+				}
+				long correlationId = in.readLong();
+				int status = in.readShort();
+				int transactionId = in.readInt();
+				CompletableFuture<IngestAck> ack = pending.remove(correlationId);
+				if (ack != null) {
+					ack.complete(new IngestAck(correlationId, status, transactionId));
+				}
+			}
+		} catch (EOFException ex) {
+			fail(new IOException("Connection closed by the ingest port"));
+		} catch (IOException ex) {
+			fail(ex);
+		}
+	}
+
+	private void fail(IOException ex) {
+		failure = ex;
+		for (Long correlationId : pending.keySet()) {
+			CompletableFuture<IngestAck> ack = pending.remove(correlationId);
+			if (ack != null) {
+				ack.completeExceptionally(ex);
+			}
+		}
+	}
+
+	/**
+	 * Closes the connection, transactions not acked yet fail with IOException.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (failure == null) {
+			failure = new IOException("Client is closed");
+		}
+		socket.close();
+		try {
+			reader.join(TimeUnit.SECONDS.toMillis(1));
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package com.company.wallet.ingest.client;
+
+/**
+ * A transaction sent to the ingest port was not created.
+ *
+ * @author Vinay Singh
+ */
+public class IngestException extends Exception {
+	private static final long serialVersionUID = 1L;
+
+	private final int status;
+
+	public IngestException(String message, int status) {
+		super(message);
+		this.status = status;
+	}
+
+	/**
+	 * @return status of the ack, the HTTP status the REST endpoint would answer with
+	 */
+	public int getStatus() {
+		return status;
+	}
+}
@@ -0,0 +1,42 @@
+package com.company.wallet.ingest.client;
+
+/**
+ * Binary protocol of the transaction ingest port.
+ * <p>
+ * Every frame starts with its length as a 4 byte big-endian int, not counting the length itself.
+ * A client sends any number of transaction frames over one connection without waiting for their acks,
+ * the server acks every transaction once it is applied, not necessarily in the order they were sent.
+ * The correlation id chosen by the client for a transaction is repeated in its ack.
+ * </p>
+ * <pre>
+ * transaction frame              ack frame
+ *   byte  frame type = 1           byte  frame type = 2
+ *   long  correlation id           long  correlation id
+ *   byte  0 = CREDIT, 1 = DEBIT    short status, 201 if created, otherwise the HTTP status of the REST endpoint
+ *   long  amount in minor units    int   transaction id, 0 unless created
+ *   short length + UTF-8 transactionId
+ *   short length + UTF-8 playerId
+ * </pre>
+ * Integers are big-endian, string lengths are unsigned byte counts.
+ * The server closes the connection on a frame it can't parse, e.g. one longer than wallet.ingest.max-frame-size.
+ *
+ * @author Vinay Singh
+ */
+public final class IngestProtocol {
+	public static final byte TRANSACTION_FRAME = 1;
+	public static final byte ACK_FRAME = 2;
+
+	public static final byte CREDIT = 0;
+	public static final byte DEBIT = 1;
+
+	public static final int LENGTH_SIZE = 4;
+	/** transaction frame without the strings */
+	public static final int TRANSACTION_HEADER_SIZE = 1 + 8 + 1 + 8 + 2 + 2;
+	public static final int ACK_SIZE = 1 + 8 + 2 + 4;
+
+	public static final short STATUS_CREATED = 201;
+	public static final int MAX_STRING_BYTES = 0xFFFF;
+
+	private IngestProtocol() {
+	}
+}
@@ -0,0 +1,244 @@
+package com.company.wallet.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of binary records in memory-mapped segment files.
+ * <p>
+ * Every record gets the next sequence number. A record is framed as length, CRC32 and sequence followed by
+ * the payload, so a record torn by a crash is detected and the log ends before it. Segments have a fixed size
+ * and are named after the sequence of their first record, a new segment is started when a record doesn't fit
+ * into the current one. Records are written to the mapping and reach the disk when the operating system writes
+ * the pages back, or when {@link #force()} is called.
+ * </p>
+ * Not thread-safe, a journal is meant to be written by a single thread.
+ *
+ * @author Vinay Singh
+ */
+public class Journal implements Closeable {
+	private static final String SUFFIX = ".journal";
+	private static final int HEADER_SIZE = 16;
+
+	private final Path directory;
+	private final int segmentSize;
+	/** segment files by the sequence of their first record */
+	private final TreeMap<Long, Path> segments = new TreeMap<>();
+	private final CRC32 crc = new CRC32();
+	private final ByteBuffer sequenceBytes = ByteBuffer.allocate(8);
+
+	private MappedByteBuffer current;
+	private long lastSequence;
+
+	/**
+	 * Opens the journal in directory, creating it if needed. Appends continue after the last intact record.
+	 *
+	 * @param directory directory holding the segment files
+	 * @param segmentSize size of a segment file in bytes
+	 * @throws IOException if the segments can't be read or created
+	 */
+	public Journal(Path directory, int segmentSize) throws IOException {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		Files.createDirectories(directory);
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				segments.put(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())), file);
+			}
+		}
+
+		if (segments.isEmpty()) {
+			lastSequence = 0;
+			startSegment(1);
+		} else {
+			Map.Entry<Long, Path> last = segments.lastEntry();
+			current = map(last.getValue(), FileChannel.MapMode.READ_WRITE);
+			lastSequence = last.getKey() - 1;
+			int position = 0;
+			while (true) {
+				int end = next(current, position, lastSequence + 1, null);
+				if (end < 0) {
+					break;
+				}
+				position = end;
+				lastSequence++;
+			}
+			current.position(position);
+		}
+	}
+
+	/**
+	 * Appends a record.
+	 *
+	 * @param payload record content
+	 * @return sequence of the record
+	 * @throws UncheckedIOException if a new segment can't be created
+	 */
+	public long append(byte[] payload) {
+		int size = HEADER_SIZE + payload.length;
+		if (payload.length == 0) {
+			throw new IllegalArgumentException("Record must not be empty");
+		}
+		if (size > segmentSize) {
+			throw new IllegalArgumentException("Record of " + payload.length + " bytes doesn't fit into a segment");
+		}
+		if (current.remaining() < size) {
+			try {
+				startSegment(lastSequence + 1);
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		long sequence = lastSequence + 1;
+		crc.reset();
+		sequenceBytes.putLong(0, sequence);
+		crc.update(sequenceBytes.array());
+		crc.update(payload);
+		int position = current.position();
+		current.position(position + 4);
+		current.putInt((int) crc.getValue());
+		current.putLong(sequence);
+		current.put(payload);
+		// the length is written last, a record without length is not part of the log
+		current.putInt(position, payload.length);
+		lastSequence = sequence;
+		return sequence;
+	}
+
+	/**
+	 * Writes the appended records of the current segment to the disk.
+	 */
+	public void force() {
+		current.force();
+	}
+
+	public long getLastSequence() {
+		return lastSequence;
+	}
+
+	/**
+	 * Reads the records following afterSequence, in sequence order.
+	 *
+	 * @param afterSequence sequence of the last record not to read
+	 * @param consumer called with the sequence and payload of every record
+	 * @throws IOException if a segment can't be read
+	 */
+	public void replay(long afterSequence, BiConsumer<Long, ByteBuffer> consumer) throws IOException {
+		List<Map.Entry<Long, Path>> files = new ArrayList<>(segments.entrySet());
+		for (int i = 0; i < files.size(); i++) {
+			if (i + 1 < files.size() && files.get(i + 1).getKey() - 1 <= afterSequence) {
+				continue;
+			}
+			ByteBuffer segment = map(files.get(i).getValue(), FileChannel.MapMode.READ_ONLY);
+			long sequence = files.get(i).getKey();
+			int position = 0;
+			while (sequence <= lastSequence) {
+				position = next(segment, position, sequence, sequence > afterSequence ? consumer : null);
+				if (position < 0) {
+					break;
+				}
+				sequence++;
+			}
+		}
+	}
+
+	/**
+	 * Deletes the segments holding only records up to sequence. The current segment is never deleted.
+	 *
+	 * @param sequence sequence of the last record which is no longer needed
+	 * @return number of deleted segments
+	 * @throws IOException if a segment can't be deleted
+	 */
+	public int release(long sequence) throws IOException {
+		int deleted = 0;
+		while (segments.size() > 1) {
+			Map.Entry<Long, Path> first = segments.firstEntry();
+			long nextFirst = segments.higherKey(first.getKey());
+			if (nextFirst - 1 > sequence) {
+				break;
+			}
+			Files.deleteIfExists(first.getValue());
+			segments.remove(first.getKey());
+			deleted++;
+		}
+		return deleted;
+	}
+
+	public int getSegmentCount() {
+		return segments.size();
+	}
+
+	@Override
+	public void close() {
+		if (current != null) {
+			current.force();
+		}
+	}
+
+	private void startSegment(long firstSequence) throws IOException {
+		if (current != null) {
+			current.force();
+		}
+		Path file = directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+		try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+			raf.setLength(segmentSize);
+		}
+		segments.put(firstSequence, file);
+		current = map(file, FileChannel.MapMode.READ_WRITE);
+	}
+
+	private MappedByteBuffer map(Path file, FileChannel.MapMode mode) throws IOException {
+		StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+				? new StandardOpenOption[] { StandardOpenOption.READ }
+				: new StandardOpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE };
+		try (FileChannel channel = FileChannel.open(file, options)) {
+			return channel.map(mode, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Checks the record at position.
+	 *
+	 * @return position following the record, or -1 if there is no intact record with the expected sequence
+	 */
+	private int next(ByteBuffer segment, int position, long expectedSequence, BiConsumer<Long, ByteBuffer> consumer) {
+		if (position + HEADER_SIZE > segment.limit()) {
+			return -1;
+		}
+		int length = segment.getInt(position);
+		if (length <= 0 || position + HEADER_SIZE + length > segment.limit()
+				|| segment.getLong(position + 8) != expectedSequence) {
+			return -1;
+		}
+		ByteBuffer record = segment.duplicate();
+		record.position(position + 8);
+		record.limit(position + HEADER_SIZE + length);
+		crc.reset();
+		crc.update(record.duplicate());
+		if ((int) crc.getValue() != segment.getInt(position + 4)) {
+			return -1;
+		}
+		if (consumer != null) {
+			record.position(position + HEADER_SIZE);
+			consumer.accept(expectedSequence, record.slice());
+		}
+		return position + HEADER_SIZE + length;
+	}
+}
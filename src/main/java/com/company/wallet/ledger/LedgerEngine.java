@@ -0,0 +1,229 @@
+package com.company.wallet.ledger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.journal.Journal;
+import com.company.wallet.repository.WalletRepository;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Single-writer ledger engine.
+ * <p>
+ * Players are hashed to a fixed number of shards. Each shard owns its players' balances
+ * and applies their commands sequentially, so commands for different shards run in parallel
+ * without sharing any state.
+ * </p>
+ * Enabled with {@code wallet.transaction.mode=ledger}. With {@code wallet.ledger.journal.enabled=true}
+ * every shard journals its entries and confirms them before they are persisted to the database,
+ * see {@link LedgerShard}. The database can't reject a duplicate transactionId before it is confirmed then,
+ * so transactionIds are checked against the database and reserved first, see {@link LedgerReservations}.
+ * <p>
+ * The ledger owns the wallet balances: a balance is read from the database when the player's account is loaded,
+ * and only reloaded after the account was evicted. So in ledger mode the balances must not be changed by
+ * anything else, i.e. one node per database, no sharding, and no other writes to the wallet table.
+ * The services writing balances in jpa mode refuse to.
+ * </p>
+ *
+ * @author Vinay Singh
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.transaction.mode", havingValue = "ledger")
+public class LedgerEngine {
+	private static final Logger LOGGER = LoggerFactory.getLogger(LedgerEngine.class);
+
+	/** allocationSize of the transaction id sequence, see {@link Transaction} */
+	private static final int ID_ALLOCATION_SIZE = 50;
+
+	@Autowired
+	private WalletRepository walletRepository;
+
+	@Autowired
+	private LedgerPersister ledgerPersister;
+
+	/** Number of shards, 0 means one per available processor. */
+	@Value("${wallet.ledger.shards:0}")
+	private int shardCount;
+
+	@Value("${wallet.ledger.batch-size:256}")
+	private int batchSize;
+
+	/** Number of balances kept in memory by every shard. */
+	@Value("${wallet.ledger.max-accounts:100000}")
+	private int maxAccounts;
+
+	@Value("${wallet.ledger.journal.enabled:false}")
+	private boolean journalEnabled;
+
+	@Value("${wallet.ledger.journal.dir:journal}")
+	private String journalDir;
+
+	@Value("${wallet.ledger.journal.segment-size:67108864}")
+	private int segmentSize;
+
+	@Value("${wallet.ledger.journal.sync:false}")
+	private boolean journalSync;
+
+	@Value("${wallet.ledger.journal.snapshot-interval-ms:60000}")
+	private long snapshotIntervalMs;
+
+	@Autowired(required = false)
+	private DataSource dataSource;
+
+	private LedgerShard[] shards;
+	/** journaled only */
+	private LedgerReservations reservations;
+	private ScheduledExecutorService snapshots;
+
+	@PostConstruct
+	public void start() throws IOException {
+		int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+		shards = new LedgerShard[count];
+		if (!journalEnabled) {
+			for (int i = 0; i < count; i++) {
+				shards[i] = new LedgerShard(i, walletRepository, ledgerPersister, batchSize, maxAccounts);
+			}
+			return;
+		}
+
+		Path root = Paths.get(journalDir);
+		checkShardCount(root, count);
+		LedgerIdAllocator ids = new LedgerIdAllocator(dataSource, ID_ALLOCATION_SIZE);
+		reservations = new LedgerReservations();
+		for (int i = 0; i < count; i++) {
+			Path directory = root.resolve("shard-" + i);
+			shards[i] = new LedgerShard(i, walletRepository, ledgerPersister, batchSize, maxAccounts,
+					new Journal(directory, segmentSize), directory.resolve("snapshot"), ids, journalSync,
+					reservations);
+		}
+		snapshots = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "ledger-snapshot");
+			thread.setDaemon(true);
+			return thread;
+		});
+		snapshots.scheduleWithFixedDelay(this::snapshot, snapshotIntervalMs, snapshotIntervalMs,
+				TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		if (snapshots != null) {
+			snapshots.shutdown();
+			snapshots.awaitTermination(10, TimeUnit.SECONDS);
+		}
+		for (LedgerShard shard : shards) {
+			shard.shutdown();
+		}
+	}
+
+	private void snapshot() {
+		for (LedgerShard shard : shards) {
+			try {
+				shard.snapshot();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (Exception ex) {
+				LOGGER.warn("Could not write ledger snapshot", ex);
+			}
+		}
+	}
+
+	/**
+	 * Players are assigned to shards by hash, so a journal can only be recovered
+	 * with the shard count it was written with.
+	 */
+	private static void checkShardCount(Path root, int count) throws IOException {
+		Files.createDirectories(root);
+		Path file = root.resolve("shards");
+		if (Files.exists(file)) {
+			int written = Integer.parseInt(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim());
+			if (written != count) {
+				throw new IllegalStateException("Journal " + root + " was written by " + written
+						+ " shards, wallet.ledger.shards must stay " + written);
+			}
+		} else {
+			Files.write(file, String.valueOf(count).getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Submits a command to the shard owning the player.
+	 *
+	 * @param transactionId unique transactionId
+	 * @param playerId valid playerId
+	 * @param transactionType CREDIT or DEBIT
+	 * @param amount transaction amount
+	 * @return future completed with the persisted transaction, or exceptionally with WalletException
+	 */
+	public CompletableFuture<Transaction> submit(String transactionId, String playerId,
+			TransactionType transactionType, Money amount) {
+		if (reservations != null && !reserve(Collections.singleton(transactionId)).isEmpty()) {
+			CompletableFuture<Transaction> duplicate = new CompletableFuture<>();
+			duplicate.completeExceptionally(new WalletException("Transaction with transactionId " + transactionId
+					+ " already exists", HttpStatus.CONFLICT.value()));
+			return duplicate;
+		}
+		return submitReserved(transactionId, playerId, transactionType, amount);
+	}
+
+	/**
+	 * Checks the transactionIds of journaled transactions against the database and reserves the new ones,
+	 * which then have to be passed to {@link #submitReserved}. Without a journal nothing is reserved,
+	 * the database rejects duplicates before they are confirmed.
+	 *
+	 * @param transactionIds distinct transactionIds
+	 * @return the transactionIds which already exist
+	 */
+	public Set<String> reserve(Collection<String> transactionIds) {
+		if (reservations == null) {
+			return Collections.emptySet();
+		}
+		return reservations.reserve(transactionIds, ledgerPersister::findExistingTransactionIds);
+	}
+
+	/**
+	 * Submits a command like {@link #submit}, with a transactionId already reserved by {@link #reserve}.
+	 */
+	public CompletableFuture<Transaction> submitReserved(String transactionId, String playerId,
+			TransactionType transactionType, Money amount) {
+		return shards[shardFor(playerId)].submit(transactionId, playerId, transactionType, amount);
+	}
+
+	/**
+	 * @return whether transactions are confirmed before they are in the database
+	 */
+	public boolean isJournaled() {
+		return journalEnabled;
+	}
+
+	int shardFor(String playerId) {
+		return (playerId.hashCode() & Integer.MAX_VALUE) % shards.length;
+	}
+}
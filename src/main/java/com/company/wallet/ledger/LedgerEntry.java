@@ -0,0 +1,104 @@
+package com.company.wallet.ledger;
+
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Transaction accepted by a ledger shard and waiting to be persisted.
+ *
+ * @author Vinay Singh
+ */
+public class LedgerEntry {
+	private final Integer id;
+	private final String transactionId;
+	private final String playerId;
+	private final Integer walletId;
+	private final TransactionType transactionType;
+	private final Money amount;
+	private final Money delta;
+	private final Date updatedTime;
+	private final CompletableFuture<Transaction> result;
+	private long sequence;
+
+	public LedgerEntry(String transactionId, String playerId, Integer walletId, TransactionType transactionType,
+			Money amount, Money delta, CompletableFuture<Transaction> result) {
+		this(null, transactionId, playerId, walletId, transactionType, amount, delta, new Date(), result);
+	}
+
+	public LedgerEntry(Integer id, String transactionId, String playerId, Integer walletId,
+			TransactionType transactionType, Money amount, Money delta, Date updatedTime,
+			CompletableFuture<Transaction> result) {
+		this.id = id;
+		this.transactionId = transactionId;
+		this.playerId = playerId;
+		this.walletId = walletId;
+		this.transactionType = transactionType;
+		this.amount = amount;
+		this.delta = delta;
+		this.updatedTime = updatedTime;
+		this.result = result;
+	}
+
+	/**
+	 * Transaction id assigned by the journal shard, null if the id is assigned by the database.
+	 */
+	public Integer getId() {
+		return id;
+	}
+
+	public String getTransactionId() {
+		return transactionId;
+	}
+
+	public String getPlayerId() {
+		return playerId;
+	}
+
+	public Integer getWalletId() {
+		return walletId;
+	}
+
+	public TransactionType getTransactionType() {
+		return transactionType;
+	}
+
+	/**
+	 * Amount as supplied by the caller.
+	 */
+	public Money getAmount() {
+		return amount;
+	}
+
+	/**
+	 * Signed change applied to the wallet balance.
+	 */
+	public Money getDelta() {
+		return delta;
+	}
+
+	public Date getUpdatedTime() {
+		return updatedTime;
+	}
+
+	/**
+	 * Future of the caller, null for entries recovered from the journal.
+	 */
+	public CompletableFuture<Transaction> getResult() {
+		return result;
+	}
+
+	/**
+	 * Sequence of the journal record of the entry, 0 without journal.
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	void setSequence(long sequence) {
+		this.sequence = sequence;
+	}
+}
@@ -0,0 +1,46 @@
+package com.company.wallet.ledger;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Hands out transaction ids from the transaction sequence, so journaled transactions have their id
+ * before they reach the database.
+ * <p>
+ * Ids are taken in blocks the same way Hibernate's pooled optimizer does: the sequence is incremented by
+ * the allocation size, and a sequence value v reserves the ids from v - allocationSize + 1 to v, so JPA inserts
+ * made with the same database in other modes don't reuse these ids.
+ * </p>
+ * @author Vinay Singh
+ */
+class LedgerIdAllocator {
+	private final JdbcTemplate jdbcTemplate;
+	private final int allocationSize;
+	private int next;
+	private int last = -1;
+	/** not a monitor, the sequence is read while holding it */
+	private final Lock lock = new ReentrantLock();
+
+	LedgerIdAllocator(DataSource dataSource, int allocationSize) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.allocationSize = allocationSize;
+	}
+
+	int next() {
+		lock.lock();
+		try {
+			if (next > last) {
+				Integer hi = jdbcTemplate.queryForObject("select next value for transaction_seq", Integer.class);
+				last = hi;
+				next = Math.max(1, hi - allocationSize + 1);
+			}
+			return next++;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
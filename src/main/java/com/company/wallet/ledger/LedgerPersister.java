@@ -0,0 +1,156 @@
+package com.company.wallet.ledger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.company.wallet.cache.WalletCache;
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.replica.RecentWrites;
+import com.company.wallet.repository.TransactionRepository;
+import com.company.wallet.repository.WalletRepository;
+import com.company.wallet.repository.WalletStatsRepository;
+
+/**
+ * Writes ledger entries accepted by the shards to the database.
+ *
+ * @author Vinay Singh
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.transaction.mode", havingValue = "ledger")
+public class LedgerPersister {
+
+	@Autowired
+	private WalletRepository walletRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private WalletStatsRepository walletStatsRepository;
+
+	@Autowired
+	private WalletCache walletCache;
+
+	@Autowired(required = false)
+	private RecentWrites recentWrites;
+
+	@Autowired
+	private DataSource dataSource;
+
+	/**
+	 * Persists a batch of entries in one database transaction.
+	 * Wallet balances are changed by the entry delta, so a failed entry can be dropped
+	 * without affecting the entries persisted after it.
+	 *
+	 * @param entries entries in the order they were applied by the shard
+	 * @return saved transactions, in the same order as entries
+	 * @throws WalletException if a wallet balance would become negative
+	 */
+	@Transactional(rollbackFor = WalletException.class)
+	public List<Transaction> persist(List<LedgerEntry> entries) throws WalletException {
+		Date updatedTime = new Date();
+		for (LedgerEntry entry : entries) {
+			if (walletRepository.updateBalance(entry.getPlayerId(), entry.getDelta().getMinorUnits(), updatedTime) == 0) {
+				throw new WalletException("No sufficient funds in account for withdrawl",
+						HttpStatus.BAD_REQUEST.value());
+			}
+			walletCache.invalidateAfterCommit(entry.getPlayerId());
+			if (recentWrites != null) {
+				recentWrites.recordAfterCommit(entry.getPlayerId());
+			}
+		}
+
+		List<Transaction> saved = new ArrayList<>(entries.size());
+		for (LedgerEntry entry : entries) {
+			// detached reference instead of a lazy proxy, the transaction is used after the session is closed
+			Wallet wallet = new Wallet();
+			wallet.setId(entry.getWalletId());
+			wallet.setPlayerId(entry.getPlayerId());
+			// Hibernate takes a versioned entity without version for a new one; the value is never written
+			wallet.setVersion(0L);
+			Transaction transaction = transactionRepository.save(new Transaction(entry.getTransactionId(),
+					entry.getTransactionType(), entry.getAmount(), wallet));
+			walletStatsRepository.record(entry.getWalletId(), entry.getTransactionType(), entry.getAmount(),
+					transaction.getUpdatedTime());
+			saved.add(transaction);
+		}
+		return saved;
+	}
+
+	/**
+	 * @return the given transactionIds which are in the database, archived ones included
+	 */
+	public List<String> findExistingTransactionIds(Collection<String> transactionIds) {
+		return transactionRepository.findExistingTransactionIds(transactionIds);
+	}
+
+	/**
+	 * Persists journaled entries which are not in the database yet, in one database transaction.
+	 * Entries keep the id assigned by the shard. Entries already persisted, e.g. before a restart, are skipped.
+	 *
+	 * @param entries entries in the order they were applied by the shard
+	 * @return entries rejected because their transactionId already exists for another transaction
+	 * @throws WalletException if a wallet balance would become negative
+	 */
+	@Transactional(rollbackFor = WalletException.class)
+	public List<LedgerEntry> persistJournaled(List<LedgerEntry> entries) throws WalletException {
+		Set<String> transactionIds = new HashSet<>();
+		for (LedgerEntry entry : entries) {
+			transactionIds.add(entry.getTransactionId());
+		}
+		Map<String, Integer> existing = new HashMap<>();
+		for (Object[] row : transactionRepository.findIdsByTransactionIdIn(transactionIds)) {
+			existing.put((String) row[0], (Integer) row[1]);
+		}
+
+		List<LedgerEntry> rejected = new ArrayList<>();
+		List<Object[]> rows = new ArrayList<>(entries.size());
+		for (LedgerEntry entry : entries) {
+			Integer id = existing.get(entry.getTransactionId());
+			if (id != null) {
+				if (!id.equals(entry.getId())) {
+					rejected.add(entry);
+				}
+				continue;
+			}
+			if (walletRepository.updateBalance(entry.getPlayerId(), entry.getDelta().getMinorUnits(),
+					entry.getUpdatedTime()) == 0) {
+				throw new WalletException("No sufficient funds in account for withdrawl",
+						HttpStatus.BAD_REQUEST.value());
+			}
+			walletCache.invalidateAfterCommit(entry.getPlayerId());
+			if (recentWrites != null) {
+				recentWrites.recordAfterCommit(entry.getPlayerId());
+			}
+			walletStatsRepository.record(entry.getWalletId(), entry.getTransactionType(), entry.getAmount(),
+					entry.getUpdatedTime());
+			existing.put(entry.getTransactionId(), entry.getId());
+			rows.add(new Object[] { entry.getId(), entry.getTransactionId(), entry.getTransactionType().ordinal(),
+					entry.getAmount().getMinorUnits(), entry.getWalletId(), entry.getUpdatedTime() });
+		}
+
+		if (!rows.isEmpty()) {
+			new JdbcTemplate(dataSource).batchUpdate("insert into transaction "
+					+ "(id, transaction_id, transaction_type, amount, wallet_id, updated_time) values (?, ?, ?, ?, ?, ?)",
+					rows);
+		}
+		return rejected;
+	}
+}
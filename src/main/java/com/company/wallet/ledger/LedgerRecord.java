@@ -0,0 +1,90 @@
+package com.company.wallet.ledger;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Binary journal record of a ledger entry.
+ * <p>
+ * An OPEN record is written with the database balance when the shard loads a wallet, an ENTRY record when
+ * the shard accepts a transaction, and a REVERT record when an accepted transaction is dropped later because
+ * it could not be persisted. Layout: kind (1 byte), transaction type ordinal (1 byte),
+ * id, walletId (4 bytes each), amount, delta in minor units, updated time in millis (8 bytes each),
+ * transactionId and playerId as UTF-8 prefixed with their length (2 bytes each).
+ * </p>
+ * @author Vinay Singh
+ */
+final class LedgerRecord {
+	static final byte OPEN = 0;
+	static final byte ENTRY = 1;
+	static final byte REVERT = 2;
+
+	private static final TransactionType[] TYPES = TransactionType.values();
+
+	private LedgerRecord() {
+	}
+
+	static byte[] encode(byte kind, LedgerEntry entry) {
+		byte[] transactionId = entry.getTransactionId().getBytes(StandardCharsets.UTF_8);
+		byte[] playerId = entry.getPlayerId().getBytes(StandardCharsets.UTF_8);
+		ByteBuffer buffer = ByteBuffer.allocate(2 + 8 + 24 + 4 + transactionId.length + playerId.length);
+		buffer.put(kind);
+		buffer.put((byte) entry.getTransactionType().ordinal());
+		buffer.putInt(entry.getId());
+		buffer.putInt(entry.getWalletId());
+		buffer.putLong(entry.getAmount().getMinorUnits());
+		buffer.putLong(entry.getDelta().getMinorUnits());
+		buffer.putLong(entry.getUpdatedTime().getTime());
+		putString(buffer, transactionId);
+		putString(buffer, playerId);
+		return buffer.array();
+	}
+
+	/**
+	 * OPEN record, the balance is stored as amount.
+	 */
+	static byte[] encodeOpen(String playerId, Integer walletId, Money balance) {
+		return encode(OPEN, new LedgerEntry(0, "", playerId, walletId, TransactionType.CREDIT, balance,
+				Money.zero(Money.SCALE), new Date(), null));
+	}
+
+	static byte kind(ByteBuffer record) {
+		return record.get(record.position());
+	}
+
+	/**
+	 * @return entry of the record, without a result future
+	 */
+	static LedgerEntry decode(ByteBuffer record) {
+		ByteBuffer buffer = record.duplicate();
+		buffer.get();
+		TransactionType transactionType = TYPES[buffer.get()];
+		int id = buffer.getInt();
+		int walletId = buffer.getInt();
+		Money amount = Money.ofMinor(buffer.getLong());
+		Money delta = Money.ofMinor(buffer.getLong());
+		Date updatedTime = new Date(buffer.getLong());
+		String transactionId = getString(buffer);
+		String playerId = getString(buffer);
+		return new LedgerEntry(id, transactionId, playerId, walletId, transactionType, amount, delta, updatedTime,
+				null);
+	}
+
+	private static void putString(ByteBuffer buffer, byte[] value) {
+		if (value.length > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("Value too long for a journal record");
+		}
+		buffer.putShort((short) value.length);
+		buffer.put(value);
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		byte[] value = new byte[buffer.getShort()];
+		buffer.get(value);
+		return new String(value, StandardCharsets.UTF_8);
+	}
+}
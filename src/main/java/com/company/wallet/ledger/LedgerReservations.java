@@ -0,0 +1,73 @@
+package com.company.wallet.ledger;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * TransactionIds of a journaled ledger which are taken but may not be in the database yet, shared by all shards.
+ * <p>
+ * A journaled transaction is confirmed before the database can reject its transactionId, so every transactionId
+ * is checked against the database and reserved before it is applied, and released once it is persisted.
+ * Checking and reserving hold the read lock, releasing persisted transactionIds the write lock, so a transactionId
+ * persisted while it is checked is either still reserved or already found in the database.
+ * </p>
+ * @author Vinay Singh
+ */
+class LedgerReservations {
+	private final Set<String> reserved = ConcurrentHashMap.newKeySet();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * @param transactionIds distinct transactionIds to reserve
+	 * @param findExisting returns the given transactionIds which are in the database
+	 * @return the transactionIds which are taken, all others are reserved
+	 */
+	Set<String> reserve(Collection<String> transactionIds, Function<Collection<String>, Collection<String>> findExisting) {
+		lock.readLock().lock();
+		try {
+			Set<String> taken = new HashSet<>(findExisting.apply(transactionIds));
+			for (String transactionId : transactionIds) {
+				if (!taken.contains(transactionId) && !reserved.add(transactionId)) {
+					taken.add(transactionId);
+				}
+			}
+			return taken;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Reserves the transactionId of a journaled entry recovered at startup.
+	 */
+	void add(String transactionId) {
+		reserved.add(transactionId);
+	}
+
+	/**
+	 * Releases the transactionId of a transaction which was not applied.
+	 */
+	void release(String transactionId) {
+		reserved.remove(transactionId);
+	}
+
+	/**
+	 * Releases the transactionIds of persisted entries, called after their database transaction is committed.
+	 */
+	void releasePersisted(List<LedgerEntry> entries) {
+		lock.writeLock().lock();
+		try {
+			for (LedgerEntry entry : entries) {
+				reserved.remove(entry.getTransactionId());
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+}
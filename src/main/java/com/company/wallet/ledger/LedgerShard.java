@@ -0,0 +1,482 @@
+package com.company.wallet.ledger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.journal.Journal;
+import com.company.wallet.repository.WalletRepository;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * One partition of the ledger.
+ * <p>
+ * All commands for the players hashed to this shard are applied by a single sequencer thread
+ * against an in-memory balance table, so no locking is needed while applying them.
+ * Accepted entries are handed over to a persister thread which writes them to the database in batches
+ * and completes the callers' futures.
+ * </p>
+ * <p>
+ * The balance table keeps at most maxAccounts accounts. The least recently used accounts without entries waiting
+ * to be persisted are evicted above it, and loaded from the database again when they are used next.
+ * </p>
+ * <p>
+ * With a journal, accepted entries are appended to the journal and the callers' futures are completed right away,
+ * the database is brought up to date asynchronously. Balances are recovered from the last snapshot and the journal
+ * when the shard starts, and journaled entries missing in the database are persisted again.
+ * </p>
+ * @author Vinay Singh
+ */
+class LedgerShard {
+	private static final Logger LOGGER = LoggerFactory.getLogger(LedgerShard.class);
+
+	private final WalletRepository walletRepository;
+	private final LedgerPersister ledgerPersister;
+	private final int batchSize;
+	private final int maxAccounts;
+	private final Journal journal;
+	private final Path snapshotFile;
+	private final LedgerIdAllocator ids;
+	private final boolean sync;
+	/** transactionIds reserved by the engine until their journaled transactions are persisted */
+	private final LedgerReservations reservations;
+
+	/** Balance table in access order, only accessed from the sequencer thread. */
+	private final Map<String, Account> accounts = new LinkedHashMap<>(16, 0.75f, true);
+	private final BlockingQueue<LedgerEntry> persistQueue = new LinkedBlockingQueue<>();
+	private final ExecutorService sequencer;
+	private final Thread persister;
+	private volatile boolean running = true;
+	/** sequence up to which all journaled entries are in the database */
+	private volatile long persistedSequence;
+
+	LedgerShard(int index, WalletRepository walletRepository, LedgerPersister ledgerPersister, int batchSize,
+			int maxAccounts) {
+		this(index, walletRepository, ledgerPersister, batchSize, maxAccounts, null, null, null, false, null);
+	}
+
+	/**
+	 * Creates a journaled shard, recovering its balances from snapshotFile and journal.
+	 *
+	 * @param maxAccounts number of balances kept in memory
+	 * @param journal journal of this shard, null for no journal
+	 * @param snapshotFile snapshot of this shard
+	 * @param ids allocator of the transaction ids
+	 * @param sync whether every appended entry is forced to the disk before it is confirmed
+	 * @param reservations transactionIds reserved and not yet persisted, shared by all shards
+	 * @throws UncheckedIOException if snapshot or journal can't be read
+	 */
+	LedgerShard(int index, WalletRepository walletRepository, LedgerPersister ledgerPersister, int batchSize,
+			int maxAccounts, Journal journal, Path snapshotFile, LedgerIdAllocator ids, boolean sync,
+			LedgerReservations reservations) {
+		this.walletRepository = walletRepository;
+		this.ledgerPersister = ledgerPersister;
+		this.batchSize = batchSize;
+		this.maxAccounts = maxAccounts;
+		this.journal = journal;
+		this.snapshotFile = snapshotFile;
+		this.ids = ids;
+		this.sync = sync;
+		this.reservations = reservations;
+		if (journal != null) {
+			recover();
+		}
+		this.sequencer = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "ledger-shard-" + index);
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.persister = new Thread(this::persistLoop, "ledger-persister-" + index);
+		this.persister.setDaemon(true);
+		this.persister.start();
+	}
+
+	/**
+	 * With a journal, the transactionId must be reserved, it is released if the transaction is not applied.
+	 */
+	CompletableFuture<Transaction> submit(String transactionId, String playerId, TransactionType transactionType,
+			Money amount) {
+		CompletableFuture<Transaction> result = new CompletableFuture<>();
+		try {
+			sequencer.execute(() -> apply(transactionId, playerId, transactionType, amount, result));
+		} catch (RejectedExecutionException ex) {
+			release(transactionId);
+			result.completeExceptionally(
+					new WalletException("Ledger is shutting down", HttpStatus.SERVICE_UNAVAILABLE.value()));
+		}
+		return result;
+	}
+
+	private void apply(String transactionId, String playerId, TransactionType transactionType, Money amount,
+			CompletableFuture<Transaction> result) {
+		try {
+			Account account = accounts.get(playerId);
+			if (account == null) {
+				Wallet wallet = walletRepository.findWalletByPlayerId(playerId);
+				if (wallet == null) {
+					throw new WalletException("No wallet found with playerId " + playerId,
+							HttpStatus.NOT_FOUND.value());
+				}
+				if (journal != null) {
+					journal.append(LedgerRecord.encodeOpen(playerId, wallet.getId(), wallet.getBalanceMoney()));
+				}
+				evictSettled();
+				account = new Account(wallet.getId(), wallet.getBalanceMoney());
+				accounts.put(playerId, account);
+			}
+
+			Money delta;
+			if (transactionType == TransactionType.CREDIT) {
+				delta = amount.abs();
+			} else {
+				delta = amount.abs().negate();
+				if (account.balance.compareTo(delta.abs()) < 0) {
+					throw new WalletException("No sufficient funds in account for withdrawl",
+							HttpStatus.BAD_REQUEST.value());
+				}
+			}
+			if (journal == null) {
+				account.balance = account.balance.add(delta);
+				account.pending++;
+				persistQueue.add(new LedgerEntry(transactionId, playerId, account.walletId, transactionType, amount,
+						delta, result));
+				return;
+			}
+
+			LedgerEntry entry = journal(transactionId, playerId, account, transactionType, amount, delta);
+			account.balance = account.balance.add(delta);
+			account.pending++;
+			persistQueue.add(entry);
+			result.complete(toTransaction(entry));
+		} catch (WalletException ex) {
+			release(transactionId);
+			result.completeExceptionally(ex);
+		} catch (RuntimeException ex) {
+			LOGGER.error("Failed to apply ledger command {}", transactionId, ex);
+			release(transactionId);
+			result.completeExceptionally(ex);
+		}
+	}
+
+	private void release(String transactionId) {
+		if (reservations != null) {
+			reservations.release(transactionId);
+		}
+	}
+
+	private LedgerEntry journal(String transactionId, String playerId, Account account,
+			TransactionType transactionType, Money amount, Money delta) {
+		LedgerEntry entry = new LedgerEntry(ids.next(), transactionId, playerId, account.walletId,
+				transactionType, amount, delta, new Date(), null);
+		entry.setSequence(journal.append(LedgerRecord.encode(LedgerRecord.ENTRY, entry)));
+		if (sync) {
+			journal.force();
+		}
+		return entry;
+	}
+
+	/**
+	 * Evicts the least recently used accounts to make room for one more. An account with entries waiting
+	 * to be persisted is kept, its balance in the database is not up to date yet.
+	 */
+	private void evictSettled() {
+		Iterator<Account> iterator = accounts.values().iterator();
+		while (accounts.size() >= maxAccounts && iterator.hasNext()) {
+			if (iterator.next().pending == 0) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Marks the entries of a batch as persisted or reverted, once the reverts queued before are applied.
+	 */
+	private void settle(List<LedgerEntry> batch) {
+		List<LedgerEntry> settled = new ArrayList<>(batch);
+		try {
+			sequencer.execute(() -> {
+				for (LedgerEntry entry : settled) {
+					accounts.get(entry.getPlayerId()).pending--;
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			// shutting down, the balances are not used anymore
+		}
+	}
+
+	/**
+	 * Undoes the in-memory effect of an entry which could not be persisted.
+	 */
+	private void revert(LedgerEntry entry) {
+		try {
+			sequencer.execute(() -> {
+				Account account = accounts.get(entry.getPlayerId());
+				if (account != null) {
+					account.balance = account.balance.subtract(entry.getDelta());
+				}
+				if (journal != null) {
+					journal.append(LedgerRecord.encode(LedgerRecord.REVERT, entry));
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			LOGGER.warn("Ledger shut down before entry {} could be reverted", entry.getTransactionId());
+		}
+	}
+
+	private void persistLoop() {
+		List<LedgerEntry> batch = new ArrayList<>(batchSize);
+		while (running || !persistQueue.isEmpty()) {
+			try {
+				LedgerEntry first = persistQueue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				persistQueue.drainTo(batch, batchSize - 1);
+				if (journal != null) {
+					persistJournaled(batch);
+					settle(batch);
+				} else {
+					persistBatch(batch);
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				if (!running) {
+					break;
+				}
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	/**
+	 * Persists entries and settles them before their callers get the result, so a command submitted by a caller
+	 * next is applied after the settlement and sees the account evictable.
+	 */
+	private void persistBatch(List<LedgerEntry> batch) {
+		Transaction[] saved = new Transaction[batch.size()];
+		WalletException[] failures = new WalletException[batch.size()];
+		try {
+			ledgerPersister.persist(batch).toArray(saved);
+		} catch (WalletException | RuntimeException batchFailure) {
+			// Replay entry by entry so one bad entry does not fail the whole batch
+			for (int i = 0; i < batch.size(); i++) {
+				LedgerEntry entry = batch.get(i);
+				try {
+					saved[i] = ledgerPersister.persist(Collections.singletonList(entry)).get(0);
+				} catch (WalletException | RuntimeException ex) {
+					revert(entry);
+					failures[i] = toWalletException(entry, ex);
+				}
+			}
+		}
+		settle(batch);
+		for (int i = 0; i < batch.size(); i++) {
+			if (failures[i] != null) {
+				batch.get(i).getResult().completeExceptionally(failures[i]);
+			} else {
+				batch.get(i).getResult().complete(saved[i]);
+			}
+		}
+	}
+
+	/**
+	 * Persists journaled entries. The callers already got their result, an entry which can't be persisted
+	 * is reverted. While the database is not available the persister keeps retrying.
+	 */
+	private void persistJournaled(List<LedgerEntry> batch) throws InterruptedException {
+		List<LedgerEntry> rejected;
+		try {
+			rejected = ledgerPersister.persistJournaled(batch);
+		} catch (WalletException | RuntimeException batchFailure) {
+			rejected = new ArrayList<>();
+			for (LedgerEntry entry : batch) {
+				rejected.addAll(persistJournaled(entry));
+			}
+		}
+		for (LedgerEntry entry : rejected) {
+			LOGGER.error("Dropped journaled transaction {} of player {}, it could not be persisted",
+					entry.getTransactionId(), entry.getPlayerId());
+			revert(entry);
+		}
+		reservations.releasePersisted(batch);
+		persistedSequence = batch.get(batch.size() - 1).getSequence();
+	}
+
+	private List<LedgerEntry> persistJournaled(LedgerEntry entry) throws InterruptedException {
+		while (true) {
+			try {
+				return ledgerPersister.persistJournaled(Collections.singletonList(entry));
+			} catch (WalletException | DataIntegrityViolationException ex) {
+				return Collections.singletonList(entry);
+			} catch (RuntimeException ex) {
+				LOGGER.error("Failed to persist journaled transaction {}, retrying", entry.getTransactionId(), ex);
+				if (!running) {
+					// left in the journal, persisted when the shard is started again
+					return Collections.emptyList();
+				}
+				TimeUnit.SECONDS.sleep(1);
+			}
+		}
+	}
+
+	private static Transaction toTransaction(LedgerEntry entry) {
+		Wallet wallet = new Wallet();
+		wallet.setId(entry.getWalletId());
+		wallet.setPlayerId(entry.getPlayerId());
+		Transaction transaction = new Transaction(entry.getTransactionId(), entry.getTransactionType(),
+				entry.getAmount(), wallet);
+		transaction.setId(entry.getId());
+		transaction.setUpdatedTime(entry.getUpdatedTime());
+		return transaction;
+	}
+
+	/**
+	 * Rebuilds the balances from the snapshot and the journal records following it, and queues the journaled
+	 * entries for persisting. Entries already in the database are skipped by the persister.
+	 */
+	private void recover() {
+		try {
+			LedgerSnapshot snapshot = LedgerSnapshot.read(snapshotFile);
+			for (Map.Entry<String, long[]> account : snapshot.accounts.entrySet()) {
+				accounts.put(account.getKey(),
+						new Account((int) account.getValue()[1], Money.ofMinor(account.getValue()[0])));
+			}
+
+			Map<Integer, LedgerEntry> unconfirmed = new LinkedHashMap<>();
+			journal.replay(0, (sequence, record) -> {
+				byte kind = LedgerRecord.kind(record);
+				LedgerEntry entry = LedgerRecord.decode(record);
+				entry.setSequence(sequence);
+				if (kind == LedgerRecord.ENTRY) {
+					unconfirmed.put(entry.getId(), entry);
+				} else if (kind == LedgerRecord.REVERT) {
+					unconfirmed.remove(entry.getId());
+				}
+				if (sequence > snapshot.sequence) {
+					replay(kind, entry);
+				}
+			});
+			for (LedgerEntry entry : unconfirmed.values()) {
+				Account account = accounts.get(entry.getPlayerId());
+				if (account == null) {
+					// evicted before the snapshot, which needs all its entries to be persisted
+					continue;
+				}
+				reservations.add(entry.getTransactionId());
+				account.pending++;
+				persistQueue.add(entry);
+			}
+			persistedSequence = unconfirmed.isEmpty() ? journal.getLastSequence()
+					: unconfirmed.values().iterator().next().getSequence() - 1;
+			LOGGER.info("Recovered {} accounts, {} journaled transactions to check against the database",
+					accounts.size(), unconfirmed.size());
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private void replay(byte kind, LedgerEntry entry) {
+		if (kind == LedgerRecord.OPEN) {
+			accounts.put(entry.getPlayerId(), new Account(entry.getWalletId(), entry.getAmount()));
+			return;
+		}
+		Account account = accounts.get(entry.getPlayerId());
+		if (account == null) {
+			throw new IllegalStateException("Journal has no opening balance for player " + entry.getPlayerId());
+		}
+		account.balance = kind == LedgerRecord.ENTRY ? account.balance.add(entry.getDelta())
+				: account.balance.subtract(entry.getDelta());
+	}
+
+	/**
+	 * Writes a snapshot of the balances and deletes the journal segments which are no longer needed,
+	 * i.e. which are covered by the snapshot and persisted to the database.
+	 */
+	void snapshot() throws IOException, InterruptedException, ExecutionException {
+		LedgerSnapshot snapshot = sequencer.submit(this::copyAccounts).get();
+		snapshot.write(snapshotFile);
+		long releasable = Math.min(snapshot.sequence, persistedSequence);
+		sequencer.submit(() -> {
+			journal.release(releasable);
+			return null;
+		}).get();
+	}
+
+	private LedgerSnapshot copyAccounts() {
+		Map<String, long[]> copy = new HashMap<>(accounts.size() * 2);
+		for (Map.Entry<String, Account> account : accounts.entrySet()) {
+			copy.put(account.getKey(),
+					new long[] { account.getValue().balance.getMinorUnits(), account.getValue().walletId });
+		}
+		return new LedgerSnapshot(journal.getLastSequence(), copy);
+	}
+
+	private WalletException toWalletException(LedgerEntry entry, Exception ex) {
+		if (ex instanceof WalletException) {
+			return (WalletException) ex;
+		}
+		if (ex instanceof DataIntegrityViolationException) {
+			return new WalletException("Transaction with transactionId " + entry.getTransactionId() + " already exists",
+					HttpStatus.CONFLICT.value());
+		}
+		LOGGER.error("Failed to persist ledger entry {}", entry.getTransactionId(), ex);
+		return new WalletException("Could not persist transaction " + entry.getTransactionId(),
+				HttpStatus.INTERNAL_SERVER_ERROR.value());
+	}
+
+	void shutdown() throws InterruptedException {
+		sequencer.shutdown();
+		sequencer.awaitTermination(10, TimeUnit.SECONDS);
+		running = false;
+		persister.join(TimeUnit.SECONDS.toMillis(10));
+		if (journal != null) {
+			try {
+				// the sequencer is stopped, the balances can be read from this thread
+				copyAccounts().write(snapshotFile);
+			} catch (IOException ex) {
+				LOGGER.warn("Could not write ledger snapshot {}, the journal is replayed at the next start",
+						snapshotFile, ex);
+			}
+			journal.close();
+		}
+	}
+
+	private static final class Account {
+		private final Integer walletId;
+		private Money balance;
+		/** entries of the account queued for persisting and not yet persisted or reverted */
+		private int pending;
+
+		private Account(Integer walletId, Money balance) {
+			this.walletId = walletId;
+			this.balance = balance;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.company.wallet.ledger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.CRC32;
+
+/**
+ * Balances of a ledger shard as of a journal sequence.
+ * <p>
+ * Written to a temporary file which then replaces the previous snapshot, so a crash while writing
+ * leaves the previous snapshot intact.
+ * </p>
+ * @author Vinay Singh
+ */
+final class LedgerSnapshot {
+	private static final int MAGIC = 0x574c5331;
+
+	/** sequence of the last journal record reflected in the balances */
+	final long sequence;
+	/** balance in minor units and walletId by playerId */
+	final Map<String, long[]> accounts;
+
+	LedgerSnapshot(long sequence, Map<String, long[]> accounts) {
+		this.sequence = sequence;
+		this.accounts = accounts;
+	}
+
+	void write(Path file) throws IOException {
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		CRC32 crc = new CRC32();
+		try (DataOutputStream out = new DataOutputStream(
+				new CheckedOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)), crc))) {
+			out.writeInt(MAGIC);
+			out.writeLong(sequence);
+			out.writeInt(accounts.size());
+			for (Map.Entry<String, long[]> account : accounts.entrySet()) {
+				out.writeUTF(account.getKey());
+				out.writeLong(account.getValue()[0]);
+				out.writeLong(account.getValue()[1]);
+			}
+			out.flush();
+			out.writeLong(crc.getValue());
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @return snapshot in file, or an empty snapshot if there is no file
+	 * @throws IOException if the file can't be read or is corrupt
+	 */
+	static LedgerSnapshot read(Path file) throws IOException {
+		if (!Files.exists(file)) {
+			return new LedgerSnapshot(0, new HashMap<>());
+		}
+		CRC32 crc = new CRC32();
+		try (DataInputStream in = new DataInputStream(
+				new CheckedInputStream(new BufferedInputStream(Files.newInputStream(file)), crc))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a ledger snapshot: " + file);
+			}
+			long sequence = in.readLong();
+			int count = in.readInt();
+			Map<String, long[]> accounts = new HashMap<>(count * 2);
+			for (int i = 0; i < count; i++) {
+				accounts.put(in.readUTF(), new long[] { in.readLong(), in.readLong() });
+			}
+			long expected = crc.getValue();
+			if (in.readLong() != expected) {
+				throw new IOException("Corrupt ledger snapshot: " + file);
+			}
+			return new LedgerSnapshot(sequence, accounts);
+		}
+	}
+}
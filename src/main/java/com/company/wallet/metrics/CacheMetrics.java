@@ -0,0 +1,40 @@
+package com.company.wallet.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.company.wallet.cache.IdempotencyCache;
+import com.company.wallet.cache.WalletCache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the wallet and idempotency cache statistics as meters.
+ *
+ * @author Vinay Singh
+ */
+@Component
+public class CacheMetrics implements MeterBinder {
+
+	@Autowired
+	private WalletCache walletCache;
+
+	@Autowired
+	private IdempotencyCache idempotencyCache;
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("wallet.cache.requests", walletCache, WalletCache::getHits)
+				.tag("cache", "wallet").tag("result", "hit").register(registry);
+		FunctionCounter.builder("wallet.cache.requests", walletCache, WalletCache::getMisses)
+				.tag("cache", "wallet").tag("result", "miss").register(registry);
+		FunctionCounter.builder("wallet.cache.requests", idempotencyCache, IdempotencyCache::getHits)
+				.tag("cache", "idempotency").tag("result", "hit").register(registry);
+		FunctionCounter.builder("wallet.cache.requests", idempotencyCache, IdempotencyCache::getMisses)
+				.tag("cache", "idempotency").tag("result", "miss").register(registry);
+		FunctionCounter.builder("wallet.cache.false.positives", idempotencyCache, IdempotencyCache::getFalsePositives)
+				.tag("cache", "idempotency").register(registry);
+	}
+}
@@ -0,0 +1,227 @@
+package com.company.wallet.metrics;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.company.wallet.exception.handler.WalletException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Transaction metrics.
+ * <p>
+ * All meters are registered up front, recording only updates striped adders and histograms
+ * without registry lookups. Meters:
+ * <ul>
+ * <li>wallet.transaction - total time of a transaction request, by outcome</li>
+ * <li>wallet.transaction.apply - time spent applying a validated transaction (database transaction
+ * in jpa mode, ledger round trip in ledger mode)</li>
+ * <li>wallet.transaction.failures - failed transactions, by reason</li>
+ * <li>wallet.transaction.batch - total time of a batch request, and wallet.transaction.batch.size</li>
+ * <li>wallet.transaction.batch.rollbacks - batch chunks and commit groups rolled back and retried item by item</li>
+ * <li>wallet.transaction.retries - retries after a failed optimistic version check, and
+ * wallet.transaction.retries.exhausted - transactions given up after the last retry</li>
+ * <li>wallet.lock.wait - time waited for the player lock, and wallet.lock.timeouts</li>
+ * <li>wallet.group.commit.size - transactions per group commit</li>
+ * <li>wallet.transaction.admission.rejections - transactions rejected by the admission stage, also counted
+ * as failures by reason</li>
+ * </ul>
+ * </p>
+ * @author Vinay Singh
+ */
+@Component
+public class WalletMetrics {
+
+	/**
+	 * Outcome of a transaction request.
+	 */
+	public enum Outcome {
+		CREATED, REPLAYED, INVALID, INSUFFICIENT_FUNDS, DUPLICATE_ID, NOT_FOUND, SERIALIZATION_FAILURE, THROTTLED,
+		UNAVAILABLE, ERROR;
+
+		public boolean isFailure() {
+			return this != CREATED && this != REPLAYED;
+		}
+
+		String tag() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	private static final String INSUFFICIENT_FUNDS_MESSAGE = "No sufficient funds";
+
+	@Autowired
+	private MeterRegistry registry;
+
+	private final Map<Outcome, Timer> transactionTimers = new EnumMap<>(Outcome.class);
+	private final Map<Outcome, Counter> failureCounters = new EnumMap<>(Outcome.class);
+	private Timer applyTimer;
+	private Timer batchTimer;
+	private DistributionSummary batchSize;
+	private Counter batchRollbacks;
+	private Counter retries;
+	private Counter retriesExhausted;
+	private Timer lockWait;
+	private Counter lockTimeouts;
+	private DistributionSummary groupCommitSize;
+	private Counter asyncRejections;
+	private Counter admissionRejections;
+
+	@PostConstruct
+	public void init() {
+		for (Outcome outcome : Outcome.values()) {
+			transactionTimers.put(outcome, Timer.builder("wallet.transaction")
+					.description("Time to process a transaction request")
+					.tag("outcome", outcome.tag())
+					.publishPercentiles(0.5, 0.99)
+					.publishPercentileHistogram()
+					.register(registry));
+			if (outcome.isFailure()) {
+				failureCounters.put(outcome, Counter.builder("wallet.transaction.failures")
+						.description("Failed transactions")
+						.tag("reason", outcome.tag())
+						.register(registry));
+			}
+		}
+		applyTimer = Timer.builder("wallet.transaction.apply")
+				.description("Time to apply a validated transaction to the wallet")
+				.publishPercentiles(0.5, 0.99)
+				.publishPercentileHistogram()
+				.register(registry);
+		batchTimer = Timer.builder("wallet.transaction.batch")
+				.description("Time to process a batch request")
+				.publishPercentiles(0.5, 0.99)
+				.register(registry);
+		batchSize = DistributionSummary.builder("wallet.transaction.batch.size")
+				.description("Transactions per batch request")
+				.register(registry);
+		batchRollbacks = Counter.builder("wallet.transaction.batch.rollbacks")
+				.description("Batch chunks rolled back and retried item by item")
+				.register(registry);
+		retries = Counter.builder("wallet.transaction.retries")
+				.description("Transactions retried after a failed optimistic version check")
+				.register(registry);
+		retriesExhausted = Counter.builder("wallet.transaction.retries.exhausted")
+				.description("Transactions failed on the optimistic version check after the last retry")
+				.register(registry);
+		lockWait = Timer.builder("wallet.lock.wait")
+				.description("Time waited for the player lock")
+				.publishPercentiles(0.5, 0.99)
+				.publishPercentileHistogram()
+				.register(registry);
+		lockTimeouts = Counter.builder("wallet.lock.timeouts")
+				.description("Transactions rejected after waiting too long for the player lock")
+				.register(registry);
+		groupCommitSize = DistributionSummary.builder("wallet.group.commit.size")
+				.description("Transactions committed together by the group committer")
+				.publishPercentiles(0.5, 0.99)
+				.register(registry);
+		asyncRejections = Counter.builder("wallet.async.rejections")
+				.description("Async requests rejected because the request executor queue was full")
+				.register(registry);
+		admissionRejections = Counter.builder("wallet.transaction.admission.rejections")
+				.description("Transactions rejected without database work because they would certainly fail")
+				.register(registry);
+	}
+
+	/**
+	 * Records a transaction request.
+	 *
+	 * @param outcome outcome of the request
+	 * @param nanos total time of the request
+	 */
+	public void recordTransaction(Outcome outcome, long nanos) {
+		transactionTimers.get(outcome).record(nanos, TimeUnit.NANOSECONDS);
+		recordFailure(outcome);
+	}
+
+	/**
+	 * Records a failed transaction which is not timed on its own, e.g. an item of a batch.
+	 */
+	public void recordFailure(Outcome outcome) {
+		if (outcome.isFailure()) {
+			failureCounters.get(outcome).increment();
+		}
+	}
+
+	public void recordApply(long nanos) {
+		applyTimer.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void recordBatch(int size, long nanos) {
+		batchTimer.record(nanos, TimeUnit.NANOSECONDS);
+		batchSize.record(size);
+	}
+
+	public void recordBatchRollback() {
+		batchRollbacks.increment();
+	}
+
+	public void recordRetry() {
+		retries.increment();
+	}
+
+	public void recordRetriesExhausted() {
+		retriesExhausted.increment();
+	}
+
+	public void recordLockWait(long nanos) {
+		lockWait.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void recordLockTimeout() {
+		lockTimeouts.increment();
+	}
+
+	public void recordGroupCommit(int size) {
+		groupCommitSize.record(size);
+	}
+
+	public void recordAsyncRejection() {
+		asyncRejections.increment();
+	}
+
+	public void recordAdmissionRejection() {
+		admissionRejections.increment();
+	}
+
+	public static Outcome outcomeOf(WalletException ex) {
+		return outcomeOf(ex.getErrorCode(), ex.getMessage());
+	}
+
+	/**
+	 * @param status HTTP status of the failure
+	 * @param message failure message
+	 * @return failure outcome
+	 */
+	public static Outcome outcomeOf(int status, String message) {
+		if (status == HttpStatus.CONFLICT.value()) {
+			return Outcome.DUPLICATE_ID;
+		}
+		if (status == HttpStatus.NOT_FOUND.value()) {
+			return Outcome.NOT_FOUND;
+		}
+		if (status == HttpStatus.BAD_REQUEST.value()) {
+			return message != null && message.startsWith(INSUFFICIENT_FUNDS_MESSAGE) ? Outcome.INSUFFICIENT_FUNDS
+					: Outcome.INVALID;
+		}
+		if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+			return Outcome.THROTTLED;
+		}
+		if (status == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+			return Outcome.UNAVAILABLE;
+		}
+		return Outcome.ERROR;
+	}
+}
@@ -0,0 +1,62 @@
+package com.company.wallet.replica;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Players written by this node within the last pinMs milliseconds.
+ * Their reads go to the primary database, so a player reads its own writes while the replicas catch up.
+ *
+ * @author Vinay Singh
+ */
+public class RecentWrites {
+	private final long pinNanos;
+	private final Map<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+	private volatile long nextSweep;
+
+	public RecentWrites(long pinMs) {
+		this.pinNanos = TimeUnit.MILLISECONDS.toNanos(pinMs);
+		this.nextSweep = System.nanoTime() + pinNanos;
+	}
+
+	/**
+	 * Pins the player to the primary from now on.
+	 */
+	public void record(String playerId) {
+		long now = System.nanoTime();
+		pinnedUntil.put(playerId, now + pinNanos);
+		if (now - nextSweep > 0) {
+			nextSweep = now + pinNanos;
+			pinnedUntil.values().removeIf(until -> now - until > 0);
+		}
+	}
+
+	/**
+	 * Pins the player changed by the current database transaction once it commits,
+	 * or immediately if there is no transaction.
+	 */
+	public void recordAfterCommit(String playerId) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			record(playerId);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCompletion(int status) {
+				if (status == TransactionSynchronization.STATUS_COMMITTED) {
+					record(playerId);
+				}
+			}
+		});
+	}
+
+	public boolean isPinned(String playerId) {
+		Long until = pinnedUntil.get(playerId);
+		return until != null && until - System.nanoTime() > 0;
+	}
+}
@@ -0,0 +1,35 @@
+package com.company.wallet.replica;
+
+/**
+ * Whether the current thread reads from a replica. {@link ReplicaRoutingDataSource} hands out replica connections
+ * while it does, so it has to be entered before the database transaction starts.
+ *
+ * @author Vinay Singh
+ */
+public final class ReplicaContext {
+	private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+	private ReplicaContext() {
+	}
+
+	public static boolean isActive() {
+		return READ_ONLY.get() != null;
+	}
+
+	/**
+	 * Makes the current thread read from a replica.
+	 *
+	 * @return whether it did before, to be passed to {@link #restore(boolean)}
+	 */
+	public static boolean enter() {
+		boolean previous = isActive();
+		READ_ONLY.set(Boolean.TRUE);
+		return previous;
+	}
+
+	public static void restore(boolean previous) {
+		if (!previous) {
+			READ_ONLY.remove();
+		}
+	}
+}
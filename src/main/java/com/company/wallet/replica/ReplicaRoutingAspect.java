@@ -0,0 +1,86 @@
+package com.company.wallet.replica;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.sharding.ShardKey;
+import com.company.wallet.sharding.ShardKeys;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} service methods to a replica.
+ * <p>
+ * Reads stay on the primary inside a transaction which already started, and for players pinned by
+ * {@link RecentWrites}. Service methods writing a player, found by its {@link ShardKey} parameter, pin it.
+ * A replica lagging behind can't tell that something doesn't exist, so reads failing with 404
+ * on a replica are repeated on the primary.
+ * </p>
+ * Ordered before the transaction interceptor, so the database transaction of the method
+ * takes its connection from the replica.
+ *
+ * @author Vinay Singh
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ReplicaRoutingAspect {
+	private final RecentWrites recentWrites;
+	private final Map<Method, Boolean> readOnly = new ConcurrentHashMap<>();
+
+	public ReplicaRoutingAspect(RecentWrites recentWrites) {
+		this.recentWrites = recentWrites;
+	}
+
+	@Around("execution(* com.company.wallet.service..*(..)) "
+			+ "&& @annotation(org.springframework.transaction.annotation.Transactional)")
+	public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+		String playerId = ShardKeys.playerIdOf(joinPoint);
+		if (!isReadOnly(joinPoint)) {
+			try {
+				return joinPoint.proceed();
+			} finally {
+				if (playerId != null) {
+					recentWrites.record(playerId);
+				}
+			}
+		}
+
+		if (ReplicaContext.isActive() || TransactionSynchronizationManager.isActualTransactionActive()
+				|| (playerId != null && recentWrites.isPinned(playerId))) {
+			return joinPoint.proceed();
+		}
+
+		boolean previous = ReplicaContext.enter();
+		try {
+			return joinPoint.proceed();
+		} catch (WalletException ex) {
+			if (ex.getErrorCode() != HttpStatus.NOT_FOUND.value()) {
+				throw ex;
+			}
+		} finally {
+			ReplicaContext.restore(previous);
+		}
+		return joinPoint.proceed();
+	}
+
+	private boolean isReadOnly(ProceedingJoinPoint joinPoint) {
+		Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+		return readOnly.computeIfAbsent(method, m -> {
+			Transactional transactional = AnnotatedElementUtils.findMergedAnnotation(
+					AopUtils.getMostSpecificMethod(m, joinPoint.getTarget().getClass()), Transactional.class);
+			return transactional != null && transactional.readOnly();
+		});
+	}
+}
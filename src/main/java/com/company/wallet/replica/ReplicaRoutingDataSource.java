@@ -0,0 +1,57 @@
+package com.company.wallet.replica;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * DataSource handing out connections of the primary database, or of one of the replicas
+ * while the thread is in {@link ReplicaContext}. Replicas are used round robin.
+ *
+ * @author Vinay Singh
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+	private static final String PRIMARY = "primary";
+
+	private final List<DataSource> replicas;
+	private final AtomicInteger next = new AtomicInteger();
+
+	public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+		this.replicas = replicas;
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		for (int replica = 0; replica < replicas.size(); replica++) {
+			targets.put(replica, replicas.get(replica));
+		}
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		setLenientFallback(false);
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!ReplicaContext.isActive() || replicas.isEmpty()) {
+			return PRIMARY;
+		}
+		return (next.getAndIncrement() & Integer.MAX_VALUE) % replicas.size();
+	}
+
+	/**
+	 * Closes the connection pools of the replicas, the primary one is a bean of its own.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (DataSource replica : replicas) {
+			if (replica instanceof Closeable) {
+				((Closeable) replica).close();
+			}
+		}
+	}
+}
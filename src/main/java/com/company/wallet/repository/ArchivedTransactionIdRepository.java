@@ -0,0 +1,15 @@
+package com.company.wallet.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.company.wallet.entities.ArchivedTransactionId;
+
+/**
+ * ArchivedTransactionId JPA repository.
+ * @author Vinay Singh
+ */
+public interface ArchivedTransactionIdRepository extends JpaRepository<ArchivedTransactionId, Integer> {
+	ArchivedTransactionId findOneById(Integer id);
+
+	ArchivedTransactionId findOneByTransactionId(String transactionId);
+}
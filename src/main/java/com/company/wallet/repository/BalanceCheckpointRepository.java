@@ -0,0 +1,30 @@
+package com.company.wallet.repository;
+
+import java.util.Date;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import com.company.wallet.entities.BalanceCheckpoint;
+
+/**
+ * BalanceCheckpoint JPA repository.
+ * Both lookups are served by the (wallet_id, checkpoint_time) index.
+ * @author Vinay Singh
+ */
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+	/**
+	 * @return the latest checkpoint of the wallet taken at or before the given time, or null
+	 */
+	BalanceCheckpoint findFirstByWalletIdAndCheckpointTimeLessThanEqualOrderByCheckpointTimeDesc(Integer walletId,
+			Date time);
+
+	/**
+	 * @return the earliest checkpoint of the wallet taken after the given time, or null
+	 */
+	BalanceCheckpoint findFirstByWalletIdAndCheckpointTimeGreaterThanOrderByCheckpointTimeAsc(Integer walletId,
+			Date time);
+
+	@Query("select max(c.checkpointTime) from BalanceCheckpoint c")
+	Date findLastCheckpointTime();
+}
@@ -1,8 +1,13 @@
 package com.company.wallet.repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.company.wallet.entities.Transaction;
 import com.company.wallet.entities.Wallet;
@@ -16,7 +21,48 @@ import com.company.wallet.entities.Wallet;
 public interface TransactionRepository extends JpaRepository<Transaction, Integer> {
 	List<Transaction> findByWalletOrderByUpdatedTimeDesc(Wallet wallet);
 
+	/**
+	 * First page of the wallet history, newest first.
+	 */
+	List<Transaction> findByWalletOrderByUpdatedTimeDescIdDesc(Wallet wallet, Pageable pageable);
+
+	/**
+	 * Page of the wallet history following the transaction with the given updatedTime and id, newest first.
+	 * Served by the (wallet_id, updated_time, id) index, so the cost does not depend on how deep the page is.
+	 */
+	@Query("select t from Transaction t where t.wallet = :wallet and (t.updatedTime < :updatedTime "
+			+ "or (t.updatedTime = :updatedTime and t.id < :id)) order by t.updatedTime desc, t.id desc")
+	List<Transaction> findPageAfter(@Param("wallet") Wallet wallet, @Param("updatedTime") Date updatedTime,
+			@Param("id") Integer id, Pageable pageable);
+
 	Transaction findOneById(Integer Id);
 
 	List<Transaction> findByWallet(Wallet wallet);
+
+	@Query("select t from Transaction t join fetch t.wallet where t.transactionId = :transactionId")
+	Transaction findWithWalletByTransactionId(@Param("transactionId") String transactionId);
+
+	/**
+	 * @param transactionIds transactionIds to check
+	 * @return the given transactionIds which already exist, including the ones of archived transactions
+	 */
+	@Query(value = "select transaction_id from transaction where transaction_id in :transactionIds union all "
+			+ "select transaction_id from archived_transaction_id where transaction_id in :transactionIds",
+			nativeQuery = true)
+	List<String> findExistingTransactionIds(@Param("transactionIds") Collection<String> transactionIds);
+
+	/**
+	 * @param transactionIds transactionIds to check
+	 * @return transactionId and id of the given transactionIds which already exist
+	 */
+	@Query("select t.transactionId, t.id from Transaction t where t.transactionId in :transactionIds")
+	List<Object[]> findIdsByTransactionIdIn(@Param("transactionIds") Collection<String> transactionIds);
+
+	/**
+	 * @return sum of the signed amounts of the wallet's transactions updated in (from, to], in minor units
+	 */
+	@Query("select coalesce(sum(case when t.transactionType = com.company.wallet.utils.TransactionType.CREDIT "
+			+ "then t.amount else -t.amount end), 0) from Transaction t "
+			+ "where t.wallet = :wallet and t.updatedTime > :from and t.updatedTime <= :to")
+	long sumAmountBetween(@Param("wallet") Wallet wallet, @Param("from") Date from, @Param("to") Date to);
 }
@@ -1,8 +1,14 @@
 package com.company.wallet.repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.company.wallet.entities.Wallet;
 
@@ -13,5 +19,33 @@ import com.company.wallet.entities.Wallet;
  */
 public interface WalletRepository extends JpaRepository<Wallet, Integer>{
 	Wallet findWalletByPlayerId(String playerId);
-	List<Wallet> findAllByOrderByIdAsc();	
+	List<Wallet> findAllByOrderByIdAsc();
+	List<Wallet> findByPlayerIdIn(Collection<String> playerIds);
+
+	/**
+	 * Adds delta to the balance of the player's wallet in a single guarded statement.
+	 * The update only happens if the resulting balance is not negative. The wallet version is incremented,
+	 * so concurrent optimistic updates of the wallet fail.
+	 * Wallets loaded before the call are detached, as their balance is no longer current.
+	 *
+	 * @param playerId player owning the wallet
+	 * @param delta signed amount in minor units, negative for debit
+	 * @param updatedTime new wallet updated time
+	 * @return number of updated rows, 0 if there are not enough funds or the wallet doesn't exist
+	 */
+	@Transactional
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update Wallet w set w.balance = w.balance + :delta, w.version = w.version + 1, w.updatedTime = :updatedTime "
+			+ "where w.playerId = :playerId and w.balance + :delta >= 0")
+	int updateBalance(@Param("playerId") String playerId, @Param("delta") long delta,
+			@Param("updatedTime") Date updatedTime);
+
+	/**
+	 * Balance of the wallet before the transactions updated after the given time, in minor units.
+	 * The balance and the transactions are read by one statement, so they are consistent with each other.
+	 */
+	@Query("select w.balance - coalesce((select sum(case when t.transactionType = "
+			+ "com.company.wallet.utils.TransactionType.CREDIT then t.amount else -t.amount end) "
+			+ "from Transaction t where t.wallet = w and t.updatedTime > :time), 0) from Wallet w where w.id = :id")
+	long findBalanceAt(@Param("id") Integer id, @Param("time") Date time);
 }
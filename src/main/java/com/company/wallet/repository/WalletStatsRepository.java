@@ -0,0 +1,49 @@
+package com.company.wallet.repository;
+
+import java.util.Date;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.company.wallet.entities.WalletStats;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * WalletStats JPA repository.
+ * @author Vinay Singh
+ */
+public interface WalletStatsRepository extends JpaRepository<WalletStats, Integer> {
+
+	/**
+	 * Adds a transaction to the stats of its wallet, in the database transaction inserting it.
+	 *
+	 * @param walletId wallet of the transaction
+	 * @param transactionType CREDIT or DEBIT
+	 * @param amount transaction amount
+	 * @param updatedTime updated time of the transaction
+	 * @return number of updated rows, 0 if the wallet has no stats
+	 */
+	default int record(Integer walletId, TransactionType transactionType, Money amount, Date updatedTime) {
+		long minorUnits = Math.abs(amount.getMinorUnits());
+		return transactionType == TransactionType.CREDIT ? add(walletId, 1, minorUnits, 0, 0, updatedTime)
+				: add(walletId, 0, 0, 1, minorUnits, updatedTime);
+	}
+
+	/**
+	 * Adds to the totals of a wallet in a single statement, the row lock keeps concurrent additions apart.
+	 * Session state is left alone, stats are never changed through loaded entities.
+	 */
+	@Modifying
+	@Query("update WalletStats s set s.depositCount = s.depositCount + :deposits, "
+			+ "s.depositAmount = s.depositAmount + :depositAmount, "
+			+ "s.withdrawalCount = s.withdrawalCount + :withdrawals, "
+			+ "s.withdrawalAmount = s.withdrawalAmount + :withdrawalAmount, "
+			+ "s.lastActivity = case when s.lastActivity is null or s.lastActivity < :updatedTime then :updatedTime "
+			+ "else s.lastActivity end where s.walletId = :walletId")
+	int add(@Param("walletId") Integer walletId, @Param("deposits") long deposits,
+			@Param("depositAmount") long depositAmount, @Param("withdrawals") long withdrawals,
+			@Param("withdrawalAmount") long withdrawalAmount, @Param("updatedTime") Date updatedTime);
+}
@@ -0,0 +1,129 @@
+package com.company.wallet.service;
+
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.company.wallet.repository.BalanceCheckpointRepository;
+import com.company.wallet.sharding.ShardRouter;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Periodically writes a {@link com.company.wallet.entities.BalanceCheckpoint} for every wallet
+ * with transactions since the previous checkpoint, so that a point-in-time balance only needs
+ * the transactions between the nearest checkpoint and the requested time.
+ * <p>
+ * Checkpoints are taken settle-ms in the past, transactions are expected to be committed by then.
+ * The balance of a checkpoint is the wallet balance minus the transactions updated after the checkpoint time,
+ * computed by one statement.
+ * </p>
+ * @author Vinay Singh
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.checkpoint.enabled", havingValue = "true", matchIfMissing = true)
+public class BalanceCheckpointer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(BalanceCheckpointer.class);
+
+	private static final String INSERT_CHECKPOINTS = "insert into balance_checkpoint (wallet_id, checkpoint_time, balance) "
+			+ "select w.id, ?, w.balance - coalesce((select sum(case when t.transaction_type = ? "
+			+ "then t.amount else -t.amount end) from transaction t where t.wallet_id = w.id and t.updated_time > ?), 0) "
+			+ "from wallet w where exists (select 1 from transaction t where t.wallet_id = w.id "
+			+ "and t.updated_time > ? and t.updated_time <= ?)";
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private BalanceCheckpointRepository balanceCheckpointRepository;
+
+	@Value("${wallet.checkpoint.interval-ms:3600000}")
+	private long intervalMs;
+
+	@Value("${wallet.checkpoint.settle-ms:60000}")
+	private long settleMs;
+
+	@Autowired(required = false)
+	private ShardRouter shardRouter;
+
+	private ScheduledExecutorService executor;
+	/** by shard, a single one without sharding */
+	private Date[] lastCheckpointTimes;
+
+	@PostConstruct
+	public void start() {
+		lastCheckpointTimes = new Date[shardRouter != null ? shardRouter.shardCount() : 1];
+		executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "balance-checkpoint");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::run, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	private void run() {
+		try {
+			checkpoint(new Date(System.currentTimeMillis() - settleMs));
+		} catch (RuntimeException ex) {
+			LOGGER.warn("Could not write balance checkpoints", ex);
+		}
+	}
+
+	/**
+	 * Writes checkpoints at the given time for the wallets with transactions since the previous checkpoint.
+	 *
+	 * @param time checkpoint time
+	 * @return number of checkpoints written
+	 */
+	public synchronized int checkpoint(Date time) {
+		if (shardRouter == null) {
+			return checkpoint(0, time);
+		}
+		int written = 0;
+		for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+			int target = shard;
+			written += shardRouter.onShard(target, () -> checkpoint(target, time));
+		}
+		return written;
+	}
+
+	private int checkpoint(int shard, Date time) {
+		if (lastCheckpointTimes[shard] == null) {
+			lastCheckpointTimes[shard] = balanceCheckpointRepository.findLastCheckpointTime();
+			if (lastCheckpointTimes[shard] == null) {
+				lastCheckpointTimes[shard] = new Date(0);
+			}
+		}
+		if (!time.after(lastCheckpointTimes[shard])) {
+			return 0;
+		}
+
+		long start = System.currentTimeMillis();
+		int written = new JdbcTemplate(dataSource).update(INSERT_CHECKPOINTS, time,
+				TransactionType.CREDIT.ordinal(), time, lastCheckpointTimes[shard], time);
+		lastCheckpointTimes[shard] = time;
+		if (written > 0) {
+			LOGGER.info("Wrote {} balance checkpoints at {} on shard {} in {} ms", written, time, shard,
+					System.currentTimeMillis() - start);
+		}
+		return written;
+	}
+}
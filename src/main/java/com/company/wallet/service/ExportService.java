@@ -0,0 +1,17 @@
+package com.company.wallet.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.company.wallet.utils.ExportFormat;
+
+/**
+ * Service for bulk export of wallets and transactions.
+ * 
+ * @author Vinay Singh
+ */
+public interface ExportService {
+	public void exportWallets(ExportFormat format, OutputStream out) throws IOException;
+
+	public void exportTransactions(ExportFormat format, OutputStream out) throws IOException;
+}
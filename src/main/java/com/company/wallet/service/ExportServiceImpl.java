@@ -0,0 +1,173 @@
+package com.company.wallet.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.company.wallet.archive.ArchiveSegment;
+import com.company.wallet.archive.TransactionArchive;
+import com.company.wallet.export.RowWriter;
+import com.company.wallet.sharding.ShardRouter;
+import com.company.wallet.utils.ExportFormat;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Service Implementation for bulk export.
+ * <p>
+ * Rows are read through a forward-only JDBC cursor and written to the stream as they arrive,
+ * so memory use does not depend on the number of exported rows. No entities are created.
+ * </p>
+ * @author Vinay Singh
+ */
+@Service
+public class ExportServiceImpl implements ExportService {
+	private static final String[] WALLET_COLUMNS = { "id", "playerId", "balance", "createdTime", "updatedTime" };
+	private static final String[] TRANSACTION_COLUMNS = { "id", "transactionId", "playerId", "transactionType",
+			"amount", "updatedTime" };
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired(required = false)
+	private ShardRouter shardRouter;
+
+	@Autowired(required = false)
+	private TransactionArchive transactionArchive;
+
+	@Value("${wallet.export.fetch-size:1000}")
+	private int fetchSize;
+
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate transactionTemplate;
+
+	@PostConstruct
+	public void init() {
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.setFetchSize(fetchSize);
+		// some drivers only stream a result set inside a transaction
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setReadOnly(true);
+	}
+
+	/**
+	 * Writes all wallets, ordered by id (within each shard).
+	 */
+	@Override
+	public void exportWallets(ExportFormat format, OutputStream out) throws IOException {
+		RowWriter writer = RowWriter.of(format, WALLET_COLUMNS, out);
+		stream("select id, player_id, balance, created_time, updated_time from wallet order by id", rs -> {
+			write(writer, new Object[] { rs.getInt(1), rs.getString(2), Money.ofMinor(rs.getLong(3)), instant(rs.getTimestamp(4)),
+					instant(rs.getTimestamp(5)) });
+		}, null);
+		writer.finish();
+	}
+
+	/**
+	 * Writes all transactions with the playerId of their wallet, ordered by id (within each shard),
+	 * followed by the archived transactions by player.
+	 */
+	@Override
+	public void exportTransactions(ExportFormat format, OutputStream out) throws IOException {
+		RowWriter writer = RowWriter.of(format, TRANSACTION_COLUMNS, out);
+		TransactionType[] types = TransactionType.values();
+		List<ArchiveSegment> archived = new ArrayList<>();
+		stream("select t.id, t.transaction_id, w.player_id, t.transaction_type, t.amount, t.updated_time "
+				+ "from transaction t join wallet w on w.id = t.wallet_id order by t.id", rs -> {
+			write(writer, new Object[] { rs.getInt(1), rs.getString(2), rs.getString(3), types[rs.getInt(4)].name(),
+					Money.ofMinor(rs.getLong(5)), instant(rs.getTimestamp(6)) });
+		}, archived);
+		try {
+			TransactionArchive.forEach(archived, (playerId, transaction) -> write(writer,
+					new Object[] { transaction.getId(), transaction.getTransactionId(), playerId,
+							transaction.getTransactionType().name(), Money.ofMinor(transaction.getAmount()),
+							Instant.ofEpochMilli(transaction.getUpdatedTime()).toString() }));
+		} catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+		writer.finish();
+	}
+
+	/**
+	 * Streams the rows of the query, with sharding shard by shard, in the order of the query within each shard.
+	 *
+	 * @param archived if not null, receives the archive segments of each shard as of the time it was queried
+	 */
+	private void stream(String sql, RowCallbackHandler handler, List<ArchiveSegment> archived) throws IOException {
+		try {
+			if (shardRouter == null) {
+				streamShard(0, sql, handler, archived);
+				return;
+			}
+			for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+				int target = shard;
+				shardRouter.onShard(shard, () -> streamShard(target, sql, handler, archived));
+			}
+		} catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	private Void streamShard(int shard, String sql, RowCallbackHandler handler, List<ArchiveSegment> archived) {
+		return transactionTemplate.execute(status -> {
+			if (archived == null || transactionArchive == null) {
+				jdbcTemplate.query(sql, handler);
+				return null;
+			}
+			// the lock is only held until the query has run: its result is a snapshot of the database, and nothing
+			// is archived from the shard before it is taken, so no row is missed or written twice, and the archiver
+			// doesn't wait for the client reading the export
+			Lock archiveLock = transactionArchive.readLock();
+			archiveLock.lock();
+			boolean[] locked = { true };
+			try {
+				archived.addAll(transactionArchive.getSegments(shard));
+				jdbcTemplate.query(sql, (ResultSetExtractor<Void>) rs -> {
+					archiveLock.unlock();
+					locked[0] = false;
+					while (rs.next()) {
+						handler.processRow(rs);
+					}
+					return null;
+				});
+			} finally {
+				if (locked[0]) {
+					archiveLock.unlock();
+				}
+			}
+			return null;
+		});
+	}
+
+	private static void write(RowWriter writer, Object[] values) {
+		try {
+			writer.write(values);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private static String instant(Timestamp timestamp) {
+		return timestamp != null ? timestamp.toInstant().toString() : null;
+	}
+}
@@ -0,0 +1,214 @@
+package com.company.wallet.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.company.wallet.dto.TransactionResult;
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.metrics.WalletMetrics;
+import com.company.wallet.sharding.ShardRouter;
+
+/**
+ * Commits concurrent single transactions together.
+ * <p>
+ * Submitted transactions are queued and a committer thread collects them into groups of at most
+ * wallet.group-commit.max-size transactions, waiting at most wallet.group-commit.max-wait-us for a group to fill.
+ * Every group is applied by {@link TransactionBatchProcessor} in one database transaction, so the callers share
+ * one commit. A transaction failing on its own (duplicate transactionId, unknown player, not enough funds) only
+ * fails its caller. If the group can't be committed, its transactions are applied one by one.
+ * </p>
+ * Enabled with {@code wallet.group-commit.enabled=true} in jpa transaction mode.
+ *
+ * @author Vinay Singh
+ */
+@Component
+@ConditionalOnExpression("${wallet.group-commit.enabled:false} and '${wallet.transaction.mode:jpa}' == 'jpa'")
+public class GroupCommitter {
+	private static final Logger LOGGER = LoggerFactory.getLogger(GroupCommitter.class);
+
+	@Autowired
+	private TransactionBatchProcessor transactionBatchProcessor;
+
+	@Autowired
+	private WalletMetrics walletMetrics;
+
+	@Autowired(required = false)
+	private ShardRouter shardRouter;
+
+	@Value("${wallet.group-commit.max-size:256}")
+	private int maxSize;
+
+	@Value("${wallet.group-commit.max-wait-us:500}")
+	private long maxWaitMicros;
+
+	private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+	private Thread committer;
+	private volatile boolean running = true;
+
+	@PostConstruct
+	public void start() {
+		committer = new Thread(this::commitLoop, "group-committer");
+		committer.setDaemon(true);
+		committer.start();
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		running = false;
+		committer.join(TimeUnit.SECONDS.toMillis(10));
+	}
+
+	/**
+	 * Queues a validated transaction for the next group.
+	 *
+	 * @return future completed with the created transaction, or exceptionally with WalletException
+	 */
+	public CompletableFuture<Transaction> submit(TransactionBatchItem item) {
+		CompletableFuture<Transaction> result = new CompletableFuture<>();
+		if (!running) {
+			result.completeExceptionally(
+					new WalletException("Group commit is shutting down", HttpStatus.SERVICE_UNAVAILABLE.value()));
+			return result;
+		}
+		queue.add(new Pending(item, result));
+		return result;
+	}
+
+	private void commitLoop() {
+		List<Pending> group = new ArrayList<>(maxSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				group.add(first);
+				fill(group);
+				commit(group);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				if (!running) {
+					break;
+				}
+			} catch (RuntimeException ex) {
+				LOGGER.error("Failed to commit group of {} transactions", group.size(), ex);
+				for (Pending pending : group) {
+					pending.result.completeExceptionally(new WalletException("Could not create transaction "
+							+ pending.item.getTransactionId(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
+				}
+			} finally {
+				group.clear();
+			}
+		}
+	}
+
+	/**
+	 * Adds queued transactions to the group until it is full or max-wait-us passed since the first one was taken.
+	 */
+	private void fill(List<Pending> group) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+		while (group.size() < maxSize) {
+			queue.drainTo(group, maxSize - group.size());
+			long remaining = deadline - System.nanoTime();
+			if (group.size() >= maxSize || remaining <= 0) {
+				return;
+			}
+			Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+			if (next == null) {
+				return;
+			}
+			group.add(next);
+		}
+	}
+
+	/**
+	 * Commits the group in one database transaction, with sharding one per shard, the shards in parallel.
+	 */
+	private void commit(List<Pending> group) {
+		walletMetrics.recordGroupCommit(group.size());
+		if (shardRouter == null) {
+			commitOnShard(group);
+			return;
+		}
+		Map<Integer, List<Pending>> partitions = shardRouter.partition(group, pending -> pending.item.getPlayerId());
+		shardRouter.fanOut(shard -> {
+			if (partitions.containsKey(shard)) {
+				commitOnShard(partitions.get(shard));
+			}
+			return null;
+		});
+	}
+
+	private void commitOnShard(List<Pending> group) {
+		List<TransactionBatchItem> items = new ArrayList<>(group.size());
+		for (Pending pending : group) {
+			items.add(pending.item);
+		}
+
+		List<TransactionResult> results;
+		try {
+			results = transactionBatchProcessor.process(items);
+		} catch (RuntimeException groupFailure) {
+			// Replay transaction by transaction so one bad transaction doesn't fail the whole group
+			walletMetrics.recordBatchRollback();
+			results = new ArrayList<>(items.size());
+			for (TransactionBatchItem item : items) {
+				results.add(commitAlone(item));
+			}
+		}
+
+		for (int i = 0; i < group.size(); i++) {
+			complete(group.get(i).result, results.get(i));
+		}
+	}
+
+	private TransactionResult commitAlone(TransactionBatchItem item) {
+		try {
+			return transactionBatchProcessor.process(Collections.singletonList(item)).get(0);
+		} catch (DataIntegrityViolationException ex) {
+			return new TransactionResult(item.getIndex(), item.getTransactionId(), HttpStatus.CONFLICT.value(), null,
+					"Transaction with transactionId " + item.getTransactionId() + " already exists");
+		} catch (RuntimeException ex) {
+			LOGGER.error("Failed to commit transaction {}", item.getTransactionId(), ex);
+			return new TransactionResult(item.getIndex(), item.getTransactionId(),
+					HttpStatus.INTERNAL_SERVER_ERROR.value(), null, "Could not create transaction");
+		}
+	}
+
+	private static void complete(CompletableFuture<Transaction> future, TransactionResult result) {
+		if (result.getTransaction() != null) {
+			future.complete(result.getTransaction());
+		} else {
+			future.completeExceptionally(new WalletException(result.getMessage(), result.getStatus()));
+		}
+	}
+
+	private static final class Pending {
+		private final TransactionBatchItem item;
+		private final CompletableFuture<Transaction> result;
+
+		private Pending(TransactionBatchItem item, CompletableFuture<Transaction> result) {
+			this.item = item;
+			this.result = result;
+		}
+	}
+}
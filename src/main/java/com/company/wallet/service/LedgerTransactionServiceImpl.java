@@ -0,0 +1,109 @@
+package com.company.wallet.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import com.company.wallet.archive.TransactionArchive;
+import com.company.wallet.dto.TransactionResult;
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.ledger.LedgerEngine;
+import com.company.wallet.repository.TransactionRepository;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Transaction service backed by the sharded in-memory {@link LedgerEngine}.
+ * Reads are served from the database like in {@link TransactionServiceImpl}.
+ *
+ * Enabled with {@code wallet.transaction.mode=ledger}.
+ *
+ * @author Vinay Singh
+ */
+@Service
+@ConditionalOnProperty(name = "wallet.transaction.mode", havingValue = "ledger")
+public class LedgerTransactionServiceImpl extends TransactionServiceImpl {
+
+	@Autowired
+	private LedgerEngine ledgerEngine;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired(required = false)
+	private TransactionArchive transactionArchive;
+
+	@Value("${wallet.ledger.timeout-ms:5000}")
+	private long timeoutMs;
+
+	/**
+	 * Applies transaction by submitting it to the ledger shard owning the player.
+	 * No database transaction is opened by the caller, the ledger persists the transaction on its own.
+	 *
+	 * @return created transaction
+	 * @throws WalletException if couldn't create transaction
+	 */
+	@Override
+	protected Transaction applyTransaction(String transactionId, String playerId, TransactionType transactionType,
+			Money amount) throws WalletException {
+		return await(transactionId, ledgerEngine.submit(transactionId, playerId, transactionType, amount), timeoutMs);
+	}
+
+	/**
+	 * Submits all batch items to the ledger at once and waits for their results.
+	 * The ledger batches the writes itself, so chunkSize is not used.
+	 * A journaled ledger confirms transactions before the database sees them, so it reserves the transactionIds
+	 * of the items first, rejecting the ones already taken. The transactionIds of archived transactions are not
+	 * unique in the transaction table, so with the archive the ones already in the database are rejected up front.
+	 */
+	@Override
+	protected List<TransactionResult> createTransactions(List<TransactionBatchItem> items, int chunkSize) {
+		List<String> transactionIds = new ArrayList<>(items.size());
+		for (TransactionBatchItem item : items) {
+			transactionIds.add(item.getTransactionId());
+		}
+		Set<String> existing = Collections.emptySet();
+		if (ledgerEngine.isJournaled()) {
+			existing = ledgerEngine.reserve(transactionIds);
+		} else if (transactionArchive != null) {
+			existing = new HashSet<>(transactionRepository.findExistingTransactionIds(transactionIds));
+		}
+
+		List<CompletableFuture<Transaction>> futures = new ArrayList<>(items.size());
+		for (TransactionBatchItem item : items) {
+			if (existing.contains(item.getTransactionId())) {
+				CompletableFuture<Transaction> duplicate = new CompletableFuture<>();
+				duplicate.completeExceptionally(new WalletException("Transaction with transactionId "
+						+ item.getTransactionId() + " already exists", HttpStatus.CONFLICT.value()));
+				futures.add(duplicate);
+				continue;
+			}
+			futures.add(ledgerEngine.submitReserved(item.getTransactionId(), item.getPlayerId(),
+					item.getTransactionType(), item.getAmount()));
+		}
+
+		List<TransactionResult> results = new ArrayList<>(items.size());
+		for (int i = 0; i < items.size(); i++) {
+			TransactionBatchItem item = items.get(i);
+			try {
+				Transaction transaction = await(item.getTransactionId(), futures.get(i), timeoutMs);
+				results.add(new TransactionResult(item.getIndex(), item.getTransactionId(),
+						HttpStatus.CREATED.value(), transaction.getId(), null));
+			} catch (WalletException ex) {
+				results.add(new TransactionResult(item.getIndex(), item.getTransactionId(), ex.getErrorCode(), null,
+						ex.getMessage()));
+			}
+		}
+		return results;
+	}
+}
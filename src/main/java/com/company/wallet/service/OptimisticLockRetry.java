@@ -0,0 +1,71 @@
+package com.company.wallet.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.metrics.WalletMetrics;
+
+/**
+ * Retries database transactions failed by an optimistic version check.
+ * <p>
+ * Backs off with full jitter: before retry n it sleeps a random time up to
+ * min(wallet.concurrency.max-backoff-ms, wallet.concurrency.backoff-ms * 2^(n-1)),
+ * so that writers of the same wallet don't collide again in lockstep.
+ * Only the wallet that was changed concurrently is retried, other wallets are not affected.
+ * </p>
+ * @author Vinay Singh
+ */
+@Component
+public class OptimisticLockRetry {
+
+	@Value("${wallet.concurrency.max-attempts:5}")
+	private int maxAttempts;
+
+	@Value("${wallet.concurrency.backoff-ms:2}")
+	private long backoffMs;
+
+	@Value("${wallet.concurrency.max-backoff-ms:50}")
+	private long maxBackoffMs;
+
+	@Autowired
+	private WalletMetrics walletMetrics;
+
+	/**
+	 * Runs attempt, which opens its own database transaction, until it doesn't fail on an optimistic version check,
+	 * at most wallet.concurrency.max-attempts times.
+	 *
+	 * @return result of the successful attempt
+	 * @throws OptimisticLockingFailureException if the last attempt failed on the version check
+	 * @throws WalletException thrown by attempt, or if interrupted while backing off
+	 */
+	public <T> T execute(WalletOperation<T> attempt) throws WalletException {
+		for (int attempts = 1;; attempts++) {
+			try {
+				return attempt.run();
+			} catch (OptimisticLockingFailureException ex) {
+				if (attempts >= maxAttempts) {
+					walletMetrics.recordRetriesExhausted();
+					throw ex;
+				}
+				walletMetrics.recordRetry();
+				backOff(attempts);
+			}
+		}
+	}
+
+	private void backOff(int attempts) throws WalletException {
+		long ceiling = Math.min(maxBackoffMs, backoffMs << Math.min(attempts - 1, 20));
+		try {
+			Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new WalletException("Interrupted while retrying transaction", HttpStatus.SERVICE_UNAVAILABLE.value());
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.company.wallet.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.metrics.WalletMetrics;
+import com.company.wallet.utils.StripedLock;
+
+/**
+ * Serializes the transactions of a player within this node.
+ * <p>
+ * Requests for the same player wait for each other here, before taking a database connection,
+ * instead of waiting for the wallet row lock or failing optimistic version checks in the database.
+ * Requests for other players only wait if their playerId falls into the same lock stripe.
+ * </p>
+ * @author Vinay Singh
+ */
+@Component
+public class PlayerLockManager {
+
+	@Value("${wallet.locks.enabled:true}")
+	private boolean enabled;
+
+	@Value("${wallet.locks.stripes:1024}")
+	private int stripes;
+
+	@Value("${wallet.locks.timeout-ms:2000}")
+	private long timeoutMs;
+
+	@Autowired
+	private WalletMetrics walletMetrics;
+
+	private StripedLock locks;
+
+	@PostConstruct
+	public void init() {
+		locks = new StripedLock(stripes);
+	}
+
+	/**
+	 * Runs operation holding the lock of the player.
+	 *
+	 * @return result of operation
+	 * @throws WalletException thrown by operation, or with status 429 if the lock wasn't acquired within
+	 * wallet.locks.timeout-ms
+	 */
+	public <T> T execute(String playerId, WalletOperation<T> operation) throws WalletException {
+		if (!enabled) {
+			return operation.run();
+		}
+
+		Lock lock = locks.get(playerId);
+		long start = System.nanoTime();
+		boolean acquired;
+		try {
+			acquired = lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new WalletException("Interrupted while waiting for player " + playerId,
+					HttpStatus.SERVICE_UNAVAILABLE.value());
+		} finally {
+			walletMetrics.recordLockWait(System.nanoTime() - start);
+		}
+		if (!acquired) {
+			walletMetrics.recordLockTimeout();
+			throw new WalletException("Too many concurrent transactions for player " + playerId + ", please retry",
+					HttpStatus.TOO_MANY_REQUESTS.value());
+		}
+
+		try {
+			return operation.run();
+		} finally {
+			lock.unlock();
+		}
+	}
+}
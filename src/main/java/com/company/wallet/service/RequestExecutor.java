@@ -0,0 +1,112 @@
+package com.company.wallet.service;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.metrics.WalletMetrics;
+import com.company.wallet.utils.ThreadMode;
+import com.company.wallet.utils.VirtualThreads;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Bounded executor running the work of the async endpoints, so that request threads are not held
+ * while waiting for the database.
+ * <p>
+ * The number of threads defaults to the connection pool size, more threads would only wait for a connection.
+ * When all threads are busy and the queue is full, requests are rejected right away with 503 and Retry-After
+ * instead of queueing up latency. Pool and queue are exposed as executor metrics tagged name=wallet.async.executor.
+ * </p>
+ * @author Vinay Singh
+ */
+@Component
+public class RequestExecutor {
+
+	@Value("${wallet.async.threads:${spring.datasource.hikari.maximum-pool-size:10}}")
+	private int threads;
+
+	@Value("${wallet.async.queue-capacity:100}")
+	private int queueCapacity;
+
+	@Value("${wallet.async.retry-after-seconds:1}")
+	private int retryAfterSeconds;
+
+	@Value("${wallet.threads.mode:platform}")
+	private String threadModeName;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private WalletMetrics walletMetrics;
+
+	private ThreadPoolExecutor pool;
+	private ExecutorService executor;
+
+	@PostConstruct
+	public void start() {
+		ThreadFactory threadFactory;
+		if (ThreadMode.valueOf(threadModeName.trim().toUpperCase(Locale.ROOT)) == ThreadMode.VIRTUAL) {
+			// still bounded, the pool size limits the requests waiting for a connection
+			threadFactory = VirtualThreads.factory("wallet-async-");
+		} else {
+			AtomicInteger counter = new AtomicInteger();
+			threadFactory = r -> {
+				Thread thread = new Thread(r, "wallet-async-" + counter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			};
+		}
+		pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+		executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "wallet.async.executor", Tags.empty());
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		pool.shutdown();
+		pool.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Runs operation on the executor.
+	 *
+	 * @return future completed with the result of operation, or exceptionally with its exception
+	 * @throws WalletException with status 503 and Retry-After if the executor is saturated or shutting down
+	 */
+	public <T> CompletableFuture<T> submit(WalletOperation<T> operation) throws WalletException {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		try {
+			executor.execute(() -> {
+				try {
+					result.complete(operation.run());
+				} catch (WalletException | RuntimeException ex) {
+					result.completeExceptionally(ex);
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			walletMetrics.recordAsyncRejection();
+			throw new WalletException("Server is busy, please retry", HttpStatus.SERVICE_UNAVAILABLE.value(),
+					retryAfterSeconds);
+		}
+		return result;
+	}
+}
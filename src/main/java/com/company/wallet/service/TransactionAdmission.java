@@ -0,0 +1,52 @@
+package com.company.wallet.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.company.wallet.cache.WalletCache;
+import com.company.wallet.exception.handler.AdmissionException;
+import com.company.wallet.metrics.WalletMetrics;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Rejects transactions which would certainly fail, before a database transaction is opened.
+ * <p>
+ * Decides only from the {@link WalletCache}: a transaction for a player known to have no wallet, and a debit
+ * exceeding the last committed balance or at least as large as a debit rejected since the last balance change.
+ * A debit is judged as if it was applied before the transactions of the player still in flight.
+ * Like the cached wallets, balance changes and wallets created by other nodes are seen after at most
+ * wallet.cache.ttl-ms. Enabled with wallet.admission.enabled=true.
+ * </p>
+ * @author Vinay Singh
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.admission.enabled", havingValue = "true")
+public class TransactionAdmission {
+
+	@Autowired
+	private WalletCache walletCache;
+
+	@Autowired
+	private WalletMetrics walletMetrics;
+
+	/**
+	 * @param playerId owner of the wallet
+	 * @param transactionType CREDIT or DEBIT
+	 * @param amount transaction amount
+	 * @throws AdmissionException if the transaction would certainly fail
+	 */
+	public void admit(String playerId, TransactionType transactionType, Money amount) throws AdmissionException {
+		if (walletCache.isKnownMissing(playerId)) {
+			walletMetrics.recordAdmissionRejection();
+			throw AdmissionException.unknownPlayer(playerId);
+		}
+		// the minimum amount has no absolute value, updateWalletAmount reports it
+		if (transactionType == TransactionType.DEBIT && amount.getMinorUnits() != Long.MIN_VALUE
+				&& walletCache.isKnownInsufficient(playerId, amount.abs())) {
+			walletMetrics.recordAdmissionRejection();
+			throw AdmissionException.INSUFFICIENT_FUNDS;
+		}
+	}
+}
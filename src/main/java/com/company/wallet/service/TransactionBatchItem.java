@@ -0,0 +1,53 @@
+package com.company.wallet.service;
+
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Validated transaction of a batch submission.
+ *
+ * @author Vinay Singh
+ */
+public class TransactionBatchItem {
+	private final int index;
+	private final String transactionId;
+	private final String playerId;
+	private final TransactionType transactionType;
+	private final Money amount;
+
+	public TransactionBatchItem(int index, String transactionId, String playerId, TransactionType transactionType,
+			Money amount) {
+		this.index = index;
+		this.transactionId = transactionId;
+		this.playerId = playerId;
+		this.transactionType = transactionType;
+		this.amount = amount;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public String getTransactionId() {
+		return transactionId;
+	}
+
+	public String getPlayerId() {
+		return playerId;
+	}
+
+	public TransactionType getTransactionType() {
+		return transactionType;
+	}
+
+	public Money getAmount() {
+		return amount;
+	}
+
+	/**
+	 * Signed change of the wallet balance, negative for debit.
+	 */
+	public Money getDelta() {
+		return transactionType == TransactionType.CREDIT ? amount.abs() : amount.abs().negate();
+	}
+}
@@ -0,0 +1,125 @@
+package com.company.wallet.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.company.wallet.cache.WalletCache;
+import com.company.wallet.dto.TransactionResult;
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.replica.RecentWrites;
+import com.company.wallet.repository.TransactionRepository;
+import com.company.wallet.repository.WalletRepository;
+import com.company.wallet.repository.WalletStatsRepository;
+
+/**
+ * Applies a chunk of batch transactions in one database transaction.
+ *
+ * @author Vinay Singh
+ */
+@Component
+public class TransactionBatchProcessor {
+
+	@Autowired
+	private WalletRepository walletRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private WalletStatsRepository walletStatsRepository;
+
+	@Autowired
+	private WalletCache walletCache;
+
+	@Autowired(required = false)
+	private RecentWrites recentWrites;
+
+	@Value("${wallet.transaction.mode:jpa}")
+	private String transactionMode;
+
+	/**
+	 * Applies the items in order. Items which would fail as single requests (duplicate transactionId,
+	 * unknown player, not enough funds) are reported in their result and don't affect the other items.
+	 * Balances are updated first and the transactions are inserted together at the end,
+	 * so the inserts are sent to the database as one JDBC batch.
+	 *
+	 * @param items validated items
+	 * @return one result per item, in the same order
+	 * @throws IllegalStateException in ledger mode, where the ledger changes the balances
+	 */
+	@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
+	public List<TransactionResult> process(List<TransactionBatchItem> items) {
+		if ("ledger".equals(transactionMode)) {
+			throw new IllegalStateException("Balances are changed by the ledger in wallet.transaction.mode=ledger");
+		}
+		Set<String> transactionIds = new HashSet<>();
+		Set<String> playerIds = new HashSet<>();
+		for (TransactionBatchItem item : items) {
+			transactionIds.add(item.getTransactionId());
+			playerIds.add(item.getPlayerId());
+		}
+
+		Set<String> existing = new HashSet<>(transactionRepository.findExistingTransactionIds(transactionIds));
+		Map<String, Wallet> wallets = new HashMap<>();
+		for (Wallet wallet : walletRepository.findByPlayerIdIn(playerIds)) {
+			wallets.put(wallet.getPlayerId(), wallet);
+		}
+
+		TransactionResult[] results = new TransactionResult[items.size()];
+		List<Transaction> transactions = new ArrayList<>(items.size());
+		List<Integer> positions = new ArrayList<>(items.size());
+		Date updatedTime = new Date();
+		for (int i = 0; i < items.size(); i++) {
+			TransactionBatchItem item = items.get(i);
+			Wallet wallet = wallets.get(item.getPlayerId());
+			if (existing.contains(item.getTransactionId())) {
+				results[i] = failure(item, HttpStatus.CONFLICT,
+						"Transaction with transactionId " + item.getTransactionId() + " already exists");
+			} else if (wallet == null) {
+				results[i] = failure(item, HttpStatus.NOT_FOUND, "No wallet found with playerId " + item.getPlayerId());
+			} else if (walletRepository.updateBalance(item.getPlayerId(), item.getDelta().getMinorUnits(), updatedTime) == 0) {
+				results[i] = failure(item, HttpStatus.BAD_REQUEST, "No sufficient funds in account for withdrawl");
+			} else {
+				walletCache.invalidateAfterCommit(item.getPlayerId());
+				if (recentWrites != null) {
+					recentWrites.recordAfterCommit(item.getPlayerId());
+				}
+				transactions.add(new Transaction(item.getTransactionId(), item.getTransactionType(), item.getAmount(),
+						wallet));
+				positions.add(i);
+			}
+		}
+
+		List<Transaction> saved = transactionRepository.saveAll(transactions);
+		for (int i = 0; i < saved.size(); i++) {
+			TransactionBatchItem item = items.get(positions.get(i));
+			walletStatsRepository.record(saved.get(i).getWallet().getId(), item.getTransactionType(), item.getAmount(),
+					saved.get(i).getUpdatedTime());
+			TransactionResult result = new TransactionResult(item.getIndex(), item.getTransactionId(),
+					HttpStatus.CREATED.value(), saved.get(i).getId(), null);
+			result.setTransaction(saved.get(i));
+			results[positions.get(i)] = result;
+		}
+
+		return Arrays.asList(results);
+	}
+
+	private TransactionResult failure(TransactionBatchItem item, HttpStatus status, String message) {
+		return new TransactionResult(item.getIndex(), item.getTransactionId(), status.value(), null, message);
+	}
+}
@@ -1,10 +1,15 @@
 package com.company.wallet.service;
 
 import java.util.List;
+import java.util.Map;
 
+import com.company.wallet.dto.TransactionPage;
+import com.company.wallet.dto.TransactionResult;
 import com.company.wallet.entities.Transaction;
 import com.company.wallet.entities.Wallet;
 import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
 
 /**
  * Service for managing transactions.
@@ -14,8 +19,15 @@ import com.company.wallet.exception.handler.WalletException;
 public interface TransactionService {
 	public List<Transaction> getTransactionsByWallet(Wallet wallet) throws WalletException;
 
+	public TransactionPage getTransactionPage(Wallet wallet, String after, int limit) throws WalletException;
+
 	public Transaction createTransaction(String transactionId, String playerId, String transactionType, String amount)
 			throws WalletException;
 
+	public Transaction createTransaction(String transactionId, String playerId, TransactionType transactionType,
+			Money amount) throws WalletException;
+
 	public Transaction findTransactionById(Integer Id) throws WalletException;
+
+	public List<TransactionResult> createTransactions(List<Map<String, String>> transactions) throws WalletException;
 }
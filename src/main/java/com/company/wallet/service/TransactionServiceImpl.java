@@ -1,20 +1,52 @@
 package com.company.wallet.service;
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.company.wallet.archive.TransactionArchive;
+import com.company.wallet.cache.IdempotencyCache;
+import com.company.wallet.dto.TransactionPage;
+import com.company.wallet.dto.TransactionResult;
+import com.company.wallet.entities.ArchivedTransactionId;
 import com.company.wallet.entities.Transaction;
 import com.company.wallet.entities.Wallet;
 import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.metrics.WalletMetrics;
+import com.company.wallet.metrics.WalletMetrics.Outcome;
+import com.company.wallet.repository.ArchivedTransactionIdRepository;
 import com.company.wallet.repository.TransactionRepository;
+import com.company.wallet.sharding.ShardKey;
+import com.company.wallet.sharding.ShardRouter;
+import com.company.wallet.utils.Money;
 import com.company.wallet.utils.TransactionType;
 
 /**
@@ -23,25 +55,78 @@ import com.company.wallet.utils.TransactionType;
  * @author Vinay Singh
  */
 @Service
+@ConditionalOnProperty(name = "wallet.transaction.mode", havingValue = "jpa", matchIfMissing = true)
 public class TransactionServiceImpl implements TransactionService{
 
-	@Autowired
-    private WalletService walletService;
-	
 	@Autowired
     private TransactionRepository transactionRepository;
+
+	@Autowired
+	private TransactionWriter transactionWriter;
+
+	@Autowired
+	private IdempotencyCache idempotencyCache;
+
+	@Autowired
+	private TransactionBatchProcessor transactionBatchProcessor;
+
+	@Autowired
+	private PlayerLockManager playerLockManager;
+
+	@Autowired
+	private OptimisticLockRetry optimisticLockRetry;
+
+	@Autowired(required = false)
+	private GroupCommitter groupCommitter;
+
+	@Autowired(required = false)
+	private ShardRouter shardRouter;
+
+	@Autowired(required = false)
+	private TransactionAdmission transactionAdmission;
+
+	@Autowired(required = false)
+	private TransactionArchive transactionArchive;
+
+	@Autowired
+	private ArchivedTransactionIdRepository archivedTransactionIdRepository;
+
+	@Autowired
+	private WalletMetrics walletMetrics;
+
+	@Value("${wallet.batch.max-size:10000}")
+	private int batchMaxSize;
+
+	@Value("${wallet.batch.chunk-size:500}")
+	private int batchChunkSize;
+
+	@Value("${wallet.history.max-limit:1000}")
+	private int historyMaxLimit;
+
+	@Value("${wallet.group-commit.timeout-ms:5000}")
+	private long groupCommitTimeoutMs;
 	
 	/**
-	 * Gets all transactions for given wallet.
+	 * Gets all transactions for given wallet, followed by its archived ones.
 	 * 
 	 * @param wallet
 	 * @return transaction list
 	 * @throws WalletException
 	 */
-	@Transactional(rollbackFor = WalletException.class)
+	@Transactional(readOnly = true, rollbackFor = WalletException.class)
 	@Override
-	public List<Transaction> getTransactionsByWallet(Wallet wallet) throws WalletException {
-		List<Transaction> transactionList = transactionRepository.findByWalletOrderByUpdatedTimeDesc(wallet);
+	public List<Transaction> getTransactionsByWallet(@ShardKey Wallet wallet) throws WalletException {
+		List<Transaction> transactionList;
+		Lock archiveLock = lockArchive();
+		try {
+			transactionList = transactionRepository.findByWalletOrderByUpdatedTimeDesc(wallet);
+			if (transactionArchive != null) {
+				transactionList = new ArrayList<>(transactionList);
+				transactionList.addAll(transactionArchive.findAll(wallet));
+			}
+		} finally {
+			unlock(archiveLock);
+		}
 		
 		if (transactionList == null || transactionList.isEmpty()) {
 			throw new WalletException("Transaction List for player " + wallet.getPlayerId() + " not found", HttpStatus.NOT_FOUND.value());
@@ -50,6 +135,100 @@ public class TransactionServiceImpl implements TransactionService{
 		return transactionList;
 	}
 
+	/**
+	 * Gets one page of transactions for given wallet, newest first.
+	 * Pages are addressed by a cursor on (updatedTime, id) of the last transaction of the previous page,
+	 * so every page costs the same no matter how deep into the history it is.
+	 * Pages beyond the transactions in the database continue in the {@link TransactionArchive}, which is only read
+	 * when a page reaches that far back.
+	 *
+	 * @param wallet
+	 * @param after nextCursor of the previous page, null for the first page
+	 * @param limit maximum number of transactions in the page
+	 * @return transaction page
+	 * @throws WalletException if the cursor or limit is invalid, or the wallet has no transactions
+	 */
+	@Transactional(readOnly = true, rollbackFor = WalletException.class)
+	@Override
+	public TransactionPage getTransactionPage(@ShardKey Wallet wallet, String after, int limit) throws WalletException {
+		if (limit < 1 || limit > historyMaxLimit) {
+			throw new WalletException("limit must be between 1 and " + historyMaxLimit, HttpStatus.BAD_REQUEST.value());
+		}
+
+		long[] cursor = StringUtils.isBlank(after) ? null : decodeCursor(after);
+		Pageable pageable = PageRequest.of(0, limit + 1);
+		List<Transaction> transactions;
+		Lock archiveLock = lockArchive();
+		try {
+			transactions = cursor == null
+					? transactionRepository.findByWalletOrderByUpdatedTimeDescIdDesc(wallet, pageable)
+					: transactionRepository.findPageAfter(wallet, new Date(cursor[0]), (int) cursor[1], pageable);
+			if (transactionArchive != null && transactions.size() <= limit) {
+				// archived transactions are older than the ones in the database, continue after the last one
+				Date afterTime = cursor != null ? new Date(cursor[0]) : null;
+				Integer afterId = cursor != null ? (int) cursor[1] : null;
+				if (!transactions.isEmpty()) {
+					Transaction last = transactions.get(transactions.size() - 1);
+					afterTime = last.getUpdatedTime();
+					afterId = last.getId();
+				}
+				transactions = new ArrayList<>(transactions);
+				transactions.addAll(
+						transactionArchive.findPage(wallet, afterTime, afterId, limit + 1 - transactions.size()));
+			}
+		} finally {
+			unlock(archiveLock);
+		}
+		if (cursor == null && transactions.isEmpty()) {
+			throw new WalletException("Transaction List for player " + wallet.getPlayerId() + " not found",
+					HttpStatus.NOT_FOUND.value());
+		}
+
+		String nextCursor = null;
+		if (transactions.size() > limit) {
+			transactions = new ArrayList<>(transactions.subList(0, limit));
+			nextCursor = encodeCursor(transactions.get(limit - 1));
+		}
+		return new TransactionPage(transactions, nextCursor);
+	}
+
+	/**
+	 * Takes the read lock of the archive, if archiving is enabled.
+	 *
+	 * @return lock to pass to {@link #unlock(Lock)}
+	 */
+	private Lock lockArchive() {
+		if (transactionArchive == null) {
+			return null;
+		}
+		Lock lock = transactionArchive.readLock();
+		lock.lock();
+		return lock;
+	}
+
+	private static void unlock(Lock lock) {
+		if (lock != null) {
+			lock.unlock();
+		}
+	}
+
+	private static String encodeCursor(Transaction last) {
+		String cursor = last.getUpdatedTime().getTime() + ":" + last.getId();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private static long[] decodeCursor(String cursor) throws WalletException {
+		try {
+			String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split(":");
+			if (parts.length == 2) {
+				return new long[] { Long.parseLong(parts[0]), Integer.parseInt(parts[1]) };
+			}
+		} catch (IllegalArgumentException ex) {
+			// reported below
+		}
+		throw new WalletException("Please specify valid cursor", HttpStatus.BAD_REQUEST.value());
+	}
+
 	/**
      * Creates transaction for wallet.
      * If there is not enough funds on wallet balance, throws WalletException
@@ -57,20 +236,243 @@ public class TransactionServiceImpl implements TransactionService{
      * If transactionType='DEBIT' (debit transaction), takes absolute amount from  @param amount  and subtracts it from wallet balance.
      * transactionId should be unique.
      * 
-     * Set isolation = Isolation.SERIALIZABLE in order to avoid concurrency issues (in case of deploying application to multiple hosts)
+     * A resubmission of an already created transaction (same transactionId, playerId, transactionType and amount)
+     * returns the original transaction without changing the wallet. It is answered from the idempotency cache
+     * when possible, before any database transaction is opened.
+     * With wallet.admission.enabled, transactions which would certainly fail are rejected before that as well,
+     * see {@link TransactionAdmission}.
      *
      * @param transactionId unique transactionId 
      * @param playerId valid playerId
      * @param transactionType valid transactionType - 'CREDIT' or 'DEBIT'
      * @param amount transaction amount
      * @return created transaction
-     * @throws WalletException if couldn't create transaction
+     * @throws WalletException if couldn't create transaction, e.g. transactionId already used for another transaction
      */
-	@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE, rollbackFor = WalletException.class)
 	@Override
 	public Transaction createTransaction(String transactionId, String playerId,
 			String transactionType, String amount) throws WalletException {
+		long start = System.nanoTime();
+		TransactionType type;
+		Money transactionAmount;
+		try {
+			type = validate(transactionId, playerId, transactionType, amount);
+			transactionAmount = parseAmount(amount);
+		} catch (WalletException ex) {
+			walletMetrics.recordTransaction(WalletMetrics.outcomeOf(ex), System.nanoTime() - start);
+			throw ex;
+		}
+		return createTransaction(transactionId, playerId, type, transactionAmount, start);
+	}
 
+	/**
+	 * Creates transaction for wallet from already validated parameters,
+	 * e.g. decoded by {@link com.company.wallet.codec.TransactionCommandDecoder}.
+	 *
+	 * @param transactionId unique transactionId, not blank
+	 * @param playerId playerId, not blank
+	 * @param transactionType CREDIT or DEBIT
+	 * @param amount transaction amount
+	 * @return created transaction
+	 * @throws WalletException if couldn't create transaction, e.g. transactionId already used for another transaction
+	 */
+	@Override
+	public Transaction createTransaction(String transactionId, String playerId, TransactionType transactionType,
+			Money amount) throws WalletException {
+		return createTransaction(transactionId, playerId, transactionType, amount, System.nanoTime());
+	}
+
+	private Transaction createTransaction(String transactionId, String playerId, TransactionType type,
+			Money transactionAmount, long start) throws WalletException {
+		Outcome outcome = Outcome.ERROR;
+		try {
+			Transaction original = findOriginal(transactionId);
+			if (original != null) {
+				Transaction replayed = replay(original, playerId, type, transactionAmount);
+				outcome = Outcome.REPLAYED;
+				return replayed;
+			}
+			if (transactionAdmission != null) {
+				transactionAdmission.admit(playerId, type, transactionAmount);
+			}
+
+			Transaction transaction;
+			long applyStart = System.nanoTime();
+			try {
+				transaction = applyTransaction(transactionId, playerId, type, transactionAmount);
+			} catch (DataIntegrityViolationException ex) {
+				throw new WalletException("Transaction with transactionId " + transactionId + " already exists",
+						HttpStatus.CONFLICT.value());
+			} catch (OptimisticLockingFailureException ex) {
+				outcome = Outcome.SERIALIZATION_FAILURE;
+				throw new WalletException("Wallet of player " + playerId + " is changed concurrently, please retry",
+						HttpStatus.SERVICE_UNAVAILABLE.value());
+			} finally {
+				walletMetrics.recordApply(System.nanoTime() - applyStart);
+			}
+			idempotencyCache.put(transaction);
+			outcome = Outcome.CREATED;
+			return transaction;
+		} catch (WalletException ex) {
+			if (outcome == Outcome.ERROR) {
+				outcome = WalletMetrics.outcomeOf(ex);
+			}
+			throw ex;
+		} catch (ConcurrencyFailureException ex) {
+			outcome = Outcome.SERIALIZATION_FAILURE;
+			throw ex;
+		} finally {
+			walletMetrics.recordTransaction(outcome, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Applies a validated transaction.
+	 * With group commit the transaction is committed together with concurrent transactions.
+	 * Otherwise transactions of the same player are applied one at a time by this node, and retried
+	 * if the wallet was changed concurrently in OPTIMISTIC concurrency mode.
+	 *
+	 * @return created transaction
+	 * @throws WalletException if couldn't create transaction
+	 */
+	protected Transaction applyTransaction(String transactionId, String playerId, TransactionType transactionType,
+			Money amount) throws WalletException {
+		if (groupCommitter != null) {
+			return await(transactionId, groupCommitter.submit(
+					new TransactionBatchItem(0, transactionId, playerId, transactionType, amount)),
+					groupCommitTimeoutMs);
+		}
+		return playerLockManager.execute(playerId, () -> optimisticLockRetry
+				.execute(() -> transactionWriter.write(transactionId, playerId, transactionType, amount)));
+	}
+
+	/**
+	 * Waits for a transaction applied by another thread.
+	 *
+	 * @return created transaction
+	 * @throws WalletException if the transaction failed, or with status 503 if it wasn't confirmed within timeoutMs
+	 */
+	protected Transaction await(String transactionId, CompletableFuture<Transaction> future, long timeoutMs)
+			throws WalletException {
+		try {
+			return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof WalletException) {
+				throw (WalletException) ex.getCause();
+			}
+			throw new WalletException("Could not create transaction " + transactionId,
+					HttpStatus.INTERNAL_SERVER_ERROR.value());
+		} catch (TimeoutException ex) {
+			throw new WalletException("Transaction " + transactionId + " was not confirmed in time",
+					HttpStatus.SERVICE_UNAVAILABLE.value());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new WalletException("Interrupted while creating transaction " + transactionId,
+					HttpStatus.SERVICE_UNAVAILABLE.value());
+		}
+	}
+
+	/**
+	 * Finds an already created transaction with the same transactionId.
+	 * The database is only queried if the idempotency cache has seen the transactionId before.
+	 * With sharding the unique constraint only covers the shard of the player, and the cache misses transactionIds
+	 * written by other nodes or created before the warm-up finished, so every shard is always checked.
+	 * An archived original is read from the archive, if it can't be read the transaction is a conflict.
+	 */
+	private Transaction findOriginal(String transactionId) {
+		Transaction original = idempotencyCache.get(transactionId);
+		if (original != null) {
+			return original;
+		}
+		boolean seen = idempotencyCache.mightContain(transactionId);
+		if (seen || shardRouter != null && existsOnAnyShard(Collections.singleton(transactionId))) {
+			// the original may belong to another player, so with sharding every shard is asked
+			original = shardRouter != null
+					? shardRouter.findFirst(shard -> transactionRepository.findWithWalletByTransactionId(transactionId))
+					: transactionRepository.findWithWalletByTransactionId(transactionId);
+			if (original == null) {
+				// the archiver deletes the row and writes the tombstone in one database transaction
+				ArchivedTransactionId archived = shardRouter != null
+						? shardRouter.findFirst(
+								shard -> archivedTransactionIdRepository.findOneByTransactionId(transactionId))
+						: archivedTransactionIdRepository.findOneByTransactionId(transactionId);
+				if (archived != null) {
+					original = findArchived(archived);
+					if (original == null) {
+						original = new Transaction(transactionId, null, (Money) null, archivedWallet(archived));
+						original.setId(archived.getId());
+					}
+				}
+			}
+			if (seen) {
+				idempotencyCache.recordDatabaseLookup(original != null);
+			}
+			if (original != null) {
+				idempotencyCache.put(original);
+			}
+		}
+		return original;
+	}
+
+	/**
+	 * @return whether any of the transactionIds exists on any shard, archived ones included
+	 */
+	private boolean existsOnAnyShard(Collection<String> transactionIds) {
+		return !existingOnAllShards(transactionIds).isEmpty();
+	}
+
+	/**
+	 * @return the transactionIds which exist on any shard, archived ones included
+	 */
+	private Set<String> existingOnAllShards(Collection<String> transactionIds) {
+		Set<String> existing = new HashSet<>();
+		for (List<String> found : shardRouter.fanOut(
+				shard -> transactionRepository.findExistingTransactionIds(transactionIds))) {
+			existing.addAll(found);
+		}
+		return existing;
+	}
+
+	/**
+	 * @return the archived transaction of the tombstone, or null if the archive is not enabled
+	 */
+	private Transaction findArchived(ArchivedTransactionId archived) {
+		if (transactionArchive == null) {
+			return null;
+		}
+		// the segment is published under the write lock after the tombstone is committed
+		Lock archiveLock = lockArchive();
+		try {
+			return transactionArchive.find(archivedWallet(archived), archived.getId());
+		} finally {
+			unlock(archiveLock);
+		}
+	}
+
+	private static Wallet archivedWallet(ArchivedTransactionId archived) {
+		Wallet wallet = new Wallet();
+		wallet.setPlayerId(archived.getPlayerId());
+		return wallet;
+	}
+
+	private Transaction replay(Transaction original, String playerId, TransactionType transactionType,
+			Money amount) throws WalletException {
+		if (original.getWallet() != null && original.getWallet().getPlayerId().equals(playerId)
+				&& original.getTransactionType() == transactionType && original.getAmountMoney().equals(amount)) {
+			return original;
+		}
+		throw new WalletException("Transaction with transactionId " + original.getTransactionId() + " already exists",
+				HttpStatus.CONFLICT.value());
+	}
+
+	/**
+	 * Checks that all transaction parameters are present and transactionType is valid.
+	 *
+	 * @return parsed transactionType
+	 * @throws WalletException if a parameter is missing or invalid
+	 */
+	protected TransactionType validate(String transactionId, String playerId, String transactionType, String amount)
+			throws WalletException {
 		if(StringUtils.isBlank(transactionId)) {
 			throw new WalletException("transactionId can not be null and empty", HttpStatus.BAD_REQUEST.value());
 		}
@@ -88,36 +490,46 @@ public class TransactionServiceImpl implements TransactionService{
 		}
 		
 		try {
-			TransactionType.valueOf(transactionType);
+			return TransactionType.valueOf(transactionType);
 		} catch (IllegalArgumentException ex) {
 			throw new WalletException("Please specify valid transactionType: " + TransactionType.CREDIT.name() + " OR "
 					+ TransactionType.DEBIT.name(), HttpStatus.BAD_REQUEST.value());
 		}
-		
+	}
+
+	/**
+	 * Parses transaction amount.
+	 *
+	 * @throws WalletException if amount is not a number, has more fraction digits than the currency or is out of range
+	 */
+	protected Money parseAmount(String amount) throws WalletException {
 		try {
-			// Check wallet is present
-			Wallet wallet = walletService.findWalletByPlayerId(playerId);			
-			// walletService checks if wallet exists or not	
-			
-			wallet = walletService.updateWalletAmount(wallet, amount, transactionType);
-			Transaction transaction = new Transaction(transactionId, TransactionType.valueOf(transactionType),
-					new BigDecimal(amount), wallet);
-			return transactionRepository.save(transaction);
+			return Money.parse(amount);
 		} catch (NumberFormatException ex) {
 			throw new WalletException("Please specify valid amount", HttpStatus.BAD_REQUEST.value());
 		}
 	}
 
 	/**
-     * Gets Transaction by id.
+     * Gets Transaction by id, from the archive if it was archived.
      * @param id
      * @return transaction
      * @throws WalletException
      */
-	@Transactional(rollbackFor = WalletException.class)
+	@Transactional(readOnly = true, rollbackFor = WalletException.class)
 	@Override
 	public Transaction findTransactionById(Integer id) throws WalletException {
-		Transaction transaction = transactionRepository.findOneById(id);
+		Transaction transaction = shardRouter != null
+				? shardRouter.findFirst(shard -> transactionRepository.findOneById(id))
+				: transactionRepository.findOneById(id);
+		if (transaction == null) {
+			ArchivedTransactionId archived = shardRouter != null
+					? shardRouter.findFirst(shard -> archivedTransactionIdRepository.findOneById(id))
+					: archivedTransactionIdRepository.findOneById(id);
+			if (archived != null) {
+				transaction = findArchived(archived);
+			}
+		}
 
 		if (transaction == null) {
 			throw new WalletException("Transaction with id " + id + " not found", HttpStatus.NOT_FOUND.value());
@@ -126,4 +538,129 @@ public class TransactionServiceImpl implements TransactionService{
 		return transaction;
 	}
 
+	/**
+     * Creates a batch of transactions.
+     * Every transaction is validated like a single request and gets its own result, so a failed
+     * transaction doesn't fail the rest of the batch. Valid transactions are applied in database
+     * transactions of at most wallet.batch.chunk-size transactions.
+     *
+     * @param transactions transactions in the format of the single transaction request
+     * @return one result per transaction, in the same order
+     * @throws WalletException if the batch is empty or too large
+     */
+	@Override
+	public List<TransactionResult> createTransactions(List<Map<String, String>> transactions) throws WalletException {
+		if (transactions == null || transactions.isEmpty()) {
+			throw new WalletException("transactions can not be null and empty", HttpStatus.BAD_REQUEST.value());
+		}
+
+		if (transactions.size() > batchMaxSize) {
+			throw new WalletException("At most " + batchMaxSize + " transactions can be submitted in one batch",
+					HttpStatus.BAD_REQUEST.value());
+		}
+		long start = System.nanoTime();
+
+		TransactionResult[] results = new TransactionResult[transactions.size()];
+		List<TransactionBatchItem> items = new ArrayList<>(transactions.size());
+		Set<String> transactionIds = new HashSet<>();
+		for (int i = 0; i < transactions.size(); i++) {
+			Map<String, String> dataMap = transactions.get(i) != null ? transactions.get(i)
+					: Collections.<String, String>emptyMap();
+			String transactionId = dataMap.get("transactionId");
+			try {
+				TransactionType type = validate(transactionId, dataMap.get("playerId"),
+						dataMap.get("transactionType"), dataMap.get("amount"));
+				Money amount = parseAmount(dataMap.get("amount"));
+				if (!transactionIds.add(transactionId)) {
+					throw new WalletException("Transaction with transactionId " + transactionId + " already exists",
+							HttpStatus.CONFLICT.value());
+				}
+				items.add(new TransactionBatchItem(i, transactionId, dataMap.get("playerId"), type, amount));
+			} catch (WalletException ex) {
+				results[i] = new TransactionResult(i, transactionId, ex.getErrorCode(), null, ex.getMessage());
+			}
+		}
+
+		for (TransactionResult result : createTransactions(items, batchChunkSize)) {
+			results[result.getIndex()] = result;
+			if (result.getId() != null) {
+				idempotencyCache.mark(result.getTransactionId());
+			}
+		}
+		for (TransactionResult result : results) {
+			if (result.getId() == null) {
+				walletMetrics.recordFailure(WalletMetrics.outcomeOf(result.getStatus(), result.getMessage()));
+			}
+		}
+		walletMetrics.recordBatch(results.length, System.nanoTime() - start);
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Applies validated batch items chunk by chunk.
+	 * If a chunk can't be committed (e.g. a transactionId was inserted concurrently),
+	 * its items are applied one by one.
+	 * With sharding, the items of every shard are applied on that shard, the shards in parallel. The unique
+	 * constraint only covers one shard, so transactionIds existing on any shard are rejected up front.
+	 *
+	 * @param items validated items
+	 * @param chunkSize maximum number of items per database transaction
+	 * @return one result per item
+	 */
+	protected List<TransactionResult> createTransactions(List<TransactionBatchItem> items, int chunkSize) {
+		if (shardRouter != null) {
+			List<String> transactionIds = new ArrayList<>(items.size());
+			for (TransactionBatchItem item : items) {
+				transactionIds.add(item.getTransactionId());
+			}
+			Set<String> existing = existingOnAllShards(transactionIds);
+			List<TransactionResult> results = new ArrayList<>(items.size());
+			List<TransactionBatchItem> remaining = new ArrayList<>(items.size());
+			for (TransactionBatchItem item : items) {
+				if (existing.contains(item.getTransactionId())) {
+					results.add(new TransactionResult(item.getIndex(), item.getTransactionId(),
+							HttpStatus.CONFLICT.value(), null,
+							"Transaction with transactionId " + item.getTransactionId() + " already exists"));
+				} else {
+					remaining.add(item);
+				}
+			}
+
+			Map<Integer, List<TransactionBatchItem>> partitions = shardRouter.partition(remaining,
+					TransactionBatchItem::getPlayerId);
+			for (List<TransactionResult> shardResults : shardRouter.fanOut(shard -> partitions.containsKey(shard)
+					? createChunks(partitions.get(shard), chunkSize)
+					: Collections.<TransactionResult>emptyList())) {
+				results.addAll(shardResults);
+			}
+			return results;
+		}
+		return createChunks(items, chunkSize);
+	}
+
+	private List<TransactionResult> createChunks(List<TransactionBatchItem> items, int chunkSize) {
+		List<TransactionResult> results = new ArrayList<>(items.size());
+		for (int from = 0; from < items.size(); from += chunkSize) {
+			List<TransactionBatchItem> chunk = items.subList(from, Math.min(items.size(), from + chunkSize));
+			try {
+				results.addAll(transactionBatchProcessor.process(chunk));
+			} catch (RuntimeException chunkFailure) {
+				walletMetrics.recordBatchRollback();
+				for (TransactionBatchItem item : chunk) {
+					try {
+						results.addAll(transactionBatchProcessor.process(Collections.singletonList(item)));
+					} catch (DataIntegrityViolationException ex) {
+						results.add(new TransactionResult(item.getIndex(), item.getTransactionId(),
+								HttpStatus.CONFLICT.value(), null,
+								"Transaction with transactionId " + item.getTransactionId() + " already exists"));
+					} catch (RuntimeException ex) {
+						results.add(new TransactionResult(item.getIndex(), item.getTransactionId(),
+								HttpStatus.INTERNAL_SERVER_ERROR.value(), null, "Could not create transaction"));
+					}
+				}
+			}
+		}
+		return results;
+	}
+
 }
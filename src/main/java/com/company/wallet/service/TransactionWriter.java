@@ -0,0 +1,58 @@
+package com.company.wallet.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.repository.TransactionRepository;
+import com.company.wallet.repository.WalletStatsRepository;
+import com.company.wallet.sharding.ShardKey;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Writes a single validated transaction and the wallet balance change in one database transaction.
+ *
+ * @author Vinay Singh
+ */
+@Component
+public class TransactionWriter {
+
+	@Autowired
+	private WalletService walletService;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private WalletStatsRepository walletStatsRepository;
+
+	/**
+     * Updates wallet balance and stats, and saves the transaction.
+     * The wallet balance is changed by a guarded UPDATE statement, so READ COMMITTED isolation is enough
+     * to avoid concurrency issues (also in case of deploying application to multiple hosts)
+     *
+     * @param transactionId unique transactionId
+     * @param playerId valid playerId
+     * @param transactionType CREDIT or DEBIT
+     * @param amount transaction amount
+     * @return created transaction
+     * @throws WalletException if wallet doesn't exist or there is not enough funds
+     */
+	@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED, rollbackFor = WalletException.class)
+	public Transaction write(String transactionId, @ShardKey String playerId, TransactionType transactionType,
+			Money amount) throws WalletException {
+		// walletService checks if wallet exists or not
+		Wallet wallet = walletService.findWalletByPlayerId(playerId);
+
+		wallet = walletService.updateWalletAmount(wallet, amount, transactionType);
+		Transaction transaction = transactionRepository.save(new Transaction(transactionId, transactionType, amount, wallet));
+		walletStatsRepository.record(wallet.getId(), transactionType, amount, transaction.getUpdatedTime());
+		return transaction;
+	}
+}
@@ -0,0 +1,13 @@
+package com.company.wallet.service;
+
+import com.company.wallet.exception.handler.WalletException;
+
+/**
+ * Unit of work run on behalf of a caller, e.g. under a player lock or with retries.
+ *
+ * @author Vinay Singh
+ */
+@FunctionalInterface
+public interface WalletOperation<T> {
+	T run() throws WalletException;
+}
@@ -2,8 +2,12 @@ package com.company.wallet.service;
 
 import java.util.List;
 
+import com.company.wallet.dto.PlayerStats;
+import com.company.wallet.dto.PointInTimeBalance;
 import com.company.wallet.entities.Wallet;
 import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
 
 /**
  * Service for managing wallets.
@@ -16,5 +20,12 @@ public interface WalletService {
 
 	public Wallet updateWalletAmount(Wallet wallet, String amount, String transactionType) throws WalletException;
 
+	public Wallet updateWalletAmount(Wallet wallet, Money amount, TransactionType transactionType)
+			throws WalletException;
+
 	public List<Wallet> findAll() throws WalletException;
+
+	public PointInTimeBalance getBalanceAt(String playerId, String at) throws WalletException;
+
+	public PlayerStats getStats(String playerId) throws WalletException;
 }
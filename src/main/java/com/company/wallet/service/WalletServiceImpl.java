@@ -1,20 +1,41 @@
 package com.company.wallet.service;
 
-import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.Lock;
+
+import javax.annotation.PostConstruct;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.company.wallet.archive.TransactionArchive;
+import com.company.wallet.cache.WalletCache;
+import com.company.wallet.dto.PlayerStats;
+import com.company.wallet.dto.PointInTimeBalance;
+import com.company.wallet.entities.BalanceCheckpoint;
 import com.company.wallet.entities.Wallet;
+import com.company.wallet.entities.WalletStats;
 import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.repository.BalanceCheckpointRepository;
+import com.company.wallet.repository.TransactionRepository;
 import com.company.wallet.repository.WalletRepository;
+import com.company.wallet.repository.WalletStatsRepository;
+import com.company.wallet.sharding.ShardKey;
+import com.company.wallet.sharding.ShardRouter;
+import com.company.wallet.utils.ConcurrencyMode;
+import com.company.wallet.utils.Money;
 import com.company.wallet.utils.TransactionType;
 
 /**
@@ -27,15 +48,61 @@ public class WalletServiceImpl implements WalletService {
 	@Autowired
 	private WalletRepository walletRepository;
 
-	@Transactional(rollbackFor = WalletException.class)
+	@Autowired
+	private WalletCache walletCache;
+
+	@Autowired
+	private BalanceCheckpointRepository balanceCheckpointRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private WalletStatsRepository walletStatsRepository;
+
+	@Autowired(required = false)
+	private ShardRouter shardRouter;
+
+	@Autowired(required = false)
+	private TransactionArchive transactionArchive;
+
+	@Value("${wallet.concurrency.mode:atomic}")
+	private String concurrencyModeName;
+
+	@Value("${wallet.transaction.mode:jpa}")
+	private String transactionMode;
+
+	private ConcurrencyMode concurrencyMode;
+
+	@PostConstruct
+	public void init() {
+		concurrencyMode = ConcurrencyMode.valueOf(concurrencyModeName.trim().toUpperCase(Locale.ROOT));
+	}
+
+	/**
+	 * Finds wallet by playerId, from the wallet cache if possible.
+	 * Doesn't start a database transaction of its own, so a cache hit doesn't use a connection.
+	 * @param playerId
+	 * @return wallet
+	 * @throws WalletException if no wallet exists for the playerId
+	 */
+	@Transactional(propagation = Propagation.SUPPORTS, readOnly = true, rollbackFor = WalletException.class)
 	@Override
-	public Wallet findWalletByPlayerId(String playerId) throws WalletException {
-		Wallet wallet = walletRepository.findWalletByPlayerId(playerId);
+	public Wallet findWalletByPlayerId(@ShardKey String playerId) throws WalletException {
+		Wallet wallet = walletCache.get(playerId);
+		if (wallet != null) {
+			return wallet;
+		}
+
+		long stamp = walletCache.stamp();
+		wallet = walletRepository.findWalletByPlayerId(playerId);
 		
 		if (wallet == null) {
+			walletCache.putMissing(playerId, stamp);
 			throw new WalletException("No wallet found with playerId " + playerId, HttpStatus.NOT_FOUND.value());
 		}
 		
+		walletCache.putAfterCommit(wallet, stamp);
 		return wallet;
 	}
 
@@ -48,7 +115,7 @@ public class WalletServiceImpl implements WalletService {
      */
 	@Transactional(rollbackFor = WalletException.class)
 	@Override
-	public Wallet createWallet(String playerId, String startingAmount) throws WalletException {
+	public Wallet createWallet(@ShardKey String playerId, String startingAmount) throws WalletException {
 		if (StringUtils.isBlank(playerId)) {
 			throw new WalletException("playerId can not be null and empty", HttpStatus.BAD_REQUEST.value());
 		}
@@ -58,56 +125,138 @@ public class WalletServiceImpl implements WalletService {
 		}
 
 		try {
-			BigDecimal bigDecimal = new BigDecimal(startingAmount).abs();
-			return walletRepository.save(new Wallet(playerId, bigDecimal));
-		} catch (NumberFormatException ex) {
+			Money balance = Money.parse(startingAmount).abs();
+			long stamp = walletCache.stamp();
+			Wallet wallet = walletRepository.save(new Wallet(playerId, balance));
+			walletStatsRepository.save(new WalletStats(wallet.getId()));
+			walletCache.putAfterCommit(wallet, stamp);
+			return wallet;
+		} catch (NumberFormatException | ArithmeticException ex) {
 			throw new WalletException("Please specify valid amount", HttpStatus.BAD_REQUEST.value());
 		}
 	}
 
 	/**
-     * Updates wallet balance. Before updating balance it checks if there is enough funds on wallet balance.
-     * If there is not enough funds, throws WalletException
+     * Updates wallet balance.
      * If transactionType is CREDIT, takes absolute amount from  @param amount  and adds it to wallet balance.
      * If transactionType is DEBIT, takes absolute amount from  @param amount  and subtracts it from wallet balance.
      *
-     * Set isolation = Isolation.SERIALIZABLE in order to avoid concurrency issues.
+     * In ATOMIC concurrency mode the balance is changed by one guarded UPDATE statement which only succeeds
+     * if the resulting balance is not negative, so READ COMMITTED isolation is enough to avoid concurrency issues.
+     * In OPTIMISTIC concurrency mode the wallet is loaded and changed, and a concurrent change of the same wallet
+     * fails the commit with an OptimisticLockingFailureException, the caller is expected to retry.
+     * If there is not enough funds, throws WalletException
      * @param wallet
      * @param amount
      * @param transactionType CREDIT or DEBIT
      * @return updated wallet
      * @throws WalletException if couldn't update wallet balance, e.g. not enough funds.
      */
-	@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE, rollbackFor = WalletException.class)	
+	@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED, rollbackFor = WalletException.class)
 	@Override
-	public Wallet updateWalletAmount(Wallet wallet, String amount, String transactionType) throws WalletException {
-		BigDecimal transactionAmount;
+	public Wallet updateWalletAmount(@ShardKey Wallet wallet, String amount, String transactionType) throws WalletException {
+		Money parsedAmount;
+		try {
+			parsedAmount = Money.parse(amount);
+		} catch (NumberFormatException ex) {
+			throw new WalletException("Please specify valid amount", HttpStatus.BAD_REQUEST.value());
+		}
+		return updateWalletAmount(wallet, parsedAmount,
+				transactionType.equals(TransactionType.CREDIT.name()) ? TransactionType.CREDIT : TransactionType.DEBIT);
+	}
 
+	/**
+	 * Updates wallet balance by an already parsed amount, see {@link #updateWalletAmount(Wallet, String, String)}.
+	 * @param wallet
+	 * @param amount
+	 * @param transactionType
+	 * @return updated wallet
+	 * @throws WalletException if couldn't update wallet balance, e.g. not enough funds.
+	 * @throws IllegalStateException in ledger mode, where the ledger changes the balances
+	 */
+	@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED, rollbackFor = WalletException.class)
+	@Override
+	public Wallet updateWalletAmount(@ShardKey Wallet wallet, Money amount, TransactionType transactionType)
+			throws WalletException {
+		if ("ledger".equals(transactionMode)) {
+			throw new IllegalStateException("Balances are changed by the ledger in wallet.transaction.mode=ledger");
+		}
+		Money transactionAmount;
 		try {
-			if (transactionType.equals(TransactionType.CREDIT.name())) {
-				transactionAmount = new BigDecimal(amount).abs();
-			} else {
-				transactionAmount = new BigDecimal(amount).abs().negate();
-				if (wallet.getBalance().compareTo(transactionAmount.abs()) <= 0) {
-					throw new WalletException("No sufficient funds in account for withdrawl",
-							HttpStatus.BAD_REQUEST.value());
-				}
-			}
+			transactionAmount = transactionType == TransactionType.CREDIT ? amount.abs() : amount.abs().negate();
+		} catch (ArithmeticException ex) {
+			throw new WalletException("Please specify valid amount", HttpStatus.BAD_REQUEST.value());
+		}
 
-			// update wallet
-			wallet.setBalance(wallet.getBalance().add(transactionAmount));
-			wallet.setUpdatedTime(new Date());
+		Date updatedTime = new Date();
+		if (concurrencyMode == ConcurrencyMode.OPTIMISTIC) {
+			return updateVersioned(wallet.getPlayerId(), transactionAmount, updatedTime);
+		}
 
-			return walletRepository.save(wallet);
-		} catch (NumberFormatException ex) {
-			throw new WalletException("Please specify valid amount", HttpStatus.BAD_REQUEST.value());
+		long stamp = walletCache.stamp();
+		if (walletRepository.updateBalance(wallet.getPlayerId(), transactionAmount.getMinorUnits(), updatedTime) == 0) {
+			insufficientFunds(wallet.getPlayerId(), transactionAmount, stamp);
+		}
+
+		walletCache.invalidateAfterCommit(wallet.getPlayerId());
+
+		// wallet is detached by the update, reflect the change for the caller
+		wallet.setBalanceMoney(wallet.getBalanceMoney().add(transactionAmount));
+		wallet.setUpdatedTime(updatedTime);
+		return wallet;
+	}
+
+	/**
+	 * Changes the balance of the loaded wallet, the version check happens when the change is flushed.
+	 */
+	private Wallet updateVersioned(String playerId, Money transactionAmount, Date updatedTime) throws WalletException {
+		long stamp = walletCache.stamp();
+		Wallet wallet = walletRepository.findWalletByPlayerId(playerId);
+		if (wallet == null) {
+			throw new WalletException("No wallet found with playerId " + playerId, HttpStatus.NOT_FOUND.value());
 		}
+
+		Money balance = wallet.getBalanceMoney().add(transactionAmount);
+		if (balance.signum() < 0) {
+			insufficientFunds(playerId, transactionAmount, stamp);
+		}
+
+		wallet.setBalanceMoney(balance);
+		wallet.setUpdatedTime(updatedTime);
+		walletCache.invalidateAfterCommit(playerId);
+		return wallet;
 	}
 	
-	@Transactional(rollbackFor = WalletException.class)
+	/**
+	 * Remembers the rejected debit for the admission stage and rejects it.
+	 *
+	 * @param stamp {@link WalletCache#stamp()} taken before the balance was read
+	 */
+	private void insufficientFunds(String playerId, Money transactionAmount, long stamp) throws WalletException {
+		if (transactionAmount.signum() < 0) {
+			walletCache.recordInsufficientFunds(playerId, transactionAmount.negate(), stamp);
+		}
+		throw new WalletException("No sufficient funds in account for withdrawl", HttpStatus.BAD_REQUEST.value());
+	}
+
+	/**
+	 * Finds all wallets ordered by id. With sharding, every shard is queried in parallel and the results are merged.
+	 * @return wallets
+	 * @throws WalletException if there are no wallets
+	 */
+	@Transactional(readOnly = true, rollbackFor = WalletException.class)
 	@Override
 	public List<Wallet> findAll() throws WalletException {
-		List<Wallet> walletList = walletRepository.findAllByOrderByIdAsc();
+		List<Wallet> walletList;
+		if (shardRouter != null) {
+			walletList = new ArrayList<>();
+			for (List<Wallet> shardWallets : shardRouter.fanOut(shard -> walletRepository.findAllByOrderByIdAsc())) {
+				walletList.addAll(shardWallets);
+			}
+			walletList.sort(Comparator.comparing(Wallet::getId));
+		} else {
+			walletList = walletRepository.findAllByOrderByIdAsc();
+		}
 
 		if (walletList == null || walletList.isEmpty()) {
 			throw new WalletException("No wallet found", HttpStatus.NOT_FOUND.value());
@@ -116,4 +265,97 @@ public class WalletServiceImpl implements WalletService {
 		return walletList;
 	}
 
+	/**
+	 * Computes the balance of the player's wallet at the given time, including the transactions updated at that time.
+	 * Starts from the nearest balance checkpoint and only sums the transactions between the checkpoint and the time,
+	 * so the cost doesn't depend on the length of the wallet history.
+	 * Archived transactions in that range are summed from the {@link TransactionArchive}.
+	 * @param playerId
+	 * @param at ISO-8601 instant, e.g. 2019-10-01T12:00:00Z
+	 * @return balance at the given time
+	 * @throws WalletException if at is invalid, or the wallet doesn't exist or didn't exist at that time
+	 */
+	@Transactional(readOnly = true, rollbackFor = WalletException.class)
+	@Override
+	public PointInTimeBalance getBalanceAt(@ShardKey String playerId, String at) throws WalletException {
+		if (StringUtils.isBlank(at)) {
+			throw new WalletException("at can not be null and empty", HttpStatus.BAD_REQUEST.value());
+		}
+		Date time;
+		try {
+			time = Date.from(Instant.parse(at));
+		} catch (DateTimeParseException | ArithmeticException ex) {
+			throw new WalletException("at must be an ISO-8601 instant, e.g. 2019-10-01T12:00:00Z",
+					HttpStatus.BAD_REQUEST.value());
+		}
+
+		Wallet wallet = walletRepository.findWalletByPlayerId(playerId);
+		if (wallet == null) {
+			throw new WalletException("No wallet found with playerId " + playerId, HttpStatus.NOT_FOUND.value());
+		}
+		if (wallet.getCreatedTime() != null && time.before(wallet.getCreatedTime())) {
+			throw new WalletException("Wallet of player " + playerId + " did not exist at " + at,
+					HttpStatus.NOT_FOUND.value());
+		}
+
+		Money balance;
+		Lock archiveLock = null;
+		if (transactionArchive != null) {
+			archiveLock = transactionArchive.readLock();
+			archiveLock.lock();
+		}
+		try {
+			BalanceCheckpoint checkpoint = balanceCheckpointRepository
+					.findFirstByWalletIdAndCheckpointTimeLessThanEqualOrderByCheckpointTimeDesc(wallet.getId(), time);
+			if (checkpoint != null) {
+				balance = checkpoint.getBalanceMoney().add(Money.ofMinor(
+						transactionRepository.sumAmountBetween(wallet, checkpoint.getCheckpointTime(), time)
+								+ archivedSumBetween(playerId, checkpoint.getCheckpointTime(), time)));
+			} else {
+				checkpoint = balanceCheckpointRepository
+						.findFirstByWalletIdAndCheckpointTimeGreaterThanOrderByCheckpointTimeAsc(wallet.getId(), time);
+				if (checkpoint != null) {
+					balance = checkpoint.getBalanceMoney().subtract(Money.ofMinor(
+							transactionRepository.sumAmountBetween(wallet, time, checkpoint.getCheckpointTime())
+									+ archivedSumBetween(playerId, time, checkpoint.getCheckpointTime())));
+				} else {
+					// not checkpointed yet, all its transactions are recent
+					balance = Money.ofMinor(walletRepository.findBalanceAt(wallet.getId(), time)
+							- archivedSumBetween(playerId, time, null));
+				}
+			}
+		} finally {
+			if (archiveLock != null) {
+				archiveLock.unlock();
+			}
+		}
+		return new PointInTimeBalance(playerId, time, balance.toBigDecimal());
+	}
+
+	/**
+	 * @return sum of the player's archived transactions updated in (from, to], 0 without archive
+	 */
+	private long archivedSumBetween(String playerId, Date from, Date to) {
+		return transactionArchive != null ? transactionArchive.sumAmountBetween(playerId, from, to) : 0;
+	}
+
+	/**
+	 * Reads the deposit and withdrawal totals of the player's wallet, kept up to date with every transaction,
+	 * so the cost doesn't depend on the length of the wallet history.
+	 * @param playerId
+	 * @return stats of the wallet, zero totals if it has no stats yet
+	 * @throws WalletException if the wallet doesn't exist
+	 */
+	@Transactional(readOnly = true, rollbackFor = WalletException.class)
+	@Override
+	public PlayerStats getStats(@ShardKey String playerId) throws WalletException {
+		Wallet wallet = walletRepository.findWalletByPlayerId(playerId);
+		if (wallet == null) {
+			throw new WalletException("No wallet found with playerId " + playerId, HttpStatus.NOT_FOUND.value());
+		}
+
+		WalletStats stats = walletStatsRepository.findById(wallet.getId()).orElseGet(() -> new WalletStats(wallet.getId()));
+		return new PlayerStats(playerId, stats.getDepositCount(), stats.getDepositAmount().toBigDecimal(),
+				stats.getWithdrawalCount(), stats.getWithdrawalAmount().toBigDecimal(), stats.getLastActivity());
+	}
 }
@@ -0,0 +1,135 @@
+package com.company.wallet.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.company.wallet.archive.TransactionArchive;
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.sharding.ShardRouter;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Creates the stats of wallets which have none, e.g. created before stats were kept, from their transactions,
+ * archived ones included.
+ * Runs before the web server accepts requests; wallets with stats are left alone, so it is cheap after the first run.
+ *
+ * @author Vinay Singh
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.stats.backfill", havingValue = "true", matchIfMissing = true)
+public class WalletStatsInitializer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(WalletStatsInitializer.class);
+
+	private static final String SELECT_MISSING = "select w.id, w.player_id from wallet w "
+			+ "where not exists (select 1 from wallet_stats s where s.wallet_id = w.id)";
+
+	private static final String BACKFILL = "insert into wallet_stats "
+			+ "(wallet_id, deposit_count, deposit_amount, withdrawal_count, withdrawal_amount, last_activity) "
+			+ "select w.id, "
+			+ "sum(case when t.transaction_type = 0 then 1 else 0 end), "
+			+ "sum(case when t.transaction_type = 0 then abs(t.amount) else 0 end), "
+			+ "sum(case when t.transaction_type = 1 then 1 else 0 end), "
+			+ "sum(case when t.transaction_type = 1 then abs(t.amount) else 0 end), "
+			+ "max(t.updated_time) "
+			+ "from wallet w left join transaction t on t.wallet_id = w.id "
+			+ "where not exists (select 1 from wallet_stats s where s.wallet_id = w.id) "
+			+ "group by w.id";
+
+	/** archived transactions are older than the ones in the database, so they only set a missing last activity */
+	private static final String ADD_ARCHIVED = "update wallet_stats set deposit_count = deposit_count + ?, "
+			+ "deposit_amount = deposit_amount + ?, withdrawal_count = withdrawal_count + ?, "
+			+ "withdrawal_amount = withdrawal_amount + ?, last_activity = coalesce(last_activity, ?) "
+			+ "where wallet_id = ?";
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired(required = false)
+	private ShardRouter shardRouter;
+
+	@Autowired(required = false)
+	private TransactionArchive transactionArchive;
+
+	@EventListener(ContextRefreshedEvent.class)
+	public void backfill() {
+		long start = System.currentTimeMillis();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		int count;
+		if (shardRouter == null) {
+			count = transactionTemplate.execute(status -> backfill(jdbcTemplate));
+		} else {
+			count = 0;
+			for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+				count += shardRouter.onShard(shard,
+						() -> transactionTemplate.execute(status -> backfill(jdbcTemplate)));
+			}
+		}
+		if (count > 0) {
+			LOGGER.info("Created stats of {} wallets in {} ms", count, System.currentTimeMillis() - start);
+		}
+	}
+
+	/**
+	 * Creates the missing stats of the current shard. The archive read lock is held, like by history reads,
+	 * so a transaction being archived meanwhile is counted exactly once.
+	 */
+	private int backfill(JdbcTemplate jdbcTemplate) {
+		if (transactionArchive == null) {
+			return jdbcTemplate.update(BACKFILL);
+		}
+		List<Wallet> wallets = jdbcTemplate.query(SELECT_MISSING, (rs, rowNum) -> {
+			Wallet wallet = new Wallet();
+			wallet.setId(rs.getInt(1));
+			wallet.setPlayerId(rs.getString(2));
+			return wallet;
+		});
+		if (wallets.isEmpty()) {
+			return 0;
+		}
+
+		Lock archiveLock = transactionArchive.readLock();
+		archiveLock.lock();
+		try {
+			int count = jdbcTemplate.update(BACKFILL);
+			List<Object[]> archived = new ArrayList<>();
+			for (Wallet wallet : wallets) {
+				List<Transaction> history = transactionArchive.findAll(wallet);
+				if (history.isEmpty()) {
+					continue;
+				}
+				long[] sums = new long[4];
+				for (Transaction transaction : history) {
+					int offset = transaction.getTransactionType() == TransactionType.CREDIT ? 0 : 2;
+					sums[offset]++;
+					sums[offset + 1] += Math.abs(transaction.getAmountMoney().getMinorUnits());
+				}
+				// newest first
+				archived.add(new Object[] { sums[0], sums[1], sums[2], sums[3], history.get(0).getUpdatedTime(),
+						wallet.getId() });
+			}
+			jdbcTemplate.batchUpdate(ADD_ARCHIVED, archived);
+			return count;
+		} finally {
+			archiveLock.unlock();
+		}
+	}
+}
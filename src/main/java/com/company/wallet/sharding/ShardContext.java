@@ -0,0 +1,42 @@
+package com.company.wallet.sharding;
+
+/**
+ * Shard used by the current thread. {@link ShardRoutingDataSource} hands out connections of this shard.
+ * <p>
+ * A connection is taken when a database transaction starts and kept until it ends,
+ * so the shard has to be entered before the transaction starts.
+ * </p>
+ * @author Vinay Singh
+ */
+public final class ShardContext {
+	private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+	private ShardContext() {
+	}
+
+	/**
+	 * @return shard of the current thread, null if none was entered
+	 */
+	public static Integer current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Makes the shard the shard of the current thread.
+	 *
+	 * @return previous shard, to be passed to {@link #restore(Integer)}
+	 */
+	public static Integer enter(int shard) {
+		Integer previous = CURRENT.get();
+		CURRENT.set(shard);
+		return previous;
+	}
+
+	public static void restore(Integer previous) {
+		if (previous == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(previous);
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package com.company.wallet.sharding;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the playerId, or the {@link com.company.wallet.entities.Wallet}, parameter of a method
+ * which must run on the shard of that player. With sharding enabled, {@link ShardRoutingAspect}
+ * enters the shard before the method, and before its database transaction, starts.
+ * With read replicas, it tells the player whose writes a read-only method has to see.
+ *
+ * @author Vinay Singh
+ */
+@Documented
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+}
@@ -0,0 +1,51 @@
+package com.company.wallet.sharding;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+
+import com.company.wallet.entities.Wallet;
+
+/**
+ * Reads the {@link ShardKey} argument of an intercepted method.
+ *
+ * @author Vinay Singh
+ */
+public final class ShardKeys {
+	private static final int NONE = -1;
+	private static final Map<Method, Integer> POSITIONS = new ConcurrentHashMap<>();
+
+	private ShardKeys() {
+	}
+
+	/**
+	 * @return playerId of the {@link ShardKey} argument, null if there is none or it is null
+	 */
+	public static String playerIdOf(JoinPoint joinPoint) {
+		Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+		int position = POSITIONS.computeIfAbsent(method,
+				m -> position(AopUtils.getMostSpecificMethod(m, joinPoint.getTarget().getClass())));
+		if (position == NONE) {
+			return null;
+		}
+		Object key = joinPoint.getArgs()[position];
+		return key instanceof Wallet ? ((Wallet) key).getPlayerId() : (String) key;
+	}
+
+	private static int position(Method method) {
+		Annotation[][] annotations = method.getParameterAnnotations();
+		for (int i = 0; i < annotations.length; i++) {
+			for (Annotation annotation : annotations[i]) {
+				if (annotation instanceof ShardKey) {
+					return i;
+				}
+			}
+		}
+		return NONE;
+	}
+}
@@ -0,0 +1,153 @@
+package com.company.wallet.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.company.wallet.exception.handler.WalletException;
+
+/**
+ * Moves wallets, with their transactions, balance checkpoints and archived transactionIds,
+ * to the shard owning them.
+ * <p>
+ * After a shard is added to wallet.sharding.urls about 1/N of the players belong to it,
+ * but their wallets are still on the shard they were created on and are not found until they are moved.
+ * A wallet is copied to its shard in one database transaction and then deleted from the old shard
+ * in another one. If the move is interrupted in between, the next run only deletes the old copy.
+ * Ids are kept, they are unique over all shards.
+ * A player whose wallet is not found on its new shard can create a second one there. The rebalancing stops
+ * at such a player and leaves both wallets in place.
+ * </p>
+ * @author Vinay Singh
+ */
+public class ShardRebalancer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ShardRebalancer.class);
+
+	private static final RowMapper<Object[]> ROW = (rs, rowNum) -> {
+		Object[] row = new Object[rs.getMetaData().getColumnCount()];
+		for (int i = 0; i < row.length; i++) {
+			row[i] = rs.getObject(i + 1);
+		}
+		return row;
+	};
+
+	private final ShardRouter shardRouter;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+
+	public ShardRebalancer(ShardRouter shardRouter, DataSource dataSource, PlatformTransactionManager transactionManager) {
+		this.shardRouter = shardRouter;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * @return number of wallets on every shard, by shard number
+	 */
+	public List<Long> countWallets() {
+		return shardRouter.fanOut(shard -> jdbcTemplate.queryForObject("select count(*) from wallet", Long.class));
+	}
+
+	/**
+	 * Moves the wallets which are not on the shard owning them.
+	 * Meant to be run right after adding a shard, the moved players can't transact or create a wallet
+	 * until it finishes.
+	 *
+	 * @return number of moved wallets
+	 * @throws WalletException if a player has a different wallet on the shard owning it
+	 */
+	public synchronized int rebalance() throws WalletException {
+		int moved = 0;
+		for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+			int source = shard;
+			List<String> misplaced = shardRouter.onShard(source, () -> {
+				List<String> playerIds = new ArrayList<>();
+				jdbcTemplate.query("select player_id from wallet", rs -> {
+					String playerId = rs.getString(1);
+					if (shardRouter.shardOf(playerId) != source) {
+						playerIds.add(playerId);
+					}
+				});
+				return playerIds;
+			});
+			for (String playerId : misplaced) {
+				int target = shardRouter.shardOf(playerId);
+				if (!move(playerId, source, target)) {
+					LOGGER.error("Stopped rebalancing after moving {} wallets, player {} has a wallet on shard {} and "
+							+ "another one on shard {}", moved, playerId, source, target);
+					throw new WalletException("Player " + playerId + " has a wallet on shard " + source
+							+ " and another one on shard " + target, HttpStatus.CONFLICT.value());
+				}
+				moved++;
+			}
+			if (!misplaced.isEmpty()) {
+				LOGGER.info("Moved {} wallets away from shard {}", misplaced.size(), source);
+			}
+		}
+		return moved;
+	}
+
+	/**
+	 * @return false if the player has another wallet on the target shard, nothing is changed then
+	 */
+	private boolean move(String playerId, int source, int target) {
+		Object[] wallet = shardRouter.onShard(source, () -> jdbcTemplate.queryForObject(
+				"select id, player_id, balance, created_time, updated_time, version from wallet where player_id = ?",
+				ROW, playerId));
+		Object walletId = wallet[0];
+		List<Object[]> transactions = shardRouter.onShard(source, () -> jdbcTemplate.query(
+				"select id, transaction_id, transaction_type, amount, wallet_id, updated_time from transaction "
+						+ "where wallet_id = ?", ROW, walletId));
+		List<Object[]> checkpoints = shardRouter.onShard(source, () -> jdbcTemplate.query(
+				"select wallet_id, checkpoint_time, balance from balance_checkpoint where wallet_id = ?", ROW,
+				walletId));
+		List<Object[]> stats = shardRouter.onShard(source, () -> jdbcTemplate.query(
+				"select wallet_id, deposit_count, deposit_amount, withdrawal_count, withdrawal_amount, last_activity "
+						+ "from wallet_stats where wallet_id = ?", ROW, walletId));
+		List<Object[]> archived = shardRouter.onShard(source, () -> jdbcTemplate.query(
+				"select id, transaction_id, player_id from archived_transaction_id where player_id = ?", ROW,
+				playerId));
+
+		Boolean copied = shardRouter.onShard(target, () -> transactionTemplate.execute(status -> {
+			List<Long> existing = jdbcTemplate.queryForList("select id from wallet where player_id = ?", Long.class,
+					playerId);
+			if (!existing.isEmpty()) {
+				// copied by an interrupted move, or created by the player in the meantime
+				return existing.get(0) == ((Number) walletId).longValue();
+			}
+			jdbcTemplate.update("insert into wallet (id, player_id, balance, created_time, updated_time, version) "
+					+ "values (?, ?, ?, ?, ?, ?)", wallet);
+			jdbcTemplate.batchUpdate("insert into transaction "
+					+ "(id, transaction_id, transaction_type, amount, wallet_id, updated_time) values (?, ?, ?, ?, ?, ?)",
+					transactions);
+			jdbcTemplate.batchUpdate("insert into balance_checkpoint (wallet_id, checkpoint_time, balance) "
+					+ "values (?, ?, ?)", checkpoints);
+			jdbcTemplate.batchUpdate("insert into wallet_stats (wallet_id, deposit_count, deposit_amount, "
+					+ "withdrawal_count, withdrawal_amount, last_activity) values (?, ?, ?, ?, ?, ?)", stats);
+			jdbcTemplate.batchUpdate("insert into archived_transaction_id (id, transaction_id, player_id) "
+					+ "values (?, ?, ?)", archived);
+			return true;
+		}));
+		if (!copied) {
+			return false;
+		}
+
+		shardRouter.onShard(source, () -> transactionTemplate.execute(status -> {
+			jdbcTemplate.update("delete from wallet_stats where wallet_id = ?", walletId);
+			jdbcTemplate.update("delete from archived_transaction_id where player_id = ?", playerId);
+			jdbcTemplate.update("delete from balance_checkpoint where wallet_id = ?", walletId);
+			jdbcTemplate.update("delete from transaction where wallet_id = ?", walletId);
+			return jdbcTemplate.update("delete from wallet where id = ?", walletId);
+		}));
+		return true;
+	}
+}
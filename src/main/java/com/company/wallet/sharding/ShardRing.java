@@ -0,0 +1,64 @@
+package com.company.wallet.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring assigning playerIds to shards.
+ * Every shard owns virtualNodes points on the ring, placed by hashing the shard name, and a playerId belongs
+ * to the shard owning the first point at or after the hash of the playerId.
+ * Adding a shard only moves the playerIds falling just before its points, about 1/N of them.
+ *
+ * @author Vinay Singh
+ */
+public class ShardRing {
+	private final TreeMap<Long, Integer> points = new TreeMap<>();
+	private final int shardCount;
+
+	/**
+	 * @param shardNames names of the shards, the index in the list is the shard number
+	 * @param virtualNodes points per shard
+	 */
+	public ShardRing(List<String> shardNames, int virtualNodes) {
+		if (shardNames.isEmpty()) {
+			throw new IllegalArgumentException("At least one shard is needed");
+		}
+		for (int shard = 0; shard < shardNames.size(); shard++) {
+			for (int node = 0; node < virtualNodes; node++) {
+				points.put(hash(shardNames.get(shard) + "#" + node), shard);
+			}
+		}
+		this.shardCount = shardNames.size();
+	}
+
+	public int shardCount() {
+		return shardCount;
+	}
+
+	/**
+	 * @return shard number owning the playerId
+	 */
+	public int shardOf(String playerId) {
+		if (shardCount == 1) {
+			return 0;
+		}
+		Map.Entry<Long, Integer> point = points.ceilingEntry(hash(playerId));
+		return point != null ? point.getValue() : points.firstEntry().getValue();
+	}
+
+	/** FNV-1a over the UTF-8 bytes with a final mix, stable across JVMs. */
+	static long hash(String value) {
+		long h = 0xcbf29ce484222325L;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			h ^= b;
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		return h ^ (h >>> 33);
+	}
+}
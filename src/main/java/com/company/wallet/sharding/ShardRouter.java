@@ -0,0 +1,114 @@
+package com.company.wallet.sharding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Runs work on the shard of a player, or on all shards.
+ * Only present with {@code wallet.sharding.enabled=true}.
+ *
+ * @author Vinay Singh
+ */
+public class ShardRouter {
+	private final ShardRing ring;
+	private final ExecutorService fanOutExecutor;
+
+	public ShardRouter(ShardRing ring) {
+		this.ring = ring;
+		AtomicInteger threadCount = new AtomicInteger();
+		this.fanOutExecutor = Executors.newFixedThreadPool(ring.shardCount() * 2, r -> {
+			Thread thread = new Thread(r, "shard-fanout-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public int shardCount() {
+		return ring.shardCount();
+	}
+
+	public int shardOf(String playerId) {
+		return ring.shardOf(playerId);
+	}
+
+	/**
+	 * Runs the work on the shard in the current thread.
+	 * The current thread must not be in a database transaction, its connection would be used instead.
+	 */
+	public <T> T onShard(int shard, Supplier<T> work) {
+		Integer previous = ShardContext.enter(shard);
+		try {
+			return work.get();
+		} finally {
+			ShardContext.restore(previous);
+		}
+	}
+
+	/**
+	 * Runs the query on all shards in parallel.
+	 *
+	 * @param query called with the shard number, on the shard
+	 * @return results by shard number
+	 */
+	public <T> List<T> fanOut(IntFunction<T> query) {
+		List<CompletableFuture<T>> futures = new ArrayList<>(shardCount());
+		for (int shard = 0; shard < shardCount(); shard++) {
+			int target = shard;
+			futures.add(CompletableFuture.supplyAsync(() -> onShard(target, () -> query.apply(target)), fanOutExecutor));
+		}
+		List<T> results = new ArrayList<>(futures.size());
+		try {
+			for (CompletableFuture<T> future : futures) {
+				results.add(future.join());
+			}
+		} catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ex.getCause();
+			}
+			throw ex;
+		}
+		return results;
+	}
+
+	/**
+	 * Runs the query on all shards in parallel.
+	 *
+	 * @return first result which is not null, in shard order, or null
+	 */
+	public <T> T findFirst(IntFunction<T> query) {
+		for (T result : fanOut(query)) {
+			if (result != null) {
+				return result;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Groups the items by the shard of their player, keeping their order.
+	 *
+	 * @return items by shard number, only shards with items
+	 */
+	public <T> Map<Integer, List<T>> partition(Collection<T> items, Function<T, String> playerIdOf) {
+		Map<Integer, List<T>> partitions = new TreeMap<>();
+		for (T item : items) {
+			partitions.computeIfAbsent(shardOf(playerIdOf.apply(item)), shard -> new ArrayList<>()).add(item);
+		}
+		return partitions;
+	}
+
+	public void shutdown() {
+		fanOutExecutor.shutdown();
+	}
+}
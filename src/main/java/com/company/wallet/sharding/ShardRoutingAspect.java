@@ -0,0 +1,40 @@
+package com.company.wallet.sharding;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Enters the shard of the {@link ShardKey} parameter around the method.
+ * Ordered before the transaction interceptor, so the database transaction of the method
+ * takes its connection from that shard.
+ *
+ * @author Vinay Singh
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ShardRoutingAspect {
+	private final ShardRouter shardRouter;
+
+	public ShardRoutingAspect(ShardRouter shardRouter) {
+		this.shardRouter = shardRouter;
+	}
+
+	@Around("execution(* com.company.wallet..*(.., @com.company.wallet.sharding.ShardKey (*), ..))")
+	public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+		String playerId = ShardKeys.playerIdOf(joinPoint);
+		if (playerId == null) {
+			// rejected by the method itself
+			return joinPoint.proceed();
+		}
+
+		Integer previous = ShardContext.enter(shardRouter.shardOf(playerId));
+		try {
+			return joinPoint.proceed();
+		} finally {
+			ShardContext.restore(previous);
+		}
+	}
+}
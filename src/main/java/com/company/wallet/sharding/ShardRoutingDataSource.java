@@ -0,0 +1,53 @@
+package com.company.wallet.sharding;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * DataSource handing out connections of the shard in {@link ShardContext}.
+ * Without a shard, connections of shard 0 are handed out, which is where the schema is created first.
+ *
+ * @author Vinay Singh
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+	private final List<DataSource> shards;
+
+	/**
+	 * @param shards DataSource of every shard, by shard number
+	 */
+	public ShardRoutingDataSource(List<DataSource> shards) {
+		this.shards = shards;
+		Map<Object, Object> targets = new HashMap<>();
+		for (int shard = 0; shard < shards.size(); shard++) {
+			targets.put(shard, shards.get(shard));
+		}
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(shards.get(0));
+		setLenientFallback(false);
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		Integer shard = ShardContext.current();
+		return shard != null ? shard : 0;
+	}
+
+	/**
+	 * Closes the connection pools of the shards.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (DataSource shard : shards) {
+			if (shard instanceof Closeable) {
+				((Closeable) shard).close();
+			}
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.company.wallet.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.DelayedDropAction;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Applies the schema management of shard 0 (spring.jpa.hibernate.ddl-auto) to the other shards.
+ * Hibernate only manages the schema of the connections it gets while starting, which come from shard 0.
+ * <p>
+ * Wallet and transaction ids have to be unique over all shards, as they are used without a playerId
+ * (e.g. /api/transactions/{id}), so the id sequences of an empty shard start at shard * idsPerShard + 1.
+ * Transaction ids are handed out in blocks shared by all shards, so an id doesn't tell the shard.
+ * </p>
+ * @author Vinay Singh
+ */
+public class ShardSchemaInitializer implements Integrator, SmartInitializingSingleton {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ShardSchemaInitializer.class);
+
+	private final DataSource dataSource;
+	private final int shardCount;
+	private final long idsPerShard;
+
+	private Metadata metadata;
+	private SessionFactoryImplementor sessionFactory;
+	private final List<List<DelayedDropAction>> dropActions = new ArrayList<>();
+
+	public ShardSchemaInitializer(DataSource dataSource, int shardCount, long idsPerShard) {
+		this.dataSource = dataSource;
+		this.shardCount = shardCount;
+		this.idsPerShard = idsPerShard;
+	}
+
+	@Override
+	public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+			SessionFactoryServiceRegistry serviceRegistry) {
+		this.metadata = metadata;
+		this.sessionFactory = sessionFactory;
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		if (metadata == null) {
+			throw new IllegalStateException("Hibernate metadata not available, schema of shards can't be created");
+		}
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		for (int shard = 0; shard < shardCount; shard++) {
+			Integer previous = ShardContext.enter(shard);
+			try {
+				if (shard > 0) {
+					List<DelayedDropAction> drops = new ArrayList<>();
+					SchemaManagementToolCoordinator.process(metadata, sessionFactory.getServiceRegistry(),
+							sessionFactory.getProperties(), drops::add);
+					dropActions.add(drops);
+				}
+				Long wallets = jdbcTemplate.queryForObject("select count(*) from wallet", Long.class);
+				if (shard > 0 && wallets != null && wallets == 0) {
+					long firstId = shard * idsPerShard + 1;
+					jdbcTemplate.execute("alter table wallet alter column id restart with " + firstId);
+					jdbcTemplate.execute("alter sequence transaction_seq restart with " + firstId);
+				}
+				LOGGER.info("Shard {} ready with {} wallets", shard, wallets);
+			} finally {
+				ShardContext.restore(previous);
+			}
+		}
+	}
+
+	@Override
+	public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+		for (int i = 0; i < dropActions.size(); i++) {
+			Integer previous = ShardContext.enter(i + 1);
+			try {
+				for (DelayedDropAction drop : dropActions.get(i)) {
+					drop.perform(sessionFactory.getServiceRegistry());
+				}
+			} catch (RuntimeException ex) {
+				LOGGER.warn("Could not drop schema of shard {}", i + 1, ex);
+			} finally {
+				ShardContext.restore(previous);
+			}
+		}
+	}
+}
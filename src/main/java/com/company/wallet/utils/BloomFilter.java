@@ -0,0 +1,78 @@
+package com.company.wallet.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter for strings.
+ * <p>
+ * {@link #mightContain(String)} never returns false for a value which was added,
+ * and returns true for a value which was not added with roughly the configured probability.
+ * </p>
+ * @author Vinay Singh
+ */
+public class BloomFilter {
+	private final AtomicLongArray bits;
+	private final long bitCount;
+	private final int hashCount;
+
+	/**
+	 * @param expectedInsertions number of values the filter is sized for
+	 * @param falsePositiveRate wanted false positive probability at expectedInsertions
+	 */
+	public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+		long n = Math.max(1, expectedInsertions);
+		long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		this.bitCount = Math.max(64, ((m + 63) / 64) * 64);
+		this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+		this.bits = new AtomicLongArray((int) (bitCount / 64));
+	}
+
+	public void put(String value) {
+		long hash1 = hash1(value);
+		long hash2 = hash2(value);
+		for (int i = 0; i < hashCount; i++) {
+			long index = index(hash1 + i * hash2);
+			int word = (int) (index >>> 6);
+			long mask = 1L << index;
+			long current;
+			do {
+				current = bits.get(word);
+				if ((current & mask) != 0) {
+					break;
+				}
+			} while (!bits.compareAndSet(word, current, current | mask));
+		}
+	}
+
+	public boolean mightContain(String value) {
+		long hash1 = hash1(value);
+		long hash2 = hash2(value);
+		for (int i = 0; i < hashCount; i++) {
+			long index = index(hash1 + i * hash2);
+			if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long index(long combinedHash) {
+		return (combinedHash & Long.MAX_VALUE) % bitCount;
+	}
+
+	private static long hash1(String value) {
+		long h = value.hashCode() * 0x9E3779B97F4A7C15L;
+		return h ^ (h >>> 32);
+	}
+
+	/** FNV-1a over the UTF-8 bytes, independent of String.hashCode(). */
+	private static long hash2(String value) {
+		long h = 0xcbf29ce484222325L;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			h ^= b;
+			h *= 0x100000001b3L;
+		}
+		return h | 1;
+	}
+}
@@ -0,0 +1,13 @@
+package com.company.wallet.utils;
+
+/**
+ *  How single transactions change the wallet balance.
+ *  <p>
+ *  ATOMIC changes the balance with one guarded UPDATE statement, OPTIMISTIC loads the wallet,
+ *  changes it and relies on the wallet version to detect concurrent changes.
+ *  </p>
+ *  @author Vinay Singh
+ */
+public enum ConcurrencyMode {
+	ATOMIC, OPTIMISTIC
+}
@@ -0,0 +1,22 @@
+package com.company.wallet.utils;
+
+/**
+ *  Bulk export formats.
+ *  <p>
+ *  NDJSON writes one JSON object per line, CSV writes a header line followed by one line per row.
+ *  </p>
+ *  @author Vinay Singh
+ */
+public enum ExportFormat {
+	NDJSON("application/x-ndjson"), CSV("text/csv");
+
+	private final String contentType;
+
+	ExportFormat(String contentType) {
+		this.contentType = contentType;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+}
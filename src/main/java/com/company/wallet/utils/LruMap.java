@@ -0,0 +1,42 @@
+package com.company.wallet.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size bounded map evicting the least recently used entry.
+ * Not thread-safe, callers synchronize access.
+ *
+ * @author Vinay Singh
+ */
+public class LruMap<K, V> extends LinkedHashMap<K, V> {
+	private static final long serialVersionUID = 4807731456309532712L;
+
+	private final int maxSize;
+	private long evictions;
+
+	public LruMap(int maxSize) {
+		super(16, 0.75f, true);
+		this.maxSize = maxSize;
+	}
+
+	@Override
+	protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+		if (size() > maxSize) {
+			evictions++;
+			evicted(eldest);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Called with the entry about to be evicted.
+	 */
+	protected void evicted(Map.Entry<K, V> eldest) {
+	}
+
+	public long getEvictions() {
+		return evictions;
+	}
+}
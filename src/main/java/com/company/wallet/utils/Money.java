@@ -0,0 +1,231 @@
+package com.company.wallet.utils;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+/**
+ *  Fixed-point amount of money.
+ *  <p>
+ *  The amount is a long count of minor units (e.g. cents) with a scale, the number of minor unit digits
+ *  of the currency. Arithmetic fails with ArithmeticException instead of overflowing,
+ *  and amounts of different scales can't be mixed.
+ *  </p>
+ *  Wallet balances and transaction amounts are stored in minor units of {@link #SCALE}.
+ *
+ *  @author Vinay Singh
+ */
+public final class Money implements Comparable<Money> {
+
+	/** scale of the wallet currency (EUR) */
+	public static final int SCALE = 2;
+
+	private static final long[] POWERS_OF_TEN = new long[19];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	private static final Money[] ZERO = new Money[POWERS_OF_TEN.length];
+	static {
+		for (int i = 0; i < ZERO.length; i++) {
+			ZERO[i] = new Money(0, i);
+		}
+	}
+
+	private final long minorUnits;
+	private final int scale;
+
+	private Money(long minorUnits, int scale) {
+		this.minorUnits = minorUnits;
+		this.scale = scale;
+	}
+
+	public static Money ofMinor(long minorUnits, int scale) {
+		checkScale(scale);
+		return minorUnits == 0 ? ZERO[scale] : new Money(minorUnits, scale);
+	}
+
+	public static Money ofMinor(long minorUnits) {
+		return ofMinor(minorUnits, SCALE);
+	}
+
+	public static Money zero(int scale) {
+		checkScale(scale);
+		return ZERO[scale];
+	}
+
+	/**
+	 * @return number of minor unit digits of the currency
+	 */
+	public static int scaleOf(Currency currency) {
+		return Math.max(currency.getDefaultFractionDigits(), 0);
+	}
+
+	/**
+	 * Converts a BigDecimal amount.
+	 *
+	 * @throws ArithmeticException if the amount has more fraction digits than the scale or is out of range
+	 */
+	public static Money of(BigDecimal amount, int scale) {
+		checkScale(scale);
+		return ofMinor(amount.setScale(scale).unscaledValue().longValueExact(), scale);
+	}
+
+	public static Money of(BigDecimal amount) {
+		return of(amount, SCALE);
+	}
+
+	/**
+	 * Parses a plain decimal number like "-12.5", without creating a BigDecimal.
+	 * Trailing fraction digits beyond the scale are only allowed if they are zeros.
+	 *
+	 * @throws NumberFormatException if text is not a plain decimal number or out of range
+	 */
+	public static Money parse(CharSequence text, int scale) {
+		checkScale(scale);
+		int length = text.length();
+		int i = 0;
+		boolean negative = false;
+		if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+			negative = text.charAt(0) == '-';
+			i++;
+		}
+
+		long units = 0;
+		int digits = 0;
+		int fractionDigits = -1;
+		try {
+			for (; i < length; i++) {
+				char c = text.charAt(i);
+				if (c == '.' && fractionDigits < 0) {
+					fractionDigits = 0;
+				} else if (c >= '0' && c <= '9') {
+					digits++;
+					if (fractionDigits >= 0 && ++fractionDigits > scale) {
+						if (c != '0') {
+							throw new NumberFormatException("More than " + scale + " fraction digits: " + text);
+						}
+						continue;
+					}
+					// accumulate negatively, so Long.MIN_VALUE minor units can be parsed as well
+					units = Math.subtractExact(Math.multiplyExact(units, 10), c - '0');
+				} else {
+					throw new NumberFormatException("Not a decimal number: " + text);
+				}
+			}
+			if (digits == 0) {
+				throw new NumberFormatException("Not a decimal number: " + text);
+			}
+			int missing = scale - Math.max(Math.min(fractionDigits, scale), 0);
+			units = Math.multiplyExact(units, POWERS_OF_TEN[missing]);
+			return ofMinor(negative ? units : Math.negateExact(units), scale);
+		} catch (ArithmeticException ex) {
+			throw new NumberFormatException("Out of range: " + text);
+		}
+	}
+
+	public static Money parse(CharSequence text) {
+		return parse(text, SCALE);
+	}
+
+	private static void checkScale(int scale) {
+		if (scale < 0 || scale >= POWERS_OF_TEN.length) {
+			throw new IllegalArgumentException("Unsupported scale " + scale);
+		}
+	}
+
+	private void checkSameScale(Money other) {
+		if (scale != other.scale) {
+			throw new IllegalArgumentException("Scale " + other.scale + " doesn't match " + scale);
+		}
+	}
+
+	public long getMinorUnits() {
+		return minorUnits;
+	}
+
+	public int getScale() {
+		return scale;
+	}
+
+	public Money add(Money other) {
+		checkSameScale(other);
+		return ofMinor(Math.addExact(minorUnits, other.minorUnits), scale);
+	}
+
+	public Money subtract(Money other) {
+		checkSameScale(other);
+		return ofMinor(Math.subtractExact(minorUnits, other.minorUnits), scale);
+	}
+
+	public Money negate() {
+		return minorUnits == 0 ? this : new Money(Math.negateExact(minorUnits), scale);
+	}
+
+	public Money abs() {
+		return minorUnits < 0 ? negate() : this;
+	}
+
+	public int signum() {
+		return Long.signum(minorUnits);
+	}
+
+	@Override
+	public int compareTo(Money other) {
+		checkSameScale(other);
+		return Long.compare(minorUnits, other.minorUnits);
+	}
+
+	/**
+	 * @return the amount with trailing fraction zeros removed, e.g. 10 for 10.00 and 10.5 for 10.50
+	 */
+	public BigDecimal toBigDecimal() {
+		long unit = POWERS_OF_TEN[scale];
+		if (minorUnits % unit == 0) {
+			return BigDecimal.valueOf(minorUnits / unit);
+		}
+		return BigDecimal.valueOf(minorUnits, scale).stripTrailingZeros();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Money)) {
+			return false;
+		}
+		Money other = (Money) obj;
+		return minorUnits == other.minorUnits && scale == other.scale;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(minorUnits) * 31 + scale;
+	}
+
+	/**
+	 * @return plain decimal number with scale fraction digits, e.g. "-12.50"
+	 */
+	@Override
+	public String toString() {
+		if (scale == 0) {
+			return Long.toString(minorUnits);
+		}
+		StringBuilder text = new StringBuilder(21);
+		long unit = POWERS_OF_TEN[scale];
+		long whole = minorUnits / unit;
+		long fraction = Math.abs(minorUnits % unit);
+		if (minorUnits < 0 && whole == 0) {
+			text.append('-');
+		}
+		text.append(whole).append('.');
+		String fractionText = Long.toString(fraction);
+		for (int i = fractionText.length(); i < scale; i++) {
+			text.append('0');
+		}
+		return text.append(fractionText).toString();
+	}
+}
@@ -0,0 +1,41 @@
+package com.company.wallet.utils;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared by keys with the same hash stripe.
+ * <p>
+ * Equal keys always get the same lock. Different keys get different locks unless they fall into the
+ * same stripe, which happens with probability 1/stripes per pair of keys.
+ * </p>
+ * @author Vinay Singh
+ */
+public class StripedLock {
+	private final ReentrantLock[] locks;
+	private final int mask;
+
+	/**
+	 * @param stripes minimum number of locks, rounded up to a power of two
+	 */
+	public StripedLock(int stripes) {
+		int size = 1;
+		while (size < stripes) {
+			size <<= 1;
+		}
+		this.locks = new ReentrantLock[size];
+		for (int i = 0; i < size; i++) {
+			locks[i] = new ReentrantLock();
+		}
+		this.mask = size - 1;
+	}
+
+	public Lock get(Object key) {
+		int hash = key.hashCode();
+		return locks[(hash ^ (hash >>> 16)) & mask];
+	}
+
+	public int getStripes() {
+		return locks.length;
+	}
+}
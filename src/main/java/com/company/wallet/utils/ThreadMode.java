@@ -0,0 +1,13 @@
+package com.company.wallet.utils;
+
+/**
+ *  Threads running request handling and service calls.
+ *  <p>
+ *  PLATFORM uses the Tomcat thread pool, VIRTUAL runs every request on its own virtual thread
+ *  and needs Java 21, see {@link VirtualThreads}.
+ *  </p>
+ *  @author Vinay Singh
+ */
+public enum ThreadMode {
+	PLATFORM, VIRTUAL
+}
@@ -0,0 +1,71 @@
+package com.company.wallet.utils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads of Java 21.
+ * <p>
+ * The application is compiled for Java 8, so the Java 21 API is called reflectively.
+ * Everything here fails with IllegalStateException on older runtimes.
+ * </p>
+ * @author Vinay Singh
+ */
+public final class VirtualThreads {
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * @return whether the runtime supports virtual threads
+	 */
+	public static boolean isSupported() {
+		try {
+			Thread.class.getMethod("ofVirtual");
+			return true;
+		} catch (NoSuchMethodException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * @param prefix name prefix, the threads are numbered from 0
+	 * @return factory of virtual threads
+	 */
+	public static ThreadFactory factory(String prefix) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+		} catch (NoSuchMethodException | ClassNotFoundException ex) {
+			throw unsupported(ex);
+		} catch (IllegalAccessException | InvocationTargetException ex) {
+			throw new IllegalStateException("Could not create virtual thread factory", ex);
+		}
+	}
+
+	/**
+	 * @param prefix name prefix of the threads
+	 * @return executor starting a new virtual thread for every task
+	 */
+	public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+		ThreadFactory factory = factory(prefix);
+		try {
+			Method method = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			return (ExecutorService) method.invoke(null, factory);
+		} catch (NoSuchMethodException ex) {
+			throw unsupported(ex);
+		} catch (IllegalAccessException | InvocationTargetException ex) {
+			throw new IllegalStateException("Could not create virtual thread executor", ex);
+		}
+	}
+
+	private static IllegalStateException unsupported(Exception cause) {
+		return new IllegalStateException("Virtual threads need Java 21, running on Java "
+				+ System.getProperty("java.version"), cause);
+	}
+}
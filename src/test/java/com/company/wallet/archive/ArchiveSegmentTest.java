@@ -0,0 +1,113 @@
+package com.company.wallet.archive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * ArchiveSegment tests.
+ *
+ * @author Vinay Singh
+ */
+public class ArchiveSegmentTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static SortedMap<String, List<ArchivedTransaction>> transactions() {
+		SortedMap<String, List<ArchivedTransaction>> transactions = new TreeMap<>();
+		List<ArchivedTransaction> history = new ArrayList<>();
+		for (int i = 1000; i > 0; i--) {
+			history.add(new ArchivedTransaction(i, "t-" + i, i % 3 == 0 ? TransactionType.DEBIT : TransactionType.CREDIT,
+					i * 100L, 1_000_000L + i));
+		}
+		transactions.put("player1", history);
+		transactions.put("player2", Arrays.asList(new ArchivedTransaction(2000, "t-2000", TransactionType.CREDIT, 5, 42)));
+		return transactions;
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("1.segment");
+		ArchiveSegment.write(file, 3, transactions());
+
+		try (ArchiveSegment segment = ArchiveSegment.open(file)) {
+			assertEquals(3, segment.getShard());
+			assertEquals(2, segment.getPlayerIds().size());
+
+			List<ArchivedTransaction> history = segment.read("player1");
+			assertEquals(1000, history.size());
+			ArchivedTransaction newest = history.get(0);
+			assertEquals(1000, newest.getId());
+			assertEquals("t-1000", newest.getTransactionId());
+			assertEquals(TransactionType.CREDIT, newest.getTransactionType());
+			assertEquals(100000L, newest.getAmount());
+			assertEquals(1_001_000L, newest.getUpdatedTime());
+			assertEquals(TransactionType.DEBIT, history.get(1).getTransactionType());
+			assertEquals(-99900L, history.get(1).getDelta());
+
+			assertEquals(1, segment.read("player2").size());
+			assertTrue(segment.read("player3").isEmpty());
+		}
+	}
+
+	@Test
+	public void testOverlaps() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("1.segment");
+		ArchiveSegment.write(file, 0, transactions());
+
+		try (ArchiveSegment segment = ArchiveSegment.open(file)) {
+			assertTrue(segment.overlaps("player1", 1_001_000L, Long.MAX_VALUE));
+			assertFalse(segment.overlaps("player1", 1_001_001L, Long.MAX_VALUE));
+			assertFalse(segment.overlaps("player1", Long.MIN_VALUE, 1_000_000L));
+			assertFalse(segment.overlaps("player3", Long.MIN_VALUE, Long.MAX_VALUE));
+			assertEquals(42, segment.getMaxTime("player2"));
+		}
+	}
+
+	@Test
+	public void testCorruptBlock_thenRejected() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("1.segment");
+		ArchiveSegment.write(file, 0, transactions());
+		try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+			// first byte of the first block, right after the header
+			raf.seek(10);
+			int b = raf.read();
+			raf.seek(10);
+			raf.write(b ^ 0xff);
+		}
+
+		try (ArchiveSegment segment = ArchiveSegment.open(file)) {
+			segment.read("player1");
+			fail();
+		} catch (IOException ex) {
+			assertTrue(ex.getMessage().contains("corrupt"));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncated_thenNotOpened() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("1.segment");
+		ArchiveSegment.write(file, 0, transactions());
+		try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+			raf.setLength(raf.length() - 1);
+		}
+		ArchiveSegment.open(file);
+	}
+}
@@ -0,0 +1,173 @@
+package com.company.wallet.archive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.company.wallet.entities.ArchivedTransactionId;
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.repository.ArchivedTransactionIdRepository;
+import com.company.wallet.repository.TransactionRepository;
+import com.company.wallet.repository.WalletRepository;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * TransactionArchiver and TransactionArchive tests.
+ * Use in-memory h2database, committed by every repository call, since the archiver runs its own database transactions
+ *
+ * @author Vinay Singh
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ TransactionArchive.class, TransactionArchiver.class })
+@TestPropertySource(properties = { "wallet.archive.enabled=true", "wallet.archive.batch-size=2",
+		"wallet.archive.dir=target/archive-test-${random.uuid}" })
+public class TransactionArchiverTest {
+
+	@Autowired
+	private TransactionArchiver transactionArchiver;
+
+	@Autowired
+	private TransactionArchive transactionArchive;
+
+	@Autowired
+	private WalletRepository walletRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private ArchivedTransactionIdRepository archivedTransactionIdRepository;
+
+	private Wallet wallet1;
+	private Wallet wallet2;
+
+	@Before
+	public void before() {
+		wallet1 = walletRepository.save(new Wallet("archived-player1", Money.parse("10")));
+		wallet2 = walletRepository.save(new Wallet("archived-player2", Money.parse("10")));
+	}
+
+	@After
+	public void after() {
+		transactionRepository.deleteAll();
+		archivedTransactionIdRepository.deleteAll();
+		walletRepository.deleteAll();
+	}
+
+	private Transaction transaction(String transactionId, TransactionType type, long minorUnits, Wallet wallet,
+			long time) {
+		Transaction transaction = new Transaction(transactionId, type, Money.ofMinor(minorUnits), wallet);
+		transaction.setUpdatedTime(new Date(time));
+		return transactionRepository.save(transaction);
+	}
+
+	private static List<String> transactionIds(List<Transaction> transactions) {
+		return transactions.stream().map(Transaction::getTransactionId).collect(Collectors.toList());
+	}
+
+	@Test
+	public void whenArchive_thenOldTransactionsReadFromSegments() {
+		Transaction oldest = transaction("a1", TransactionType.CREDIT, 100, wallet1, 1000);
+		transaction("a2", TransactionType.DEBIT, 30, wallet1, 2000);
+		Transaction newest = transaction("a3", TransactionType.CREDIT, 100, wallet1, 3000);
+		transaction("a4", TransactionType.CREDIT, 100, wallet2, 1500);
+		transaction("recent", TransactionType.CREDIT, 100, wallet1, System.currentTimeMillis());
+
+		// two transactions per segment
+		assertEquals(4, transactionArchiver.archive(new Date(10000)));
+		assertEquals(Arrays.asList("recent"), transactionIds(transactionRepository.findAll()));
+		assertEquals(0, transactionArchiver.archive(new Date(10000)));
+
+		List<Transaction> history = transactionArchive.findAll(wallet1);
+		assertEquals(Arrays.asList("a3", "a2", "a1"), transactionIds(history));
+		assertEquals(newest.getId(), history.get(0).getId());
+		assertEquals(new Date(3000), history.get(0).getUpdatedTime());
+		assertEquals(Money.ofMinor(30), history.get(1).getAmountMoney());
+		assertEquals(TransactionType.DEBIT, history.get(1).getTransactionType());
+
+		assertEquals(Arrays.asList("a2"),
+				transactionIds(transactionArchive.findPage(wallet1, new Date(3000), newest.getId(), 1)));
+		assertEquals(Arrays.asList("a1"),
+				transactionIds(transactionArchive.findPage(wallet1, new Date(2000), oldest.getId() + 1, 5)));
+		assertEquals(Arrays.asList("a4"), transactionIds(transactionArchive.findAll(wallet2)));
+
+		assertEquals(70, transactionArchive.sumAmountBetween(wallet1.getPlayerId(), new Date(1000), null));
+		assertEquals(170, transactionArchive.sumAmountBetween(wallet1.getPlayerId(), new Date(0), new Date(3000)));
+		assertEquals(0, transactionArchive.sumAmountBetween(wallet1.getPlayerId(), new Date(3000), null));
+	}
+
+	@Test
+	public void whenArchive_thenTransactionIdsKept() {
+		Transaction transaction = transaction("k1", TransactionType.DEBIT, 30, wallet1, 1000);
+
+		assertEquals(1, transactionArchiver.archive(new Date(10000)));
+		assertEquals(Arrays.asList("k1"), transactionRepository.findExistingTransactionIds(Arrays.asList("k1", "k2")));
+		ArchivedTransactionId archived = archivedTransactionIdRepository.findOneByTransactionId("k1");
+		assertEquals(transaction.getId(), archived.getId());
+		assertEquals(wallet1.getPlayerId(), archived.getPlayerId());
+
+		Transaction found = transactionArchive.find(wallet1, archived.getId());
+		assertEquals("k1", found.getTransactionId());
+		assertEquals(Money.ofMinor(30), found.getAmountMoney());
+	}
+
+	@Test
+	public void whenPendingSegment_thenPublishedAfterDeletingItsTransactions() throws Exception {
+		// the archive keeps the segments of the other tests, so a player of its own
+		Wallet wallet = walletRepository.save(new Wallet("pending-player", Money.parse("10")));
+		Transaction transaction = transaction("p1", TransactionType.CREDIT, 100, wallet, 1000);
+		// left by a run interrupted before its transactions were deleted
+		SortedMap<String, List<ArchivedTransaction>> transactions = new TreeMap<>();
+		transactions.put(wallet.getPlayerId(), Collections.singletonList(new ArchivedTransaction(transaction.getId(),
+				"p1", TransactionType.CREDIT, 100, 1000)));
+		Path pending = transactionArchive.nextPendingFile();
+		ArchiveSegment.write(pending, 0, transactions);
+
+		assertEquals(0, transactionArchiver.archive(new Date(0)));
+		assertTrue(transactionRepository.findAll().isEmpty());
+		assertTrue(transactionArchive.pendingFiles().isEmpty());
+		assertEquals(Arrays.asList("p1"), transactionIds(transactionArchive.findAll(wallet)));
+		assertNotNull(archivedTransactionIdRepository.findOneByTransactionId("p1"));
+	}
+
+	@Test
+	public void whenPendingSegmentAlreadyDeleted_thenTombstonesKept() throws Exception {
+		// left by a run which deleted its transactions but couldn't publish the segment
+		archivedTransactionIdRepository.save(new ArchivedTransactionId(100, "d1", "deleted-player"));
+		SortedMap<String, List<ArchivedTransaction>> transactions = new TreeMap<>();
+		transactions.put("deleted-player", Collections.singletonList(new ArchivedTransaction(100, "d1",
+				TransactionType.CREDIT, 100, 1000)));
+		Path pending = transactionArchive.nextPendingFile();
+		ArchiveSegment.write(pending, 0, transactions);
+
+		assertEquals(0, transactionArchiver.archive(new Date(0)));
+		assertTrue(transactionArchive.pendingFiles().isEmpty());
+		assertEquals(1, archivedTransactionIdRepository.count());
+		assertEquals("deleted-player", archivedTransactionIdRepository.findOneById(100).getPlayerId());
+	}
+}
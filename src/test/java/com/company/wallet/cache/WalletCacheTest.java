@@ -0,0 +1,134 @@
+package com.company.wallet.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.utils.Money;
+
+/**
+ * WalletCache tests.
+ *
+ * @author Vinay Singh
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = { "wallet.cache.max-size=2", "wallet.cache.ttl-ms=60000" })
+public class WalletCacheTest {
+	@TestConfiguration
+	static class WalletCacheTestContextConfiguration {
+		@Bean
+		public WalletCache walletCache() {
+			return new WalletCache();
+		}
+	}
+
+	@Autowired
+	private WalletCache walletCache;
+
+	private Wallet wallet(String playerId, int balance) {
+		Wallet wallet = new Wallet(playerId, new BigDecimal(balance));
+		wallet.setId(1);
+		return wallet;
+	}
+
+	@Test
+	public void testGet_ReturnsCopy() {
+		Wallet wallet = wallet("copyPlayer", 10);
+		walletCache.put(wallet, walletCache.stamp());
+		wallet.setBalance(new BigDecimal(20));
+
+		Wallet found = walletCache.get("copyPlayer");
+		assertNotNull(found);
+		assertNotSame(wallet, found);
+		assertEquals(new BigDecimal(10), found.getBalance());
+	}
+
+	@Test
+	public void testPut_LoadedBeforeInvalidation() {
+		walletCache.put(wallet("stalePlayer", 10), walletCache.stamp());
+
+		long stamp = walletCache.stamp();
+		walletCache.invalidate("stalePlayer");
+		walletCache.put(wallet("stalePlayer", 10), stamp);
+		assertNull(walletCache.get("stalePlayer"));
+
+		walletCache.put(wallet("stalePlayer", 30), walletCache.stamp());
+		assertEquals(new BigDecimal(30), walletCache.get("stalePlayer").getBalance());
+	}
+
+	@Test
+	public void testPut_LoadedBeforeNewerSnapshot() {
+		// reader A loads the balance before a write commits, reader B after it
+		long staleStamp = walletCache.stamp();
+		walletCache.invalidate("racePlayer");
+		walletCache.put(wallet("racePlayer", 30), walletCache.stamp());
+
+		walletCache.put(wallet("racePlayer", 10), staleStamp);
+		assertEquals(new BigDecimal(30), walletCache.get("racePlayer").getBalance());
+	}
+
+	@Test
+	public void testPut_InvalidationEvicted() {
+		long stamp = walletCache.stamp();
+		walletCache.invalidate("evictedPlayer");
+		walletCache.put(wallet("other1", 1), walletCache.stamp());
+		walletCache.put(wallet("other2", 2), walletCache.stamp());
+
+		walletCache.put(wallet("evictedPlayer", 10), stamp);
+		assertNull(walletCache.get("evictedPlayer"));
+	}
+
+	@Test
+	public void testPutMissing_ReplacedByCreatedWallet() {
+		walletCache.putMissing("newPlayer", walletCache.stamp());
+		assertTrue(walletCache.isKnownMissing("newPlayer"));
+		assertNull(walletCache.get("newPlayer"));
+
+		walletCache.put(wallet("newPlayer", 10), walletCache.stamp());
+		assertFalse(walletCache.isKnownMissing("newPlayer"));
+		assertEquals(new BigDecimal(10), walletCache.get("newPlayer").getBalance());
+
+		walletCache.putMissing("newPlayer", walletCache.stamp());
+		assertFalse(walletCache.isKnownMissing("newPlayer"));
+	}
+
+	@Test
+	public void testRecordInsufficientFunds_UntilInvalidation() {
+		walletCache.recordInsufficientFunds("poorPlayer", Money.ofMinor(500), walletCache.stamp());
+		assertTrue(walletCache.isKnownInsufficient("poorPlayer", Money.ofMinor(500)));
+		assertTrue(walletCache.isKnownInsufficient("poorPlayer", Money.ofMinor(600)));
+		assertFalse(walletCache.isKnownInsufficient("poorPlayer", Money.ofMinor(499)));
+
+		walletCache.invalidate("poorPlayer");
+		assertFalse(walletCache.isKnownInsufficient("poorPlayer", Money.ofMinor(600)));
+	}
+
+	@Test
+	public void testRecordInsufficientFunds_BalanceChangedSinceStamp() {
+		long stamp = walletCache.stamp();
+		walletCache.invalidate("creditedPlayer");
+		walletCache.recordInsufficientFunds("creditedPlayer", Money.ofMinor(500), stamp);
+		assertFalse(walletCache.isKnownInsufficient("creditedPlayer", Money.ofMinor(500)));
+	}
+
+	@Test
+	public void testIsKnownInsufficient_CachedBalance() {
+		walletCache.put(wallet("cachedPlayer", 10), walletCache.stamp());
+		assertTrue(walletCache.isKnownInsufficient("cachedPlayer", Money.ofMinor(1001)));
+		assertFalse(walletCache.isKnownInsufficient("cachedPlayer", Money.ofMinor(1000)));
+	}
+}
@@ -0,0 +1,99 @@
+package com.company.wallet.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+
+import com.company.wallet.dto.TransactionCommand;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * TransactionCommandDecoder tests.
+ *
+ * @author Vinay Singh
+ */
+public class TransactionCommandDecoderTest {
+	private final TransactionCommandDecoder decoder = new TransactionCommandDecoder();
+
+	private TransactionCommand decode(String json) throws IOException, WalletException {
+		return decoder.decode(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private void assertRejected(String json, String message) throws IOException {
+		try {
+			decode(json);
+			fail(json);
+		} catch (WalletException ex) {
+			assertEquals(message, ex.getMessage());
+			assertEquals(HttpStatus.BAD_REQUEST.value(), ex.getErrorCode());
+		}
+	}
+
+	@Test
+	public void testDecode() throws Exception {
+		TransactionCommand command = decode(
+				"{\"transactionId\":\"t1\",\"playerId\":\"p1\",\"transactionType\":\"DEBIT\",\"amount\":\"12.5\"}");
+		assertEquals("t1", command.getTransactionId());
+		assertEquals("p1", command.getPlayerId());
+		assertEquals(TransactionType.DEBIT, command.getTransactionType());
+		assertEquals(Money.ofMinor(1250), command.getAmount());
+	}
+
+	@Test
+	public void testDecode_NumbersAndUnknownFields() throws Exception {
+		TransactionCommand command = decode("{\"amount\":100,\"extra\":{\"a\":[1,2]},\"transactionId\":7,"
+				+ "\"playerId\":\"p1\",\"transactionType\":\"CREDIT\"}");
+		assertEquals("7", command.getTransactionId());
+		assertEquals(Money.ofMinor(10000), command.getAmount());
+	}
+
+	@Test
+	public void testDecode_ReusesCommand() throws Exception {
+		TransactionCommand first = decode(
+				"{\"transactionId\":\"t1\",\"playerId\":\"p1\",\"transactionType\":\"CREDIT\",\"amount\":\"1\"}");
+		TransactionCommand second = decode(
+				"{\"transactionId\":\"t2\",\"playerId\":\"p2\",\"transactionType\":\"DEBIT\",\"amount\":\"2\"}");
+		assertSame(first, second);
+		assertEquals("t2", second.getTransactionId());
+	}
+
+	@Test
+	public void testDecode_MissingFields() throws Exception {
+		assertRejected("{\"playerId\":\"p1\",\"transactionType\":\"CREDIT\",\"amount\":\"1\"}",
+				"transactionId can not be null and empty");
+		assertRejected("{\"transactionId\":\"t1\",\"playerId\":\" \",\"transactionType\":\"CREDIT\",\"amount\":\"1\"}",
+				"playerId can not be null and empty");
+		assertRejected("{\"transactionId\":\"t1\",\"playerId\":\"p1\",\"transactionType\":\"CREDIT\",\"amount\":null}",
+				"amount can not be null and empty");
+		assertRejected("{\"transactionId\":\"t1\",\"playerId\":\"p1\",\"amount\":\"1\"}",
+				"transactionType can not be null and empty");
+	}
+
+	@Test
+	public void testDecode_InvalidValues() throws Exception {
+		assertRejected("{\"transactionId\":\"t1\",\"playerId\":\"p1\",\"transactionType\":\"credit\",\"amount\":\"1\"}",
+				"Please specify valid transactionType: CREDIT OR DEBIT");
+		assertRejected("{\"transactionId\":\"t1\",\"playerId\":\"p1\",\"transactionType\":\"CREDIT\",\"amount\":\"1.234\"}",
+				"Please specify valid amount");
+		assertRejected("{\"transactionId\":\"t1\",\"playerId\":\"p1\",\"transactionType\":\"CREDIT\",\"amount\":[1]}",
+				"Please specify valid amount");
+	}
+
+	@Test
+	public void testDecode_NotAnObject() throws Exception {
+		String message = "Please specify the transaction as a JSON object";
+		assertRejected("", message);
+		assertRejected("[]", message);
+		assertRejected("{\"transactionId\":\"t1\"", message);
+		assertRejected("{\"transactionId\":\"t1\"} {}", message);
+	}
+}
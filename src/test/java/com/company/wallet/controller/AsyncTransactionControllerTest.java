@@ -0,0 +1,145 @@
+package com.company.wallet.controller;
+
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.metrics.WalletMetrics;
+import com.company.wallet.service.RequestExecutor;
+import com.company.wallet.service.TransactionService;
+import com.company.wallet.service.WalletService;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+import com.google.gson.GsonBuilder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * AsyncTransactionController tests.
+ * @author Vinay Singh
+ */
+@RunWith(SpringRunner.class)
+@WebMvcTest(AsyncTransactionController.class)
+@TestPropertySource(properties = { "wallet.async.threads=1", "wallet.async.queue-capacity=1",
+		"wallet.async.retry-after-seconds=2" })
+public class AsyncTransactionControllerTest {
+	@TestConfiguration
+	static class AsyncTransactionControllerTestContextConfiguration {
+		@Bean
+		public MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		public WalletMetrics walletMetrics() {
+			return new WalletMetrics();
+		}
+
+		@Bean
+		public RequestExecutor requestExecutor() {
+			return new RequestExecutor();
+		}
+	}
+
+	@Autowired
+	private MockMvc mvc;
+
+	@MockBean
+	private WalletService walletService;
+
+	@MockBean
+	private TransactionService service;
+
+	private String json(String transactionId) {
+		Map<String, String> dataMap = new HashMap<>();
+		dataMap.put("transactionId", transactionId);
+		dataMap.put("playerId", "player1");
+		dataMap.put("transactionType", "CREDIT");
+		dataMap.put("amount", "10");
+		return new GsonBuilder().create().toJson(dataMap);
+	}
+
+	@Test
+	public void testCreateTransaction_thenReturnCreated() throws Exception {
+		Transaction transaction = new Transaction("a1", TransactionType.CREDIT, new BigDecimal(10),
+				new Wallet("player1", new BigDecimal(10)));
+		transaction.setId(5);
+		given(service.createTransaction("a1", "player1", TransactionType.CREDIT, Money.parse("10")))
+				.willReturn(transaction);
+
+		MvcResult result = mvc.perform(post("/api/async/transactions").content(json("a1"))
+				.contentType(MediaType.APPLICATION_JSON)).andExpect(request().asyncStarted()).andReturn();
+		mvc.perform(asyncDispatch(result)).andExpect(status().isCreated())
+				.andExpect(header().string("Location", "http://localhost/api/transactions/5"));
+	}
+
+	@Test
+	public void testCreateTransaction_whenFailed_thenReturnError() throws Exception {
+		given(service.createTransaction("a2", "player1", TransactionType.CREDIT, Money.parse("10"))).willThrow(
+				new WalletException("No wallet found with playerId player1", HttpStatus.NOT_FOUND.value()));
+
+		MvcResult result = mvc.perform(post("/api/async/transactions").content(json("a2"))
+				.contentType(MediaType.APPLICATION_JSON)).andExpect(request().asyncStarted()).andReturn();
+		mvc.perform(asyncDispatch(result)).andExpect(status().isNotFound());
+	}
+
+	@Test
+	public void testCreateTransaction_whenInvalidAmount_thenReturnBadRequest() throws Exception {
+		String json = json("a4").replace("\"10\"", "\"ten\"");
+		mvc.perform(post("/api/async/transactions").content(json).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(request().asyncNotStarted()).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void testCreateTransaction_whenSaturated_thenReturnServiceUnavailable() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch finished = new CountDownLatch(2);
+		given(service.createTransaction("a3", "player1", TransactionType.CREDIT, Money.parse("10"))).willAnswer(invocation -> {
+			started.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			finished.countDown();
+			return null;
+		});
+
+		try {
+			// one request running, one queued, the third is rejected
+			mvc.perform(post("/api/async/transactions").content(json("a3")).contentType(MediaType.APPLICATION_JSON));
+			started.await(5, TimeUnit.SECONDS);
+			mvc.perform(post("/api/async/transactions").content(json("a3")).contentType(MediaType.APPLICATION_JSON));
+			mvc.perform(post("/api/async/transactions").content(json("a3")).contentType(MediaType.APPLICATION_JSON))
+					.andExpect(status().isServiceUnavailable()).andExpect(header().string("Retry-After", "2"));
+		} finally {
+			release.countDown();
+			// the queue is empty again for the next test once the queued request runs
+			finished.await(5, TimeUnit.SECONDS);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.company.wallet.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.company.wallet.service.ExportService;
+import com.company.wallet.utils.ExportFormat;
+
+/**
+ * ExportController tests.
+ * @author Vinay Singh
+ */
+@RunWith(SpringRunner.class)
+@WebMvcTest(ExportController.class)
+@TestPropertySource(properties = "wallet.export.timeout-ms=120000")
+public class ExportControllerTest {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@MockBean
+	private ExportService exportService;
+
+	@Test
+	public void testExportTransactions_StreamedWithExportTimeout() throws Exception {
+		willAnswer(invocation -> {
+			invocation.<OutputStream> getArgument(1).write("id,transactionId\n".getBytes(StandardCharsets.UTF_8));
+			return null;
+		}).given(exportService).exportTransactions(eq(ExportFormat.CSV), any(OutputStream.class));
+
+		MvcResult result = mvc.perform(get("/api/export/transactions?format=csv"))
+				.andExpect(request().asyncStarted()).andReturn();
+		assertEquals(120000, result.getRequest().getAsyncContext().getTimeout());
+		mvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+				.andExpect(content().string("id,transactionId\n"));
+	}
+
+	@Test
+	public void testExportWallets_UnknownFormat() throws Exception {
+		mvc.perform(get("/api/export/wallets?format=xml")).andExpect(status().isBadRequest());
+	}
+}
@@ -12,6 +12,7 @@ import static org.hamcrest.Matchers.*;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -25,11 +26,14 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.company.wallet.controller.TransactionController;
+import com.company.wallet.dto.TransactionPage;
+import com.company.wallet.dto.TransactionResult;
 import com.company.wallet.entities.Transaction;
 import com.company.wallet.entities.Wallet;
-import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.exception.handler.AdmissionException;
 import com.company.wallet.service.TransactionService;
 import com.company.wallet.service.WalletService;
+import com.company.wallet.utils.Money;
 import com.company.wallet.utils.TransactionType;
 import com.google.gson.GsonBuilder;
 
@@ -74,17 +78,30 @@ public class TransactionControllerTest {
 		List<Transaction> allTransactions = Arrays.asList(transactionCredit);
 
 		given(walletService.findWalletByPlayerId(PLAYER_ID_1)).willReturn(wallet);
-		given(service.getTransactionsByWallet(wallet)).willReturn(allTransactions);
+		given(service.getTransactionPage(wallet, null, 100)).willReturn(new TransactionPage(allTransactions, null));
 
 		mvc.perform(
 				get("/api/wallets/player/{playerId}/transactions", PLAYER_ID_1).contentType(MediaType.APPLICATION_JSON))
-				.andExpect(status().isOk()).andExpect(jsonPath("$", hasSize(1)))
+				.andExpect(status().isOk()).andExpect(header().doesNotExist("X-Next-Cursor"))
+				.andExpect(jsonPath("$", hasSize(1)))
 				.andExpect(jsonPath("$[0].id", is(transactionCredit.getId())))
 				.andExpect(jsonPath("$[0].transactionId", is(transactionCredit.getTransactionId())))
 				.andExpect(jsonPath("$[0].transactionType", is(transactionCredit.getTransactionType().name())))
 				.andExpect(jsonPath("$[0].amount", is(transactionCredit.getAmount().intValue())));
 	}
 
+	@Test
+	public void testGetWalletTransactionsById_whenMorePages_thenReturnNextCursor() throws Exception {
+		given(walletService.findWalletByPlayerId(PLAYER_ID_1)).willReturn(wallet);
+		given(service.getTransactionPage(wallet, "cursor1", 1))
+				.willReturn(new TransactionPage(Arrays.asList(transactionCredit), "cursor2"));
+
+		mvc.perform(get("/api/wallets/player/{playerId}/transactions", PLAYER_ID_1).param("limit", "1")
+				.param("after", "cursor1").contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(header().string("X-Next-Cursor", "cursor2"))
+				.andExpect(jsonPath("$", hasSize(1)));
+	}
+
 	@Test
 	public void testCreateTransaction_thenReturnJson() throws Exception {
 		Map<String, String> dataMap = new HashMap<>();
@@ -93,14 +110,44 @@ public class TransactionControllerTest {
 		dataMap.put("transactionType", transactionCredit.getTransactionType().name());
 		dataMap.put("amount", transactionCredit.getAmount().toString());
 
-		given(service.createTransaction(dataMap.get("transactionId"), dataMap.get("playerId"),
-				dataMap.get("transactionType"), dataMap.get("amount"))).willReturn(transactionCredit);
+		given(service.createTransaction(dataMap.get("transactionId"), dataMap.get("playerId"), TransactionType.CREDIT,
+				Money.parse(dataMap.get("amount")))).willReturn(transactionCredit);
 		String validJson = new GsonBuilder().create().toJson(dataMap);
 
 		mvc.perform(post("/api/transactions").content(validJson).contentType(MediaType.APPLICATION_JSON))
 				.andExpect(status().isCreated());
 	}
 
+	@Test
+	public void testCreateTransaction_whenNotJson_thenUnsupportedMediaType() throws Exception {
+		String json = "{\"transactionId\":\"t1\",\"playerId\":\"player1\",\"transactionType\":\"CREDIT\","
+				+ "\"amount\":\"10\"}";
+
+		mvc.perform(post("/api/transactions").content(json).contentType(MediaType.TEXT_PLAIN))
+				.andExpect(status().isUnsupportedMediaType());
+		mvc.perform(post("/api/transactions").content(json)).andExpect(status().isUnsupportedMediaType());
+	}
+
+	@Test
+	public void testCreateTransaction_whenRejectedByAdmission_thenBadRequest() throws Exception {
+		Map<String, String> dataMap = new HashMap<>();
+		dataMap.put("transactionId", "doomed");
+		dataMap.put("playerId", transactionCredit.getWallet().getPlayerId());
+		dataMap.put("transactionType", TransactionType.DEBIT.name());
+		dataMap.put("amount", "1000000");
+
+		given(service.createTransaction("doomed", dataMap.get("playerId"), TransactionType.DEBIT,
+				Money.parse("1000000"))).willThrow(AdmissionException.INSUFFICIENT_FUNDS);
+		String json = new GsonBuilder().create().toJson(dataMap);
+
+		for (int i = 0; i < 2; i++) {
+			mvc.perform(post("/api/transactions").content(json).contentType(MediaType.APPLICATION_JSON))
+					.andExpect(status().isBadRequest())
+					.andExpect(jsonPath("$.message", is("No sufficient funds in account for withdrawl")))
+					.andExpect(jsonPath("$.details", is("uri=/api/transactions")));
+		}
+	}
+
 	@Test
 	public void testCreateTransaction_NoTransactionId() throws Exception {
 
@@ -112,8 +159,6 @@ public class TransactionControllerTest {
 
 		String errorMessage = "transactionId can not be null and empty";
 
-		given(service.createTransaction(null, dataMap.get("playerId"), dataMap.get("transactionType"),
-				dataMap.get("amount"))).willThrow(new WalletException(errorMessage, HttpStatus.BAD_REQUEST.value()));
 		String json = new GsonBuilder().create().toJson(dataMap);
 
 		mvc.perform(post("/api/transactions").content(json).contentType(MediaType.APPLICATION_JSON))
@@ -132,8 +177,6 @@ public class TransactionControllerTest {
 
 		String errorMessage = "playerId can not be null and empty";
 
-		given(service.createTransaction(dataMap.get("transactionId"), null, dataMap.get("transactionType"),
-				dataMap.get("amount"))).willThrow(new WalletException(errorMessage, HttpStatus.BAD_REQUEST.value()));
 		String json = new GsonBuilder().create().toJson(dataMap);
 
 		mvc.perform(post("/api/transactions").content(json).contentType(MediaType.APPLICATION_JSON))
@@ -153,8 +196,6 @@ public class TransactionControllerTest {
 
 		String errorMessage = "transactionType can not be null and empty";
 
-		given(service.createTransaction(dataMap.get("transactionId"), dataMap.get("playerId"), null,
-				dataMap.get("amount"))).willThrow(new WalletException(errorMessage, HttpStatus.BAD_REQUEST.value()));
 		String json = new GsonBuilder().create().toJson(dataMap);
 
 		mvc.perform(post("/api/transactions").content(json).contentType(MediaType.APPLICATION_JSON))
@@ -173,9 +214,6 @@ public class TransactionControllerTest {
 
 		String errorMessage = "amount can not be null and empty";
 
-		given(service.createTransaction(dataMap.get("transactionId"), dataMap.get("playerId"),
-				dataMap.get("transactionType"), null))
-						.willThrow(new WalletException(errorMessage, HttpStatus.BAD_REQUEST.value()));
 		String json = new GsonBuilder().create().toJson(dataMap);
 
 		mvc.perform(post("/api/transactions").content(json).contentType(MediaType.APPLICATION_JSON))
@@ -191,12 +229,8 @@ public class TransactionControllerTest {
 		dataMap.put("transactionType", "INVALID");
 		dataMap.put("amount", transactionCredit.getAmount().toString());
 
-		String errorMessage = "Please specify valid transactionType: \" + TransactionType.CREDIT.name() + \" OR \"\n"
-				+ "					+ TransactionType.DEBIT.name()";
+		String errorMessage = "Please specify valid transactionType: CREDIT OR DEBIT";
 
-		given(service.createTransaction(dataMap.get("transactionId"), dataMap.get("playerId"),
-				dataMap.get("transactionType"), dataMap.get("amount")))
-						.willThrow(new WalletException(errorMessage, HttpStatus.BAD_REQUEST.value()));
 		String json = new GsonBuilder().create().toJson(dataMap);
 
 		mvc.perform(post("/api/transactions").content(json).contentType(MediaType.APPLICATION_JSON))
@@ -204,4 +238,28 @@ public class TransactionControllerTest {
 				.andExpect(jsonPath("$.details", is("uri=/api/transactions")));
 	}
 
+	@Test
+	public void testCreateTransactions_thenReturnResults() throws Exception {
+		Map<String, String> dataMap = new HashMap<>();
+		dataMap.put("transactionId", transactionCredit.getTransactionId());
+		dataMap.put("playerId", transactionCredit.getWallet().getPlayerId());
+		dataMap.put("transactionType", transactionCredit.getTransactionType().name());
+		dataMap.put("amount", transactionCredit.getAmount().toString());
+		List<Map<String, String>> dataMaps = Arrays.asList(dataMap, dataMap);
+
+		given(service.createTransactions(dataMaps)).willReturn(Arrays.asList(
+				new TransactionResult(0, transactionCredit.getTransactionId(), HttpStatus.CREATED.value(),
+						transactionCredit.getId(), null),
+				new TransactionResult(1, transactionCredit.getTransactionId(), HttpStatus.CONFLICT.value(), null,
+						"Transaction with transactionId " + transactionCredit.getTransactionId() + " already exists")));
+		String json = new GsonBuilder().create().toJson(dataMaps);
+
+		mvc.perform(post("/api/transactions/batch").content(json).contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(jsonPath("$", hasSize(2)))
+				.andExpect(jsonPath("$[0].status", is(HttpStatus.CREATED.value())))
+				.andExpect(jsonPath("$[0].id", is(transactionCredit.getId())))
+				.andExpect(jsonPath("$[1].status", is(HttpStatus.CONFLICT.value())))
+				.andExpect(jsonPath("$[1].id").doesNotExist());
+	}
+
 }
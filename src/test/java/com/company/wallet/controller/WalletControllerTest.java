@@ -18,6 +18,7 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
 import com.company.wallet.controller.WalletController;
+import com.company.wallet.dto.PlayerStats;
 import com.company.wallet.entities.Wallet;
 import com.company.wallet.exception.handler.WalletException;
 import com.company.wallet.service.WalletService;
@@ -110,4 +111,15 @@ public class WalletControllerTest {
 				.andExpect(status().isBadRequest());
 	}
 
+	@Test
+	public void testGetStats() throws Exception {
+		given(service.getStats(PLAYER_ID_1))
+				.willReturn(new PlayerStats(PLAYER_ID_1, 3, new BigDecimal("45"), 1, new BigDecimal("2.5"), null));
+
+		mvc.perform(get("/api/wallets/player/" + PLAYER_ID_1 + "/stats").contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.playerId", is(PLAYER_ID_1)))
+				.andExpect(jsonPath("$.depositCount", is(3))).andExpect(jsonPath("$.depositAmount", is(45)))
+				.andExpect(jsonPath("$.withdrawalCount", is(1))).andExpect(jsonPath("$.withdrawalAmount", is(2.5)));
+	}
+
 }
@@ -0,0 +1,151 @@
+package com.company.wallet.ingest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.ingest.client.IngestAck;
+import com.company.wallet.ingest.client.IngestClient;
+import com.company.wallet.ingest.client.IngestException;
+import com.company.wallet.metrics.WalletMetrics;
+import com.company.wallet.service.RequestExecutor;
+import com.company.wallet.service.TransactionService;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * IngestServer tests, through the IngestClient.
+ *
+ * @author Vinay Singh
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = { "wallet.ingest.enabled=true", "wallet.ingest.port=0",
+		"wallet.ingest.max-in-flight=16", "wallet.async.threads=4", "wallet.async.queue-capacity=1000" })
+public class IngestServerTest {
+	@TestConfiguration
+	static class IngestServerTestContextConfiguration {
+		@Bean
+		public MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		public WalletMetrics walletMetrics() {
+			return new WalletMetrics();
+		}
+
+		@Bean
+		public RequestExecutor requestExecutor() {
+			return new RequestExecutor();
+		}
+
+		@Bean
+		public IngestServer ingestServer() {
+			return new IngestServer();
+		}
+	}
+
+	@Autowired
+	private IngestServer ingestServer;
+
+	@MockBean
+	private TransactionService transactionService;
+
+	private static Transaction transaction(String transactionId, int id) {
+		Transaction transaction = new Transaction(transactionId, TransactionType.CREDIT, new BigDecimal(10),
+				new Wallet("player1", new BigDecimal(10)));
+		transaction.setId(id);
+		return transaction;
+	}
+
+	@Test
+	public void testCreateTransaction_thenAckWithId() throws Exception {
+		given(transactionService.createTransaction("t1", "player1", TransactionType.CREDIT, Money.ofMinor(1000)))
+				.willReturn(transaction("t1", 5));
+
+		try (IngestClient client = new IngestClient("localhost", ingestServer.getPort())) {
+			assertEquals(5, client.createTransaction("t1", "player1", TransactionType.CREDIT, 1000));
+		}
+	}
+
+	@Test
+	public void testCreateTransaction_whenFailed_thenAckWithStatus() throws Exception {
+		given(transactionService.createTransaction("t2", "player1", TransactionType.DEBIT, Money.ofMinor(1000)))
+				.willThrow(new WalletException("No sufficient funds in account for withdrawl",
+						HttpStatus.BAD_REQUEST.value()));
+
+		try (IngestClient client = new IngestClient("localhost", ingestServer.getPort())) {
+			client.createTransaction("t2", "player1", TransactionType.DEBIT, 1000);
+			fail();
+		} catch (IngestException ex) {
+			assertEquals(HttpStatus.BAD_REQUEST.value(), ex.getStatus());
+		}
+	}
+
+	@Test
+	public void testCreateTransaction_whenBlankPlayerId_thenAckBadRequest() throws Exception {
+		try (IngestClient client = new IngestClient("localhost", ingestServer.getPort())) {
+			IngestAck ack = client.submit("t3", " ", TransactionType.CREDIT, 1000).get(5, TimeUnit.SECONDS);
+			assertEquals(HttpStatus.BAD_REQUEST.value(), ack.getStatus());
+		}
+	}
+
+	@Test
+	public void testPipelined_thenEveryTransactionAcked() throws Exception {
+		given(transactionService.createTransaction(ArgumentMatchers.startsWith("p-"), ArgumentMatchers.eq("player1"),
+				ArgumentMatchers.eq(TransactionType.CREDIT), ArgumentMatchers.any(Money.class)))
+						.willAnswer(invocation -> {
+							String transactionId = invocation.getArgument(0);
+							return transaction(transactionId, Integer.parseInt(transactionId.substring(2)));
+						});
+
+		// more than max-in-flight, so reading the connection pauses and resumes
+		try (IngestClient client = new IngestClient("localhost", ingestServer.getPort())) {
+			List<CompletableFuture<IngestAck>> acks = new ArrayList<>();
+			for (int i = 1; i <= 500; i++) {
+				acks.add(client.submit("p-" + i, "player1", TransactionType.CREDIT, 100));
+			}
+			for (int i = 1; i <= 500; i++) {
+				IngestAck ack = acks.get(i - 1).get(10, TimeUnit.SECONDS);
+				assertEquals(HttpStatus.CREATED.value(), ack.getStatus());
+				assertEquals(i, ack.getTransactionId());
+			}
+		}
+	}
+
+	@Test
+	public void testOversizedFrame_thenConnectionClosed() throws Exception {
+		try (Socket socket = new Socket("localhost", ingestServer.getPort())) {
+			socket.setSoTimeout(5000);
+			new DataOutputStream(socket.getOutputStream()).writeInt(1 << 20);
+			InputStream in = socket.getInputStream();
+			assertEquals(-1, in.read());
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.company.wallet.journal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Journal tests.
+ *
+ * @author Vinay Singh
+ */
+public class JournalTest {
+	private static final int SEGMENT_SIZE = 256;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static byte[] record(int i) {
+		return ("record-" + i).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static List<String> replay(Journal journal, long afterSequence) throws IOException {
+		List<String> records = new ArrayList<>();
+		journal.replay(afterSequence, (sequence, payload) -> {
+			byte[] bytes = new byte[payload.remaining()];
+			payload.get(bytes);
+			records.add(sequence + ":" + new String(bytes, StandardCharsets.UTF_8));
+		});
+		return records;
+	}
+
+	@Test
+	public void testAppend_RotatesAndReopens() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		Journal journal = new Journal(directory, SEGMENT_SIZE);
+		for (int i = 1; i <= 30; i++) {
+			assertEquals(i, journal.append(record(i)));
+		}
+		journal.close();
+		assertEquals(3, journal.getSegmentCount());
+
+		Journal reopened = new Journal(directory, SEGMENT_SIZE);
+		assertEquals(30, reopened.getLastSequence());
+		assertEquals(31, reopened.append(record(31)));
+		List<String> records = replay(reopened, 28);
+		assertEquals(3, records.size());
+		assertEquals("29:record-29", records.get(0));
+		assertEquals("31:record-31", records.get(2));
+		assertEquals(31, replay(reopened, 0).size());
+	}
+
+	@Test
+	public void testOpen_TornRecordIgnored() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		Journal journal = new Journal(directory, SEGMENT_SIZE);
+		journal.append(record(1));
+		journal.append(record(2));
+		journal.close();
+
+		// corrupt the payload of the second record
+		Path segment;
+		try (Stream<Path> files = Files.list(directory)) {
+			segment = files.collect(Collectors.toList()).get(0);
+		}
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			int second = 16 + record(1).length;
+			file.seek(second + 16);
+			file.write('X');
+		}
+
+		Journal reopened = new Journal(directory, SEGMENT_SIZE);
+		assertEquals(1, reopened.getLastSequence());
+		assertEquals(2, reopened.append(record(3)));
+		assertEquals("2:record-3", replay(reopened, 1).get(0));
+	}
+
+	@Test
+	public void testRelease_KeepsSegmentsWithNeededRecords() throws IOException {
+		Journal journal = new Journal(folder.getRoot().toPath(), SEGMENT_SIZE);
+		for (int i = 1; i <= 30; i++) {
+			journal.append(record(i));
+		}
+		// segments hold records 1-10, 11-20 and 21-30
+		assertEquals(0, journal.release(9));
+		assertEquals(1, journal.release(10));
+		assertEquals(1, journal.release(30));
+		assertEquals(1, journal.getSegmentCount());
+		assertEquals(10, replay(journal, 0).size());
+	}
+}
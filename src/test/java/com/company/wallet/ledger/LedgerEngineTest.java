@@ -0,0 +1,144 @@
+package com.company.wallet.ledger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.repository.WalletRepository;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * LedgerEngine tests.
+ *
+ * @author Vinay Singh
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = { "wallet.transaction.mode=ledger", "wallet.ledger.shards=2" })
+public class LedgerEngineTest {
+	@TestConfiguration
+	static class LedgerEngineTestContextConfiguration {
+		@Bean
+		public LedgerEngine ledgerEngine() {
+			return new LedgerEngine();
+		}
+	}
+
+	public static final String PLAYER_ID_1 = "player1";
+	public static final String NOT_FOUND_PLAYER_ID = "notFoundPlayer";
+
+	static int transactionIdCounter = 1;
+
+	@Autowired
+	private LedgerEngine ledgerEngine;
+
+	@MockBean
+	private WalletRepository walletRepository;
+
+	@MockBean
+	private LedgerPersister ledgerPersister;
+
+	private AtomicInteger idCounter = new AtomicInteger();
+
+	@Before
+	public void setUp() throws WalletException {
+		Wallet wallet1 = new Wallet(PLAYER_ID_1, new BigDecimal(10));
+		wallet1.setId(1);
+		Mockito.when(walletRepository.findWalletByPlayerId(PLAYER_ID_1)).thenReturn(wallet1);
+		Mockito.when(walletRepository.findWalletByPlayerId(NOT_FOUND_PLAYER_ID)).thenReturn(null);
+		Mockito.when(ledgerPersister.persist(Mockito.anyList())).thenAnswer(invocation -> {
+			List<LedgerEntry> entries = invocation.getArgument(0);
+			List<Transaction> saved = new ArrayList<>();
+			for (LedgerEntry entry : entries) {
+				Transaction transaction = new Transaction(entry.getTransactionId(), entry.getTransactionType(),
+						entry.getAmount(), wallet1);
+				transaction.setId(idCounter.incrementAndGet());
+				saved.add(transaction);
+			}
+			return saved;
+		});
+	}
+
+	private Transaction submit(TransactionType type, int amount) throws Exception {
+		return ledgerEngine.submit(String.valueOf(transactionIdCounter++), PLAYER_ID_1, type, Money.ofMinor(amount * 100L))
+				.get(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testCreditThenDebit_Success() throws Exception {
+		Transaction credit = submit(TransactionType.CREDIT, 20);
+		Transaction debit = submit(TransactionType.DEBIT, 25);
+		assertEquals(credit.getAmount(), new BigDecimal(20));
+		assertEquals(debit.getTransactionType(), TransactionType.DEBIT);
+		assertTrue(debit.getId() > credit.getId());
+	}
+
+	@Test
+	public void testDebit_NoSufficientFunds() throws Exception {
+		try {
+			submit(TransactionType.DEBIT, 100);
+			fail();
+		} catch (ExecutionException ex) {
+			WalletException cause = (WalletException) ex.getCause();
+			assertTrue(cause.getMessage().contains("No sufficient funds in account for withdrawl"));
+			assertEquals(cause.getErrorCode(), HttpStatus.BAD_REQUEST.value());
+		}
+	}
+
+	@Test
+	public void testWalletNotFound() throws Exception {
+		try {
+			ledgerEngine.submit(String.valueOf(transactionIdCounter++), NOT_FOUND_PLAYER_ID, TransactionType.CREDIT,
+					Money.parse("10")).get(5, TimeUnit.SECONDS);
+			fail();
+		} catch (ExecutionException ex) {
+			WalletException cause = (WalletException) ex.getCause();
+			assertTrue(cause.getMessage().contains("No wallet found with playerId " + NOT_FOUND_PLAYER_ID));
+			assertEquals(cause.getErrorCode(), HttpStatus.NOT_FOUND.value());
+		}
+	}
+
+	@Test
+	public void testPersistFailure_BalanceReverted() throws Exception {
+		Mockito.when(ledgerPersister.persist(Mockito.anyList()))
+				.thenThrow(new DataIntegrityViolationException("could not execute statement"));
+		try {
+			submit(TransactionType.CREDIT, 100);
+			fail();
+		} catch (ExecutionException ex) {
+			assertEquals(((WalletException) ex.getCause()).getErrorCode(), HttpStatus.CONFLICT.value());
+		}
+
+		Mockito.reset(ledgerPersister);
+		// the failed credit must not be available for the next debit
+		try {
+			submit(TransactionType.DEBIT, 50);
+			fail();
+		} catch (ExecutionException ex) {
+			assertTrue(ex.getCause().getMessage().contains("No sufficient funds in account for withdrawl"));
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package com.company.wallet.ledger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.repository.WalletRepository;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * Tests of the journaled LedgerEngine.
+ *
+ * @author Vinay Singh
+ */
+public class LedgerJournalTest {
+	public static final String PLAYER_ID_1 = "player1";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private DriverManagerDataSource dataSource;
+	private WalletRepository walletRepository;
+	private LedgerPersister ledgerPersister;
+	private LedgerEngine engine;
+
+	@Before
+	public void setUp() throws WalletException {
+		dataSource = new DriverManagerDataSource("jdbc:h2:mem:ledgerjournal;DB_CLOSE_DELAY=-1", "sa", "");
+		new JdbcTemplate(dataSource).execute("create sequence if not exists transaction_seq start with 1 increment by 50");
+		walletRepository = Mockito.mock(WalletRepository.class);
+		ledgerPersister = Mockito.mock(LedgerPersister.class);
+		Wallet wallet1 = new Wallet(PLAYER_ID_1, new BigDecimal(10));
+		wallet1.setId(1);
+		Mockito.when(walletRepository.findWalletByPlayerId(PLAYER_ID_1)).thenReturn(wallet1);
+	}
+
+	@After
+	public void tearDown() throws InterruptedException {
+		if (engine != null) {
+			engine.stop();
+		}
+	}
+
+	private LedgerEngine start() throws IOException {
+		LedgerEngine started = new LedgerEngine();
+		ReflectionTestUtils.setField(started, "walletRepository", walletRepository);
+		ReflectionTestUtils.setField(started, "ledgerPersister", ledgerPersister);
+		ReflectionTestUtils.setField(started, "dataSource", dataSource);
+		ReflectionTestUtils.setField(started, "shardCount", 2);
+		ReflectionTestUtils.setField(started, "batchSize", 16);
+		ReflectionTestUtils.setField(started, "maxAccounts", 100);
+		ReflectionTestUtils.setField(started, "journalEnabled", true);
+		ReflectionTestUtils.setField(started, "journalDir", folder.getRoot().getPath());
+		ReflectionTestUtils.setField(started, "segmentSize", 4096);
+		ReflectionTestUtils.setField(started, "snapshotIntervalMs", 60000L);
+		started.start();
+		return started;
+	}
+
+	private Transaction submit(String transactionId, TransactionType type, int amount) throws Exception {
+		return engine.submit(transactionId, PLAYER_ID_1, type, Money.ofMinor(amount * 100L)).get(5, TimeUnit.SECONDS);
+	}
+
+	private void restart(boolean keepSnapshot) throws Exception {
+		engine.stop();
+		if (!keepSnapshot) {
+			for (int i = 0; i < 2; i++) {
+				Files.deleteIfExists(folder.getRoot().toPath().resolve("shard-" + i).resolve("snapshot"));
+			}
+		}
+		Mockito.reset(ledgerPersister);
+		engine = start();
+	}
+
+	@Test
+	public void testBalanceRecoveredFromSnapshot() throws Exception {
+		engine = start();
+		Transaction credit = submit("j1", TransactionType.CREDIT, 20);
+		assertNotNull(credit.getId());
+
+		restart(true);
+		// the database still has the old balance of 10, the ledger must not use it
+		submit("j2", TransactionType.DEBIT, 25);
+		assertInsufficientFunds("j3", 10);
+	}
+
+	@Test
+	public void testBalanceRecoveredFromJournal() throws Exception {
+		engine = start();
+		submit("k1", TransactionType.CREDIT, 20);
+		submit("k2", TransactionType.DEBIT, 5);
+
+		restart(false);
+		submit("k3", TransactionType.DEBIT, 25);
+		assertInsufficientFunds("k4", 1);
+	}
+
+	@Test
+	public void testJournaledEntriesPersistedAgain() throws Exception {
+		engine = start();
+		Transaction credit = submit("m1", TransactionType.CREDIT, 20);
+
+		// the shard reuses its batch list, keep a copy of the persisted entries
+		List<LedgerEntry> persisted = new CopyOnWriteArrayList<>();
+		engine.stop();
+		Mockito.reset(ledgerPersister);
+		Mockito.when(ledgerPersister.persistJournaled(Mockito.anyList())).thenAnswer(invocation -> {
+			persisted.addAll(invocation.getArgument(0));
+			return new ArrayList<LedgerEntry>();
+		});
+		engine = start();
+
+		Mockito.verify(ledgerPersister, Mockito.timeout(5000).atLeastOnce()).persistJournaled(Mockito.anyList());
+		assertEquals(1, persisted.size());
+		assertEquals("m1", persisted.get(0).getTransactionId());
+		assertEquals(credit.getId(), persisted.get(0).getId());
+	}
+
+	@Test
+	public void testDuplicateBeforePersisted() throws Exception {
+		// entries stay unpersisted while the persister is blocked
+		CountDownLatch release = new CountDownLatch(1);
+		Mockito.when(ledgerPersister.persistJournaled(Mockito.anyList())).thenAnswer(invocation -> {
+			release.await(5, TimeUnit.SECONDS);
+			return new ArrayList<LedgerEntry>();
+		});
+		engine = start();
+		submit("n1", TransactionType.CREDIT, 20);
+		try {
+			submit("n1", TransactionType.CREDIT, 20);
+			fail();
+		} catch (ExecutionException ex) {
+			assertEquals(HttpStatus.CONFLICT.value(), ((WalletException) ex.getCause()).getErrorCode());
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void testDuplicateAfterRestart() throws Exception {
+		engine = start();
+		submit("p1", TransactionType.CREDIT, 20);
+		Mockito.verify(ledgerPersister, Mockito.timeout(5000).atLeastOnce()).persistJournaled(Mockito.anyList());
+
+		restart(true);
+		// p1 is persisted, only the database knows it
+		Mockito.when(ledgerPersister.findExistingTransactionIds(Mockito.anyCollection()))
+				.thenAnswer(invocation -> new ArrayList<>(invocation.<Collection<String>>getArgument(0)));
+		try {
+			submit("p1", TransactionType.CREDIT, 20);
+			fail();
+		} catch (ExecutionException ex) {
+			assertEquals(HttpStatus.CONFLICT.value(), ((WalletException) ex.getCause()).getErrorCode());
+		}
+		Mockito.verify(ledgerPersister).findExistingTransactionIds(Mockito.anyCollection());
+
+		Mockito.when(ledgerPersister.findExistingTransactionIds(Mockito.anyCollection()))
+				.thenReturn(new ArrayList<>());
+		submit("p2", TransactionType.DEBIT, 30);
+		assertInsufficientFunds("p3", 1);
+	}
+
+	private void assertInsufficientFunds(String transactionId, int amount) throws Exception {
+		try {
+			submit(transactionId, TransactionType.DEBIT, amount);
+			fail();
+		} catch (ExecutionException ex) {
+			assertTrue(ex.getCause().getMessage().contains("No sufficient funds in account for withdrawl"));
+		}
+	}
+}
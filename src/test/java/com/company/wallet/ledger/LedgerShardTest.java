@@ -0,0 +1,101 @@
+package com.company.wallet.ledger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.repository.WalletRepository;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * LedgerShard tests.
+ *
+ * @author Vinay Singh
+ */
+public class LedgerShardTest {
+	private final WalletRepository walletRepository = Mockito.mock(WalletRepository.class);
+	private final LedgerPersister ledgerPersister = Mockito.mock(LedgerPersister.class);
+
+	/** balances in the database, in minor units */
+	private final Map<String, Long> balances = new ConcurrentHashMap<>();
+	private final AtomicInteger loads = new AtomicInteger();
+	private final AtomicInteger ids = new AtomicInteger();
+	private LedgerShard shard;
+
+	@Before
+	public void setUp() throws WalletException {
+		balances.put("player1", 1000L);
+		balances.put("player2", 0L);
+		Mockito.when(walletRepository.findWalletByPlayerId(Mockito.anyString())).thenAnswer(invocation -> {
+			String playerId = invocation.getArgument(0);
+			if ("player1".equals(playerId)) {
+				loads.incrementAndGet();
+			}
+			Wallet wallet = new Wallet(playerId, Money.ofMinor(balances.get(playerId)));
+			wallet.setId(playerId.hashCode());
+			return wallet;
+		});
+		Mockito.when(ledgerPersister.persist(Mockito.anyList())).thenAnswer(invocation -> {
+			List<LedgerEntry> entries = invocation.getArgument(0);
+			List<Transaction> saved = new ArrayList<>();
+			for (LedgerEntry entry : entries) {
+				balances.merge(entry.getPlayerId(), entry.getDelta().getMinorUnits(), Long::sum);
+				Transaction transaction = new Transaction(entry.getTransactionId(), entry.getTransactionType(),
+						entry.getAmount(), new Wallet());
+				transaction.setId(ids.incrementAndGet());
+				saved.add(transaction);
+			}
+			return saved;
+		});
+		shard = new LedgerShard(0, walletRepository, ledgerPersister, 16, 1);
+	}
+
+	@After
+	public void tearDown() throws InterruptedException {
+		shard.shutdown();
+	}
+
+	private Transaction submit(String playerId, TransactionType type, long amount) throws Exception {
+		return shard.submit("t" + ids.get() + "-" + System.nanoTime(), playerId, type, Money.ofMinor(amount))
+				.get(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testEvictedAccount_ReloadedFromDatabase() throws Exception {
+		submit("player1", TransactionType.CREDIT, 500);
+		// player1 is evicted by player2 once its credit is persisted
+		for (int i = 0; i < 100 && loads.get() < 2; i++) {
+			submit("player2", TransactionType.CREDIT, 1);
+			submit("player1", TransactionType.CREDIT, 1);
+		}
+		assertTrue(loads.get() >= 2);
+
+		// the reloaded balance includes every persisted transaction
+		long balance = balances.get("player1");
+		try {
+			submit("player1", TransactionType.DEBIT, balance + 1);
+			fail();
+		} catch (ExecutionException ex) {
+			assertEquals(HttpStatus.BAD_REQUEST.value(), ((WalletException) ex.getCause()).getErrorCode());
+		}
+		submit("player1", TransactionType.DEBIT, balance);
+	}
+}
@@ -0,0 +1,74 @@
+package com.company.wallet.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.metrics.WalletMetrics.Outcome;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * WalletMetrics tests.
+ *
+ * @author Vinay Singh
+ */
+@RunWith(SpringRunner.class)
+public class WalletMetricsTest {
+	@TestConfiguration
+	static class WalletMetricsTestContextConfiguration {
+		@Bean
+		public MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		public WalletMetrics walletMetrics() {
+			return new WalletMetrics();
+		}
+	}
+
+	@Autowired
+	private WalletMetrics walletMetrics;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	public void testOutcomeOf() {
+		assertEquals(Outcome.INSUFFICIENT_FUNDS, WalletMetrics.outcomeOf(
+				new WalletException("No sufficient funds in account for withdrawl", HttpStatus.BAD_REQUEST.value())));
+		assertEquals(Outcome.INVALID, WalletMetrics.outcomeOf(
+				new WalletException("Please specify valid amount", HttpStatus.BAD_REQUEST.value())));
+		assertEquals(Outcome.DUPLICATE_ID, WalletMetrics.outcomeOf(HttpStatus.CONFLICT.value(), null));
+		assertEquals(Outcome.NOT_FOUND, WalletMetrics.outcomeOf(HttpStatus.NOT_FOUND.value(), null));
+		assertEquals(Outcome.UNAVAILABLE, WalletMetrics.outcomeOf(HttpStatus.SERVICE_UNAVAILABLE.value(), null));
+		assertEquals(Outcome.ERROR, WalletMetrics.outcomeOf(HttpStatus.INTERNAL_SERVER_ERROR.value(), null));
+	}
+
+	@Test
+	public void testRecordTransaction() {
+		walletMetrics.recordTransaction(Outcome.CREATED, TimeUnit.MILLISECONDS.toNanos(3));
+		walletMetrics.recordTransaction(Outcome.DUPLICATE_ID, TimeUnit.MILLISECONDS.toNanos(1));
+		walletMetrics.recordFailure(Outcome.DUPLICATE_ID);
+		walletMetrics.recordFailure(Outcome.REPLAYED);
+
+		Timer created = meterRegistry.get("wallet.transaction").tag("outcome", "created").timer();
+		assertEquals(1, created.count());
+		assertEquals(3, created.totalTime(TimeUnit.MILLISECONDS), 0.001);
+		assertEquals(2, meterRegistry.get("wallet.transaction.failures").tag("reason", "duplicate_id").counter()
+				.count(), 0);
+		assertEquals(0, meterRegistry.find("wallet.transaction.failures").tag("reason", "replayed").counters().size());
+	}
+}
@@ -0,0 +1,47 @@
+package com.company.wallet.replica;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * RecentWrites tests.
+ *
+ * @author Vinay Singh
+ */
+public class RecentWritesTest {
+
+	@Test
+	public void testRecord_PinsForWindow() throws InterruptedException {
+		RecentWrites recentWrites = new RecentWrites(50);
+		recentWrites.record("player1");
+		assertTrue(recentWrites.isPinned("player1"));
+		assertFalse(recentWrites.isPinned("player2"));
+
+		Thread.sleep(80);
+		assertFalse(recentWrites.isPinned("player1"));
+	}
+
+	@Test
+	public void testRecordAfterCommit() {
+		RecentWrites recentWrites = new RecentWrites(10000);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			recentWrites.recordAfterCommit("committed");
+			recentWrites.recordAfterCommit("rolledBack");
+			assertFalse(recentWrites.isPinned("committed"));
+
+			TransactionSynchronization[] synchronizations = TransactionSynchronizationManager.getSynchronizations()
+					.toArray(new TransactionSynchronization[0]);
+			synchronizations[0].afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+			synchronizations[1].afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertTrue(recentWrites.isPinned("committed"));
+		assertFalse(recentWrites.isPinned("rolledBack"));
+	}
+}
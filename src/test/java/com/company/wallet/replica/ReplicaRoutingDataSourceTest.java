@@ -0,0 +1,58 @@
+package com.company.wallet.replica;
+
+import static org.junit.Assert.assertSame;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * ReplicaRoutingDataSource tests.
+ *
+ * @author Vinay Singh
+ */
+public class ReplicaRoutingDataSourceTest {
+	private final Connection primaryConnection = Mockito.mock(Connection.class);
+	private final Connection replica1Connection = Mockito.mock(Connection.class);
+	private final Connection replica2Connection = Mockito.mock(Connection.class);
+
+	private ReplicaRoutingDataSource dataSource;
+
+	@Before
+	public void setUp() throws SQLException {
+		dataSource = new ReplicaRoutingDataSource(dataSource(primaryConnection),
+				Arrays.asList(dataSource(replica1Connection), dataSource(replica2Connection)));
+		dataSource.afterPropertiesSet();
+	}
+
+	private static DataSource dataSource(Connection connection) throws SQLException {
+		DataSource dataSource = Mockito.mock(DataSource.class);
+		Mockito.when(dataSource.getConnection()).thenReturn(connection);
+		return dataSource;
+	}
+
+	@Test
+	public void testPrimaryOutsideReplicaContext() throws SQLException {
+		assertSame(primaryConnection, dataSource.getConnection());
+	}
+
+	@Test
+	public void testReplicasRoundRobin() throws SQLException {
+		boolean previous = ReplicaContext.enter();
+		try {
+			Connection first = dataSource.getConnection();
+			Connection second = dataSource.getConnection();
+			assertSame(first == replica1Connection ? replica2Connection : replica1Connection, second);
+			assertSame(first, dataSource.getConnection());
+		} finally {
+			ReplicaContext.restore(previous);
+		}
+		assertSame(primaryConnection, dataSource.getConnection());
+	}
+}
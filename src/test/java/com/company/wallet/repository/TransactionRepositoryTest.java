@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import com.company.wallet.entities.Transaction;
@@ -18,6 +19,7 @@ import com.company.wallet.utils.TransactionType;
 import static org.junit.Assert.*;
 
 import java.math.BigDecimal;
+import java.util.Date;
 import java.util.List;
 
 import javax.validation.ConstraintViolationException;
@@ -75,6 +77,28 @@ public class TransactionRepositoryTest {
 		assertTrue(trns.get(0).getId().equals(transaction.getId()));
 	}
 
+	@Test
+	public void testFindPageAfter() {
+		Date updatedTime = new Date();
+		for (int i = 0; i < 5; i++) {
+			Transaction next = new Transaction(String.valueOf(transactionIdCounter++), typeCredit, new BigDecimal(i),
+					wallet2);
+			next.setUpdatedTime(updatedTime);
+			entityManager.persist(next);
+		}
+		entityManager.flush();
+
+		List<Transaction> first = transactionRepository.findByWalletOrderByUpdatedTimeDescIdDesc(wallet2,
+				PageRequest.of(0, 3));
+		assertEquals(3, first.size());
+		Transaction last = first.get(2);
+		List<Transaction> second = transactionRepository.findPageAfter(wallet2, last.getUpdatedTime(), last.getId(),
+				PageRequest.of(0, 3));
+		assertEquals(2, second.size());
+		assertTrue(second.get(0).getId() < last.getId());
+		assertTrue(second.get(1).getId() < second.get(0).getId());
+	}
+
 	@Test
 	public void testSave_Credit() {
 		int counter = transactionIdCounter++;
@@ -105,18 +129,18 @@ public class TransactionRepositoryTest {
 		int counter = transactionIdCounter - 1;
 		Transaction transaction = new Transaction(String.valueOf(counter), typeCredit, new BigDecimal(20), wallet2);
 		try {
-			Transaction found = transactionRepository.save(transaction);
-			entityManager.flush();
+			// inserts are batched, so the constraint is checked when the batch is flushed
+			Transaction found = transactionRepository.saveAndFlush(transaction);
 			fail();
 		} catch (DataIntegrityViolationException ex) {
-			assertTrue(ex.getMessage().contains("could not execute statement"));
+			assertTrue(ex.getMessage().contains("could not execute batch"));
 		}
 	}
 
 	@Test
 	public void whenSave_NoBalance() {
 		int counter = transactionIdCounter++;
-		Transaction transaction = new Transaction(String.valueOf(counter), typeCredit, null, wallet2);
+		Transaction transaction = new Transaction(String.valueOf(counter), typeCredit, (BigDecimal) null, wallet2);
 		try {
 			Transaction found = transactionRepository.save(transaction);
 			entityManager.flush();
@@ -134,11 +158,11 @@ public class TransactionRepositoryTest {
 		int counter = transactionIdCounter++;
 		Transaction transaction = new Transaction(String.valueOf(counter), typeCredit, new BigDecimal(20), wallet);
 		try {
-			Transaction found = transactionRepository.save(transaction);
-			entityManager.flush();
+			// inserts are batched, so the constraint is checked when the batch is flushed
+			Transaction found = transactionRepository.saveAndFlush(transaction);
 			fail();
 		} catch (DataIntegrityViolationException ex) {
-			assertTrue(ex.getMessage().contains("could not execute statement"));
+			assertTrue(ex.getMessage().contains("could not execute batch"));
 		}
 	}
 
@@ -1,5 +1,6 @@
 package com.company.wallet.repository;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -7,6 +8,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +20,7 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import com.company.wallet.entities.Wallet;
@@ -134,4 +137,43 @@ public class WalletRepositoryTest {
 		}
 	}
 
+	@Test
+	public void updateBalance_Debit() {
+		int updated = walletRepository.updateBalance(PLAYER_ID_2, -2000L, new Date());
+		entityManager.clear();
+		assertTrue(updated == 1);
+		assertTrue(walletRepository.findWalletByPlayerId(PLAYER_ID_2).getBalance().compareTo(BigDecimal.ZERO) == 0);
+	}
+
+	@Test
+	public void updateBalance_NoSufficientFunds() {
+		int updated = walletRepository.updateBalance(PLAYER_ID_1, -1100L, new Date());
+		entityManager.clear();
+		assertTrue(updated == 0);
+		assertTrue(walletRepository.findWalletByPlayerId(PLAYER_ID_1).getBalance().compareTo(BigDecimal.TEN) == 0);
+	}
+
+	@Test
+	public void updateBalance_IncrementsVersion() {
+		long version = walletRepository.findWalletByPlayerId(PLAYER_ID_1).getVersion();
+		walletRepository.updateBalance(PLAYER_ID_1, 500L, new Date());
+		entityManager.clear();
+		assertEquals(version + 1, walletRepository.findWalletByPlayerId(PLAYER_ID_1).getVersion().longValue());
+	}
+
+	@Test
+	public void save_StaleVersion() {
+		Wallet stale = walletRepository.findWalletByPlayerId(PLAYER_ID_1);
+		entityManager.clear();
+		walletRepository.updateBalance(PLAYER_ID_1, 500L, new Date());
+		stale.setBalance(new BigDecimal(300));
+		try {
+			walletRepository.saveAndFlush(stale);
+			fail();
+		} catch (OptimisticLockingFailureException ex) {
+			entityManager.clear();
+			assertTrue(walletRepository.findWalletByPlayerId(PLAYER_ID_1).getBalance().compareTo(new BigDecimal(15)) == 0);
+		}
+	}
+
 }
@@ -0,0 +1,70 @@
+package com.company.wallet.repository;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.entities.WalletStats;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * WalletStatsRepository tests.
+ * Use in-memory h2database
+ *
+ * @author Vinay Singh
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class WalletStatsRepositoryTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private WalletStatsRepository walletStatsRepository;
+
+	private Wallet wallet;
+
+	@Before
+	public void before() {
+		wallet = entityManager.persist(new Wallet("player1", new BigDecimal(10)));
+		entityManager.persist(new WalletStats(wallet.getId()));
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	public void whenRecord_thenTotalsAdded() {
+		assertEquals(1, walletStatsRepository.record(wallet.getId(), TransactionType.CREDIT, Money.ofMinor(1000),
+				new Date(2000)));
+		assertEquals(1, walletStatsRepository.record(wallet.getId(), TransactionType.CREDIT, Money.ofMinor(-500),
+				new Date(3000)));
+		// a transaction with an older updated time doesn't move the last activity back
+		assertEquals(1, walletStatsRepository.record(wallet.getId(), TransactionType.DEBIT, Money.ofMinor(250),
+				new Date(1000)));
+
+		WalletStats stats = walletStatsRepository.findById(wallet.getId()).get();
+		assertEquals(2, stats.getDepositCount());
+		assertEquals(Money.ofMinor(1500), stats.getDepositAmount());
+		assertEquals(1, stats.getWithdrawalCount());
+		assertEquals(Money.ofMinor(250), stats.getWithdrawalAmount());
+		assertEquals(3000, stats.getLastActivity().getTime());
+	}
+
+	@Test
+	public void whenRecordWithoutStats_thenNothingUpdated() {
+		assertEquals(0, walletStatsRepository.record(wallet.getId() + 1, TransactionType.CREDIT, Money.ofMinor(1000),
+				new Date()));
+	}
+}
@@ -0,0 +1,111 @@
+package com.company.wallet.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.company.wallet.entities.BalanceCheckpoint;
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.repository.BalanceCheckpointRepository;
+import com.company.wallet.repository.TransactionRepository;
+import com.company.wallet.repository.WalletRepository;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * BalanceCheckpointer tests, together with the point-in-time queries it serves.
+ * Use in-memory h2database
+ *
+ * @author Vinay Singh
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class BalanceCheckpointerTest {
+	@TestConfiguration
+	static class BalanceCheckpointerTestContextConfiguration {
+		@Bean
+		public BalanceCheckpointer balanceCheckpointer() {
+			return new BalanceCheckpointer();
+		}
+	}
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private BalanceCheckpointer balanceCheckpointer;
+
+	@Autowired
+	private BalanceCheckpointRepository balanceCheckpointRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private WalletRepository walletRepository;
+
+	private Wallet wallet1;
+	private Wallet wallet2;
+
+	@Before
+	public void before() {
+		// wallet1 starts with 10, +5 at 1000, -3 at 3000, balance 12
+		wallet1 = new Wallet("player1", new BigDecimal(12));
+		wallet1.setCreatedTime(new Date(0));
+		entityManager.persist(wallet1);
+		wallet2 = new Wallet("player2", new BigDecimal(20));
+		entityManager.persist(wallet2);
+		persist("c1", TransactionType.CREDIT, 5, 1000);
+		persist("d1", TransactionType.DEBIT, 3, 3000);
+		entityManager.flush();
+	}
+
+	private void persist(String transactionId, TransactionType type, int amount, long time) {
+		Transaction transaction = new Transaction(transactionId, type, new BigDecimal(amount), wallet1);
+		transaction.setUpdatedTime(new Date(time));
+		entityManager.persist(transaction);
+	}
+
+	@Test
+	public void testCheckpoint() {
+		assertEquals(1, balanceCheckpointer.checkpoint(new Date(2000)));
+		BalanceCheckpoint checkpoint = balanceCheckpointRepository
+				.findFirstByWalletIdAndCheckpointTimeLessThanEqualOrderByCheckpointTimeDesc(wallet1.getId(), new Date(2500));
+		assertEquals(new BigDecimal("15"), checkpoint.getBalanceMoney().toBigDecimal());
+		assertNull(balanceCheckpointRepository
+				.findFirstByWalletIdAndCheckpointTimeLessThanEqualOrderByCheckpointTimeDesc(wallet2.getId(), new Date(2500)));
+
+		// no transactions since the last checkpoint
+		assertEquals(0, balanceCheckpointer.checkpoint(new Date(2500)));
+		assertEquals(1, balanceCheckpointer.checkpoint(new Date(4000)));
+		List<BalanceCheckpoint> checkpoints = balanceCheckpointRepository.findAll();
+		assertEquals(2, checkpoints.size());
+	}
+
+	@Test
+	public void testSumAmountBetween() {
+		assertEquals(500L, transactionRepository.sumAmountBetween(wallet1, new Date(0), new Date(1000)));
+		assertEquals(200L, transactionRepository.sumAmountBetween(wallet1, new Date(0), new Date(3000)));
+		assertEquals(0L, transactionRepository.sumAmountBetween(wallet1, new Date(3000), new Date(9000)));
+	}
+
+	@Test
+	public void testFindBalanceAt() {
+		assertEquals(1000L, walletRepository.findBalanceAt(wallet1.getId(), new Date(500)));
+		assertEquals(1500L, walletRepository.findBalanceAt(wallet1.getId(), new Date(1000)));
+		assertEquals(1200L, walletRepository.findBalanceAt(wallet1.getId(), new Date(3000)));
+	}
+}
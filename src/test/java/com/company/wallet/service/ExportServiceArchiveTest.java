@@ -0,0 +1,123 @@
+package com.company.wallet.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.company.wallet.archive.TransactionArchive;
+import com.company.wallet.archive.TransactionArchiver;
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.repository.ArchivedTransactionIdRepository;
+import com.company.wallet.repository.TransactionRepository;
+import com.company.wallet.repository.WalletRepository;
+import com.company.wallet.utils.ExportFormat;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * ExportService tests with the transaction archive.
+ * Use in-memory h2database, committed by every repository call, since the archiver runs its own database transactions
+ *
+ * @author Vinay Singh
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ ExportServiceImpl.class, TransactionArchive.class, TransactionArchiver.class })
+@TestPropertySource(properties = { "wallet.archive.enabled=true",
+		"wallet.archive.dir=target/archive-test-${random.uuid}" })
+public class ExportServiceArchiveTest {
+	// enough rows for the export to write to the stream before its query is read to the end
+	private static final int TRANSACTIONS = 500;
+
+	@Autowired
+	private ExportService exportService;
+
+	@Autowired
+	private TransactionArchiver transactionArchiver;
+
+	@Autowired
+	private WalletRepository walletRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private ArchivedTransactionIdRepository archivedTransactionIdRepository;
+
+	@After
+	public void after() {
+		transactionRepository.deleteAll();
+		archivedTransactionIdRepository.deleteAll();
+		walletRepository.deleteAll();
+	}
+
+	@Test
+	public void whenArchivedDuringExport_thenEveryTransactionExportedOnce() throws IOException {
+		Wallet wallet = walletRepository.save(new Wallet("export-player", Money.parse("10")));
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < TRANSACTIONS; i++) {
+			Transaction transaction = new Transaction("e" + i, TransactionType.CREDIT, Money.ofMinor(100), wallet);
+			transaction.setUpdatedTime(new Date(1000 + i));
+			transactionRepository.save(transaction);
+			expected.add("e" + i);
+		}
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		List<Integer> archived = new ArrayList<>();
+		ByteArrayOutputStream out = new ByteArrayOutputStream() {
+			@Override
+			public synchronized void write(byte[] b, int off, int len) {
+				if (archived.isEmpty()) {
+					// the export is still streaming, the archiver must not wait for it
+					Future<Integer> archiving = executor.submit(() -> transactionArchiver.archive(new Date(10000)));
+					try {
+						archived.add(archiving.get(10, TimeUnit.SECONDS));
+					} catch (InterruptedException | ExecutionException | TimeoutException ex) {
+						throw new IllegalStateException("Could not archive during the export", ex);
+					}
+				}
+				super.write(b, off, len);
+			}
+		};
+		try {
+			exportService.exportTransactions(ExportFormat.CSV, out);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(Collections.singletonList(TRANSACTIONS), archived);
+		String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\r\n");
+		List<String> exported = new ArrayList<>();
+		for (int i = 1; i < lines.length; i++) {
+			exported.add(lines[i].split(",")[1]);
+		}
+		Collections.sort(exported);
+		Collections.sort(expected);
+		assertEquals(expected, exported);
+	}
+}
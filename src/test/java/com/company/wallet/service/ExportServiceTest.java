@@ -0,0 +1,74 @@
+package com.company.wallet.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.utils.ExportFormat;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * ExportService tests.
+ * Use in-memory h2database
+ *
+ * @author Vinay Singh
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(ExportServiceImpl.class)
+public class ExportServiceTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private ExportService exportService;
+
+	@Before
+	public void before() {
+		Wallet wallet1 = new Wallet("player1", new BigDecimal(10));
+		Wallet wallet2 = new Wallet("player,2", new BigDecimal(20));
+		entityManager.persist(wallet1);
+		entityManager.persist(wallet2);
+		entityManager.persist(new Transaction("t1", TransactionType.CREDIT, new BigDecimal(5), wallet1));
+		entityManager.persist(new Transaction("t2", TransactionType.DEBIT, new BigDecimal(3), wallet2));
+		entityManager.flush();
+	}
+
+	@Test
+	public void testExportWallets_Ndjson() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		exportService.exportWallets(ExportFormat.NDJSON, out);
+		String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+		assertEquals(2, lines.length);
+		assertTrue(lines[0].startsWith("{\"id\":"));
+		assertTrue(lines[0].contains("\"playerId\":\"player1\""));
+		assertTrue(lines[1].contains("\"playerId\":\"player,2\""));
+	}
+
+	@Test
+	public void testExportTransactions_Csv() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		exportService.exportTransactions(ExportFormat.CSV, out);
+		String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\r\n");
+		assertEquals(3, lines.length);
+		assertEquals("id,transactionId,playerId,transactionType,amount,updatedTime", lines[0]);
+		assertTrue(lines[1].contains(",t1,player1,CREDIT,5.00,"));
+		assertTrue(lines[2].contains(",t2,\"player,2\",DEBIT,3.00,"));
+	}
+}
@@ -0,0 +1,127 @@
+package com.company.wallet.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.company.wallet.dto.TransactionResult;
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.metrics.WalletMetrics;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * GroupCommitter tests.
+ *
+ * @author Vinay Singh
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = { "wallet.group-commit.max-size=8", "wallet.group-commit.max-wait-us=200000" })
+public class GroupCommitterTest {
+	@TestConfiguration
+	static class GroupCommitterTestContextConfiguration {
+		@Bean
+		public GroupCommitter groupCommitter() {
+			return new GroupCommitter();
+		}
+
+		@Bean
+		public MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		public WalletMetrics walletMetrics() {
+			return new WalletMetrics();
+		}
+	}
+
+	public static final String PLAYER_ID_1 = "player1";
+	public static final String BAD_TRANSACTION_ID = "bad";
+
+	@Autowired
+	private GroupCommitter groupCommitter;
+
+	@MockBean
+	private TransactionBatchProcessor transactionBatchProcessor;
+
+	private final Wallet wallet1 = new Wallet(PLAYER_ID_1, Money.ofMinor(1000));
+
+	private List<TransactionResult> created(List<TransactionBatchItem> items) {
+		List<TransactionResult> results = new ArrayList<>();
+		for (TransactionBatchItem item : items) {
+			TransactionResult result = new TransactionResult(item.getIndex(), item.getTransactionId(),
+					HttpStatus.CREATED.value(), results.size() + 1, null);
+			result.setTransaction(new Transaction(item.getTransactionId(), item.getTransactionType(), item.getAmount(),
+					wallet1));
+			results.add(result);
+		}
+		return results;
+	}
+
+	private List<CompletableFuture<Transaction>> submit(String... transactionIds) {
+		List<CompletableFuture<Transaction>> futures = new ArrayList<>();
+		for (String transactionId : transactionIds) {
+			futures.add(groupCommitter.submit(new TransactionBatchItem(0, transactionId, PLAYER_ID_1,
+					TransactionType.CREDIT, Money.parse("1"))));
+		}
+		return futures;
+	}
+
+	@Test
+	public void testSubmit_CommittedTogether() throws Exception {
+		Mockito.when(transactionBatchProcessor.process(Mockito.anyList()))
+				.thenAnswer(invocation -> created(invocation.getArgument(0)));
+
+		List<CompletableFuture<Transaction>> futures = submit("g1", "g2", "g3", "g4");
+		for (int i = 0; i < futures.size(); i++) {
+			assertEquals("g" + (i + 1), futures.get(i).get(5, TimeUnit.SECONDS).getTransactionId());
+		}
+		Mockito.verify(transactionBatchProcessor, Mockito.times(1)).process(Mockito.anyList());
+	}
+
+	@Test
+	public void testSubmit_FailedGroupReplayedWithoutBadTransaction() throws Exception {
+		Mockito.when(transactionBatchProcessor.process(Mockito.anyList())).thenAnswer(invocation -> {
+			List<TransactionBatchItem> items = invocation.getArgument(0);
+			for (TransactionBatchItem item : items) {
+				if (item.getTransactionId().equals(BAD_TRANSACTION_ID)) {
+					throw new DataIntegrityViolationException("could not execute statement");
+				}
+			}
+			return created(items);
+		});
+
+		List<CompletableFuture<Transaction>> futures = submit("r1", BAD_TRANSACTION_ID, "r2");
+		assertEquals("r1", futures.get(0).get(5, TimeUnit.SECONDS).getTransactionId());
+		assertEquals("r2", futures.get(2).get(5, TimeUnit.SECONDS).getTransactionId());
+		try {
+			futures.get(1).get(5, TimeUnit.SECONDS);
+			fail();
+		} catch (ExecutionException ex) {
+			assertEquals(HttpStatus.CONFLICT.value(), ((WalletException) ex.getCause()).getErrorCode());
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package com.company.wallet.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.metrics.WalletMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * OptimisticLockRetry tests.
+ *
+ * @author Vinay Singh
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = { "wallet.concurrency.max-attempts=3", "wallet.concurrency.backoff-ms=1" })
+public class OptimisticLockRetryTest {
+	@TestConfiguration
+	static class OptimisticLockRetryTestContextConfiguration {
+		@Bean
+		public OptimisticLockRetry optimisticLockRetry() {
+			return new OptimisticLockRetry();
+		}
+
+		@Bean
+		public MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		public WalletMetrics walletMetrics() {
+			return new WalletMetrics();
+		}
+	}
+
+	@Autowired
+	private OptimisticLockRetry optimisticLockRetry;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private double count(String name) {
+		return meterRegistry.get(name).counter().count();
+	}
+
+	@Test
+	public void testExecute_RetriedUntilSuccess() throws WalletException {
+		AtomicInteger attempts = new AtomicInteger();
+		double retries = count("wallet.transaction.retries");
+		String result = optimisticLockRetry.execute(() -> {
+			if (attempts.incrementAndGet() < 3) {
+				throw new OptimisticLockingFailureException("wallet changed");
+			}
+			return "done";
+		});
+		assertEquals("done", result);
+		assertEquals(3, attempts.get());
+		assertEquals(retries + 2, count("wallet.transaction.retries"), 0);
+	}
+
+	@Test
+	public void testExecute_AttemptsExhausted() throws WalletException {
+		AtomicInteger attempts = new AtomicInteger();
+		double exhausted = count("wallet.transaction.retries.exhausted");
+		try {
+			optimisticLockRetry.execute(() -> {
+				attempts.incrementAndGet();
+				throw new OptimisticLockingFailureException("wallet changed");
+			});
+			fail();
+		} catch (OptimisticLockingFailureException ex) {
+			assertEquals(3, attempts.get());
+			assertEquals(exhausted + 1, count("wallet.transaction.retries.exhausted"), 0);
+		}
+	}
+
+	@Test
+	public void testExecute_WalletExceptionNotRetried() {
+		AtomicInteger attempts = new AtomicInteger();
+		try {
+			optimisticLockRetry.execute(() -> {
+				attempts.incrementAndGet();
+				throw new WalletException("No sufficient funds in account for withdrawl", 400);
+			});
+			fail();
+		} catch (WalletException ex) {
+			assertEquals(1, attempts.get());
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package com.company.wallet.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.metrics.WalletMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * PlayerLockManager tests.
+ *
+ * @author Vinay Singh
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = { "wallet.locks.stripes=64", "wallet.locks.timeout-ms=100" })
+public class PlayerLockManagerTest {
+	@TestConfiguration
+	static class PlayerLockManagerTestContextConfiguration {
+		@Bean
+		public PlayerLockManager playerLockManager() {
+			return new PlayerLockManager();
+		}
+
+		@Bean
+		public MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		public WalletMetrics walletMetrics() {
+			return new WalletMetrics();
+		}
+	}
+
+	@Autowired
+	private PlayerLockManager playerLockManager;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	public void testExecute_SamePlayerWaitsOtherPlayerDoesNot() throws Exception {
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> holder = CompletableFuture.supplyAsync(() -> {
+			try {
+				return playerLockManager.execute("player1", () -> {
+					locked.countDown();
+					try {
+						release.await(5, TimeUnit.SECONDS);
+					} catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
+					return "held";
+				});
+			} catch (Exception ex) {
+				throw new IllegalStateException(ex);
+			}
+		});
+		locked.await(5, TimeUnit.SECONDS);
+
+		double timeouts = meterRegistry.get("wallet.lock.timeouts").counter().count();
+		try {
+			playerLockManager.execute("player1", () -> "waited");
+			fail();
+		} catch (WalletException ex) {
+			assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), ex.getErrorCode());
+			assertEquals(timeouts + 1, meterRegistry.get("wallet.lock.timeouts").counter().count(), 0);
+		}
+		assertEquals("other", playerLockManager.execute("player2", () -> "other"));
+
+		release.countDown();
+		assertEquals("held", holder.get(5, TimeUnit.SECONDS));
+		assertEquals("again", playerLockManager.execute("player1", () -> "again"));
+	}
+
+	@Test
+	public void testExecute_LockReleasedOnFailure() throws WalletException {
+		try {
+			playerLockManager.execute("player3", () -> {
+				throw new WalletException("No sufficient funds in account for withdrawl", HttpStatus.BAD_REQUEST.value());
+			});
+			fail();
+		} catch (WalletException ex) {
+			assertEquals(HttpStatus.BAD_REQUEST.value(), ex.getErrorCode());
+		}
+		assertEquals("next", playerLockManager.execute("player3", () -> "next"));
+	}
+}
@@ -0,0 +1,114 @@
+package com.company.wallet.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.company.wallet.cache.WalletCache;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.exception.handler.AdmissionException;
+import com.company.wallet.metrics.WalletMetrics;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * TransactionAdmission tests.
+ *
+ * @author Vinay Singh
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = { "wallet.admission.enabled=true", "wallet.cache.ttl-ms=60000" })
+public class TransactionAdmissionTest {
+	@TestConfiguration
+	static class TransactionAdmissionTestContextConfiguration {
+		@Bean
+		public WalletCache walletCache() {
+			return new WalletCache();
+		}
+
+		@Bean
+		public MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		public WalletMetrics walletMetrics() {
+			return new WalletMetrics();
+		}
+
+		@Bean
+		public TransactionAdmission transactionAdmission() {
+			return new TransactionAdmission();
+		}
+	}
+
+	@Autowired
+	private TransactionAdmission transactionAdmission;
+
+	@Autowired
+	private WalletCache walletCache;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	public void testAdmit_UnknownPlayer() throws Exception {
+		walletCache.putMissing("ghost", walletCache.stamp());
+		try {
+			transactionAdmission.admit("ghost", TransactionType.CREDIT, Money.ofMinor(100));
+			fail();
+		} catch (AdmissionException ex) {
+			assertEquals(HttpStatus.NOT_FOUND.value(), ex.getErrorCode());
+			assertEquals("No wallet found with playerId ghost", ex.getMessage());
+			assertEquals(0, ex.getStackTrace().length);
+		}
+	}
+
+	@Test
+	public void testAdmit_DebitAboveFailedDebit() throws Exception {
+		walletCache.recordInsufficientFunds("bot", Money.ofMinor(500), walletCache.stamp());
+		double rejections = meterRegistry.counter("wallet.transaction.admission.rejections").count();
+		try {
+			transactionAdmission.admit("bot", TransactionType.DEBIT, Money.ofMinor(700));
+			fail();
+		} catch (AdmissionException ex) {
+			assertSame(AdmissionException.INSUFFICIENT_FUNDS, ex);
+		}
+		assertEquals(rejections + 1, meterRegistry.counter("wallet.transaction.admission.rejections").count(), 0);
+
+		// smaller debits and credits may still succeed
+		transactionAdmission.admit("bot", TransactionType.DEBIT, Money.ofMinor(499));
+		transactionAdmission.admit("bot", TransactionType.CREDIT, Money.ofMinor(700));
+	}
+
+	@Test
+	public void testAdmit_DebitAboveCachedBalance() throws Exception {
+		walletCache.put(new Wallet("cached", new BigDecimal(5)), walletCache.stamp());
+		transactionAdmission.admit("cached", TransactionType.DEBIT, Money.ofMinor(500));
+		try {
+			transactionAdmission.admit("cached", TransactionType.DEBIT, Money.ofMinor(501));
+			fail();
+		} catch (AdmissionException ex) {
+			assertEquals(HttpStatus.BAD_REQUEST.value(), ex.getErrorCode());
+		}
+	}
+
+	@Test
+	public void testAdmit_UnknownState() throws Exception {
+		transactionAdmission.admit("unseen", TransactionType.DEBIT, Money.ofMinor(Long.MAX_VALUE));
+	}
+}
@@ -0,0 +1,87 @@
+package com.company.wallet.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.company.wallet.cache.WalletCache;
+import com.company.wallet.dto.TransactionResult;
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.repository.TransactionRepository;
+import com.company.wallet.repository.WalletRepository;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * TransactionBatchProcessor tests.
+ * Use in-memory h2database
+ *
+ * @author Vinay Singh
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import({ TransactionBatchProcessor.class, WalletCache.class })
+public class TransactionBatchProcessorTest {
+	public static final String PLAYER_ID_1 = "player1";
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private TransactionBatchProcessor transactionBatchProcessor;
+
+	@Autowired
+	private WalletRepository walletRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	private Wallet wallet1;
+
+	@Before
+	public void before() {
+		wallet1 = new Wallet(PLAYER_ID_1, Money.parse("10"));
+		entityManager.persist(wallet1);
+		entityManager.persist(new Transaction("existing", TransactionType.CREDIT, new BigDecimal(10), wallet1));
+		entityManager.flush();
+	}
+
+	@Test
+	public void testProcess() {
+		List<TransactionResult> results = transactionBatchProcessor.process(Arrays.asList(
+				new TransactionBatchItem(0, "b1", PLAYER_ID_1, TransactionType.CREDIT, Money.parse("5")),
+				new TransactionBatchItem(1, "b2", PLAYER_ID_1, TransactionType.DEBIT, Money.parse("15")),
+				new TransactionBatchItem(2, "b3", PLAYER_ID_1, TransactionType.DEBIT, Money.parse("1")),
+				new TransactionBatchItem(3, "existing", PLAYER_ID_1, TransactionType.CREDIT, Money.parse("5")),
+				new TransactionBatchItem(4, "b4", "unknown", TransactionType.CREDIT, Money.parse("5"))));
+		entityManager.flush();
+		entityManager.clear();
+
+		assertEquals(results.size(), 5);
+		assertEquals(results.get(0).getStatus(), HttpStatus.CREATED.value());
+		assertNotNull(results.get(0).getId());
+		assertEquals(results.get(1).getStatus(), HttpStatus.CREATED.value());
+		assertEquals(results.get(2).getStatus(), HttpStatus.BAD_REQUEST.value());
+		assertNull(results.get(2).getId());
+		assertEquals(results.get(3).getStatus(), HttpStatus.CONFLICT.value());
+		assertEquals(results.get(4).getStatus(), HttpStatus.NOT_FOUND.value());
+
+		assertEquals(walletRepository.findWalletByPlayerId(PLAYER_ID_1).getBalance().compareTo(BigDecimal.ZERO), 0);
+		assertEquals(transactionRepository.findByWallet(walletRepository.findWalletByPlayerId(PLAYER_ID_1)).size(), 3);
+	}
+}
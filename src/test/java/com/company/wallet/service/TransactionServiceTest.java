@@ -2,12 +2,18 @@ package com.company.wallet.service;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -17,19 +23,36 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.company.wallet.archive.TransactionArchive;
+import com.company.wallet.cache.IdempotencyCache;
+import com.company.wallet.dto.TransactionPage;
+import com.company.wallet.dto.TransactionResult;
+import com.company.wallet.entities.ArchivedTransactionId;
 import com.company.wallet.entities.Transaction;
 import com.company.wallet.entities.Wallet;
 import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.metrics.WalletMetrics;
+import com.company.wallet.repository.ArchivedTransactionIdRepository;
 import com.company.wallet.repository.TransactionRepository;
 import com.company.wallet.repository.WalletRepository;
+import com.company.wallet.repository.WalletStatsRepository;
 import com.company.wallet.service.TransactionService;
 import com.company.wallet.service.TransactionServiceImpl;
 import com.company.wallet.service.WalletService;
+import com.company.wallet.sharding.ShardRing;
+import com.company.wallet.sharding.ShardRouter;
+import com.company.wallet.utils.Money;
 import com.company.wallet.utils.TransactionType;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 /**
  * TransactionService tests.
  *
@@ -43,6 +66,36 @@ public class TransactionServiceTest {
 		public TransactionService transactionService() {
 			return new TransactionServiceImpl();
 		}
+
+		@Bean
+		public TransactionWriter transactionWriter() {
+			return new TransactionWriter();
+		}
+
+		@Bean
+		public IdempotencyCache idempotencyCache() {
+			return new IdempotencyCache();
+		}
+
+		@Bean
+		public MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		public WalletMetrics walletMetrics() {
+			return new WalletMetrics();
+		}
+
+		@Bean
+		public OptimisticLockRetry optimisticLockRetry() {
+			return new OptimisticLockRetry();
+		}
+
+		@Bean
+		public PlayerLockManager playerLockManager() {
+			return new PlayerLockManager();
+		}
 	}
 	
 	public static final String PLAYER_ID_1 = "player1";
@@ -54,14 +107,32 @@ public class TransactionServiceTest {
 	@Autowired
     private TransactionService transactionService;
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private IdempotencyCache idempotencyCache;
+
     @MockBean
     private WalletRepository walletRepository;
 
     @MockBean
     private TransactionRepository transactionRepository;
+
+    @MockBean
+    private WalletStatsRepository walletStatsRepository;
+
+    @MockBean
+    private TransactionArchive transactionArchive;
+
+    @MockBean
+    private ArchivedTransactionIdRepository archivedTransactionIdRepository;
     
     @MockBean
     private WalletService walletService;
+
+    @MockBean
+    private TransactionBatchProcessor transactionBatchProcessor;
     
     private Wallet wallet1;
     private Wallet wallet2;
@@ -92,6 +163,8 @@ public class TransactionServiceTest {
 		Mockito.when(transactionRepository.findByWalletOrderByUpdatedTimeDesc(wallet1)).thenReturn(Arrays.asList(transactionCredit));
 
 		Mockito.when(transactionRepository.findByWalletOrderByUpdatedTimeDesc(wallet2)).thenReturn(Arrays.asList(transactionCredit));
+
+		Mockito.when(transactionArchive.readLock()).thenReturn(new ReentrantReadWriteLock().readLock());
 		
 		
 	}
@@ -117,10 +190,70 @@ public class TransactionServiceTest {
         }
     }	
 	
+    @Test
+    public void testGetTransactionPage_NextCursor() throws WalletException {
+        Mockito.when(transactionRepository.findByWalletOrderByUpdatedTimeDescIdDesc(Mockito.eq(wallet1), Mockito.any(Pageable.class)))
+                .thenReturn(new ArrayList<>(Arrays.asList(transactionDebit, transactionCredit)));
+        Mockito.when(transactionRepository.findPageAfter(Mockito.eq(wallet1), Mockito.eq(transactionDebit.getUpdatedTime()),
+                Mockito.eq(transactionDebit.getId()), Mockito.any(Pageable.class)))
+                .thenReturn(Arrays.asList(transactionCredit));
+
+        TransactionPage first = transactionService.getTransactionPage(wallet1, null, 1);
+        assertEquals(first.getTransactions().size(), 1);
+        assertEquals(first.getTransactions().get(0).getId(), transactionDebit.getId());
+        assertNotNull(first.getNextCursor());
+
+        TransactionPage second = transactionService.getTransactionPage(wallet1, first.getNextCursor(), 1);
+        assertEquals(second.getTransactions().get(0).getId(), transactionCredit.getId());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    public void testGetTransactionPage_ContinuesInArchive() throws WalletException {
+        Transaction archived1 = new Transaction("archived1", typeCredit, new BigDecimal(5), wallet1);
+        archived1.setId(2);
+        Transaction archived2 = new Transaction("archived2", typeCredit, new BigDecimal(5), wallet1);
+        archived2.setId(1);
+        Mockito.when(transactionRepository.findByWalletOrderByUpdatedTimeDescIdDesc(Mockito.eq(wallet1), Mockito.any(Pageable.class)))
+                .thenReturn(Arrays.asList(transactionDebit));
+        Mockito.when(transactionArchive.findPage(wallet1, transactionDebit.getUpdatedTime(), transactionDebit.getId(), 2))
+                .thenReturn(Arrays.asList(archived1, archived2));
+
+        TransactionPage first = transactionService.getTransactionPage(wallet1, null, 2);
+        assertEquals(Arrays.asList(transactionDebit, archived1), first.getTransactions());
+        assertNotNull(first.getNextCursor());
+
+        // the database has nothing older, the page is read from the archive only
+        Mockito.when(transactionArchive.findPage(wallet1, archived1.getUpdatedTime(), archived1.getId(), 3))
+                .thenReturn(Arrays.asList(archived2));
+        TransactionPage second = transactionService.getTransactionPage(wallet1, first.getNextCursor(), 2);
+        assertEquals(Arrays.asList(archived2), second.getTransactions());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    public void testGetTransactionsByWalletId_WithArchive() throws WalletException {
+        Transaction archived = new Transaction("archived", typeCredit, new BigDecimal(5), wallet1);
+        Mockito.when(transactionArchive.findAll(wallet1)).thenReturn(Arrays.asList(archived));
+
+        assertEquals(Arrays.asList(transactionCredit, archived), transactionService.getTransactionsByWallet(wallet1));
+    }
+
+    @Test
+    public void testGetTransactionPage_InvalidCursor() {
+        try {
+            transactionService.getTransactionPage(wallet1, "not a cursor", 10);
+            fail();
+        } catch (WalletException ex) {
+            assertTrue(ex.getMessage().contains("Please specify valid cursor"));
+            assertEquals(ex.getErrorCode(), HttpStatus.BAD_REQUEST.value());
+        }
+    }
+
     @Test
     public void testCreateTransaction_SuccessCredit() throws WalletException {
         int amount = 100;
-        Mockito.when(walletService.updateWalletAmount(wallet1,String.valueOf(amount),"CREDIT")).thenReturn(wallet1);
+        Mockito.when(walletService.updateWalletAmount(wallet1,Money.parse(String.valueOf(amount)),TransactionType.CREDIT)).thenReturn(wallet1);
         Mockito.when(transactionRepository.save(Mockito.any(Transaction.class))).thenReturn(transactionCredit);
         int counter = transactionIdCounter++;
         Transaction found = transactionService.createTransaction(String.valueOf(counter),wallet1.getPlayerId(),"CREDIT",String.valueOf(amount));
@@ -131,7 +264,7 @@ public class TransactionServiceTest {
     @Test
     public void testCreateTransaction_SuccessDebit() throws WalletException {
         int amount = -10;
-        Mockito.when(walletService.updateWalletAmount(wallet2,String.valueOf(amount),"DEBIT")).thenReturn(wallet2);
+        Mockito.when(walletService.updateWalletAmount(wallet2,Money.parse(String.valueOf(amount)),TransactionType.DEBIT)).thenReturn(wallet2);
         Mockito.when(transactionRepository.save(Mockito.any(Transaction.class))).thenReturn(transactionDebit);
         int counter = transactionIdCounter++;
         Transaction found = transactionService.createTransaction(String.valueOf(counter),wallet2.getPlayerId(),"DEBIT",String.valueOf(amount));
@@ -144,7 +277,7 @@ public class TransactionServiceTest {
         int amount = 100;
         int counter = transactionIdCounter++;
         
-        Mockito.when(walletService.updateWalletAmount(wallet1,String.valueOf(amount),"CREDIT")).thenReturn(wallet1);
+        Mockito.when(walletService.updateWalletAmount(wallet1,Money.parse(String.valueOf(amount)),TransactionType.CREDIT)).thenReturn(wallet1);
         Mockito.when(transactionRepository.save(Mockito.any(Transaction.class))).thenReturn(transactionCredit);
         try {
             Transaction found = transactionService.createTransaction(String.valueOf(counter),notFoundPlayerId,"CREDIT",String.valueOf(amount));
@@ -159,9 +292,10 @@ public class TransactionServiceTest {
     public void testCreateTransaction_DebitFailure() throws WalletException {
         int amount = -100;
         int counter = transactionIdCounter++;
-        Mockito.when(walletService.updateWalletAmount(wallet2,String.valueOf(amount),"DEBIT")).
+        Mockito.when(walletService.updateWalletAmount(wallet2,Money.parse(String.valueOf(amount)),TransactionType.DEBIT)).
                 thenThrow(new WalletException("No sufficient funds in account for withdrawl", HttpStatus.BAD_REQUEST.value()));
         Mockito.when(transactionRepository.save(Mockito.any(Transaction.class))).thenReturn(transactionDebit);
+        double failures = insufficientFunds();
         try {
         	Transaction found = transactionService.createTransaction(String.valueOf(counter),wallet2.getPlayerId(),"DEBIT",String.valueOf(amount));
             fail();
@@ -169,12 +303,17 @@ public class TransactionServiceTest {
         	assertTrue(ex.getMessage().contains("No sufficient funds in account for withdrawl"));
             assertEquals(ex.getErrorCode(),HttpStatus.BAD_REQUEST.value());
         }
+        assertEquals(insufficientFunds(), failures + 1, 0);
+    }
+
+    private double insufficientFunds() {
+        return meterRegistry.get("wallet.transaction.failures").tag("reason", "insufficient_funds").counter().count();
     }
     
     @Test
     public void testCreateTransaction_AmountNotNumber() throws WalletException {
         String wrongAmount = "INVALID_AMOUNT";
-        Mockito.when(walletService.updateWalletAmount(wallet1,String.valueOf(wrongAmount),"CREDIT")).thenReturn(wallet1);
+        Mockito.when(walletService.updateWalletAmount(Mockito.eq(wallet1),Mockito.any(Money.class),Mockito.eq(TransactionType.CREDIT))).thenReturn(wallet1);
         Mockito.when(transactionRepository.save(Mockito.any(Transaction.class))).thenReturn(transactionCredit);
         int counter = transactionIdCounter++;
         try {
@@ -185,5 +324,167 @@ public class TransactionServiceTest {
         }
     }
 
+    @Test
+    public void testCreateTransaction_ResubmissionReturnsOriginal() throws WalletException {
+        int amount = 100;
+        String transactionId = String.valueOf(transactionIdCounter++);
+        Transaction created = new Transaction(transactionId, typeCredit, new BigDecimal(amount), wallet1);
+        created.setId(7);
+        Mockito.when(walletService.updateWalletAmount(wallet1,Money.parse(String.valueOf(amount)),TransactionType.CREDIT)).thenReturn(wallet1);
+        Mockito.when(transactionRepository.save(Mockito.any(Transaction.class))).thenReturn(created);
+
+        transactionService.createTransaction(transactionId,wallet1.getPlayerId(),"CREDIT",String.valueOf(amount));
+        Transaction found = transactionService.createTransaction(transactionId,wallet1.getPlayerId(),"CREDIT",String.valueOf(amount));
+
+        assertEquals(found.getId(), created.getId());
+        Mockito.verify(walletService, Mockito.times(1)).updateWalletAmount(wallet1,Money.parse(String.valueOf(amount)),TransactionType.CREDIT);
+    }
+
+    @Test
+    public void testCreateTransaction_ResubmissionWithOtherAmount() throws WalletException {
+        int amount = 100;
+        String transactionId = String.valueOf(transactionIdCounter++);
+        Transaction created = new Transaction(transactionId, typeCredit, new BigDecimal(amount), wallet1);
+        created.setId(8);
+        Mockito.when(walletService.updateWalletAmount(wallet1,Money.parse(String.valueOf(amount)),TransactionType.CREDIT)).thenReturn(wallet1);
+        Mockito.when(transactionRepository.save(Mockito.any(Transaction.class))).thenReturn(created);
+
+        transactionService.createTransaction(transactionId,wallet1.getPlayerId(),"CREDIT",String.valueOf(amount));
+        try {
+            transactionService.createTransaction(transactionId,wallet1.getPlayerId(),"CREDIT","50");
+            fail();
+        } catch (WalletException ex){
+            assertTrue(ex.getMessage().contains("Transaction with transactionId " + transactionId + " already exists"));
+            assertEquals(ex.getErrorCode(),HttpStatus.CONFLICT.value());
+        }
+    }
+
+    @Test
+    public void testCreateTransaction_ResubmissionOfArchived() throws WalletException {
+        String transactionId = String.valueOf(transactionIdCounter++);
+        Transaction archived = new Transaction(transactionId, typeCredit, new BigDecimal(100), wallet1);
+        archived.setId(9);
+        // seen by the idempotency cache warm-up
+        idempotencyCache.mark(transactionId);
+        Mockito.when(archivedTransactionIdRepository.findOneByTransactionId(transactionId))
+                .thenReturn(new ArchivedTransactionId(9, transactionId, PLAYER_ID_1));
+        Mockito.when(transactionArchive.find(Mockito.any(Wallet.class), Mockito.eq(9))).thenReturn(archived);
+
+        Transaction found = transactionService.createTransaction(transactionId,wallet1.getPlayerId(),"CREDIT","100");
+        assertEquals(archived.getId(), found.getId());
+        try {
+            transactionService.createTransaction(transactionId,wallet1.getPlayerId(),"CREDIT","50");
+            fail();
+        } catch (WalletException ex){
+            assertEquals(ex.getErrorCode(),HttpStatus.CONFLICT.value());
+        }
+        Mockito.verify(walletService, Mockito.never()).updateWalletAmount(Mockito.any(Wallet.class),Mockito.any(Money.class),Mockito.any(TransactionType.class));
+    }
+
+    @Test
+    public void testFindTransactionById_Archived() throws WalletException {
+        Transaction archived = new Transaction("archivedById", typeCredit, new BigDecimal(5), wallet1);
+        archived.setId(10);
+        Mockito.when(archivedTransactionIdRepository.findOneById(10))
+                .thenReturn(new ArchivedTransactionId(10, "archivedById", PLAYER_ID_1));
+        Mockito.when(transactionArchive.find(Mockito.any(Wallet.class), Mockito.eq(10))).thenReturn(archived);
+
+        assertEquals(archived, transactionService.findTransactionById(10));
+        try {
+            transactionService.findTransactionById(11);
+            fail();
+        } catch (WalletException ex){
+            assertEquals(ex.getErrorCode(),HttpStatus.NOT_FOUND.value());
+        }
+    }
+
+    @Test
+    public void testCreateTransaction_DuplicateInDatabase() throws WalletException {
+        int amount = 100;
+        int counter = transactionIdCounter++;
+        Mockito.when(walletService.updateWalletAmount(wallet1,Money.parse(String.valueOf(amount)),TransactionType.CREDIT)).thenReturn(wallet1);
+        Mockito.when(transactionRepository.save(Mockito.any(Transaction.class)))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement"));
+        try {
+            transactionService.createTransaction(String.valueOf(counter),wallet1.getPlayerId(),"CREDIT",String.valueOf(amount));
+            fail();
+        } catch (WalletException ex){
+            assertEquals(ex.getErrorCode(),HttpStatus.CONFLICT.value());
+        }
+    }
+	
+    @Test
+    public void testCreateTransactions_InvalidItemsReportedSeparately() throws WalletException {
+        String validId = String.valueOf(transactionIdCounter++);
+        Mockito.when(transactionBatchProcessor.process(Mockito.anyList())).thenAnswer(invocation -> {
+            List<TransactionBatchItem> items = invocation.getArgument(0);
+            assertEquals(items.size(), 1);
+            return Arrays.asList(new TransactionResult(items.get(0).getIndex(), items.get(0).getTransactionId(),
+                    HttpStatus.CREATED.value(), transactionCredit.getId(), null));
+        });
+
+        List<TransactionResult> results = transactionService.createTransactions(Arrays.asList(
+                transactionData(validId, PLAYER_ID_1, "CREDIT", "10"),
+                transactionData(validId, PLAYER_ID_1, "CREDIT", "10"),
+                transactionData(String.valueOf(transactionIdCounter++), PLAYER_ID_1, "CREDIT", "INVALID_AMOUNT")));
+
+        assertEquals(results.size(), 3);
+        assertEquals(results.get(0).getStatus(), HttpStatus.CREATED.value());
+        assertEquals(results.get(0).getId(), transactionCredit.getId());
+        assertEquals(results.get(1).getStatus(), HttpStatus.CONFLICT.value());
+        assertEquals(results.get(2).getStatus(), HttpStatus.BAD_REQUEST.value());
+        assertTrue(results.get(2).getMessage().contains("Please specify valid amount"));
+    }
+
+    @Test
+    public void testCreateTransaction_ShardedUnseenDuplicate() throws WalletException {
+        // written by another node or before the warm-up, so not in the idempotency cache
+        String transactionId = String.valueOf(transactionIdCounter++);
+        Transaction original = new Transaction(transactionId, typeCredit, new BigDecimal(10), wallet2);
+        original.setId(12);
+        Mockito.when(transactionRepository.findExistingTransactionIds(Mockito.anyCollection()))
+                .thenAnswer(invocation -> new ArrayList<>(invocation.<Collection<String>> getArgument(0)));
+        Mockito.when(transactionRepository.findWithWalletByTransactionId(transactionId)).thenReturn(original);
+
+        ShardRouter shardRouter = new ShardRouter(new ShardRing(Arrays.asList("shard-0", "shard-1"), 128));
+        ReflectionTestUtils.setField(transactionService, "shardRouter", shardRouter);
+        try {
+            try {
+                transactionService.createTransaction(transactionId,wallet1.getPlayerId(),"CREDIT","10");
+                fail();
+            } catch (WalletException ex){
+                assertEquals(ex.getErrorCode(),HttpStatus.CONFLICT.value());
+            }
+
+            List<TransactionResult> results = transactionService.createTransactions(Arrays.asList(
+                    transactionData(String.valueOf(transactionIdCounter++), PLAYER_ID_1, "CREDIT", "10")));
+            assertEquals(results.get(0).getStatus(), HttpStatus.CONFLICT.value());
+        } finally {
+            ReflectionTestUtils.setField(transactionService, "shardRouter", null);
+            shardRouter.shutdown();
+        }
+        Mockito.verify(walletService, Mockito.never()).updateWalletAmount(Mockito.any(Wallet.class),Mockito.any(Money.class),Mockito.any(TransactionType.class));
+        Mockito.verify(transactionBatchProcessor, Mockito.never()).process(Mockito.anyList());
+    }
+
+    @Test
+    public void testCreateTransactions_Empty() {
+        try {
+            transactionService.createTransactions(new ArrayList<>());
+            fail();
+        } catch (WalletException ex) {
+            assertEquals(ex.getErrorCode(), HttpStatus.BAD_REQUEST.value());
+        }
+    }
+
+    private Map<String, String> transactionData(String transactionId, String playerId, String transactionType,
+            String amount) {
+        Map<String, String> dataMap = new HashMap<>();
+        dataMap.put("transactionId", transactionId);
+        dataMap.put("playerId", playerId);
+        dataMap.put("transactionType", transactionType);
+        dataMap.put("amount", amount);
+        return dataMap;
+    }
 	
 }
@@ -2,11 +2,13 @@ package com.company.wallet.service;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,12 +22,22 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.company.wallet.cache.WalletCache;
+import com.company.wallet.dto.PlayerStats;
+import com.company.wallet.dto.PointInTimeBalance;
+import com.company.wallet.entities.BalanceCheckpoint;
 import com.company.wallet.entities.Wallet;
+import com.company.wallet.entities.WalletStats;
 import com.company.wallet.exception.handler.WalletException;
+import com.company.wallet.repository.BalanceCheckpointRepository;
+import com.company.wallet.repository.TransactionRepository;
 import com.company.wallet.repository.WalletRepository;
+import com.company.wallet.repository.WalletStatsRepository;
 import com.company.wallet.service.WalletService;
 import com.company.wallet.service.WalletServiceImpl;
+import com.company.wallet.utils.Money;
 
 /**
  * WalletService tests.
@@ -40,6 +52,11 @@ public class WalletServiceTest {
 		public WalletService walletService() {
 			return new WalletServiceImpl();
 		}
+
+		@Bean
+		public WalletCache walletCache() {
+			return new WalletCache();
+		}
 	}
 
 	public static final String PLAYER_ID_1 = "player1";
@@ -51,6 +68,15 @@ public class WalletServiceTest {
 	@MockBean
 	private WalletRepository walletRepository;
 
+	@MockBean
+	private BalanceCheckpointRepository balanceCheckpointRepository;
+
+	@MockBean
+	private TransactionRepository transactionRepository;
+
+	@MockBean
+	private WalletStatsRepository walletStatsRepository;
+
 	Wallet wallet1;
 	Wallet wallet2;
 
@@ -72,6 +98,9 @@ public class WalletServiceTest {
 		Mockito.when(walletRepository.findWalletByPlayerId("test")).thenReturn(null);
 		Mockito.when(walletRepository.save(wallet1)).thenReturn(wallet1);
 		Mockito.when(walletRepository.save(wallet2)).thenReturn(wallet2);
+		// walletService.updateWalletAmount
+		Mockito.when(walletRepository.updateBalance(Mockito.anyString(), Mockito.anyLong(),
+				Mockito.any(Date.class))).thenReturn(1);
 	}
 
 	@Test
@@ -83,6 +112,22 @@ public class WalletServiceTest {
 		assertTrue(found.get(1).getId().equals(wallet2.getId()));
 	}
 
+	@Test
+	public void testFindWalletByPlayerId_Cached() throws WalletException {
+		Wallet cached = new Wallet("cachedPlayer", new BigDecimal(10));
+		cached.setId(3);
+		Mockito.when(walletRepository.findWalletByPlayerId("cachedPlayer")).thenReturn(cached);
+
+		walletService.findWalletByPlayerId("cachedPlayer");
+		Wallet found = walletService.findWalletByPlayerId("cachedPlayer");
+		assertEquals(found.getId(), cached.getId());
+		Mockito.verify(walletRepository, Mockito.times(1)).findWalletByPlayerId("cachedPlayer");
+
+		walletService.updateWalletAmount(found, "5", "CREDIT");
+		walletService.findWalletByPlayerId("cachedPlayer");
+		Mockito.verify(walletRepository, Mockito.times(2)).findWalletByPlayerId("cachedPlayer");
+	}
+
 	@Test
 	public void testfindWalletByPlayerId_Success() throws WalletException {
 		Wallet found = walletService.findWalletByPlayerId(wallet1.getPlayerId());
@@ -110,6 +155,7 @@ public class WalletServiceTest {
 		Mockito.when(walletRepository.save(Mockito.any(Wallet.class))).thenReturn(wallet1);
 		Wallet found = walletService.createWallet(PLAYER_ID_1, "10");
 		assertEquals(found.getId(), wallet1.getId());
+		Mockito.verify(walletStatsRepository).save(Mockito.argThat(stats -> wallet1.getId().equals(stats.getWalletId())));
 	}
 
 	@Test
@@ -131,6 +177,8 @@ public class WalletServiceTest {
 	@Test
 	public void testUpdateWalletAmount_isDebitFailure() throws WalletException {
 		int amount = 100;
+		Mockito.when(walletRepository.updateBalance(Mockito.eq(PLAYER_ID_2), Mockito.eq(-amount * 100L),
+				Mockito.any(Date.class))).thenReturn(0);
 		try {
 			Wallet found = walletService.updateWalletAmount(wallet2, String.valueOf(amount), "DEBIT");
 			fail();
@@ -152,4 +200,100 @@ public class WalletServiceTest {
 		}
 	}
 
+	@Test(expected = IllegalStateException.class)
+	public void testUpdateWalletAmount_LedgerMode() throws WalletException {
+		ReflectionTestUtils.setField(walletService, "transactionMode", "ledger");
+		try {
+			walletService.updateWalletAmount(wallet1, "10", "CREDIT");
+		} finally {
+			ReflectionTestUtils.setField(walletService, "transactionMode", "jpa");
+		}
+	}
+
+	@Test
+	public void testGetBalanceAt_FromCheckpoint() throws WalletException {
+		wallet1.setCreatedTime(new Date(0));
+		Date checkpointTime = new Date(1000);
+		Date at = new Date(5000);
+		Mockito.when(balanceCheckpointRepository
+				.findFirstByWalletIdAndCheckpointTimeLessThanEqualOrderByCheckpointTimeDesc(wallet1.getId(), at))
+				.thenReturn(new BalanceCheckpoint(wallet1.getId(), checkpointTime, Money.ofMinor(700)));
+		Mockito.when(transactionRepository.sumAmountBetween(wallet1, checkpointTime, at)).thenReturn(-250L);
+
+		PointInTimeBalance balance = walletService.getBalanceAt(PLAYER_ID_1, "1970-01-01T00:00:05Z");
+		assertEquals(new BigDecimal("4.5"), balance.getBalance());
+		assertEquals(at, balance.getAt());
+	}
+
+	@Test
+	public void testGetBalanceAt_BeforeFirstCheckpoint() throws WalletException {
+		wallet1.setCreatedTime(new Date(0));
+		Date checkpointTime = new Date(9000);
+		Date at = new Date(5000);
+		Mockito.when(balanceCheckpointRepository
+				.findFirstByWalletIdAndCheckpointTimeGreaterThanOrderByCheckpointTimeAsc(wallet1.getId(), at))
+				.thenReturn(new BalanceCheckpoint(wallet1.getId(), checkpointTime, Money.ofMinor(700)));
+		Mockito.when(transactionRepository.sumAmountBetween(wallet1, at, checkpointTime)).thenReturn(200L);
+
+		PointInTimeBalance balance = walletService.getBalanceAt(PLAYER_ID_1, "1970-01-01T00:00:05Z");
+		assertEquals(new BigDecimal("5"), balance.getBalance());
+	}
+
+	@Test
+	public void testGetBalanceAt_Invalid() throws WalletException {
+		try {
+			walletService.getBalanceAt(PLAYER_ID_1, "yesterday");
+			fail();
+		} catch (WalletException ex) {
+			assertEquals(ex.getErrorCode(), HttpStatus.BAD_REQUEST.value());
+		}
+		try {
+			walletService.getBalanceAt(PLAYER_ID_1, "1970-01-01T00:00:05Z");
+			fail();
+		} catch (WalletException ex) {
+			assertTrue(ex.getMessage().contains("did not exist"));
+			assertEquals(ex.getErrorCode(), HttpStatus.NOT_FOUND.value());
+		}
+	}
+
+	@Test
+	public void testGetStats_WithoutStats() throws WalletException {
+		Mockito.when(walletStatsRepository.findById(wallet1.getId())).thenReturn(Optional.empty());
+
+		PlayerStats stats = walletService.getStats(PLAYER_ID_1);
+		assertEquals(PLAYER_ID_1, stats.getPlayerId());
+		assertEquals(0, stats.getDepositCount());
+		assertEquals(0, stats.getWithdrawalCount());
+		assertEquals(0, BigDecimal.ZERO.compareTo(stats.getDepositAmount()));
+		assertNull(stats.getLastActivity());
+	}
+
+	@Test
+	public void testGetStats_Success() throws WalletException {
+		WalletStats walletStats = Mockito.mock(WalletStats.class);
+		Mockito.when(walletStats.getDepositCount()).thenReturn(3L);
+		Mockito.when(walletStats.getDepositAmount()).thenReturn(Money.ofMinor(4500));
+		Mockito.when(walletStats.getWithdrawalCount()).thenReturn(1L);
+		Mockito.when(walletStats.getWithdrawalAmount()).thenReturn(Money.ofMinor(250));
+		Mockito.when(walletStats.getLastActivity()).thenReturn(new Date(5000));
+		Mockito.when(walletStatsRepository.findById(wallet1.getId())).thenReturn(Optional.of(walletStats));
+
+		PlayerStats stats = walletService.getStats(PLAYER_ID_1);
+		assertEquals(3, stats.getDepositCount());
+		assertEquals(new BigDecimal("45"), stats.getDepositAmount());
+		assertEquals(1, stats.getWithdrawalCount());
+		assertEquals(new BigDecimal("2.5"), stats.getWithdrawalAmount());
+		assertEquals(new Date(5000), stats.getLastActivity());
+	}
+
+	@Test
+	public void testGetStats_DoesntExist() throws WalletException {
+		try {
+			walletService.getStats("test");
+			fail();
+		} catch (WalletException ex) {
+			assertEquals(ex.getErrorCode(), HttpStatus.NOT_FOUND.value());
+		}
+	}
+
 }
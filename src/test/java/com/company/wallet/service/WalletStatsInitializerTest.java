@@ -0,0 +1,132 @@
+package com.company.wallet.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.company.wallet.archive.TransactionArchive;
+import com.company.wallet.entities.Transaction;
+import com.company.wallet.entities.Wallet;
+import com.company.wallet.entities.WalletStats;
+import com.company.wallet.repository.WalletStatsRepository;
+import com.company.wallet.utils.Money;
+import com.company.wallet.utils.TransactionType;
+
+/**
+ * WalletStatsInitializer tests.
+ * Use in-memory h2database
+ *
+ * @author Vinay Singh
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(WalletStatsInitializer.class)
+public class WalletStatsInitializerTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private WalletStatsInitializer walletStatsInitializer;
+
+	@Autowired
+	private WalletStatsRepository walletStatsRepository;
+
+	@MockBean
+	private TransactionArchive transactionArchive;
+
+	@Before
+	public void setUp() {
+		Mockito.when(transactionArchive.readLock()).thenReturn(new ReentrantReadWriteLock().readLock());
+	}
+
+	private Transaction transaction(String transactionId, TransactionType type, long minorUnits, Wallet wallet,
+			long time) {
+		Transaction transaction = new Transaction(transactionId, type, Money.ofMinor(minorUnits), wallet);
+		transaction.setUpdatedTime(new Date(time));
+		return entityManager.persist(transaction);
+	}
+
+	@Test
+	public void whenBackfill_thenStatsFromTransactions() {
+		Wallet active = entityManager.persist(new Wallet("active", Money.parse("10")));
+		Wallet idle = entityManager.persist(new Wallet("idle", Money.parse("10")));
+		Wallet tracked = entityManager.persist(new Wallet("tracked", Money.parse("10")));
+		transaction("t1", TransactionType.CREDIT, 1000, active, 1000);
+		transaction("t2", TransactionType.CREDIT, 500, active, 3000);
+		transaction("t3", TransactionType.DEBIT, -250, active, 2000);
+		transaction("t4", TransactionType.CREDIT, 700, tracked, 1000);
+		entityManager.persist(new WalletStats(tracked.getId()));
+		entityManager.flush();
+
+		walletStatsInitializer.backfill();
+		entityManager.clear();
+
+		WalletStats stats = walletStatsRepository.findById(active.getId()).get();
+		assertEquals(2, stats.getDepositCount());
+		assertEquals(Money.ofMinor(1500), stats.getDepositAmount());
+		assertEquals(1, stats.getWithdrawalCount());
+		assertEquals(Money.ofMinor(250), stats.getWithdrawalAmount());
+		assertEquals(3000, stats.getLastActivity().getTime());
+
+		stats = walletStatsRepository.findById(idle.getId()).get();
+		assertEquals(0, stats.getDepositCount());
+		assertEquals(Money.ofMinor(0), stats.getDepositAmount());
+		assertNull(stats.getLastActivity());
+
+		// existing stats are left alone
+		stats = walletStatsRepository.findById(tracked.getId()).get();
+		assertEquals(0, stats.getDepositCount());
+	}
+
+	@Test
+	public void whenBackfill_thenArchivedTransactionsCounted() {
+		Wallet archived = entityManager.persist(new Wallet("archived", Money.parse("10")));
+		Wallet dormant = entityManager.persist(new Wallet("dormant", Money.parse("10")));
+		transaction("t5", TransactionType.DEBIT, 100, archived, 5000);
+		entityManager.flush();
+		Mockito.when(transactionArchive.findAll(Mockito.argThat(wallet -> wallet != null
+				&& "archived".equals(wallet.getPlayerId())))).thenReturn(Arrays.asList(
+						archivedTransaction(TransactionType.CREDIT, 1000, 2000),
+						archivedTransaction(TransactionType.DEBIT, 300, 1000)));
+		Mockito.when(transactionArchive.findAll(Mockito.argThat(wallet -> wallet != null
+				&& "dormant".equals(wallet.getPlayerId())))).thenReturn(Arrays.asList(
+						archivedTransaction(TransactionType.CREDIT, 400, 4000)));
+
+		walletStatsInitializer.backfill();
+		entityManager.clear();
+
+		WalletStats stats = walletStatsRepository.findById(archived.getId()).get();
+		assertEquals(1, stats.getDepositCount());
+		assertEquals(Money.ofMinor(1000), stats.getDepositAmount());
+		assertEquals(2, stats.getWithdrawalCount());
+		assertEquals(Money.ofMinor(400), stats.getWithdrawalAmount());
+		assertEquals(5000, stats.getLastActivity().getTime());
+
+		// all transactions archived
+		stats = walletStatsRepository.findById(dormant.getId()).get();
+		assertEquals(1, stats.getDepositCount());
+		assertEquals(Money.ofMinor(400), stats.getDepositAmount());
+		assertEquals(4000, stats.getLastActivity().getTime());
+	}
+
+	private static Transaction archivedTransaction(TransactionType type, long minorUnits, long time) {
+		Transaction transaction = new Transaction("archived-" + time, type, Money.ofMinor(minorUnits), null);
+		transaction.setUpdatedTime(new Date(time));
+		return transaction;
+	}
+}
@@ -0,0 +1,138 @@
+package com.company.wallet.sharding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.company.wallet.exception.handler.WalletException;
+
+/**
+ * ShardRebalancer tests.
+ *
+ * @author Vinay Singh
+ */
+public class ShardRebalancerTest {
+	private ShardRouter shardRouter;
+	private ShardRoutingDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+	private ShardRebalancer shardRebalancer;
+
+	/** player owned by shard 1 */
+	private String playerId;
+
+	@Before
+	public void setUp() {
+		String name = UUID.randomUUID().toString();
+		List<DataSource> shards = new ArrayList<>();
+		for (int shard = 0; shard < 2; shard++) {
+			shards.add(new DriverManagerDataSource("jdbc:h2:mem:" + name + "-" + shard + ";DB_CLOSE_DELAY=-1"));
+		}
+		shardRouter = new ShardRouter(new ShardRing(Arrays.asList("shard-0", "shard-1"), 128));
+		dataSource = new ShardRoutingDataSource(shards);
+		dataSource.afterPropertiesSet();
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		shardRebalancer = new ShardRebalancer(shardRouter, dataSource, new DataSourceTransactionManager(dataSource));
+
+		shardRouter.fanOut(shard -> {
+			jdbcTemplate.execute("create table wallet (id integer primary key, player_id varchar(255), balance bigint, "
+					+ "created_time timestamp, updated_time timestamp, version bigint)");
+			jdbcTemplate.execute("create table transaction (id integer primary key, transaction_id varchar(255), "
+					+ "transaction_type integer, amount bigint, wallet_id integer, updated_time timestamp)");
+			jdbcTemplate.execute("create table balance_checkpoint (wallet_id integer, checkpoint_time timestamp, "
+					+ "balance bigint)");
+			jdbcTemplate.execute("create table wallet_stats (wallet_id integer primary key, deposit_count bigint, "
+					+ "deposit_amount bigint, withdrawal_count bigint, withdrawal_amount bigint, "
+					+ "last_activity timestamp)");
+			jdbcTemplate.execute("create table archived_transaction_id (id integer primary key, "
+					+ "transaction_id varchar(255), player_id varchar(255))");
+			return null;
+		});
+		for (int i = 0; playerId == null; i++) {
+			if (shardRouter.shardOf("player" + i) == 1) {
+				playerId = "player" + i;
+			}
+		}
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		shardRouter.fanOut(shard -> {
+			jdbcTemplate.execute("drop all objects");
+			return null;
+		});
+		dataSource.close();
+		shardRouter.shutdown();
+	}
+
+	private void insertWallet(int shard, int id, long balance) {
+		shardRouter.onShard(shard, () -> {
+			jdbcTemplate.update("insert into wallet values (?, ?, ?, current_timestamp, current_timestamp, 0)", id,
+					playerId, balance);
+			return null;
+		});
+	}
+
+	private List<Long> balances(int shard) {
+		return shardRouter.onShard(shard,
+				() -> jdbcTemplate.queryForList("select balance from wallet where player_id = ?", Long.class, playerId));
+	}
+
+	@Test
+	public void testRebalance_MovesWallet() throws Exception {
+		insertWallet(0, 1, 500);
+		shardRouter.onShard(0, () -> jdbcTemplate.update("insert into transaction values (1, 't1', 0, 500, 1, "
+				+ "current_timestamp)"));
+		shardRouter.onShard(0, () -> jdbcTemplate.update("insert into archived_transaction_id values (2, 't0', ?)",
+				playerId));
+
+		assertEquals(1, shardRebalancer.rebalance());
+		assertEquals(Arrays.asList(), balances(0));
+		assertEquals(Arrays.asList(500L), balances(1));
+		assertEquals(Long.valueOf(1), shardRouter.onShard(1,
+				() -> jdbcTemplate.queryForObject("select count(*) from transaction where wallet_id = 1", Long.class)));
+		assertEquals(Arrays.asList("t0"), shardRouter.onShard(1, () -> jdbcTemplate.queryForList(
+				"select transaction_id from archived_transaction_id where player_id = ?", String.class, playerId)));
+		assertEquals(Arrays.asList(), shardRouter.onShard(0, () -> jdbcTemplate.queryForList(
+				"select transaction_id from archived_transaction_id", String.class)));
+	}
+
+	@Test
+	public void testRebalance_FinishesInterruptedMove() throws Exception {
+		insertWallet(0, 1, 500);
+		insertWallet(1, 1, 500);
+
+		assertEquals(1, shardRebalancer.rebalance());
+		assertEquals(Arrays.asList(), balances(0));
+		assertEquals(Arrays.asList(500L), balances(1));
+	}
+
+	@Test
+	public void testRebalance_WalletCreatedOnTargetShard() {
+		insertWallet(0, 1, 500);
+		insertWallet(1, 100000001, 0);
+
+		try {
+			shardRebalancer.rebalance();
+			fail();
+		} catch (WalletException ex) {
+			assertEquals(HttpStatus.CONFLICT.value(), ex.getErrorCode());
+		}
+		assertEquals(Arrays.asList(500L), balances(0));
+		assertEquals(Arrays.asList(0L), balances(1));
+	}
+}
@@ -0,0 +1,62 @@
+package com.company.wallet.sharding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * ShardRing tests.
+ *
+ * @author Vinay Singh
+ */
+public class ShardRingTest {
+	private static final int PLAYERS = 100000;
+
+	@Test
+	public void testShardOf_Stable() {
+		ShardRing ring = new ShardRing(Arrays.asList("shard-0", "shard-1", "shard-2"), 128);
+		ShardRing same = new ShardRing(Arrays.asList("shard-0", "shard-1", "shard-2"), 128);
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(ring.shardOf("player" + i), same.shardOf("player" + i));
+		}
+	}
+
+	@Test
+	public void testShardOf_Balanced() {
+		ShardRing ring = new ShardRing(Arrays.asList("shard-0", "shard-1", "shard-2", "shard-3"), 128);
+		int[] counts = new int[4];
+		for (int i = 0; i < PLAYERS; i++) {
+			counts[ring.shardOf("player" + i)]++;
+		}
+		for (int count : counts) {
+			// within 20% of a fair share
+			assertTrue(Arrays.toString(counts), Math.abs(count - PLAYERS / 4) < PLAYERS / 20);
+		}
+	}
+
+	@Test
+	public void testAddShard_OnlyMovesToNewShard() {
+		ShardRing before = new ShardRing(Arrays.asList("shard-0", "shard-1", "shard-2"), 128);
+		ShardRing after = new ShardRing(Arrays.asList("shard-0", "shard-1", "shard-2", "shard-3"), 128);
+		int moved = 0;
+		for (int i = 0; i < PLAYERS; i++) {
+			int from = before.shardOf("player" + i);
+			int to = after.shardOf("player" + i);
+			if (from != to) {
+				assertEquals(3, to);
+				moved++;
+			}
+		}
+		assertTrue(String.valueOf(moved), moved > PLAYERS / 5 && moved < PLAYERS * 3 / 10);
+	}
+
+	@Test
+	public void testSingleShard() {
+		ShardRing ring = new ShardRing(Arrays.asList("shard-0"), 128);
+		assertEquals(0, ring.shardOf("player1"));
+		assertEquals(1, ring.shardCount());
+	}
+}
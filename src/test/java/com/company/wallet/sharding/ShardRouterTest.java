@@ -0,0 +1,76 @@
+package com.company.wallet.sharding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * ShardRouter tests.
+ *
+ * @author Vinay Singh
+ */
+public class ShardRouterTest {
+	private final ShardRouter shardRouter = new ShardRouter(
+			new ShardRing(Arrays.asList("shard-0", "shard-1", "shard-2"), 128));
+
+	@After
+	public void tearDown() {
+		shardRouter.shutdown();
+	}
+
+	@Test
+	public void testFanOut_RunsOnEveryShard() {
+		List<Integer> shards = shardRouter.fanOut(shard -> ShardContext.current());
+		assertEquals(Arrays.asList(0, 1, 2), shards);
+		assertNull(ShardContext.current());
+	}
+
+	@Test
+	public void testFindFirst() {
+		assertEquals("found on 1", shardRouter.findFirst(shard -> shard >= 1 ? "found on " + shard : null));
+		assertNull(shardRouter.findFirst(shard -> null));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testFanOut_Failure() {
+		shardRouter.fanOut(shard -> {
+			throw new IllegalStateException("shard down");
+		});
+	}
+
+	@Test
+	public void testOnShard_RestoresPrevious() {
+		Integer previous = ShardContext.enter(2);
+		try {
+			assertEquals(Integer.valueOf(1), shardRouter.onShard(1, ShardContext::current));
+			assertEquals(Integer.valueOf(2), ShardContext.current());
+		} finally {
+			ShardContext.restore(previous);
+		}
+	}
+
+	@Test
+	public void testPartition_KeepsOrder() {
+		List<String> players = Arrays.asList("p1", "p2", "p3", "p4", "p5", "p6", "p7", "p8");
+		Map<Integer, List<String>> partitions = shardRouter.partition(players, player -> player);
+		int total = 0;
+		for (Map.Entry<Integer, List<String>> partition : partitions.entrySet()) {
+			int last = -1;
+			for (String player : partition.getValue()) {
+				assertEquals(partition.getKey().intValue(), shardRouter.shardOf(player));
+				int position = players.indexOf(player);
+				assertTrue(position > last);
+				last = position;
+			}
+			total += partition.getValue().size();
+		}
+		assertEquals(players.size(), total);
+	}
+}
@@ -0,0 +1,72 @@
+package com.company.wallet.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import org.junit.Test;
+
+/**
+ * Money tests.
+ *
+ * @author Vinay Singh
+ */
+public class MoneyTest {
+
+	@Test
+	public void testParse() {
+		assertEquals(1250, Money.parse("12.5").getMinorUnits());
+		assertEquals(-1205, Money.parse("-12.05").getMinorUnits());
+		assertEquals(1200, Money.parse("+12").getMinorUnits());
+		assertEquals(50, Money.parse(".5").getMinorUnits());
+		assertEquals(1000, Money.parse("10.000").getMinorUnits());
+		assertEquals(12, Money.parse("12", 0).getMinorUnits());
+		assertEquals(Long.MAX_VALUE, Money.parse("92233720368547758.07").getMinorUnits());
+		assertEquals(Long.MIN_VALUE, Money.parse("-92233720368547758.08").getMinorUnits());
+	}
+
+	@Test
+	public void testParse_Invalid() {
+		for (String text : new String[] { "", "-", ".", "1.2.3", "1e3", " 1", "12.345", "92233720368547758.08",
+				"INVALID_AMOUNT" }) {
+			try {
+				Money.parse(text);
+				fail(text);
+			} catch (NumberFormatException ex) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testArithmetic() {
+		Money amount = Money.parse("10.50");
+		assertEquals(Money.parse("-10.5"), amount.negate());
+		assertEquals(amount, amount.negate().abs());
+		assertEquals(Money.parse("21"), amount.add(amount));
+		assertEquals(Money.zero(Money.SCALE), amount.subtract(amount));
+		assertEquals(1, amount.compareTo(Money.parse("10.49")));
+	}
+
+	@Test(expected = ArithmeticException.class)
+	public void testAdd_Overflow() {
+		Money.ofMinor(Long.MAX_VALUE).add(Money.ofMinor(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAdd_DifferentScale() {
+		Money.ofMinor(1, 2).add(Money.ofMinor(1, 0));
+	}
+
+	@Test
+	public void testFormat() {
+		assertEquals("12.50", Money.parse("12.5").toString());
+		assertEquals("-0.05", Money.parse("-0.05").toString());
+		assertEquals(new BigDecimal(20), Money.parse("20.00").toBigDecimal());
+		assertEquals(new BigDecimal("10.5"), Money.parse("10.50").toBigDecimal());
+		assertEquals(0, Money.scaleOf(Currency.getInstance("JPY")));
+		assertEquals(Money.parse("1.5"), Money.of(new BigDecimal("1.50")));
+	}
+}
@@ -0,0 +1,40 @@
+package com.company.wallet.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * VirtualThreads tests, on Java 21 and on older runtimes.
+ *
+ * @author Vinay Singh
+ */
+public class VirtualThreadsTest {
+
+	@Test
+	public void testThreadPerTaskExecutor() throws Exception {
+		if (!VirtualThreads.isSupported()) {
+			try {
+				VirtualThreads.newThreadPerTaskExecutor("test-");
+				fail();
+			} catch (IllegalStateException ex) {
+				assertTrue(ex.getMessage().contains("Virtual threads need Java 21"));
+			}
+			return;
+		}
+
+		ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("test-");
+		try {
+			Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+			assertEquals(Boolean.TRUE, Thread.class.getMethod("isVirtual").invoke(thread));
+			assertTrue(thread.getName().startsWith("test-"));
+		} finally {
+			executor.shutdown();
+		}
+	}
+}